@@ -0,0 +1,47 @@
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Runs one document's analyses in order on a pool shared by every open document. A document has at most one
+// analysis running and one waiting: a new request replaces the waiting one, whose text is already out of
+// date. After each analysis the document goes to the back of the pool's queue, so a huge document takes its
+// turn with the others instead of holding a thread while they wait.
+final class AnalysisPipeline {
+    static final int THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() - 1); // One core for the EDT
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+    private static final ExecutorService POOL = Executors.newFixedThreadPool(THREADS, task -> {
+        Thread thread = new Thread(task, "wpp-analysis-" + THREAD_COUNT.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private Runnable waiting;
+    private boolean scheduled; // Queued on the pool or running there
+
+    synchronized void submit(Runnable analysis) {
+        waiting = analysis;
+        if (!scheduled) {
+            scheduled = true;
+            POOL.execute(this::runNext);
+        }
+    }
+
+    private void runNext() {
+        Runnable analysis;
+        synchronized (this) {
+            analysis = waiting;
+            waiting = null;
+        }
+        try {
+            analysis.run();
+        } finally {
+            synchronized (this) {
+                if (waiting != null) {
+                    POOL.execute(this::runNext);
+                } else {
+                    scheduled = false;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,371 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Minimal class-file assembler: a deduplicated constant pool, static fields, and methods whose code is
+// written opcode by opcode. Branches go to labels patched when the method ends; stack map frames are full
+// frames supplied by the caller, which is all the type-checking verifier needs from straight-line code.
+final class ClassFileWriter {
+    static final int ACC_STATIC = 0x0008;
+    private static final int ACC_FINAL = 0x0010, ACC_SUPER = 0x0020;
+    private static final int MAJOR_VERSION = 52; // Java 8: the oldest format that requires stack map frames
+
+    // Verification types for frames; objects are OBJECT combined with their class constant
+    static final int INTEGER = 1, DOUBLE = 3;
+    private static final int OBJECT = 7;
+
+    private final Bytes pool = new Bytes();
+    private int poolCount = 1;
+    private final Map<String, Integer> constants = new HashMap<>();
+    private final Bytes fields = new Bytes();
+    private int fieldCount;
+    private final Bytes methods = new Bytes();
+    private int methodCount;
+    private final String className;
+
+    ClassFileWriter(String className) {
+        this.className = className;
+    }
+
+    // Growable big-endian byte buffer
+    private static final class Bytes {
+        byte[] data = new byte[256];
+        int length;
+
+        void u1(int value) {
+            if (length == data.length) {
+                data = Arrays.copyOf(data, length * 2);
+            }
+            data[length++] = (byte) value;
+        }
+
+        void u2(int value) {
+            u1(value >>> 8);
+            u1(value);
+        }
+
+        void u4(int value) {
+            u2(value >>> 16);
+            u2(value);
+        }
+
+        void u2At(int position, int value) {
+            data[position] = (byte) (value >>> 8);
+            data[position + 1] = (byte) value;
+        }
+
+        void append(Bytes other) {
+            for (int i = 0; i < other.length; i++) {
+                u1(other.data[i]);
+            }
+        }
+
+        // Modified UTF-8 as the class-file format stores it
+        void utf8(String value) {
+            int start = length;
+            u2(0);
+            for (int i = 0; i < value.length(); i++) {
+                char ch = value.charAt(i);
+                if (ch >= 1 && ch <= 0x7F) {
+                    u1(ch);
+                } else if (ch <= 0x7FF) {
+                    u1(0xC0 | (ch >> 6));
+                    u1(0x80 | (ch & 0x3F));
+                } else {
+                    u1(0xE0 | (ch >> 12));
+                    u1(0x80 | ((ch >> 6) & 0x3F));
+                    u1(0x80 | (ch & 0x3F));
+                }
+            }
+            int size = length - start - 2;
+            if (size > 0xFFFF) {
+                throw new IllegalStateException("Constant too long for a class file");
+            }
+            u2At(start, size);
+        }
+    }
+
+    // Constant pool
+
+    private int constant(String key, int slots, Bytes entry) {
+        Integer index = constants.get(key);
+        if (index != null) {
+            return index;
+        }
+        if (poolCount + slots > 0xFFFF) {
+            throw new IllegalStateException("Too many constants for a class file");
+        }
+        pool.append(entry);
+        constants.put(key, poolCount);
+        poolCount += slots;
+        return poolCount - slots;
+    }
+
+    int utf8(String value) {
+        Integer index = constants.get("U" + value);
+        if (index != null) {
+            return index;
+        }
+        Bytes entry = new Bytes();
+        entry.u1(1);
+        entry.utf8(value);
+        return constant("U" + value, 1, entry);
+    }
+
+    int classRef(String internalName) {
+        Bytes entry = new Bytes();
+        entry.u1(7);
+        entry.u2(utf8(internalName));
+        return constant("C" + internalName, 1, entry);
+    }
+
+    int string(String value) {
+        Bytes entry = new Bytes();
+        entry.u1(8);
+        entry.u2(utf8(value));
+        return constant("S" + value, 1, entry);
+    }
+
+    int integer(int value) {
+        Bytes entry = new Bytes();
+        entry.u1(3);
+        entry.u4(value);
+        return constant("I" + value, 1, entry);
+    }
+
+    int doubleConstant(double value) {
+        long bits = Double.doubleToRawLongBits(value);
+        Bytes entry = new Bytes();
+        entry.u1(6);
+        entry.u4((int) (bits >>> 32));
+        entry.u4((int) bits);
+        return constant("D" + bits, 2, entry); // Doubles take two pool slots
+    }
+
+    private int nameAndType(String name, String descriptor) {
+        Bytes entry = new Bytes();
+        entry.u1(12);
+        entry.u2(utf8(name));
+        entry.u2(utf8(descriptor));
+        return constant("N" + name + ":" + descriptor, 1, entry);
+    }
+
+    int fieldRef(String owner, String name, String descriptor) {
+        Bytes entry = new Bytes();
+        entry.u1(9);
+        entry.u2(classRef(owner));
+        entry.u2(nameAndType(name, descriptor));
+        return constant("F" + owner + "." + name + ":" + descriptor, 1, entry);
+    }
+
+    int methodRef(String owner, String name, String descriptor) {
+        Bytes entry = new Bytes();
+        entry.u1(10);
+        entry.u2(classRef(owner));
+        entry.u2(nameAndType(name, descriptor));
+        return constant("M" + owner + "." + name + ":" + descriptor, 1, entry);
+    }
+
+    // Verification type of a reference to the given class
+    int objectType(String internalName) {
+        return OBJECT | classRef(internalName) << 8;
+    }
+
+    // Members
+
+    void addField(int access, String name, String descriptor) {
+        fields.u2(access);
+        fields.u2(utf8(name));
+        fields.u2(utf8(descriptor));
+        fields.u2(0);
+        fieldCount++;
+    }
+
+    Code addMethod(int access, String name, String descriptor) {
+        return new Code(access, name, descriptor);
+    }
+
+    // Bytecode of one method; finish() appends it to the class
+    final class Code {
+        private final int access;
+        private final String name;
+        private final String descriptor;
+        private final Bytes code = new Bytes();
+        private int[] labels = new int[16]; // Offset per label, -1 until marked
+        private int labelCount;
+        private final List<int[]> fixups = new ArrayList<>(); // {instruction offset, operand position, label}
+        private final List<int[]> handlers = new ArrayList<>(); // {start offset, end offset, handler label}
+        private final Bytes frames = new Bytes();
+        private int frameCount;
+        private int lastFrame = -1;
+        private final Bytes lines = new Bytes();
+        private int lineCount;
+        private int lastLine = -1;
+        int maxStack;
+        int maxLocals;
+
+        private Code(int access, String name, String descriptor) {
+            this.access = access;
+            this.name = name;
+            this.descriptor = descriptor;
+        }
+
+        int offset() {
+            return code.length;
+        }
+
+        void op(int opcode) {
+            code.u1(opcode);
+        }
+
+        void op1(int opcode, int operand) {
+            code.u1(opcode);
+            code.u1(operand);
+        }
+
+        void op2(int opcode, int operand) {
+            code.u1(opcode);
+            code.u2(operand);
+        }
+
+        // Load or store of a local, widened when the slot does not fit in a byte
+        void local(int opcode, int slot) {
+            if (slot > 0xFF) {
+                code.u1(0xC4); // wide
+                op2(opcode, slot);
+            } else {
+                op1(opcode, slot);
+            }
+        }
+
+        int newLabel() {
+            if (labelCount == labels.length) {
+                labels = Arrays.copyOf(labels, labelCount * 2);
+            }
+            labels[labelCount] = -1;
+            return labelCount++;
+        }
+
+        void mark(int label) {
+            labels[label] = code.length;
+        }
+
+        void jump(int opcode, int label) {
+            fixups.add(new int[] { code.length, code.length + 1, label });
+            op2(opcode, 0);
+        }
+
+        // Any exception thrown in [start, end) continues at the label, with the exception on the stack
+        void handler(int start, int end, int label) {
+            if (end > start) {
+                handlers.add(new int[] { start, end, label });
+            }
+        }
+
+        // Full frame at the current offset: every local with its verification type, then the stack
+        void frame(int[] locals, int localCount, int... stack) {
+            int offset = code.length;
+            if (offset == lastFrame) {
+                return;
+            }
+            frames.u1(255);
+            frames.u2(lastFrame < 0 ? offset : offset - lastFrame - 1);
+            frames.u2(localCount);
+            for (int k = 0; k < localCount; k++) {
+                verificationType(locals[k]);
+            }
+            frames.u2(stack.length);
+            for (int type : stack) {
+                verificationType(type);
+            }
+            lastFrame = offset;
+            frameCount++;
+        }
+
+        private void verificationType(int type) {
+            frames.u1(type & 0xFF);
+            if ((type & 0xFF) == OBJECT) {
+                frames.u2(type >>> 8);
+            }
+        }
+
+        void line(int sourceLine) {
+            if (sourceLine != lastLine && sourceLine > 0) {
+                lines.u2(code.length);
+                lines.u2(sourceLine);
+                lineCount++;
+                lastLine = sourceLine;
+            }
+        }
+
+        void finish() {
+            for (int[] fixup : fixups) {
+                int target = labels[fixup[2]];
+                int delta = target - fixup[0];
+                if (target < 0 || delta != (short) delta) {
+                    throw new IllegalStateException("Branch out of range in " + name);
+                }
+                code.u2At(fixup[1], delta);
+            }
+            if (code.length > 0xFFFF) {
+                throw new IllegalStateException("Method " + name + " is too large for the JVM");
+            }
+            Bytes attribute = new Bytes();
+            attribute.u2(maxStack);
+            attribute.u2(maxLocals);
+            attribute.u4(code.length);
+            attribute.append(code);
+            attribute.u2(handlers.size());
+            for (int[] handler : handlers) {
+                attribute.u2(handler[0]);
+                attribute.u2(handler[1]);
+                attribute.u2(labels[handler[2]]);
+                attribute.u2(0); // Catches everything
+            }
+            attribute.u2((frameCount > 0 ? 1 : 0) + (lineCount > 0 ? 1 : 0));
+            if (frameCount > 0) {
+                attribute.u2(utf8("StackMapTable"));
+                attribute.u4(frames.length + 2);
+                attribute.u2(frameCount);
+                attribute.append(frames);
+            }
+            if (lineCount > 0) {
+                attribute.u2(utf8("LineNumberTable"));
+                attribute.u4(lines.length + 2);
+                attribute.u2(lineCount);
+                attribute.append(lines);
+            }
+            methods.u2(access);
+            methods.u2(utf8(name));
+            methods.u2(utf8(descriptor));
+            methods.u2(1);
+            methods.u2(utf8("Code"));
+            methods.u4(attribute.length);
+            methods.append(attribute);
+            methodCount++;
+        }
+    }
+
+    byte[] toByteArray() {
+        int thisClass = classRef(className);
+        int superClass = classRef("java/lang/Object");
+        Bytes out = new Bytes();
+        out.u4(0xCAFEBABE);
+        out.u2(0);
+        out.u2(MAJOR_VERSION);
+        out.u2(poolCount);
+        out.append(pool);
+        out.u2(ACC_FINAL | ACC_SUPER);
+        out.u2(thisClass);
+        out.u2(superClass);
+        out.u2(0); // No interfaces
+        out.u2(fieldCount);
+        out.append(fields);
+        out.u2(methodCount);
+        out.append(methods);
+        out.u2(0); // No class attributes
+        return Arrays.copyOf(out.data, out.length);
+    }
+}
@@ -0,0 +1,301 @@
+import java.util.ArrayDeque;
+
+// Conditional constant propagation. A forward dataflow pass tracks, for every register at the start of every
+// block, whether it holds one known constant on all paths that can execute, and follows only the branch a
+// constant condition selects. Instructions with a known result are then folded into constants, constant
+// branches become jumps, and declarations whose reads all see one constant get it as their symbol value.
+final class ConstantPropagation {
+    // Lattice: null while no path has reached, a boxed Integer, Double or String constant, or VARYING
+    private static final Object VARYING = new Object();
+
+    private final IrProgram program;
+    private final Object[] globalValues; // Meet of every value stored to each global
+    private IrFunction fn;
+    private Object[][] blockIn; // Register values on entry to each block, null if it never executes
+
+    ConstantPropagation(IrProgram program) {
+        this.program = program;
+        globalValues = new Object[program.globalCount];
+    }
+
+    void run() {
+        for (IrFunction function : program.functions) {
+            if (function.defined) {
+                fn = function;
+                propagate();
+                rewrite();
+            }
+        }
+        for (int g = 0; g < program.globalCount; g++) {
+            SymbolTableEntry symbol = program.globalSymbols[g];
+            if (symbol != null && globalValues[g] != null) {
+                symbol.value = literal(program.globalTypes[g], globalValues[g]);
+            }
+        }
+    }
+
+    private void propagate() {
+        blockIn = new Object[fn.blockCount][];
+        Object[] entry = new Object[fn.registerCount];
+        for (int r = 0; r < fn.registerCount; r++) {
+            // Both back ends start every variable zeroed
+            entry[r] = r < fn.paramCount ? VARYING : initialValue(fn.registerType[r]);
+        }
+        blockIn[0] = entry;
+        ArrayDeque<Integer> work = new ArrayDeque<>();
+        boolean[] queued = new boolean[fn.blockCount];
+        work.add(0);
+        queued[0] = true;
+        while (!work.isEmpty()) {
+            int block = work.poll();
+            queued[block] = false;
+            Object[] state = blockIn[block].clone();
+            int last = fn.blockEnd[block] - 1;
+            for (int i = fn.blockStart[block]; i < last; i++) {
+                if (IrOp.definesRegister(fn.op[i]) && fn.dst[i] >= 0) {
+                    state[fn.dst[i]] = evaluate(i, state);
+                }
+            }
+            if (fn.op[last] == IrOp.JMP) {
+                merge(fn.a[last], state, work, queued);
+            } else if (fn.op[last] == IrOp.BR) {
+                Object condition = state[fn.a[last]];
+                if (condition == VARYING) {
+                    merge(fn.b[last], state, work, queued);
+                    merge(fn.c[last], state, work, queued);
+                } else {
+                    merge((Integer) condition != 0 ? fn.b[last] : fn.c[last], state, work, queued);
+                }
+            }
+        }
+    }
+
+    private void merge(int block, Object[] state, ArrayDeque<Integer> work, boolean[] queued) {
+        Object[] in = blockIn[block];
+        boolean changed = false;
+        if (in == null) {
+            blockIn[block] = state.clone();
+            changed = true;
+        } else {
+            for (int r = 0; r < in.length; r++) {
+                Object met = meet(in[r], state[r]);
+                if (met != in[r]) {
+                    in[r] = met;
+                    changed = true;
+                }
+            }
+        }
+        if (changed && !queued[block]) {
+            queued[block] = true;
+            work.add(block);
+        }
+    }
+
+    private static Object meet(Object x, Object y) {
+        if (x == null) {
+            return y;
+        }
+        if (y == null || x == y) {
+            return x;
+        }
+        return x != VARYING && y != VARYING && x.equals(y) ? x : VARYING;
+    }
+
+    private static boolean isConstant(Object value) {
+        return value != null && value != VARYING;
+    }
+
+    // Replays each executable block with its final entry state, folding as it goes
+    private void rewrite() {
+        Object[] readValue = new Object[fn.registerCount]; // Meet of the values every read of a register sees
+        Object[] writtenValue = new Object[fn.registerCount];
+        int[] operands = new int[fn.argCount + 3];
+        boolean branchesFolded = false;
+        for (int block = 0; block < fn.blockCount; block++) {
+            if (blockIn[block] == null) {
+                continue;
+            }
+            Object[] state = blockIn[block].clone();
+            for (int i = fn.blockStart[block]; i < fn.blockEnd[block]; i++) {
+                int count = fn.uses(i, operands);
+                for (int k = 0; k < count; k++) {
+                    readValue[operands[k]] = meet(readValue[operands[k]], state[operands[k]]);
+                }
+                int op = fn.op[i];
+                if (op == IrOp.GSTORE) {
+                    globalValues[fn.a[i]] = meet(globalValues[fn.a[i]], fn == program.init ? state[fn.b[i]] : VARYING);
+                } else if (op == IrOp.BR && isConstant(state[fn.a[i]])) {
+                    fn.op[i] = IrOp.JMP;
+                    fn.a[i] = (Integer) state[fn.a[i]] != 0 ? fn.b[i] : fn.c[i];
+                    fn.b[i] = -1;
+                    fn.c[i] = -1;
+                    branchesFolded = true;
+                } else if (IrOp.definesRegister(op) && fn.dst[i] >= 0) {
+                    Object value = evaluate(i, state);
+                    state[fn.dst[i]] = value;
+                    writtenValue[fn.dst[i]] = meet(writtenValue[fn.dst[i]], value);
+                    if (isConstant(value) && op != IrOp.ICONST && op != IrOp.DCONST && op != IrOp.SCONST) {
+                        replaceWithConstant(i, value);
+                    }
+                }
+            }
+        }
+        if (branchesFolded) {
+            fn.computeCfg();
+        }
+        for (int r = fn.paramCount; r < fn.registerCount; r++) {
+            SymbolTableEntry symbol = fn.registerSymbol[r];
+            Object value = readValue[r] != null ? readValue[r] : writtenValue[r];
+            if (symbol != null && value != null) {
+                symbol.value = literal(fn.registerType[r], value);
+            }
+        }
+    }
+
+    private void replaceWithConstant(int i, Object value) {
+        if (value instanceof Integer) {
+            fn.op[i] = IrOp.ICONST;
+            fn.a[i] = (Integer) value;
+        } else if (value instanceof Double) {
+            fn.op[i] = IrOp.DCONST;
+            fn.a[i] = program.addDouble((Double) value);
+        } else {
+            fn.op[i] = IrOp.SCONST;
+            fn.a[i] = program.addString((String) value);
+        }
+        fn.b[i] = -1;
+        fn.c[i] = -1;
+    }
+
+    // Value instruction i writes, given the registers' values before it
+    private Object evaluate(int i, Object[] state) {
+        int op = fn.op[i];
+        switch (op) {
+            case IrOp.ICONST:
+                return fn.a[i];
+            case IrOp.DCONST:
+                return program.doubleConstants[fn.a[i]];
+            case IrOp.SCONST:
+                return program.stringConstants[fn.a[i]];
+            case IrOp.MOV:
+                return state[fn.a[i]];
+            case IrOp.CALL:
+            case IrOp.NEWARR:
+            case IrOp.ALOAD:
+            case IrOp.GLOAD:
+                return VARYING;
+            default:
+                break;
+        }
+        Object x = state[fn.a[i]];
+        if (!isConstant(x)) {
+            return VARYING;
+        }
+        switch (op) {
+            case IrOp.I2D:
+                return (double) (Integer) x;
+            case IrOp.INEG:
+                return -(Integer) x;
+            case IrOp.DNEG:
+                return -(Double) x;
+            case IrOp.NOT:
+                return (Integer) x == 0 ? 1 : 0;
+            default:
+                break;
+        }
+        Object y = state[fn.b[i]];
+        if (!isConstant(y)) {
+            return VARYING;
+        }
+        if (op == IrOp.SEQ || op == IrOp.SNE) {
+            return x.equals(y) == (op == IrOp.SEQ) ? 1 : 0;
+        }
+        if (x instanceof Double) {
+            return foldDouble(op, (Double) x, (Double) y);
+        }
+        return foldInt(op, (Integer) x, (Integer) y);
+    }
+
+    private static Object foldInt(int op, int p, int q) {
+        switch (op) {
+            case IrOp.IADD:
+                return p + q;
+            case IrOp.ISUB:
+                return p - q;
+            case IrOp.IMUL:
+                return p * q;
+            case IrOp.IDIV:
+                return q == 0 ? VARYING : (Object) (p / q); // Left to fail at run time
+            case IrOp.IMOD:
+                return q == 0 ? VARYING : (Object) (p % q);
+            case IrOp.ILT:
+                return p < q ? 1 : 0;
+            case IrOp.ILE:
+                return p <= q ? 1 : 0;
+            case IrOp.IGT:
+                return p > q ? 1 : 0;
+            case IrOp.IGE:
+                return p >= q ? 1 : 0;
+            case IrOp.IEQ:
+                return p == q ? 1 : 0;
+            case IrOp.INE:
+                return p != q ? 1 : 0;
+            default:
+                return VARYING;
+        }
+    }
+
+    private static Object foldDouble(int op, double p, double q) {
+        switch (op) {
+            case IrOp.DADD:
+                return p + q;
+            case IrOp.DSUB:
+                return p - q;
+            case IrOp.DMUL:
+                return p * q;
+            case IrOp.DDIV:
+                return p / q;
+            case IrOp.DLT:
+                return p < q ? 1 : 0;
+            case IrOp.DLE:
+                return p <= q ? 1 : 0;
+            case IrOp.DGT:
+                return p > q ? 1 : 0;
+            case IrOp.DGE:
+                return p >= q ? 1 : 0;
+            case IrOp.DEQ:
+                return p == q ? 1 : 0;
+            case IrOp.DNE:
+                return p != q ? 1 : 0;
+            default:
+                return VARYING;
+        }
+    }
+
+    private static Object initialValue(WppType type) {
+        if (type.isArray()) {
+            return VARYING;
+        }
+        if (type.isFloating()) {
+            return 0.0;
+        }
+        return type == WppType.STRING ? "" : (Object) 0;
+    }
+
+    // Symbol table value in the form the analyzer records literals
+    private static String literal(WppType type, Object value) {
+        if (value == VARYING) {
+            return null;
+        }
+        if (type == WppType.BOOL) {
+            return (Integer) value != 0 ? "true" : "false";
+        }
+        if (type == WppType.CHAR) {
+            return "'" + (char) (int) (Integer) value + "'";
+        }
+        if (type == WppType.STRING) {
+            return "\"" + value + "\"";
+        }
+        return value.toString();
+    }
+}
@@ -0,0 +1,119 @@
+import java.util.List;
+
+// Removes what can never run or never matters: blocks no path from the entry reaches (code after a return,
+// branches constant propagation proved are never taken) and computations whose results are never read.
+// Removed source code is reported as a warning with the lines it spans.
+final class DeadCodeElimination {
+    private final IrProgram program;
+    private final List<String> warnings;
+
+    DeadCodeElimination(IrProgram program, List<String> warnings) {
+        this.program = program;
+        this.warnings = warnings;
+    }
+
+    void run() {
+        for (IrFunction fn : program.functions) {
+            if (fn.defined) {
+                eliminate(fn);
+            }
+        }
+    }
+
+    private void eliminate(IrFunction fn) {
+        boolean[] live = reachableBlocks(fn);
+        reportUnreachable(fn, live);
+        boolean[] dead = new boolean[fn.size];
+        for (int block = 0; block < fn.blockCount; block++) {
+            if (!live[block]) {
+                for (int i = fn.blockStart[block]; i < fn.blockEnd[block]; i++) {
+                    dead[i] = true;
+                }
+            }
+        }
+        int[] reads = new int[fn.registerCount];
+        int[] operands = new int[fn.argCount + 3];
+        for (int i = 0; i < fn.size; i++) {
+            dead[i] |= fn.op[i] == IrOp.NOP; // Left by value numbering
+            if (!dead[i]) {
+                int count = fn.uses(i, operands);
+                for (int k = 0; k < count; k++) {
+                    reads[operands[k]]++;
+                }
+            }
+        }
+        // Removing one computation can leave the ones feeding it unread, so sweep until nothing changes
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int i = 0; i < fn.size; i++) {
+                int op = fn.op[i];
+                if (dead[i]) {
+                    continue;
+                }
+                if (op == IrOp.BR && fn.b[i] == fn.c[i]) {
+                    reads[fn.a[i]]--;
+                    fn.op[i] = IrOp.JMP;
+                    fn.a[i] = fn.b[i];
+                    fn.b[i] = -1;
+                    fn.c[i] = -1;
+                    changed = true;
+                } else if (IrOp.definesRegister(op) && fn.dst[i] >= 0 && reads[fn.dst[i]] == 0) {
+                    if (op == IrOp.CALL) {
+                        fn.dst[i] = -1; // The call still runs for its effects
+                    } else if (!IrOp.canTrap(op)) {
+                        int count = fn.uses(i, operands);
+                        for (int k = 0; k < count; k++) {
+                            reads[operands[k]]--;
+                        }
+                        dead[i] = true;
+                        changed = true;
+                    }
+                }
+            }
+        }
+        fn.compact(dead, live);
+    }
+
+    private static boolean[] reachableBlocks(IrFunction fn) {
+        boolean[] reachable = new boolean[fn.blockCount];
+        int[] work = new int[fn.blockCount];
+        int count = 0;
+        reachable[0] = true;
+        work[count++] = 0;
+        while (count > 0) {
+            for (int successor : fn.successors[work[--count]]) {
+                if (!reachable[successor]) {
+                    reachable[successor] = true;
+                    work[count++] = successor;
+                }
+            }
+        }
+        return reachable;
+    }
+
+    // One warning per run of consecutive unreachable blocks; blocks holding only the jumps and returns the
+    // lowering adds (such as the implicit return after a final return statement) are not source code
+    private void reportUnreachable(IrFunction fn, boolean[] live) {
+        int first = Integer.MAX_VALUE;
+        int last = -1;
+        boolean hasCode = false;
+        for (int block = 0; block <= fn.blockCount; block++) {
+            if (block < fn.blockCount && !live[block]) {
+                for (int i = fn.blockStart[block]; i < fn.blockEnd[block]; i++) {
+                    first = Math.min(first, fn.line[i]);
+                    last = Math.max(last, fn.line[i]);
+                    hasCode |= !IrOp.isTerminator(fn.op[i]);
+                }
+                continue;
+            }
+            if (hasCode) {
+                warnings.add("Warning at Line " + first + ": Unreachable code removed ("
+                        + (first == last ? "line " + first : "lines " + first + "-" + last) + ")");
+            }
+            first = Integer.MAX_VALUE;
+            last = -1;
+            hasCode = false;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+import java.util.Arrays;
+
+// Dominator tree of a function's control-flow graph, computed with Cooper, Harvey and Kennedy's iterative
+// algorithm over reverse postorder. Unreachable blocks have no immediate dominator and no place in the tree.
+final class Dominators {
+    final int[] idom; // Immediate dominator of each block; -1 for the entry and unreachable blocks
+    final int[] order; // Reachable blocks in reverse postorder
+    final int[][] children; // Blocks each block immediately dominates
+    private final int[] position; // Index in order, -1 if unreachable
+
+    Dominators(IrFunction fn) {
+        int n = fn.blockCount;
+        position = new int[n];
+        Arrays.fill(position, -1);
+        int[] postorder = new int[n];
+        int count = 0;
+        // Iterative depth-first search; next[b] is the successor of b to visit next
+        int[] stack = new int[n];
+        int[] next = new int[n];
+        boolean[] seen = new boolean[n];
+        int depth = 0;
+        stack[depth++] = 0;
+        seen[0] = true;
+        while (depth > 0) {
+            int block = stack[depth - 1];
+            if (next[block] < fn.successors[block].length) {
+                int successor = fn.successors[block][next[block]++];
+                if (!seen[successor]) {
+                    seen[successor] = true;
+                    stack[depth++] = successor;
+                }
+            } else {
+                postorder[count++] = block;
+                depth--;
+            }
+        }
+        order = new int[count];
+        for (int k = 0; k < count; k++) {
+            order[k] = postorder[count - 1 - k];
+            position[order[k]] = k;
+        }
+
+        idom = new int[n];
+        Arrays.fill(idom, -1);
+        idom[0] = 0;
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int k = 1; k < count; k++) {
+                int block = order[k];
+                int dominator = -1;
+                for (int predecessor : fn.predecessors[block]) {
+                    if (idom[predecessor] < 0) {
+                        continue; // Not processed yet, or unreachable
+                    }
+                    dominator = dominator < 0 ? predecessor : intersect(predecessor, dominator);
+                }
+                if (dominator != idom[block]) {
+                    idom[block] = dominator;
+                    changed = true;
+                }
+            }
+        }
+        idom[0] = -1;
+
+        int[] childCounts = new int[n];
+        for (int block : order) {
+            if (idom[block] >= 0) {
+                childCounts[idom[block]]++;
+            }
+        }
+        children = new int[n][];
+        for (int block = 0; block < n; block++) {
+            children[block] = new int[childCounts[block]];
+            childCounts[block] = 0;
+        }
+        for (int block : order) {
+            if (idom[block] >= 0) {
+                children[idom[block]][childCounts[idom[block]]++] = block;
+            }
+        }
+    }
+
+    // Walks both blocks up the tree until they meet; idom of the entry is itself during the fixpoint
+    private int intersect(int a, int b) {
+        while (a != b) {
+            while (position[a] > position[b]) {
+                a = idom[a];
+            }
+            while (position[b] > position[a]) {
+                b = idom[b];
+            }
+        }
+        return a;
+    }
+
+    boolean isReachable(int block) {
+        return position[block] >= 0;
+    }
+
+    // True if every path from the entry to b passes through a (a block dominates itself)
+    boolean dominates(int a, int b) {
+        if (!isReachable(b)) {
+            return false;
+        }
+        while (b >= 0 && b != a) {
+            b = idom[b];
+        }
+        return b == a;
+    }
+}
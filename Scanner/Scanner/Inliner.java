@@ -0,0 +1,259 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Replaces calls to small functions with a copy of the callee's body, saving the frame setup and argument
+// copies of the call and letting later passes optimize the body for the arguments at hand. Without a runtime
+// profile, a call site's frequency is estimated from the loops around it: sites in loops are inlined first
+// and may take larger callees, and each caller may grow by a fixed budget. Functions that can reach
+// themselves through calls are never inlined. Each inlined call is reported.
+final class Inliner {
+    static final int HOT_CALLEE_SIZE = 40; // Instructions, for call sites inside a loop
+    static final int COLD_CALLEE_SIZE = 12;
+    static final int GROWTH_BUDGET = 240; // Instructions each caller may gain
+
+    private final IrProgram program;
+    private final List<String> notes;
+    private boolean[] recursive; // Function can reach itself through calls
+    private boolean[][] reaches; // Function calls the other, directly or not
+
+    private static final class Site {
+        final int instruction;
+        final IrFunction callee;
+        final int frequency;
+
+        Site(int instruction, IrFunction callee, int frequency) {
+            this.instruction = instruction;
+            this.callee = callee;
+            this.frequency = frequency;
+        }
+    }
+
+    Inliner(IrProgram program, List<String> notes) {
+        this.program = program;
+        this.notes = notes;
+    }
+
+    void run() {
+        buildCallGraph();
+        for (IrFunction caller : program.functions) {
+            if (caller.defined) {
+                List<Site> sites = chooseSites(caller);
+                if (!sites.isEmpty()) {
+                    inline(caller, sites);
+                }
+            }
+        }
+    }
+
+    private void buildCallGraph() {
+        int n = program.functions.size();
+        reaches = new boolean[n][n];
+        for (IrFunction fn : program.functions) {
+            for (int i = 0; i < fn.size; i++) {
+                if (fn.op[i] == IrOp.CALL) {
+                    reaches[fn.index][fn.a[i]] = true;
+                }
+            }
+        }
+        // Transitive closure; programs have few functions
+        for (int k = 0; k < n; k++) {
+            for (int i = 0; i < n; i++) {
+                if (reaches[i][k]) {
+                    for (int j = 0; j < n; j++) {
+                        reaches[i][j] |= reaches[k][j];
+                    }
+                }
+            }
+        }
+        recursive = new boolean[n];
+        for (int f = 0; f < n; f++) {
+            recursive[f] = reaches[f][f];
+        }
+    }
+
+    // Call sites worth inlining, hottest first, within the caller's growth budget
+    private List<Site> chooseSites(IrFunction caller) {
+        int[] depth = new Loops(caller, new Dominators(caller)).depth;
+        List<Site> candidates = new ArrayList<>();
+        for (int block = 0; block < caller.blockCount; block++) {
+            for (int i = caller.blockStart[block]; i < caller.blockEnd[block]; i++) {
+                if (caller.op[i] != IrOp.CALL) {
+                    continue;
+                }
+                IrFunction callee = program.functions.get(caller.a[i]);
+                int limit = depth[block] > 0 ? HOT_CALLEE_SIZE : COLD_CALLEE_SIZE;
+                if (callee.size <= limit && canInline(caller, i, callee)) {
+                    candidates.add(new Site(i, callee, (int) Math.pow(10, Math.min(depth[block], 6))));
+                }
+            }
+        }
+        candidates.sort((x, y) -> x.frequency != y.frequency ? Integer.compare(y.frequency, x.frequency)
+                : Integer.compare(x.callee.size, y.callee.size));
+        List<Site> chosen = new ArrayList<>();
+        int growth = 0;
+        for (Site site : candidates) {
+            if (growth + site.callee.size <= GROWTH_BUDGET) {
+                growth += site.callee.size;
+                chosen.add(site);
+            }
+        }
+        chosen.sort((x, y) -> Integer.compare(x.instruction, y.instruction));
+        return chosen;
+    }
+
+    private boolean canInline(IrFunction caller, int i, IrFunction callee) {
+        if (!callee.defined || callee == program.main || callee == caller || recursive[callee.index]
+                || reaches[callee.index][caller.index] || caller.c[i] != callee.paramCount) {
+            return false;
+        }
+        // A call starts from a zeroed frame; arrays cannot be reset to "not created" with an instruction
+        Liveness liveness = new Liveness(callee);
+        for (int r = callee.paramCount; r < callee.registerCount; r++) {
+            if (callee.registerType[r].isArray() && Liveness.contains(liveness.liveIn[0], r)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Rewrites the caller block by block: a block holding inlined calls is split after each of them, with the
+    // callee's blocks laid out in between
+    private void inline(IrFunction caller, List<Site> sites) {
+        caller.inlinedRegisters = caller.registerCount;
+        int[] siteAt = new int[caller.size];
+        Arrays.fill(siteAt, -1);
+        for (int k = 0; k < sites.size(); k++) {
+            siteAt[sites.get(k).instruction] = k;
+        }
+        // New block numbers: each original block, then per inlined call the callee's blocks and a continuation
+        int[] blockMap = new int[caller.blockCount];
+        int[] calleeBase = new int[sites.size()];
+        int blocks = 0;
+        for (int block = 0; block < caller.blockCount; block++) {
+            blockMap[block] = blocks++;
+            for (int i = caller.blockStart[block]; i < caller.blockEnd[block]; i++) {
+                if (siteAt[i] >= 0) {
+                    calleeBase[siteAt[i]] = blocks;
+                    blocks += sites.get(siteAt[i]).callee.blockCount + 1;
+                }
+            }
+        }
+
+        int[] op = Arrays.copyOf(caller.op, caller.size);
+        int[] dst = Arrays.copyOf(caller.dst, caller.size);
+        int[] a = Arrays.copyOf(caller.a, caller.size);
+        int[] b = Arrays.copyOf(caller.b, caller.size);
+        int[] c = Arrays.copyOf(caller.c, caller.size);
+        int[] line = Arrays.copyOf(caller.line, caller.size);
+        int[] oldStart = caller.blockStart;
+        int[] oldEnd = caller.blockEnd;
+        int oldBlocks = caller.blockCount;
+        caller.size = 0;
+        caller.blockStart = new int[blocks];
+        caller.blockEnd = new int[blocks];
+        caller.blockCount = blocks;
+
+        int current = 0;
+        for (int block = 0; block < oldBlocks; block++) {
+            current = blockMap[block];
+            caller.blockStart[current] = caller.size;
+            for (int i = oldStart[block]; i < oldEnd[block]; i++) {
+                if (siteAt[i] >= 0) {
+                    Site site = sites.get(siteAt[i]);
+                    int base = calleeBase[siteAt[i]];
+                    int[] arguments = Arrays.copyOfRange(caller.args, b[i], b[i] + c[i]);
+                    caller.blockEnd[current] = copyBody(caller, site.callee, arguments, dst[i], base, line[i]);
+                    notes.add("Call at line " + line[i] + " in " + caller.name + ": inlined '" + site.callee.name
+                            + "'");
+                    current = base + site.callee.blockCount;
+                    caller.blockStart[current] = caller.size; // The continuation
+                    continue;
+                }
+                int k = caller.emit(op[i], dst[i], a[i], b[i], c[i], line[i]);
+                if (op[i] == IrOp.JMP) {
+                    caller.a[k] = blockMap[a[i]];
+                } else if (op[i] == IrOp.BR) {
+                    caller.b[k] = blockMap[b[i]];
+                    caller.c[k] = blockMap[c[i]];
+                }
+            }
+            caller.blockEnd[current] = caller.size;
+        }
+        caller.computeCfg();
+    }
+
+    // Ends the caller's current block by entering a copy of the callee, whose blocks are numbered from base
+    // and whose returns jump to the block after them; returns the end of the block that held the call
+    private int copyBody(IrFunction caller, IrFunction callee, int[] arguments, int result, int base, int callLine) {
+        int continuation = base + callee.blockCount;
+        int[] map = new int[callee.registerCount];
+        for (int r = 0; r < callee.registerCount; r++) {
+            String name = callee.registerName[r] != null ? callee.name + "." + callee.registerName[r] : null;
+            map[r] = caller.newRegister(callee.registerType[r], name, null);
+        }
+        for (int k = 0; k < callee.paramCount; k++) {
+            caller.emit(IrOp.MOV, map[k], arguments[k], -1, -1, callLine);
+        }
+        Liveness liveness = new Liveness(callee);
+        for (int r = callee.paramCount; r < callee.registerCount; r++) {
+            if (Liveness.contains(liveness.liveIn[0], r)) {
+                emitZero(caller, map[r], callee.registerType[r], callLine);
+            }
+        }
+        caller.emit(IrOp.JMP, -1, base, -1, -1, callLine);
+        int callBlockEnd = caller.size;
+
+        int[] operands = new int[callee.argCount + 3];
+        for (int block = 0; block < callee.blockCount; block++) {
+            caller.blockStart[base + block] = caller.size;
+            for (int i = callee.blockStart[block]; i < callee.blockEnd[block]; i++) {
+                int op = callee.op[i];
+                int line = callee.line[i];
+                switch (op) {
+                    case IrOp.JMP:
+                        caller.emit(IrOp.JMP, -1, base + callee.a[i], -1, -1, line);
+                        break;
+                    case IrOp.BR:
+                        caller.emit(IrOp.BR, -1, map[callee.a[i]], base + callee.b[i], base + callee.c[i], line);
+                        break;
+                    case IrOp.RET:
+                        if (result >= 0 && callee.a[i] >= 0) {
+                            caller.emit(IrOp.MOV, result, map[callee.a[i]], -1, -1, line);
+                        }
+                        caller.emit(IrOp.JMP, -1, continuation, -1, -1, line);
+                        break;
+                    case IrOp.CALL: {
+                        int[] nested = new int[callee.c[i]];
+                        for (int k = 0; k < nested.length; k++) {
+                            nested[k] = map[callee.args[callee.b[i] + k]];
+                        }
+                        int d = callee.dst[i] >= 0 ? map[callee.dst[i]] : -1;
+                        caller.emit(IrOp.CALL, d, callee.a[i], caller.addArgs(nested, nested.length), nested.length, line);
+                        break;
+                    }
+                    default: {
+                        int d = callee.dst[i] >= 0 ? map[callee.dst[i]] : -1;
+                        int k = caller.emit(op, d, callee.a[i], callee.b[i], callee.c[i], line);
+                        int count = callee.uses(i, operands);
+                        for (int u = 0; u < count; u++) {
+                            caller.setUse(k, u, map[operands[u]]);
+                        }
+                    }
+                }
+            }
+            caller.blockEnd[base + block] = caller.size;
+        }
+        return callBlockEnd;
+    }
+
+    private void emitZero(IrFunction fn, int register, WppType type, int line) {
+        if (type.isFloating()) {
+            fn.emit(IrOp.DCONST, register, program.addDouble(0.0), -1, -1, line);
+        } else if (type == WppType.STRING) {
+            fn.emit(IrOp.SCONST, register, program.addString(""), -1, -1, line);
+        } else {
+            fn.emit(IrOp.ICONST, register, 0, -1, -1, line);
+        }
+    }
+}
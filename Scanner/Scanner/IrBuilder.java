@@ -0,0 +1,818 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+// Lowers an analyzed, error-free token stream to three-address IR. SyntaxAnalyzer has already checked the
+// grammar and the types, so this pass only derives what the IR needs: registers, conversions and blocks.
+final class IrBuilder {
+    private final List<Token> tokens;
+    private final Map<String, Deque<SymbolTableEntry>> symbolsByOwner = new HashMap<>();
+    private final IrProgram program = new IrProgram();
+    private final Map<String, Integer> globals = new HashMap<>();
+    private final List<FunctionBody> bodies = new ArrayList<>();
+    private int pos;
+
+    // State of the function being lowered
+    private IrFunction fn;
+    private String owner; // Owner of the symbol table entries declared in fn
+    private final Deque<Map<String, Integer>> scopes = new ArrayDeque<>();
+    private int[] layoutOf = new int[16]; // Block id -> position in layout order, -1 until started
+    private int blockIds;
+    private int[] layoutStart = new int[16]; // Layout position -> first instruction
+    private int layoutCount;
+    private boolean terminated; // The open block already ends in a terminator
+
+    private static final class FunctionBody {
+        final IrFunction function;
+        final List<Token> parameters;
+        final List<WppType> parameterTypes;
+        final int bodyStart; // Index of the body's '{'
+
+        FunctionBody(IrFunction function, List<Token> parameters, List<WppType> parameterTypes, int bodyStart) {
+            this.function = function;
+            this.parameters = parameters;
+            this.parameterTypes = parameterTypes;
+            this.bodyStart = bodyStart;
+        }
+    }
+
+    IrBuilder(List<Token> tokens, List<SymbolTableEntry> symbolTable) {
+        this.tokens = tokens;
+        for (SymbolTableEntry entry : symbolTable) {
+            if (!"function".equals(entry.kind)) {
+                symbolsByOwner.computeIfAbsent(entry.owner, k -> new ArrayDeque<>()).add(entry);
+            }
+        }
+    }
+
+    IrProgram build() {
+        program.init = program.addFunction("<init>", WppType.VOID);
+        program.init.defined = true;
+        collectFunctions();
+        program.main = program.functionsByName.get("main");
+
+        // Top level: globals and statements go to <init>, function definitions are lowered afterwards
+        beginFunction(program.init, null);
+        pos = 0;
+        while (pos < tokens.size()) {
+            Token token = tokens.get(pos);
+            if (isFunctionDeclaration(pos)) {
+                skipFunctionDeclaration();
+            } else if (token.value.equals("{") && token.type.equals("Separator")) {
+                scopes.push(new HashMap<>());
+                pos++;
+            } else if (token.value.equals("}") && token.type.equals("Separator")) {
+                if (scopes.size() > 1) {
+                    scopes.pop();
+                }
+                pos++;
+            } else {
+                lowerStatement();
+            }
+        }
+        finishFunction(tokens.isEmpty() ? 0 : tokens.get(tokens.size() - 1).line);
+
+        for (FunctionBody body : bodies) {
+            lowerFunctionBody(body);
+        }
+        return program;
+    }
+
+    // Creates an IrFunction per declared name and remembers each body to lower
+    private void collectFunctions() {
+        pos = 0;
+        while (pos < tokens.size()) {
+            if (!isFunctionDeclaration(pos)) {
+                pos++;
+                continue;
+            }
+            WppType returnType = WppType.of(tokens.get(pos).value);
+            String name = tokens.get(pos + 1).value;
+            pos += 3;
+            List<Token> parameters = new ArrayList<>();
+            List<WppType> parameterTypes = new ArrayList<>();
+            while (pos < tokens.size() && !tokens.get(pos).value.equals(")")) {
+                WppType type = WppType.of(tokens.get(pos).value);
+                if (type != null && pos + 1 < tokens.size() && isIdentifier(tokens.get(pos + 1))) {
+                    parameters.add(tokens.get(pos + 1));
+                    pos += 2;
+                    if (pos + 1 < tokens.size() && tokens.get(pos).value.equals("[")) {
+                        type = type.arrayOf();
+                        pos += 2;
+                    }
+                    parameterTypes.add(type);
+                } else {
+                    pos++;
+                }
+            }
+            pos++; // ')'
+            IrFunction function = program.functionsByName.get(name);
+            if (function == null) {
+                function = program.addFunction(name, returnType);
+                for (int i = 0; i < parameters.size(); i++) {
+                    function.newRegister(parameterTypes.get(i), parameters.get(i).value, null);
+                }
+                function.paramCount = parameters.size();
+            }
+            if (pos < tokens.size() && tokens.get(pos).value.equals("{")) {
+                if (function.defined) {
+                    // A second body for the same name: lowered to keep the symbol entries in step, then dropped
+                    function = new IrFunction(name, returnType, -1);
+                }
+                function.defined = true;
+                bodies.add(new FunctionBody(function, parameters, parameterTypes, pos));
+                pos = matchingBrace(pos) + 1;
+            } else {
+                pos++; // ';'
+            }
+        }
+    }
+
+    private void lowerFunctionBody(FunctionBody body) {
+        IrFunction function = body.function;
+        // Registers made for the prototype are replaced by the definition's parameters
+        function.clearRegisters();
+        beginFunction(function, function.name);
+        Map<String, Integer> parameterScope = new HashMap<>();
+        for (int i = 0; i < body.parameters.size(); i++) {
+            String name = body.parameters.get(i).value;
+            parameterScope.put(name, function.newRegister(body.parameterTypes.get(i), name, takeSymbol(name)));
+        }
+        function.paramCount = body.parameters.size();
+        scopes.push(parameterScope);
+        pos = body.bodyStart;
+        lowerStatement();
+        finishFunction(tokens.get(pos - 1).line);
+    }
+
+    private void beginFunction(IrFunction function, String symbolOwner) {
+        fn = function;
+        owner = symbolOwner;
+        scopes.clear();
+        scopes.push(new HashMap<>());
+        blockIds = 0;
+        layoutCount = 0;
+        terminated = true;
+        startBlock(newBlock());
+    }
+
+    // Closes the last block, numbers blocks in layout order and builds the control-flow graph
+    private void finishFunction(int line) {
+        if (!terminated) {
+            if (fn.returnType == WppType.VOID || fn.returnType.isArray()) {
+                emit(IrOp.RET, -1, -1, -1, -1, line);
+            } else {
+                emit(IrOp.RET, -1, constant(fn.returnType, 0, line), -1, -1, line);
+            }
+            terminated = true;
+        }
+        for (int i = 0; i < fn.size; i++) {
+            if (fn.op[i] == IrOp.JMP) {
+                fn.a[i] = layoutOf[fn.a[i]];
+            } else if (fn.op[i] == IrOp.BR) {
+                fn.b[i] = layoutOf[fn.b[i]];
+                fn.c[i] = layoutOf[fn.c[i]];
+            }
+        }
+        fn.blockCount = layoutCount;
+        fn.blockStart = Arrays.copyOf(layoutStart, layoutCount);
+        fn.blockEnd = new int[layoutCount];
+        for (int block = 0; block < layoutCount; block++) {
+            fn.blockEnd[block] = block + 1 < layoutCount ? layoutStart[block + 1] : fn.size;
+        }
+        fn.computeCfg();
+    }
+
+    // Statements
+
+    private void lowerStatement() {
+        Token token = tokens.get(pos);
+        int line = token.line;
+        if (WppType.of(token.value) != null && token.type.equals("Keyword")) {
+            lowerDeclaration();
+        } else if (token.value.equals("{") && token.type.equals("Separator")) {
+            pos++;
+            scopes.push(new HashMap<>());
+            while (pos < tokens.size() && !tokens.get(pos).value.equals("}")) {
+                lowerStatement();
+            }
+            scopes.pop();
+            pos++;
+        } else if (token.value.equals("if")) {
+            lowerIf();
+        } else if (token.value.equals("while")) {
+            lowerWhile();
+        } else if (token.value.equals("for")) {
+            lowerFor();
+        } else if (token.value.equals("return")) {
+            pos++;
+            if (peekValue(";")) {
+                emit(IrOp.RET, -1, -1, -1, -1, line);
+            } else {
+                int value = convert(lowerExpression(), fn.returnType, line);
+                emit(IrOp.RET, -1, value, -1, -1, line);
+            }
+            terminated = true;
+            expect(";");
+        } else if (token.value.equals("cout")) {
+            pos++;
+            while (peekValue("<<")) {
+                pos++;
+                if (peekValue("endl")) {
+                    pos++;
+                    emit(IrOp.PRINTNL, -1, -1, -1, -1, line);
+                } else {
+                    emit(IrOp.PRINT, -1, lowerExpression(), -1, -1, line);
+                }
+            }
+            expect(";");
+        } else if (isIdentifier(token) || token.value.equals("++") || token.value.equals("--")) {
+            lowerSimpleStatement();
+            expect(";");
+        } else {
+            pos++; // Stray ';' or a token the analyzer already reported
+        }
+    }
+
+    // Assignment, increment or call, without the trailing ';'
+    private void lowerSimpleStatement() {
+        Token token = tokens.get(pos);
+        int line = token.line;
+        if (token.value.equals("++") || token.value.equals("--")) {
+            pos++;
+            increment(tokens.get(pos++).value, token.value.equals("++") ? 1 : -1, line);
+            return;
+        }
+        String name = token.value;
+        pos++;
+        if (peekValue("(")) {
+            pos--;
+            lowerCall();
+        } else if (peekValue("++") || peekValue("--")) {
+            increment(name, tokens.get(pos++).value.equals("++") ? 1 : -1, line);
+        } else if (peekValue("[")) {
+            pos++;
+            int index = lowerExpression();
+            expect("]");
+            expect("=");
+            int array = load(name, line);
+            int value = convert(lowerExpression(), fn.registerType[array].elementType, line);
+            emit(IrOp.ASTORE, -1, array, index, value, line);
+        } else {
+            expect("=");
+            store(name, lowerExpression(), line);
+        }
+    }
+
+    private void lowerDeclaration() {
+        WppType type = WppType.of(tokens.get(pos++).value);
+        Token nameToken = tokens.get(pos++);
+        String name = nameToken.value;
+        int line = nameToken.line;
+        SymbolTableEntry symbol = takeSymbol(name);
+        boolean global = fn == program.init && scopes.size() == 1;
+        int length = -1;
+        if (peekValue("[")) {
+            pos++;
+            length = lowerPrimary();
+            expect("]");
+            type = type.arrayOf();
+        }
+        int register = -1;
+        if (global) {
+            globals.put(name, program.addGlobal(name, type, symbol));
+        } else {
+            register = fn.newRegister(type, name, symbol);
+            scopes.peek().put(name, register);
+        }
+        if (length >= 0) {
+            int array = global ? fn.newRegister(type, null, null) : register;
+            emit(IrOp.NEWARR, array, convert(length, WppType.INT, line), -1, -1, line);
+            if (global) {
+                emit(IrOp.GSTORE, -1, globals.get(name), array, -1, line);
+            }
+        } else if (peekValue("=")) {
+            pos++;
+            store(name, lowerExpression(), line);
+        }
+        expect(";");
+    }
+
+    private void lowerIf() {
+        int line = tokens.get(pos++).line;
+        expect("(");
+        int condition = lowerCondition();
+        expect(")");
+        int thenBlock = newBlock();
+        int branch = emit(IrOp.BR, -1, condition, thenBlock, -1, line);
+        terminated = true;
+        startBlock(thenBlock);
+        lowerStatement();
+        int endBlock;
+        if (peekValue("else")) {
+            pos++;
+            int elseBlock = newBlock();
+            endBlock = newBlock();
+            fn.c[branch] = elseBlock;
+            jump(endBlock);
+            startBlock(elseBlock);
+            if (peekValue("if")) {
+                lowerIf();
+            } else {
+                lowerStatement();
+            }
+        } else {
+            endBlock = newBlock();
+            fn.c[branch] = endBlock;
+        }
+        startBlock(endBlock);
+    }
+
+    private void lowerWhile() {
+        int line = tokens.get(pos++).line;
+        int conditionBlock = newBlock();
+        int bodyBlock = newBlock();
+        int exitBlock = newBlock();
+        startBlock(conditionBlock);
+        expect("(");
+        int condition = lowerCondition();
+        expect(")");
+        emit(IrOp.BR, -1, condition, bodyBlock, exitBlock, line);
+        terminated = true;
+        startBlock(bodyBlock);
+        lowerStatement();
+        jump(conditionBlock);
+        startBlock(exitBlock);
+    }
+
+    private void lowerFor() {
+        int line = tokens.get(pos++).line;
+        expect("(");
+        scopes.push(new HashMap<>());
+        if (WppType.of(tokens.get(pos).value) != null) {
+            lowerDeclaration();
+        } else {
+            if (!peekValue(";")) {
+                lowerSimpleStatement();
+            }
+            expect(";");
+        }
+        int conditionBlock = newBlock();
+        int bodyBlock = newBlock();
+        int updateBlock = newBlock();
+        int exitBlock = newBlock();
+        startBlock(conditionBlock);
+        if (peekValue(";")) {
+            jump(bodyBlock);
+        } else {
+            emit(IrOp.BR, -1, lowerCondition(), bodyBlock, exitBlock, line);
+            terminated = true;
+        }
+        expect(";");
+        // The update is written before the body but runs after it
+        int updateStart = pos;
+        int depth = 0;
+        while (pos < tokens.size() && !(depth == 0 && tokens.get(pos).value.equals(")"))) {
+            if (tokens.get(pos).value.equals("(")) {
+                depth++;
+            } else if (tokens.get(pos).value.equals(")")) {
+                depth--;
+            }
+            pos++;
+        }
+        int updateEnd = pos;
+        expect(")");
+        startBlock(bodyBlock);
+        lowerStatement();
+        startBlock(updateBlock);
+        int resume = pos;
+        pos = updateStart;
+        while (pos < updateEnd) {
+            if (peekValue(",")) {
+                pos++;
+            } else {
+                lowerSimpleStatement();
+            }
+        }
+        pos = resume;
+        jump(conditionBlock);
+        startBlock(exitBlock);
+        scopes.pop();
+    }
+
+    // Expressions, by precedence climbing over SyntaxAnalyzer.binaryPrecedence
+
+    private int lowerExpression() {
+        return lowerBinary(1);
+    }
+
+    // Branch operand: integer-family registers test non-zero directly, floating ones are compared with 0
+    private int lowerCondition() {
+        int value = lowerExpression();
+        if (fn.registerType[value].isFloating()) {
+            int zero = constant(WppType.DOUBLE, 0, tokens.get(pos - 1).line);
+            return value(IrOp.DNE, WppType.BOOL, value, zero, tokens.get(pos - 1).line);
+        }
+        return value;
+    }
+
+    private int lowerBinary(int minPrecedence) {
+        int left = lowerUnary();
+        while (pos < tokens.size() && tokens.get(pos).type.equals("Operator")) {
+            String op = tokens.get(pos).value;
+            int precedence = SyntaxAnalyzer.binaryPrecedence(op);
+            if (precedence == 0 || precedence < minPrecedence) {
+                break;
+            }
+            int line = tokens.get(pos++).line;
+            if (op.equals("&&") || op.equals("||")) {
+                left = lowerShortCircuit(op.equals("&&"), left, precedence, line);
+            } else {
+                left = lowerOperator(op, left, lowerBinary(precedence + 1), line);
+            }
+        }
+        return left;
+    }
+
+    // a && b and a || b evaluate b only when needed, so they lower to branches into a shared result
+    private int lowerShortCircuit(boolean and, int left, int precedence, int line) {
+        int result = fn.newRegister(WppType.BOOL, null, null);
+        moveBool(result, left, line);
+        int rightBlock = newBlock();
+        int endBlock = newBlock();
+        emit(IrOp.BR, -1, result, and ? rightBlock : endBlock, and ? endBlock : rightBlock, line);
+        terminated = true;
+        startBlock(rightBlock);
+        moveBool(result, lowerBinary(precedence + 1), line);
+        startBlock(endBlock);
+        return result;
+    }
+
+    private void moveBool(int target, int value, int line) {
+        WppType type = fn.registerType[value];
+        if (type.isFloating()) {
+            emit(IrOp.DNE, target, value, constant(WppType.DOUBLE, 0, line), -1, line);
+        } else if (type == WppType.BOOL) {
+            emit(IrOp.MOV, target, value, -1, -1, line);
+        } else {
+            emit(IrOp.INE, target, value, constant(WppType.INT, 0, line), -1, line);
+        }
+    }
+
+    private int lowerOperator(String op, int left, int right, int line) {
+        WppType leftType = fn.registerType[left];
+        WppType rightType = fn.registerType[right];
+        int compare = comparison(op);
+        if (compare >= 0) {
+            if (leftType == WppType.STRING) {
+                return value(op.equals("==") ? IrOp.SEQ : IrOp.SNE, WppType.BOOL, left, right, line);
+            }
+            if (leftType.isFloating() || rightType.isFloating()) {
+                left = convert(left, WppType.DOUBLE, line);
+                right = convert(right, WppType.DOUBLE, line);
+                return value(IrOp.DLT + compare, WppType.BOOL, left, right, line);
+            }
+            return value(IrOp.ILT + compare, WppType.BOOL, left, right, line);
+        }
+        WppType result = WppType.promote(leftType, rightType);
+        if (result == null || result == WppType.ERROR) {
+            result = WppType.INT;
+        }
+        int arithmetic = "+-*/%".indexOf(op);
+        if (result.isFloating()) {
+            return value(IrOp.DADD + arithmetic, result, convert(left, result, line), convert(right, result, line),
+                    line);
+        }
+        return value(IrOp.IADD + arithmetic, result, left, right, line);
+    }
+
+    // Offset of op from ILT/DLT, or -1 for arithmetic
+    private static int comparison(String op) {
+        switch (op) {
+            case "<":
+                return 0;
+            case "<=":
+                return 1;
+            case ">":
+                return 2;
+            case ">=":
+                return 3;
+            case "==":
+                return 4;
+            case "!=":
+                return 5;
+            default:
+                return -1;
+        }
+    }
+
+    private int lowerUnary() {
+        Token token = tokens.get(pos);
+        if (token.type.equals("Operator")) {
+            int line = token.line;
+            if (token.value.equals("-")) {
+                pos++;
+                int operand = lowerUnary();
+                WppType type = fn.registerType[operand];
+                return type.isFloating() ? value(IrOp.DNEG, type, operand, -1, line)
+                        : value(IrOp.INEG, WppType.INT, operand, -1, line);
+            } else if (token.value.equals("+")) {
+                pos++;
+                return lowerUnary();
+            } else if (token.value.equals("!")) {
+                pos++;
+                int operand = lowerUnary();
+                if (fn.registerType[operand].isFloating()) {
+                    return value(IrOp.DEQ, WppType.BOOL, operand, constant(WppType.DOUBLE, 0, line), line);
+                }
+                return value(IrOp.NOT, WppType.BOOL, operand, -1, line);
+            }
+        }
+        return lowerPrimary();
+    }
+
+    private int lowerPrimary() {
+        Token token = tokens.get(pos);
+        int line = token.line;
+        if (token.value.equals("(") && token.type.equals("Separator")) {
+            pos++;
+            int inner = lowerExpression();
+            expect(")");
+            return inner;
+        }
+        if (isIdentifier(token)) {
+            pos++;
+            if (peekValue("(")) {
+                pos--;
+                return lowerCall();
+            }
+            int variable = load(token.value, line);
+            if (peekValue("[")) {
+                pos++;
+                int index = lowerExpression();
+                expect("]");
+                return value(IrOp.ALOAD, fn.registerType[variable].elementType, variable, index, line);
+            }
+            return variable;
+        }
+        pos++;
+        switch (token.type) {
+            case "Literal (Int)":
+                return constant(WppType.INT, Integer.parseInt(token.value), line);
+            case "Literal (Float)": {
+                int register = fn.newRegister(WppType.DOUBLE, null, null);
+                emit(IrOp.DCONST, register, program.addDouble(Double.parseDouble(token.value)), -1, -1, line);
+                return register;
+            }
+            case "Literal (Char)":
+                return constant(WppType.CHAR, token.value.charAt(1), line);
+            case "Literal (String)": {
+                int register = fn.newRegister(WppType.STRING, null, null);
+                emit(IrOp.SCONST, register, program.addString(unescape(token.value)), -1, -1, line);
+                return register;
+            }
+            default:
+                if (token.value.equals("true") || token.value.equals("false")) {
+                    return constant(WppType.BOOL, token.value.equals("true") ? 1 : 0, line);
+                }
+                throw new IllegalStateException("Line " + line + ": cannot lower '" + token.value + "'");
+        }
+    }
+
+    // Call at pos; returns the result register, or -1 for a void function
+    private int lowerCall() {
+        Token nameToken = tokens.get(pos);
+        int line = nameToken.line;
+        IrFunction callee = program.functionsByName.get(nameToken.value);
+        if (callee == null) {
+            throw new IllegalStateException("Line " + line + ": no function '" + nameToken.value + "'");
+        }
+        pos += 2; // name '('
+        int[] arguments = new int[Math.max(callee.paramCount, 1)];
+        int count = 0;
+        while (!peekValue(")")) {
+            if (peekValue(",")) {
+                pos++;
+                continue;
+            }
+            int argument = lowerExpression();
+            if (count < callee.paramCount) {
+                argument = convert(argument, callee.registerType[count], line);
+            }
+            if (count == arguments.length) {
+                arguments = Arrays.copyOf(arguments, count * 2);
+            }
+            arguments[count++] = argument;
+        }
+        pos++;
+        int result = callee.returnType == WppType.VOID ? -1 : fn.newRegister(callee.returnType, null, null);
+        emit(IrOp.CALL, result, callee.index, fn.addArgs(arguments, count), count, line);
+        return result;
+    }
+
+    // Variables
+
+    private int resolveLocal(String name) {
+        for (Map<String, Integer> scope : scopes) {
+            Integer register = scope.get(name);
+            if (register != null) {
+                return register;
+            }
+        }
+        return -1;
+    }
+
+    private int load(String name, int line) {
+        int local = resolveLocal(name);
+        if (local >= 0) {
+            return local;
+        }
+        Integer global = globals.get(name);
+        if (global == null) {
+            throw new IllegalStateException("Line " + line + ": no variable '" + name + "'");
+        }
+        return value(IrOp.GLOAD, program.globalTypes[global], global, -1, line);
+    }
+
+    private void store(String name, int value, int line) {
+        int local = resolveLocal(name);
+        if (local >= 0) {
+            value = convert(value, fn.registerType[local], line);
+            int last = fn.size - 1;
+            if (!terminated && last >= layoutStart[layoutCount - 1] && fn.dst[last] == value
+                    && fn.registerName[value] == null && value >= fn.paramCount) {
+                fn.dst[last] = local; // The temporary was only made for this assignment
+            } else {
+                emit(IrOp.MOV, local, value, -1, -1, line);
+            }
+            return;
+        }
+        Integer global = globals.get(name);
+        if (global == null) {
+            throw new IllegalStateException("Line " + line + ": no variable '" + name + "'");
+        }
+        emit(IrOp.GSTORE, -1, global, convert(value, program.globalTypes[global], line), -1, line);
+    }
+
+    private void increment(String name, int delta, int line) {
+        int current = load(name, line);
+        WppType type = fn.registerType[current];
+        int result;
+        if (type.isFloating()) {
+            result = value(IrOp.DADD, type, current, constant(WppType.DOUBLE, delta, line), line);
+        } else {
+            result = value(IrOp.IADD, type, current, constant(WppType.INT, delta, line), line);
+        }
+        store(name, result, line);
+    }
+
+    // Symbol table entries for one owner come in declaration order, the order they are lowered in
+    private SymbolTableEntry takeSymbol(String name) {
+        Deque<SymbolTableEntry> entries = symbolsByOwner.get(owner);
+        if (entries == null) {
+            return null;
+        }
+        for (Iterator<SymbolTableEntry> it = entries.iterator(); it.hasNext();) {
+            SymbolTableEntry entry = it.next();
+            if (entry.identifier.equals(name)) {
+                it.remove();
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    // Emission
+
+    private int emit(int op, int dst, int a, int b, int c, int line) {
+        if (terminated) {
+            startBlock(newBlock()); // Code after a return: kept in a block with no predecessors
+        }
+        return fn.emit(op, dst, a, b, c, line);
+    }
+
+    private int value(int op, WppType type, int a, int b, int line) {
+        int register = fn.newRegister(type, null, null);
+        emit(op, register, a, b, -1, line);
+        return register;
+    }
+
+    private int constant(WppType type, int value, int line) {
+        if (type == WppType.STRING) {
+            int register = fn.newRegister(type, null, null);
+            emit(IrOp.SCONST, register, program.addString(""), -1, -1, line);
+            return register;
+        }
+        if (type.isFloating()) {
+            int register = fn.newRegister(type, null, null);
+            emit(IrOp.DCONST, register, program.addDouble(value), -1, -1, line);
+            return register;
+        }
+        return value(IrOp.ICONST, type, value, -1, line);
+    }
+
+    // Integer values stored into float or double registers are converted; everything else already fits
+    private int convert(int register, WppType target, int line) {
+        if (target != null && target.isFloating() && !fn.registerType[register].isFloating()) {
+            return value(IrOp.I2D, target, register, -1, line);
+        }
+        return register;
+    }
+
+    private void jump(int block) {
+        if (!terminated) {
+            fn.emit(IrOp.JMP, -1, block, -1, -1, fn.size > 0 ? fn.line[fn.size - 1] : 0);
+            terminated = true;
+        }
+    }
+
+    private int newBlock() {
+        if (blockIds == layoutOf.length) {
+            layoutOf = Arrays.copyOf(layoutOf, blockIds * 2);
+        }
+        layoutOf[blockIds] = -1;
+        return blockIds++;
+    }
+
+    // Falls through from the open block with an explicit jump, so every block ends in a terminator.
+    // An empty open block (say the join after an if) just takes the new label; the entry block stays separate.
+    private void startBlock(int block) {
+        if (!terminated && layoutCount > 1 && layoutStart[layoutCount - 1] == fn.size) {
+            layoutOf[block] = layoutCount - 1;
+            return;
+        }
+        jump(block);
+        if (layoutCount == layoutStart.length) {
+            layoutStart = Arrays.copyOf(layoutStart, layoutCount * 2);
+        }
+        layoutOf[block] = layoutCount;
+        layoutStart[layoutCount++] = fn.size;
+        terminated = false;
+    }
+
+    // Tokens
+
+    private boolean peekValue(String value) {
+        return pos < tokens.size() && tokens.get(pos).value.equals(value);
+    }
+
+    private void expect(String value) {
+        if (!peekValue(value)) {
+            int line = pos < tokens.size() ? tokens.get(pos).line : tokens.get(tokens.size() - 1).line;
+            throw new IllegalStateException("Line " + line + ": expected '" + value + "'");
+        }
+        pos++;
+    }
+
+    private boolean isIdentifier(Token token) {
+        return token.type.equals("Identifier");
+    }
+
+    private boolean isFunctionDeclaration(int index) {
+        return index + 2 < tokens.size() && WppType.of(tokens.get(index).value) != null
+                && isIdentifier(tokens.get(index + 1)) && tokens.get(index + 2).value.equals("(");
+    }
+
+    private void skipFunctionDeclaration() {
+        while (pos < tokens.size() && !tokens.get(pos).value.equals(")")) {
+            pos++;
+        }
+        pos++;
+        if (peekValue("{")) {
+            pos = matchingBrace(pos) + 1;
+        } else {
+            pos++; // ';'
+        }
+    }
+
+    private int matchingBrace(int open) {
+        int depth = 0;
+        for (int i = open; i < tokens.size(); i++) {
+            if (tokens.get(i).value.equals("{")) {
+                depth++;
+            } else if (tokens.get(i).value.equals("}") && --depth == 0) {
+                return i;
+            }
+        }
+        return tokens.size() - 1;
+    }
+
+    private static String unescape(String literal) {
+        StringBuilder sb = new StringBuilder(literal.length());
+        for (int i = 1; i < literal.length() - 1; i++) {
+            char ch = literal.charAt(i);
+            if (ch == '\\' && i + 1 < literal.length() - 1) {
+                char next = literal.charAt(++i);
+                sb.append(next == 'n' ? '\n' : next == 't' ? '\t' : next == '0' ? '\0' : next);
+            } else {
+                sb.append(ch);
+            }
+        }
+        return sb.toString();
+    }
+}
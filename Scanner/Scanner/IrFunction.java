@@ -0,0 +1,433 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// One function in three-address form. Instructions live in parallel int arrays (see IrOp for the operands),
+// registers are typed, and blocks are contiguous instruction ranges in layout order, each ending in a
+// terminator. Block 0 is the entry; successors and predecessors form the control-flow graph.
+final class IrFunction {
+    final String name;
+    final WppType returnType;
+    final int index; // Position in IrProgram.functions, the CALL operand
+    int paramCount; // Parameters arrive in registers 0 .. paramCount - 1
+    boolean defined; // False for a prototype that never gets a body
+
+    int[] op = new int[32];
+    int[] dst = new int[32];
+    int[] a = new int[32];
+    int[] b = new int[32];
+    int[] c = new int[32];
+    int[] line = new int[32];
+    int size;
+
+    int[] args = new int[8]; // CALL argument registers, referenced as a range
+    int argCount;
+
+    WppType[] registerType = new WppType[16];
+    String[] registerName = new String[16]; // Null for temporaries
+    SymbolTableEntry[] registerSymbol = new SymbolTableEntry[16]; // Declaration the register holds, if any
+    int registerCount;
+    int inlinedRegisters = Integer.MAX_VALUE; // First of the registers copied in from inlined callees
+    private final Map<String, Integer> nameCopies = new HashMap<>(); // Registers made so far under each name
+
+    int[] blockStart = new int[0];
+    int[] blockEnd = new int[0]; // Exclusive
+    int blockCount;
+    int[][] successors = new int[0][];
+    int[][] predecessors = new int[0][];
+
+    IrFunction(String name, WppType returnType, int index) {
+        this.name = name;
+        this.returnType = returnType;
+        this.index = index;
+    }
+
+    int newRegister(WppType type, String name, SymbolTableEntry symbol) {
+        if (registerCount == registerType.length) {
+            int capacity = registerCount * 2;
+            registerType = Arrays.copyOf(registerType, capacity);
+            registerName = Arrays.copyOf(registerName, capacity);
+            registerSymbol = Arrays.copyOf(registerSymbol, capacity);
+        }
+        if (name != null) {
+            // Shadowed declarations get distinct names in listings
+            int copies = nameCopies.merge(name, 1, Integer::sum) - 1;
+            if (copies > 0) {
+                name = name + "." + copies;
+            }
+        }
+        registerType[registerCount] = type;
+        registerName[registerCount] = name;
+        registerSymbol[registerCount] = symbol;
+        return registerCount++;
+    }
+
+    // Drops every register, as when a definition replaces its prototype's parameters
+    void clearRegisters() {
+        registerCount = 0;
+        nameCopies.clear();
+    }
+
+    int emit(int opcode, int dstOperand, int aOperand, int bOperand, int cOperand, int sourceLine) {
+        if (size == op.length) {
+            int capacity = size * 2;
+            op = Arrays.copyOf(op, capacity);
+            dst = Arrays.copyOf(dst, capacity);
+            a = Arrays.copyOf(a, capacity);
+            b = Arrays.copyOf(b, capacity);
+            c = Arrays.copyOf(c, capacity);
+            line = Arrays.copyOf(line, capacity);
+        }
+        op[size] = opcode;
+        dst[size] = dstOperand;
+        a[size] = aOperand;
+        b[size] = bOperand;
+        c[size] = cOperand;
+        line[size] = sourceLine;
+        return size++;
+    }
+
+    // Stores call arguments and returns the index of the first one
+    int addArgs(int[] registers, int count) {
+        if (argCount + count > args.length) {
+            args = Arrays.copyOf(args, Math.max(args.length * 2, argCount + count));
+        }
+        System.arraycopy(registers, 0, args, argCount, count);
+        argCount += count;
+        return argCount - count;
+    }
+
+    // Registers read by instruction i, stored in out (sized argCount + 3 at least); returns how many
+    int uses(int i, int[] out) {
+        switch (op[i]) {
+            case IrOp.NOP:
+            case IrOp.ICONST:
+            case IrOp.DCONST:
+            case IrOp.SCONST:
+            case IrOp.JMP:
+            case IrOp.GLOAD:
+            case IrOp.PRINTNL:
+                return 0;
+            case IrOp.RET:
+                if (a[i] < 0) {
+                    return 0;
+                }
+                out[0] = a[i];
+                return 1;
+            case IrOp.GSTORE:
+                out[0] = b[i];
+                return 1;
+            case IrOp.ASTORE:
+                out[0] = a[i];
+                out[1] = b[i];
+                out[2] = c[i];
+                return 3;
+            case IrOp.CALL:
+                System.arraycopy(args, b[i], out, 0, c[i]);
+                return c[i];
+            default:
+                out[0] = a[i];
+                if (IrOp.isBinary(op[i]) || op[i] == IrOp.ALOAD) {
+                    out[1] = b[i];
+                    return 2;
+                }
+                return 1;
+        }
+    }
+
+    // Replaces the k-th register uses(i, ...) reports
+    void setUse(int i, int k, int register) {
+        switch (op[i]) {
+            case IrOp.GSTORE:
+                b[i] = register;
+                break;
+            case IrOp.CALL:
+                args[b[i] + k] = register;
+                break;
+            default:
+                if (k == 0) {
+                    a[i] = register;
+                } else if (k == 1) {
+                    b[i] = register;
+                } else {
+                    c[i] = register;
+                }
+        }
+    }
+
+    // Number of reads of each register across the function
+    int[] useCounts() {
+        int[] counts = new int[registerCount];
+        int[] operands = new int[argCount + 3];
+        for (int i = 0; i < size; i++) {
+            int n = uses(i, operands);
+            for (int k = 0; k < n; k++) {
+                counts[operands[k]]++;
+            }
+        }
+        return counts;
+    }
+
+    int blockOf(int instruction) {
+        for (int block = 0; block < blockCount; block++) {
+            if (instruction < blockEnd[block]) {
+                return block;
+            }
+        }
+        return -1;
+    }
+
+    // Rebuilds successor and predecessor lists from each block's terminator
+    void computeCfg() {
+        successors = new int[blockCount][];
+        int[] predecessorCounts = new int[blockCount];
+        for (int block = 0; block < blockCount; block++) {
+            int last = blockEnd[block] - 1;
+            if (last < blockStart[block]) {
+                successors[block] = new int[0];
+            } else if (op[last] == IrOp.JMP) {
+                successors[block] = new int[] { a[last] };
+            } else if (op[last] == IrOp.BR) {
+                successors[block] = b[last] == c[last] ? new int[] { b[last] } : new int[] { b[last], c[last] };
+            } else {
+                successors[block] = new int[0];
+            }
+            for (int successor : successors[block]) {
+                predecessorCounts[successor]++;
+            }
+        }
+        predecessors = new int[blockCount][];
+        for (int block = 0; block < blockCount; block++) {
+            predecessors[block] = new int[predecessorCounts[block]];
+            predecessorCounts[block] = 0;
+        }
+        for (int block = 0; block < blockCount; block++) {
+            for (int successor : successors[block]) {
+                predecessors[successor][predecessorCounts[successor]++] = block;
+            }
+        }
+    }
+
+    // Drops the marked instructions and every block that is not live, renumbering the remaining blocks in
+    // layout order. Branches may only target live blocks.
+    void compact(boolean[] deadInstruction, boolean[] liveBlock) {
+        int[] renumbered = new int[blockCount];
+        int blocks = 0;
+        for (int block = 0; block < blockCount; block++) {
+            renumbered[block] = liveBlock[block] ? blocks++ : -1;
+        }
+        int[] starts = new int[blocks];
+        int[] ends = new int[blocks];
+        int kept = 0;
+        for (int block = 0; block < blockCount; block++) {
+            if (!liveBlock[block]) {
+                continue;
+            }
+            starts[renumbered[block]] = kept;
+            for (int i = blockStart[block]; i < blockEnd[block]; i++) {
+                if (deadInstruction[i]) {
+                    continue;
+                }
+                op[kept] = op[i];
+                dst[kept] = dst[i];
+                a[kept] = op[i] == IrOp.JMP ? renumbered[a[i]] : a[i];
+                b[kept] = op[i] == IrOp.BR ? renumbered[b[i]] : b[i];
+                c[kept] = op[i] == IrOp.BR ? renumbered[c[i]] : c[i];
+                line[kept] = line[i];
+                kept++;
+            }
+            ends[renumbered[block]] = kept;
+        }
+        size = kept;
+        blockCount = blocks;
+        blockStart = starts;
+        blockEnd = ends;
+        computeCfg();
+    }
+
+    // Moves the given instructions, in order, into the preheader of the loop with this header: the one block
+    // outside the loop that enters it, if it has no other successor, or else a new block laid out just before
+    // the header that every entering edge is redirected to. Blocks after a new one are renumbered.
+    void hoist(int header, boolean[] inLoop, int[] moved, int count) {
+        int preheader = -1;
+        int entering = 0;
+        for (int p : predecessors[header]) {
+            if (!inLoop[p]) {
+                preheader = p;
+                entering++;
+            }
+        }
+        boolean create = entering != 1 || successors[preheader].length != 1;
+        boolean[] isMoved = new boolean[size];
+        for (int k = 0; k < count; k++) {
+            isMoved[moved[k]] = true;
+        }
+        int blocks = blockCount + (create ? 1 : 0);
+        int[] renumbered = new int[blockCount];
+        for (int block = 0; block < blockCount; block++) {
+            renumbered[block] = create && block >= header ? block + 1 : block;
+        }
+        // Old instruction index for each new position, -1 for the jump ending a new preheader
+        int[] sequence = new int[size + 1];
+        int[] from = new int[size + 1];
+        int[] starts = new int[blocks];
+        int[] ends = new int[blocks];
+        int n = 0;
+        for (int block = 0; block < blockCount; block++) {
+            if (create && block == header) {
+                starts[header] = n;
+                for (int k = 0; k < count; k++) {
+                    sequence[n++] = moved[k];
+                }
+                sequence[n++] = -1;
+                ends[header] = n;
+            }
+            starts[renumbered[block]] = n;
+            for (int i = blockStart[block]; i < blockEnd[block]; i++) {
+                if (!create && block == preheader && i == blockEnd[block] - 1) {
+                    for (int k = 0; k < count; k++) {
+                        sequence[n++] = moved[k];
+                    }
+                }
+                if (!isMoved[i]) {
+                    from[n] = block;
+                    sequence[n++] = i;
+                }
+            }
+            ends[renumbered[block]] = n;
+        }
+        int capacity = Math.max(op.length, n);
+        int[] newOp = new int[capacity];
+        int[] newDst = new int[capacity];
+        int[] newA = new int[capacity];
+        int[] newB = new int[capacity];
+        int[] newC = new int[capacity];
+        int[] newLine = new int[capacity];
+        for (int k = 0; k < n; k++) {
+            int i = sequence[k];
+            if (i < 0) {
+                newOp[k] = IrOp.JMP;
+                newDst[k] = -1;
+                newA[k] = renumbered[header];
+                newB[k] = -1;
+                newC[k] = -1;
+                newLine[k] = line[blockStart[header]];
+                continue;
+            }
+            newOp[k] = op[i];
+            newDst[k] = dst[i];
+            newA[k] = a[i];
+            newB[k] = b[i];
+            newC[k] = c[i];
+            newLine[k] = line[i];
+            boolean enters = create && !inLoop[from[k]];
+            if (op[i] == IrOp.JMP) {
+                newA[k] = enters && a[i] == header ? header : renumbered[a[i]];
+            } else if (op[i] == IrOp.BR) {
+                newB[k] = enters && b[i] == header ? header : renumbered[b[i]];
+                newC[k] = enters && c[i] == header ? header : renumbered[c[i]];
+            }
+        }
+        op = newOp;
+        dst = newDst;
+        a = newA;
+        b = newB;
+        c = newC;
+        line = newLine;
+        size = n;
+        blockCount = blocks;
+        blockStart = starts;
+        blockEnd = ends;
+        computeCfg();
+    }
+
+    String registerLabel(int register) {
+        return registerName[register] != null ? registerName[register] : "t" + register;
+    }
+
+    String signature() {
+        StringBuilder sb = new StringBuilder(returnType + " " + name + "(");
+        for (int r = 0; r < paramCount; r++) {
+            sb.append(r > 0 ? ", " : "").append(registerType[r]).append(' ').append(registerLabel(r));
+        }
+        return sb.append(')').toString();
+    }
+
+    String instructionText(int i, IrProgram program) {
+        String d = dst[i] >= 0 ? registerLabel(dst[i]) : null;
+        switch (op[i]) {
+            case IrOp.NOP:
+                return "nop";
+            case IrOp.ICONST:
+                WppType type = registerType[dst[i]];
+                return d + " = " + (type == WppType.BOOL ? String.valueOf(a[i] != 0)
+                        : type == WppType.CHAR ? "'" + (char) a[i] + "'" : String.valueOf(a[i]));
+            case IrOp.DCONST:
+                return d + " = " + program.doubleConstants[a[i]];
+            case IrOp.SCONST:
+                return d + " = \"" + program.stringConstants[a[i]].replace("\n", "\\n") + "\"";
+            case IrOp.MOV:
+                return d + " = " + registerLabel(a[i]);
+            case IrOp.I2D:
+                return d + " = (double) " + registerLabel(a[i]);
+            case IrOp.INEG:
+            case IrOp.DNEG:
+            case IrOp.NOT:
+                return d + " = " + IrOp.name(op[i]) + registerLabel(a[i]);
+            case IrOp.JMP:
+                return "goto B" + a[i];
+            case IrOp.BR:
+                return "if " + registerLabel(a[i]) + " goto B" + b[i] + " else B" + c[i];
+            case IrOp.RET:
+                return a[i] >= 0 ? "return " + registerLabel(a[i]) : "return";
+            case IrOp.CALL: {
+                StringBuilder sb = new StringBuilder(d != null ? d + " = " : "");
+                sb.append("call ").append(program.functions.get(a[i]).name).append('(');
+                for (int k = 0; k < c[i]; k++) {
+                    sb.append(k > 0 ? ", " : "").append(registerLabel(args[b[i] + k]));
+                }
+                return sb.append(')').toString();
+            }
+            case IrOp.NEWARR:
+                return d + " = new " + registerType[dst[i]].elementType + "[" + registerLabel(a[i]) + "]";
+            case IrOp.ALOAD:
+                return d + " = " + registerLabel(a[i]) + "[" + registerLabel(b[i]) + "]";
+            case IrOp.ASTORE:
+                return registerLabel(a[i]) + "[" + registerLabel(b[i]) + "] = " + registerLabel(c[i]);
+            case IrOp.GLOAD:
+                return d + " = @" + program.globalNames[a[i]];
+            case IrOp.GSTORE:
+                return "@" + program.globalNames[a[i]] + " = " + registerLabel(b[i]);
+            case IrOp.PRINT:
+                return "print " + registerLabel(a[i]);
+            case IrOp.PRINTNL:
+                return "print endl";
+            default:
+                return d + " = " + registerLabel(a[i]) + " " + IrOp.name(op[i]) + " " + registerLabel(b[i]);
+        }
+    }
+
+    void appendTo(StringBuilder sb, IrProgram program) {
+        sb.append("func ").append(signature());
+        if (!defined) {
+            sb.append(";\n");
+            return;
+        }
+        sb.append('\n');
+        for (int block = 0; block < blockCount; block++) {
+            sb.append("  B").append(block).append(':');
+            if (predecessors[block].length > 0) {
+                sb.append("  ; preds");
+                for (int p : predecessors[block]) {
+                    sb.append(" B").append(p);
+                }
+            } else if (block > 0) {
+                sb.append("  ; unreachable");
+            }
+            sb.append('\n');
+            for (int i = blockStart[block]; i < blockEnd[block]; i++) {
+                sb.append(String.format("      %-36s; line %d%n", instructionText(i, program), line[i]));
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+// Opcodes of the three-address IR. Integer-family registers (int, char, bool) use the I ops,
+// float and double registers the D ops. Operand use per opcode is listed next to it.
+final class IrOp {
+    static final int NOP = 0;
+    static final int ICONST = 1; // dst = a (immediate)
+    static final int DCONST = 2; // dst = doubleConstants[a]
+    static final int SCONST = 3; // dst = stringConstants[a]
+    static final int MOV = 4; // dst = a
+    static final int I2D = 5; // dst = (double) a
+    static final int IADD = 6; // dst = a op b
+    static final int ISUB = 7;
+    static final int IMUL = 8;
+    static final int IDIV = 9;
+    static final int IMOD = 10;
+    static final int DADD = 11;
+    static final int DSUB = 12;
+    static final int DMUL = 13;
+    static final int DDIV = 14;
+    static final int INEG = 15; // dst = -a
+    static final int DNEG = 16;
+    static final int NOT = 17; // dst = !a
+    static final int ILT = 18; // dst = a cmp b, 1 or 0
+    static final int ILE = 19;
+    static final int IGT = 20;
+    static final int IGE = 21;
+    static final int IEQ = 22;
+    static final int INE = 23;
+    static final int DLT = 24;
+    static final int DLE = 25;
+    static final int DGT = 26;
+    static final int DGE = 27;
+    static final int DEQ = 28;
+    static final int DNE = 29;
+    static final int SEQ = 30;
+    static final int SNE = 31;
+    static final int JMP = 32; // goto block a
+    static final int BR = 33; // if a goto block b else block c
+    static final int RET = 34; // return a, or nothing if a < 0
+    static final int CALL = 35; // dst = functions[a](args[b .. b + c)), dst < 0 if unused
+    static final int NEWARR = 36; // dst = new array of dst's element type, length a
+    static final int ALOAD = 37; // dst = a[b]
+    static final int ASTORE = 38; // a[b] = c
+    static final int GLOAD = 39; // dst = globals[a]
+    static final int GSTORE = 40; // globals[a] = b
+    static final int PRINT = 41; // print a
+    static final int PRINTNL = 42; // print end of line
+    static final int COUNT = 43;
+
+    private static final String[] NAMES = { "nop", "iconst", "dconst", "sconst", "mov", "i2d", "+", "-", "*", "/",
+            "%", "+", "-", "*", "/", "-", "-", "!", "<", "<=", ">", ">=", "==", "!=", "<", "<=", ">", ">=", "==", "!=",
+            "==", "!=", "goto", "br", "return", "call", "newarr", "aload", "astore", "gload", "gstore", "print",
+            "printnl" };
+
+    private IrOp() {
+    }
+
+    static String name(int op) {
+        return NAMES[op];
+    }
+
+    static boolean isTerminator(int op) {
+        return op == JMP || op == BR || op == RET;
+    }
+
+    static boolean isBinary(int op) {
+        return (op >= IADD && op <= DDIV) || (op >= ILT && op <= SNE);
+    }
+
+    static boolean isUnary(int op) {
+        return op == MOV || op == I2D || op == INEG || op == DNEG || op == NOT;
+    }
+
+    // Writes a register in dst
+    static boolean definesRegister(int op) {
+        return (op >= ICONST && op <= SNE) || op == CALL || op == NEWARR || op == ALOAD || op == GLOAD;
+    }
+
+    // Observable effects besides the register written: cannot be dropped or moved freely
+    static boolean hasSideEffects(int op) {
+        return op == CALL || op == ASTORE || op == GSTORE || op == PRINT || op == PRINTNL || isTerminator(op);
+    }
+
+    // May stop the program (division by zero, bad index), so only executed where the source does
+    static boolean canTrap(int op) {
+        return op == IDIV || op == IMOD || op == ALOAD || op == NEWARR;
+    }
+}
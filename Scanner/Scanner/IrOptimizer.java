@@ -0,0 +1,27 @@
+import java.util.ArrayList;
+import java.util.List;
+
+// Optimization passes run over a lowered program before it is listed or executed; each rewrites the IR in
+// place and leaves every function's control-flow graph up to date. Returns the warnings the passes raise;
+// notes on the calls they inlined and the code they moved go to the program's listing, not the diagnostics.
+final class IrOptimizer {
+    private IrOptimizer() {
+    }
+
+    static List<String> optimize(IrProgram program) {
+        List<String> warnings = new ArrayList<>();
+        new UnusedVariableAnalysis(program, warnings).run();
+        new ConstantPropagation(program).run();
+        new DeadCodeElimination(program, warnings).run();
+        new Inliner(program, program.notes).run();
+        // Inlined bodies are folded for their arguments; code this removes is still live in the callee, so
+        // the passes that follow report nothing
+        List<String> inlinedWarnings = new ArrayList<>();
+        new ConstantPropagation(program).run();
+        new DeadCodeElimination(program, inlinedWarnings).run();
+        new LoopInvariantCodeMotion(program, program.notes).run();
+        new ValueNumbering(program).run();
+        new DeadCodeElimination(program, inlinedWarnings).run(); // Drops the copies value numbering leaves
+        return warnings;
+    }
+}
@@ -0,0 +1,87 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Lowered program: functions in declaration order, global slots and the constant pools they reference
+final class IrProgram {
+    final List<IrFunction> functions = new ArrayList<>();
+    final Map<String, IrFunction> functionsByName = new HashMap<>();
+    IrFunction init; // Global initializers and top-level statements, run once before main
+    IrFunction main;
+
+    String[] globalNames = new String[8];
+    WppType[] globalTypes = new WppType[8];
+    SymbolTableEntry[] globalSymbols = new SymbolTableEntry[8];
+    int globalCount;
+
+    double[] doubleConstants = new double[8];
+    int doubleCount;
+    String[] stringConstants = new String[8];
+    int stringCount;
+    private final Map<Long, Integer> doubleIndex = new HashMap<>();
+    private final Map<String, Integer> stringIndex = new HashMap<>();
+
+    final List<String> notes = new ArrayList<>(); // What the optimizer moved, listed ahead of the code
+
+    IrFunction addFunction(String name, WppType returnType) {
+        IrFunction function = new IrFunction(name, returnType, functions.size());
+        functions.add(function);
+        functionsByName.putIfAbsent(name, function);
+        return function;
+    }
+
+    int addGlobal(String name, WppType type, SymbolTableEntry symbol) {
+        if (globalCount == globalNames.length) {
+            globalNames = Arrays.copyOf(globalNames, globalCount * 2);
+            globalTypes = Arrays.copyOf(globalTypes, globalCount * 2);
+            globalSymbols = Arrays.copyOf(globalSymbols, globalCount * 2);
+        }
+        globalNames[globalCount] = name;
+        globalTypes[globalCount] = type;
+        globalSymbols[globalCount] = symbol;
+        return globalCount++;
+    }
+
+    int addDouble(double value) {
+        return doubleIndex.computeIfAbsent(Double.doubleToRawLongBits(value), bits -> {
+            if (doubleCount == doubleConstants.length) {
+                doubleConstants = Arrays.copyOf(doubleConstants, doubleCount * 2);
+            }
+            doubleConstants[doubleCount] = value;
+            return doubleCount++;
+        });
+    }
+
+    int addString(String value) {
+        return stringIndex.computeIfAbsent(value, v -> {
+            if (stringCount == stringConstants.length) {
+                stringConstants = Arrays.copyOf(stringConstants, stringCount * 2);
+            }
+            stringConstants[stringCount] = v;
+            return stringCount++;
+        });
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (String note : notes) {
+            sb.append("// ").append(note).append('\n');
+        }
+        if (!notes.isEmpty() && globalCount > 0) {
+            sb.append('\n');
+        }
+        for (int g = 0; g < globalCount; g++) {
+            sb.append("global ").append(globalTypes[g]).append(' ').append(globalNames[g]).append('\n');
+        }
+        for (IrFunction function : functions) {
+            if (sb.length() > 0) {
+                sb.append('\n');
+            }
+            function.appendTo(sb, this);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,282 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Minimal JSON reader and writer for the language server and the command line. Objects read as LinkedHashMap,
+// arrays as ArrayList, numbers as Long when integral and Double otherwise, and null as null. Writing accepts
+// the same types, any Collection and any Number.
+final class Json {
+    private final String text;
+    private int pos;
+
+    private Json(String text) {
+        this.text = text;
+    }
+
+    static Object parse(String text) {
+        Json reader = new Json(text);
+        Object value = reader.value();
+        reader.skipWhitespace();
+        if (reader.pos != text.length()) {
+            throw reader.error("Unexpected text after the value");
+        }
+        return value;
+    }
+
+    static String write(Object value) {
+        StringBuilder sb = new StringBuilder();
+        write(value, sb);
+        return sb.toString();
+    }
+
+    static void write(Object value, StringBuilder sb) {
+        if (value == null) {
+            sb.append("null");
+        } else if (value instanceof String) {
+            quote((String) value, sb);
+        } else if (value instanceof Map) {
+            sb.append('{');
+            boolean first = true;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                sb.append(first ? "" : ",");
+                quote(String.valueOf(entry.getKey()), sb);
+                sb.append(':');
+                write(entry.getValue(), sb);
+                first = false;
+            }
+            sb.append('}');
+        } else if (value instanceof Collection) {
+            sb.append('[');
+            boolean first = true;
+            for (Object element : (Collection<?>) value) {
+                sb.append(first ? "" : ",");
+                write(element, sb);
+                first = false;
+            }
+            sb.append(']');
+        } else if (value instanceof Number || value instanceof Boolean) {
+            sb.append(value);
+        } else {
+            throw new IllegalArgumentException("Cannot write " + value.getClass().getName() + " as JSON");
+        }
+    }
+
+    static String quote(String text) {
+        StringBuilder sb = new StringBuilder();
+        quote(text, sb);
+        return sb.toString();
+    }
+
+    static void quote(String text, StringBuilder sb) {
+        sb.append('"');
+        for (int k = 0; k < text.length(); k++) {
+            char ch = text.charAt(k);
+            switch (ch) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (ch < ' ') {
+                        sb.append(String.format("\\u%04x", (int) ch));
+                    } else {
+                        sb.append(ch);
+                    }
+            }
+        }
+        sb.append('"');
+    }
+
+    private Object value() {
+        skipWhitespace();
+        if (pos >= text.length()) {
+            throw error("Unexpected end of input");
+        }
+        char ch = text.charAt(pos);
+        switch (ch) {
+            case '{':
+                return object();
+            case '[':
+                return array();
+            case '"':
+                return string();
+            case 't':
+                return literal("true", Boolean.TRUE);
+            case 'f':
+                return literal("false", Boolean.FALSE);
+            case 'n':
+                return literal("null", null);
+            default:
+                if (ch == '-' || (ch >= '0' && ch <= '9')) {
+                    return number();
+                }
+                throw error("Unexpected character '" + ch + "'");
+        }
+    }
+
+    private Map<String, Object> object() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        pos++;
+        skipWhitespace();
+        if (peek() == '}') {
+            pos++;
+            return map;
+        }
+        while (true) {
+            skipWhitespace();
+            if (peek() != '"') {
+                throw error("Expected a member name");
+            }
+            String key = string();
+            skipWhitespace();
+            expect(':');
+            map.put(key, value());
+            skipWhitespace();
+            if (peek() == ',') {
+                pos++;
+            } else {
+                expect('}');
+                return map;
+            }
+        }
+    }
+
+    private List<Object> array() {
+        List<Object> list = new ArrayList<>();
+        pos++;
+        skipWhitespace();
+        if (peek() == ']') {
+            pos++;
+            return list;
+        }
+        while (true) {
+            list.add(value());
+            skipWhitespace();
+            if (peek() == ',') {
+                pos++;
+            } else {
+                expect(']');
+                return list;
+            }
+        }
+    }
+
+    private String string() {
+        pos++; // Opening quote
+        StringBuilder sb = null; // Only needed once an escape is seen
+        int start = pos;
+        while (pos < text.length()) {
+            char ch = text.charAt(pos);
+            if (ch == '"') {
+                String tail = text.substring(start, pos++);
+                return sb == null ? tail : sb.append(tail).toString();
+            }
+            if (ch != '\\') {
+                pos++;
+                continue;
+            }
+            if (sb == null) {
+                sb = new StringBuilder();
+            }
+            sb.append(text, start, pos);
+            if (pos + 1 >= text.length()) {
+                break;
+            }
+            char escape = text.charAt(pos + 1);
+            pos += 2;
+            switch (escape) {
+                case 'b':
+                    sb.append('\b');
+                    break;
+                case 'f':
+                    sb.append('\f');
+                    break;
+                case 'n':
+                    sb.append('\n');
+                    break;
+                case 'r':
+                    sb.append('\r');
+                    break;
+                case 't':
+                    sb.append('\t');
+                    break;
+                case 'u':
+                    if (pos + 4 > text.length()) {
+                        throw error("Incomplete unicode escape");
+                    }
+                    sb.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                    pos += 4;
+                    break;
+                default:
+                    sb.append(escape); // '"', '\\' and '/'
+            }
+            start = pos;
+        }
+        throw error("Unterminated string");
+    }
+
+    private Object number() {
+        int start = pos;
+        boolean integral = true;
+        if (peek() == '-') {
+            pos++;
+        }
+        while (pos < text.length()) {
+            char ch = text.charAt(pos);
+            if (ch == '.' || ch == 'e' || ch == 'E' || ch == '+' || ch == '-') {
+                integral = false;
+            } else if (ch < '0' || ch > '9') {
+                break;
+            }
+            pos++;
+        }
+        String digits = text.substring(start, pos);
+        try {
+            return integral ? (Object) Long.parseLong(digits) : (Object) Double.parseDouble(digits);
+        } catch (NumberFormatException e) {
+            throw error("Malformed number '" + digits + "'");
+        }
+    }
+
+    private Object literal(String word, Object value) {
+        if (!text.startsWith(word, pos)) {
+            throw error("Unexpected token");
+        }
+        pos += word.length();
+        return value;
+    }
+
+    private void skipWhitespace() {
+        while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    private char peek() {
+        return pos < text.length() ? text.charAt(pos) : '\0';
+    }
+
+    private void expect(char ch) {
+        if (peek() != ch) {
+            throw error("Expected '" + ch + "'");
+        }
+        pos++;
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at offset " + pos);
+    }
+}
@@ -0,0 +1,567 @@
+import java.io.Writer;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Compiles a lowered program to one JVM class whose static methods are the Wpp functions and whose static
+// fields are the globals. The class is defined as a hidden class, so HotSpot profiles and JIT-compiles it
+// like any other code and unloads it with the backend. Every register becomes a local initialized on
+// entry, so all branch targets share one full stack map frame. Each source line's code has an exception
+// handler that turns JVM exceptions into Wpp runtime errors for that line.
+final class JvmBackend {
+    private static final String CLASS_NAME = "WppProgram";
+    private static final String RUNTIME = "JvmRuntime";
+    private static final String STRING = "java/lang/String";
+
+    // JVM opcodes
+    private static final int ACONST_NULL = 1, ICONST_0 = 3, ICONST_1 = 4, DCONST_0 = 14, DCONST_1 = 15;
+    private static final int BIPUSH = 16, SIPUSH = 17, LDC = 18, LDC_W = 19, LDC2_W = 20;
+    private static final int ILOAD = 21, DLOAD = 24, ALOAD = 25, IALOAD = 46, DALOAD = 49, AALOAD = 50;
+    private static final int ISTORE = 54, DSTORE = 57, ASTORE = 58, IASTORE = 79, DASTORE = 82, AASTORE = 83;
+    private static final int POP = 87, POP2 = 88, INEG = 116, DNEG = 119, I2D = 135;
+    private static final int DCMPL = 151, DCMPG = 152;
+    private static final int IFEQ = 153, IFNE = 154, IFLT = 155, IFGE = 156, IFGT = 157, IFLE = 158;
+    private static final int IF_ICMPEQ = 159, IF_ICMPNE = 160, IF_ICMPLT = 161, IF_ICMPGE = 162;
+    private static final int IF_ICMPGT = 163, IF_ICMPLE = 164, GOTO = 167;
+    private static final int IRETURN = 172, DRETURN = 175, ARETURN = 176, RETURN = 177;
+    private static final int GETSTATIC = 178, PUTSTATIC = 179, INVOKEVIRTUAL = 182, INVOKESTATIC = 184;
+    private static final int NEWARRAY = 188, ATHROW = 191;
+    private static final int T_DOUBLE = 7, T_INT = 10;
+
+    // IADD .. IMOD and DADD .. DDIV as JVM arithmetic
+    private static final int[] ARITHMETIC = { 96, 100, 104, 108, 112, 99, 103, 107, 111 };
+    // ILT .. INE as integer compare-and-branch
+    private static final int[] INT_BRANCH = { IF_ICMPLT, IF_ICMPLE, IF_ICMPGT, IF_ICMPGE, IF_ICMPEQ, IF_ICMPNE };
+    // DLT .. DNE: the comparison that makes NaN fail the test, then the branch on its result
+    private static final int[] DOUBLE_COMPARE = { DCMPG, DCMPG, DCMPL, DCMPL, DCMPL, DCMPL };
+    private static final int[] DOUBLE_BRANCH = { IFLT, IFLE, IFGT, IFGE, IFEQ, IFNE };
+
+    private final IrProgram program;
+    private final ClassFileWriter writer = new ClassFileWriter(CLASS_NAME);
+    private final JvmRuntime runtime;
+    private final MethodHandle init;
+    private final MethodHandle main;
+
+    // State while one function is translated
+    private IrFunction fn;
+    private ClassFileWriter.Code code;
+    private int[] local; // JVM local slot per register
+    private int[] frameLocals; // Verification type per register
+    private int[] blockLabel;
+    private int[] nextBlock; // Block laid out after each one, -1 at the end
+    private int[] useCount;
+
+    JvmBackend(IrProgram program, Writer output) {
+        this.program = program;
+        runtime = new JvmRuntime(output);
+        byte[] bytes = generate();
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(bytes, true);
+            Class<?> generated = lookup.lookupClass();
+            lookup.findStaticSetter(generated, "rt", JvmRuntime.class).invoke(runtime);
+            init = lookup.findStatic(generated, methodName(program.init), methodType(program.init));
+            main = program.main == null || !program.main.defined ? null
+                    : lookup.findStatic(generated, methodName(program.main), methodType(program.main));
+        } catch (Throwable e) {
+            throw new IllegalStateException("Generated class was rejected: " + e, e);
+        }
+    }
+
+    // Runs the global initializers, then main; returns main's result
+    int run() {
+        if (main == null) {
+            throw new WppVm.RuntimeError(1, "No 'main' function to run");
+        }
+        try {
+            init.invoke();
+            Object[] arguments = new Object[program.main.paramCount];
+            for (int r = 0; r < arguments.length; r++) {
+                arguments[r] = defaultValue(program.main.registerType[r]); // argc = 0, empty argv
+            }
+            Object result = main.invokeWithArguments(arguments);
+            return result instanceof Integer ? (Integer) result : 0;
+        } catch (RuntimeException | Error e) {
+            throw e; // Runtime errors were given their line by the generated handlers
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        } finally {
+            runtime.flush();
+        }
+    }
+
+    void stop() {
+        runtime.stop();
+    }
+
+    // Class layout
+
+    private byte[] generate() {
+        writer.addField(ClassFileWriter.ACC_STATIC, "rt", "L" + RUNTIME + ";");
+        for (int g = 0; g < program.globalCount; g++) {
+            writer.addField(ClassFileWriter.ACC_STATIC, globalField(g), descriptor(program.globalTypes[g]));
+        }
+        for (IrFunction function : program.functions) {
+            compile(function);
+        }
+        return writer.toByteArray();
+    }
+
+    private String methodName(IrFunction function) {
+        return function == program.init ? "$init" : function.name + "$" + function.index;
+    }
+
+    private String globalField(int global) {
+        return "g$" + program.globalNames[global];
+    }
+
+    private static String descriptor(WppType type) {
+        if (type == WppType.VOID) {
+            return "V";
+        }
+        if (type.isArray()) {
+            return "[" + descriptor(type.elementType);
+        }
+        if (type.isFloating()) {
+            return "D";
+        }
+        return type == WppType.STRING ? "L" + STRING + ";" : "I";
+    }
+
+    private static String descriptor(IrFunction function) {
+        StringBuilder sb = new StringBuilder("(");
+        for (int r = 0; r < function.paramCount; r++) {
+            sb.append(descriptor(function.registerType[r]));
+        }
+        return sb.append(')').append(descriptor(function.returnType)).toString();
+    }
+
+    private static Class<?> javaClass(WppType type) {
+        if (type == WppType.VOID) {
+            return void.class;
+        }
+        if (type.isArray()) {
+            return Array.newInstance(javaClass(type.elementType), 0).getClass();
+        }
+        if (type.isFloating()) {
+            return double.class;
+        }
+        return type == WppType.STRING ? String.class : int.class;
+    }
+
+    private static MethodType methodType(IrFunction function) {
+        Class<?>[] parameters = new Class<?>[function.paramCount];
+        for (int r = 0; r < parameters.length; r++) {
+            parameters[r] = javaClass(function.registerType[r]);
+        }
+        return MethodType.methodType(javaClass(function.returnType), parameters);
+    }
+
+    private static Object defaultValue(WppType type) {
+        if (type.isArray()) {
+            return Array.newInstance(javaClass(type.elementType), 0);
+        }
+        if (type.isFloating()) {
+            return 0.0;
+        }
+        return type == WppType.STRING ? "" : (Object) 0;
+    }
+
+    private static int slotSize(WppType type) {
+        return type.isFloating() ? 2 : 1;
+    }
+
+    private int verificationType(WppType type) {
+        if (type.isFloating()) {
+            return ClassFileWriter.DOUBLE;
+        }
+        if (type.isArray()) {
+            return writer.objectType(descriptor(type)); // Array classes are named by their descriptor
+        }
+        return type == WppType.STRING ? writer.objectType(STRING) : ClassFileWriter.INTEGER;
+    }
+
+    // Functions
+
+    private void compile(IrFunction function) {
+        fn = function;
+        code = writer.addMethod(ClassFileWriter.ACC_STATIC, methodName(fn), descriptor(fn));
+        local = new int[fn.registerCount];
+        frameLocals = new int[fn.registerCount];
+        int slots = 0;
+        for (int r = 0; r < fn.registerCount; r++) {
+            local[r] = slots;
+            frameLocals[r] = verificationType(fn.registerType[r]);
+            slots += slotSize(fn.registerType[r]);
+        }
+        code.maxLocals = slots;
+        code.maxStack = 4; // Two doubles compared, or array, index and double stored
+        if (!fn.defined) {
+            code.op2(LDC_W, writer.string(fn.name));
+            code.op2(INVOKESTATIC, writer.methodRef(RUNTIME, "missingBody", "(L" + STRING + ";)L" + RUNTIME + "$Trap;"));
+            code.op(ATHROW);
+            code.finish();
+            return;
+        }
+        for (int r = fn.paramCount; r < fn.registerCount; r++) {
+            pushDefault(fn.registerType[r]);
+            store(r);
+        }
+
+        boolean[] reachable = reachableBlocks();
+        blockLabel = new int[fn.blockCount];
+        nextBlock = new int[fn.blockCount];
+        int following = -1;
+        for (int block = fn.blockCount - 1; block >= 0; block--) {
+            blockLabel[block] = code.newLabel();
+            nextBlock[block] = following;
+            if (reachable[block]) {
+                following = block;
+            }
+        }
+        useCount = fn.useCounts();
+        Map<Integer, Integer> handlers = new TreeMap<>(); // Source line to its handler label
+        int rangeStart = code.offset();
+        int rangeLine = -1;
+        for (int block = 0; block < fn.blockCount; block++) {
+            if (!reachable[block]) {
+                continue;
+            }
+            code.mark(blockLabel[block]);
+            if (block > 0 || fn.predecessors[0].length > 0) {
+                code.frame(frameLocals, fn.registerCount);
+            }
+            for (int i = fn.blockStart[block]; i < fn.blockEnd[block]; i++) {
+                if (fn.line[i] != rangeLine) {
+                    protect(rangeStart, rangeLine, handlers);
+                    rangeStart = code.offset();
+                    rangeLine = fn.line[i];
+                }
+                code.line(fn.line[i]);
+                if (fusesWithBranch(i)) {
+                    pollIfBackward(block, fn.b[i + 1], fn.c[i + 1]);
+                    branch(condition(i), fn.b[i + 1], fn.c[i + 1], block);
+                    i++;
+                } else {
+                    instruction(i, block);
+                }
+            }
+        }
+        protect(rangeStart, rangeLine, handlers);
+        for (Map.Entry<Integer, Integer> handler : handlers.entrySet()) {
+            code.mark(handler.getValue());
+            code.frame(frameLocals, fn.registerCount, writer.objectType("java/lang/Throwable"));
+            pushInt(handler.getKey());
+            code.op2(INVOKESTATIC, writer.methodRef(RUNTIME, "fail", "(Ljava/lang/Throwable;I)Ljava/lang/RuntimeException;"));
+            code.op(ATHROW);
+        }
+        code.finish();
+    }
+
+    // Code generated for one source line reports failures with that line
+    private void protect(int start, int line, Map<Integer, Integer> handlers) {
+        if (line >= 0 && code.offset() > start) {
+            code.handler(start, code.offset(), handlers.computeIfAbsent(line, l -> code.newLabel()));
+        }
+    }
+
+    private boolean[] reachableBlocks() {
+        boolean[] reachable = new boolean[fn.blockCount];
+        int[] work = new int[fn.blockCount];
+        int count = 0;
+        reachable[0] = true;
+        work[count++] = 0;
+        while (count > 0) {
+            for (int successor : fn.successors[work[--count]]) {
+                if (!reachable[successor]) {
+                    reachable[successor] = true;
+                    work[count++] = successor;
+                }
+            }
+        }
+        return reachable;
+    }
+
+    // A comparison whose only use is the branch right after it jumps on the JVM condition directly
+    private boolean fusesWithBranch(int i) {
+        int op = fn.op[i];
+        return ((op >= IrOp.ILT && op <= IrOp.SNE) || op == IrOp.NOT) && fn.op[i + 1] == IrOp.BR
+                && fn.a[i + 1] == fn.dst[i] && useCount[fn.dst[i]] == 1;
+    }
+
+    private void instruction(int i, int block) {
+        int op = fn.op[i];
+        switch (op) {
+            case IrOp.NOP:
+                break;
+            case IrOp.ICONST:
+                pushInt(fn.a[i]);
+                store(fn.dst[i]);
+                break;
+            case IrOp.DCONST:
+                pushDouble(program.doubleConstants[fn.a[i]]);
+                store(fn.dst[i]);
+                break;
+            case IrOp.SCONST:
+                ldc(writer.string(program.stringConstants[fn.a[i]]));
+                store(fn.dst[i]);
+                break;
+            case IrOp.MOV:
+                load(fn.a[i]);
+                store(fn.dst[i]);
+                break;
+            case IrOp.I2D:
+                load(fn.a[i]);
+                code.op(I2D);
+                store(fn.dst[i]);
+                break;
+            case IrOp.INEG:
+            case IrOp.DNEG:
+                load(fn.a[i]);
+                code.op(op == IrOp.INEG ? INEG : DNEG);
+                store(fn.dst[i]);
+                break;
+            case IrOp.JMP:
+                pollIfBackward(block, fn.a[i], fn.a[i]);
+                if (fn.a[i] != nextBlock[block]) {
+                    code.jump(GOTO, blockLabel[fn.a[i]]);
+                }
+                break;
+            case IrOp.BR:
+                pollIfBackward(block, fn.b[i], fn.c[i]);
+                load(fn.a[i]);
+                branch(IFNE, fn.b[i], fn.c[i], block);
+                break;
+            case IrOp.RET:
+                ret(fn.a[i]);
+                break;
+            case IrOp.CALL:
+                call(i);
+                break;
+            case IrOp.NEWARR: {
+                WppType element = fn.registerType[fn.dst[i]].elementType;
+                load(fn.a[i]);
+                if (element == WppType.STRING) {
+                    code.op2(INVOKESTATIC, writer.methodRef(RUNTIME, "newStrings", "(I)[L" + STRING + ";"));
+                } else {
+                    code.op1(NEWARRAY, element.isFloating() ? T_DOUBLE : T_INT);
+                }
+                store(fn.dst[i]);
+                break;
+            }
+            case IrOp.ALOAD: {
+                WppType element = fn.registerType[fn.a[i]].elementType;
+                load(fn.a[i]);
+                load(fn.b[i]);
+                code.op(element.isFloating() ? DALOAD : element == WppType.STRING ? AALOAD : IALOAD);
+                store(fn.dst[i]);
+                break;
+            }
+            case IrOp.ASTORE: {
+                WppType element = fn.registerType[fn.a[i]].elementType;
+                load(fn.a[i]);
+                load(fn.b[i]);
+                load(fn.c[i]);
+                code.op(element.isFloating() ? DASTORE : element == WppType.STRING ? AASTORE : IASTORE);
+                break;
+            }
+            case IrOp.GLOAD:
+                code.op2(GETSTATIC, globalRef(fn.a[i]));
+                store(fn.dst[i]);
+                break;
+            case IrOp.GSTORE:
+                load(fn.b[i]);
+                code.op2(PUTSTATIC, globalRef(fn.a[i]));
+                break;
+            case IrOp.PRINT:
+                print(fn.a[i]);
+                break;
+            case IrOp.PRINTNL:
+                code.op2(GETSTATIC, writer.fieldRef(CLASS_NAME, "rt", "L" + RUNTIME + ";"));
+                code.op2(INVOKEVIRTUAL, writer.methodRef(RUNTIME, "printNewline", "()V"));
+                break;
+            default:
+                if (op >= IrOp.IADD && op <= IrOp.DDIV) {
+                    load(fn.a[i]);
+                    load(fn.b[i]);
+                    code.op(ARITHMETIC[op - IrOp.IADD]);
+                } else {
+                    booleanOf(condition(i));
+                }
+                store(fn.dst[i]);
+        }
+    }
+
+    // Pushes the operands of a comparison or NOT and returns the JVM branch taken when it holds
+    private int condition(int i) {
+        int op = fn.op[i];
+        load(fn.a[i]);
+        if (op == IrOp.NOT) {
+            return IFEQ;
+        }
+        load(fn.b[i]);
+        if (op >= IrOp.ILT && op <= IrOp.INE) {
+            return INT_BRANCH[op - IrOp.ILT];
+        }
+        if (op >= IrOp.DLT && op <= IrOp.DNE) {
+            code.op(DOUBLE_COMPARE[op - IrOp.DLT]);
+            return DOUBLE_BRANCH[op - IrOp.DLT];
+        }
+        code.op2(INVOKESTATIC, writer.methodRef(RUNTIME, "equal", "(L" + STRING + ";L" + STRING + ";)I"));
+        return op == IrOp.SEQ ? IFNE : IFEQ;
+    }
+
+    // Turns a pending branch into 1 or 0 on the stack
+    private void booleanOf(int branch) {
+        int holds = code.newLabel();
+        int done = code.newLabel();
+        code.jump(branch, holds);
+        code.op(ICONST_0);
+        code.jump(GOTO, done);
+        code.mark(holds);
+        code.frame(frameLocals, fn.registerCount);
+        code.op(ICONST_1);
+        code.mark(done);
+        code.frame(frameLocals, fn.registerCount, ClassFileWriter.INTEGER);
+    }
+
+    // Jumps on the pending condition, falling through to whichever target is laid out next
+    private void branch(int opcode, int whenTrue, int whenFalse, int block) {
+        int next = nextBlock[block];
+        if (whenTrue == next && whenFalse != next) {
+            code.jump(invert(opcode), blockLabel[whenFalse]);
+            return;
+        }
+        code.jump(opcode, blockLabel[whenTrue]);
+        if (whenFalse != next) {
+            code.jump(GOTO, blockLabel[whenFalse]);
+        }
+    }
+
+    private static int invert(int opcode) {
+        int base = opcode < IF_ICMPEQ ? IFEQ : IF_ICMPEQ;
+        return base + ((opcode - base) ^ 1);
+    }
+
+    // Loops check the stop flag on their back edges
+    private void pollIfBackward(int block, int target, int otherTarget) {
+        if (target <= block || otherTarget <= block) {
+            code.op2(GETSTATIC, writer.fieldRef(CLASS_NAME, "rt", "L" + RUNTIME + ";"));
+            code.op2(INVOKEVIRTUAL, writer.methodRef(RUNTIME, "poll", "()V"));
+        }
+    }
+
+    private void ret(int value) {
+        WppType type = fn.returnType;
+        if (type == WppType.VOID) {
+            code.op(RETURN);
+            return;
+        }
+        if (value >= 0) {
+            load(value);
+        } else {
+            pushDefault(type);
+        }
+        code.op(type.isFloating() ? DRETURN : type == WppType.STRING || type.isArray() ? ARETURN : IRETURN);
+    }
+
+    private void call(int i) {
+        IrFunction callee = program.functions.get(fn.a[i]);
+        int stack = 0;
+        for (int k = 0; k < callee.paramCount; k++) {
+            if (k < fn.c[i]) {
+                load(fn.args[fn.b[i] + k]);
+            } else {
+                pushDefault(callee.registerType[k]);
+            }
+            stack += slotSize(callee.registerType[k]);
+        }
+        code.maxStack = Math.max(code.maxStack, stack);
+        code.op2(INVOKESTATIC, writer.methodRef(CLASS_NAME, methodName(callee), descriptor(callee)));
+        if (fn.dst[i] >= 0) {
+            store(fn.dst[i]);
+        } else if (callee.returnType != WppType.VOID) {
+            code.op(callee.returnType.isFloating() ? POP2 : POP);
+        }
+    }
+
+    private void print(int register) {
+        WppType type = fn.registerType[register];
+        code.op2(GETSTATIC, writer.fieldRef(CLASS_NAME, "rt", "L" + RUNTIME + ";"));
+        load(register);
+        String method;
+        if (type.isFloating()) {
+            method = "printDouble(D)V";
+        } else if (type == WppType.STRING) {
+            method = "printString(L" + STRING + ";)V";
+        } else if (type == WppType.CHAR) {
+            method = "printChar(I)V";
+        } else if (type == WppType.BOOL) {
+            method = "printBool(I)V";
+        } else {
+            method = "printInt(I)V";
+        }
+        int paren = method.indexOf('(');
+        code.op2(INVOKEVIRTUAL, writer.methodRef(RUNTIME, method.substring(0, paren), method.substring(paren)));
+    }
+
+    // Operand helpers
+
+    private int globalRef(int global) {
+        return writer.fieldRef(CLASS_NAME, globalField(global), descriptor(program.globalTypes[global]));
+    }
+
+    private void load(int register) {
+        WppType type = fn.registerType[register];
+        code.local(type.isFloating() ? DLOAD : type == WppType.STRING || type.isArray() ? ALOAD : ILOAD,
+                local[register]);
+    }
+
+    private void store(int register) {
+        WppType type = fn.registerType[register];
+        code.local(type.isFloating() ? DSTORE : type == WppType.STRING || type.isArray() ? ASTORE : ISTORE,
+                local[register]);
+    }
+
+    private void pushDefault(WppType type) {
+        if (type.isFloating()) {
+            code.op(DCONST_0);
+        } else if (type == WppType.STRING || type.isArray()) {
+            code.op(ACONST_NULL);
+        } else {
+            code.op(ICONST_0);
+        }
+    }
+
+    private void pushInt(int value) {
+        if (value >= -1 && value <= 5) {
+            code.op(ICONST_0 + value);
+        } else if (value == (byte) value) {
+            code.op1(BIPUSH, value);
+        } else if (value == (short) value) {
+            code.op2(SIPUSH, value);
+        } else {
+            ldc(writer.integer(value));
+        }
+    }
+
+    private void pushDouble(double value) {
+        if (Double.doubleToRawLongBits(value) == 0) {
+            code.op(DCONST_0);
+        } else if (value == 1.0) {
+            code.op(DCONST_1);
+        } else {
+            code.op2(LDC2_W, writer.doubleConstant(value));
+        }
+    }
+
+    private void ldc(int index) {
+        if (index <= 0xFF) {
+            code.op1(LDC, index);
+        } else {
+            code.op2(LDC_W, index);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+// Services called from classes generated by JvmBackend: buffered cout, string helpers and the stop flag.
+// Each compiled program holds its own instance in a static field.
+final class JvmRuntime {
+    private static final int FLUSH_THRESHOLD = 8192;
+
+    private final Writer output;
+    private final StringBuilder buffer = new StringBuilder(FLUSH_THRESHOLD * 2);
+    private volatile boolean stopRequested;
+
+    JvmRuntime(Writer output) {
+        this.output = output;
+    }
+
+    void printInt(int value) {
+        buffer.append(value);
+        flushIfFull();
+    }
+
+    void printChar(int value) {
+        buffer.append((char) value);
+        flushIfFull();
+    }
+
+    void printBool(int value) {
+        buffer.append(value != 0 ? '1' : '0');
+        flushIfFull();
+    }
+
+    void printDouble(double value) {
+        buffer.append(WppVm.formatDouble(value));
+        flushIfFull();
+    }
+
+    void printString(String value) {
+        buffer.append(WppVm.str(value));
+        flushIfFull();
+    }
+
+    void printNewline() {
+        buffer.append('\n');
+        flushIfFull();
+    }
+
+    // Called on backward branches so a runaway loop can be stopped
+    void poll() {
+        if (stopRequested) {
+            throw new Trap("Stopped");
+        }
+    }
+
+    void stop() {
+        stopRequested = true;
+    }
+
+    static int equal(String a, String b) {
+        return WppVm.str(a).equals(WppVm.str(b)) ? 1 : 0;
+    }
+
+    static String[] newStrings(int length) {
+        String[] strings = new String[length];
+        Arrays.fill(strings, "");
+        return strings;
+    }
+
+    // Exception handler of every generated statement: names the failure and the line it happened on.
+    // Errors from deeper calls already carry their line and pass through unchanged.
+    static RuntimeException fail(Throwable e, int line) {
+        if (e instanceof WppVm.RuntimeError) {
+            return (WppVm.RuntimeError) e;
+        }
+        String message;
+        if (e instanceof Trap) {
+            message = e.getMessage();
+        } else if (e instanceof ArithmeticException) {
+            message = "Division by zero";
+        } else if (e instanceof ArrayIndexOutOfBoundsException) {
+            message = "Array index out of bounds (" + e.getMessage() + ")";
+        } else if (e instanceof NegativeArraySizeException) {
+            message = "Negative array size " + e.getMessage();
+        } else if (e instanceof NullPointerException) {
+            message = "Array used before it was created";
+        } else if (e instanceof StackOverflowError) {
+            message = "Stack overflow";
+        } else if (e instanceof Error) {
+            throw (Error) e;
+        } else {
+            return e instanceof RuntimeException ? (RuntimeException) e : new IllegalStateException(e);
+        }
+        return new WppVm.RuntimeError(line, message);
+    }
+
+    // Body of a function that was declared but never defined
+    static Trap missingBody(String name) {
+        return new Trap("Function '" + name + "' has no body");
+    }
+
+    // Unwinds the generated code; its stack trace locates the statement that stopped the program
+    static final class Trap extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        Trap(String message) {
+            super(message);
+        }
+    }
+
+    private void flushIfFull() {
+        if (buffer.length() >= FLUSH_THRESHOLD) {
+            flush();
+        }
+    }
+
+    void flush() {
+        try {
+            output.append(buffer);
+            output.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buffer.setLength(0);
+    }
+}
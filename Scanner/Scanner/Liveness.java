@@ -0,0 +1,77 @@
+// Backward liveness over a function's control-flow graph. Register sets are bitsets of long words, one
+// use/def/in/out set per block, solved with a worklist; each pass over a block is linear in its size.
+final class Liveness {
+    final int words; // Longs per register set
+    final long[][] liveIn;
+    final long[][] liveOut;
+
+    Liveness(IrFunction fn) {
+        words = (fn.registerCount + 63) >>> 6;
+        long[][] use = new long[fn.blockCount][words]; // Read before any write in the block
+        long[][] def = new long[fn.blockCount][words];
+        liveIn = new long[fn.blockCount][words];
+        liveOut = new long[fn.blockCount][words];
+        int[] operands = new int[fn.argCount + 3];
+        for (int block = 0; block < fn.blockCount; block++) {
+            for (int i = fn.blockStart[block]; i < fn.blockEnd[block]; i++) {
+                int count = fn.uses(i, operands);
+                for (int k = 0; k < count; k++) {
+                    if (!contains(def[block], operands[k])) {
+                        add(use[block], operands[k]);
+                    }
+                }
+                if (IrOp.definesRegister(fn.op[i]) && fn.dst[i] >= 0) {
+                    add(def[block], fn.dst[i]);
+                }
+            }
+        }
+        // Blocks are laid out roughly in execution order, so visiting them backwards converges fastest
+        int[] work = new int[fn.blockCount];
+        boolean[] queued = new boolean[fn.blockCount];
+        int count = 0;
+        for (int block = 0; block < fn.blockCount; block++) {
+            work[count++] = block;
+            queued[block] = true;
+        }
+        while (count > 0) {
+            int block = work[--count];
+            queued[block] = false;
+            long[] out = liveOut[block];
+            for (int successor : fn.successors[block]) {
+                long[] in = liveIn[successor];
+                for (int w = 0; w < words; w++) {
+                    out[w] |= in[w];
+                }
+            }
+            boolean changed = false;
+            long[] in = liveIn[block];
+            for (int w = 0; w < words; w++) {
+                long value = use[block][w] | (out[w] & ~def[block][w]);
+                if (value != in[w]) {
+                    in[w] = value;
+                    changed = true;
+                }
+            }
+            if (changed) {
+                for (int predecessor : fn.predecessors[block]) {
+                    if (!queued[predecessor]) {
+                        queued[predecessor] = true;
+                        work[count++] = predecessor;
+                    }
+                }
+            }
+        }
+    }
+
+    static boolean contains(long[] set, int register) {
+        return (set[register >>> 6] & (1L << register)) != 0;
+    }
+
+    static void add(long[] set, int register) {
+        set[register >>> 6] |= 1L << register;
+    }
+
+    static void remove(long[] set, int register) {
+        set[register >>> 6] &= ~(1L << register);
+    }
+}
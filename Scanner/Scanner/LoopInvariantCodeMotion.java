@@ -0,0 +1,237 @@
+import java.util.ArrayList;
+import java.util.List;
+
+// Loop-invariant code motion over the natural loops of each function. A computation in a loop is invariant
+// when nothing it reads is written in the loop, or is written only by other invariant computations; it then
+// moves to the loop's preheader and runs once per entry instead of once per iteration. Inner loops go first,
+// so what they hoist can leave enclosing loops as well. Each loop's moves are noted in source terms against
+// the line of the loop they left.
+final class LoopInvariantCodeMotion {
+    private final IrProgram program;
+    private final List<String> notes;
+    private IrFunction fn;
+    private Dominators dominators;
+    private int[] writes; // Definitions of each register in the function
+    private int[] definition; // The instruction writing a register written once
+    private boolean[] movable; // Written once, by an instruction that comes before every read
+
+    LoopInvariantCodeMotion(IrProgram program, List<String> notes) {
+        this.program = program;
+        this.notes = notes;
+    }
+
+    void run() {
+        for (IrFunction function : program.functions) {
+            if (function.defined) {
+                fn = function;
+                while (hoistFromInnermostLoop()) {
+                    // The CFG changed; loops and dominators are found again
+                }
+            }
+        }
+    }
+
+    // Hoists the invariant computations of the innermost loop that has any; false once no loop does
+    private boolean hoistFromInnermostLoop() {
+        dominators = new Dominators(fn);
+        List<Loops.Loop> loops = new Loops(fn, dominators).loops;
+        if (loops.isEmpty()) {
+            return false;
+        }
+        analyzeRegisters();
+        for (Loops.Loop loop : loops) {
+            int[] moved = new int[fn.size];
+            int count = findInvariants(loop, moved);
+            if (count > 0) {
+                report(loop, moved, count);
+                fn.hoist(loop.header, loop.body, moved, count);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void analyzeRegisters() {
+        writes = new int[fn.registerCount];
+        definition = new int[fn.registerCount];
+        int[] blockOf = new int[fn.size];
+        for (int block = 0; block < fn.blockCount; block++) {
+            for (int i = fn.blockStart[block]; i < fn.blockEnd[block]; i++) {
+                blockOf[i] = block;
+                if (IrOp.definesRegister(fn.op[i]) && fn.dst[i] >= 0) {
+                    writes[fn.dst[i]]++;
+                    definition[fn.dst[i]] = i;
+                }
+            }
+        }
+        movable = new boolean[fn.registerCount];
+        for (int r = fn.paramCount; r < fn.registerCount; r++) {
+            movable[r] = writes[r] == 1;
+        }
+        // A read the definition does not dominate sees the register's initial value on some path
+        int[] operands = new int[fn.argCount + 3];
+        for (int i = 0; i < fn.size; i++) {
+            int count = fn.uses(i, operands);
+            for (int k = 0; k < count; k++) {
+                int r = operands[k];
+                if (movable[r]) {
+                    int def = definition[r];
+                    movable[r] = blockOf[def] == blockOf[i] ? def < i : dominators.dominates(blockOf[def], blockOf[i]);
+                }
+            }
+        }
+    }
+
+    // Fills moved with the loop's invariant instructions in an order that keeps definitions before reads
+    private int findInvariants(Loops.Loop loop, int[] moved) {
+        int[] writesInLoop = new int[fn.registerCount];
+        boolean[] storedGlobal = new boolean[program.globalCount];
+        boolean calls = false;
+        for (int block = 0; block < fn.blockCount; block++) {
+            if (!loop.body[block]) {
+                continue;
+            }
+            for (int i = fn.blockStart[block]; i < fn.blockEnd[block]; i++) {
+                if (IrOp.definesRegister(fn.op[i]) && fn.dst[i] >= 0) {
+                    writesInLoop[fn.dst[i]]++;
+                }
+                calls |= fn.op[i] == IrOp.CALL;
+                if (fn.op[i] == IrOp.GSTORE) {
+                    storedGlobal[fn.a[i]] = true;
+                }
+            }
+        }
+        boolean[] invariant = new boolean[fn.registerCount];
+        boolean[] chosen = new boolean[fn.size];
+        int[] operands = new int[fn.argCount + 3];
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int block : dominators.order) {
+                if (!loop.body[block]) {
+                    continue;
+                }
+                for (int i = fn.blockStart[block]; i < fn.blockEnd[block]; i++) {
+                    int op = fn.op[i];
+                    if (chosen[i] || !IrOp.definesRegister(op) || fn.dst[i] < 0 || !movable[fn.dst[i]]) {
+                        continue;
+                    }
+                    if (op == IrOp.CALL || op == IrOp.NEWARR || IrOp.canTrap(op)
+                            || (op == IrOp.GLOAD && (calls || storedGlobal[fn.a[i]]))) {
+                        continue;
+                    }
+                    boolean operandsInvariant = true;
+                    int count = fn.uses(i, operands);
+                    for (int k = 0; k < count; k++) {
+                        operandsInvariant &= writesInLoop[operands[k]] == 0 || invariant[operands[k]];
+                    }
+                    if (operandsInvariant) {
+                        chosen[i] = true;
+                        invariant[fn.dst[i]] = true;
+                        changed = true;
+                    }
+                }
+            }
+        }
+        // Dominator order: a definition a read depends on dominates it, so its block comes first
+        int count = 0;
+        for (int block : dominators.order) {
+            for (int i = fn.blockStart[block]; i < fn.blockEnd[block]; i++) {
+                if (chosen[i]) {
+                    moved[count++] = i;
+                }
+            }
+        }
+        return count;
+    }
+
+    // Notes the variables set and the expressions computed once per entry instead of once per iteration, each
+    // with its line. Constants and copies are not worth a note, and neither is code from an inlined call, whose
+    // lines are the callee's.
+    private void report(Loops.Loop loop, int[] moved, int count) {
+        boolean[] readByMoved = new boolean[fn.registerCount];
+        int[] operands = new int[fn.argCount + 3];
+        for (int k = 0; k < count; k++) {
+            int uses = fn.uses(moved[k], operands);
+            for (int u = 0; u < uses; u++) {
+                readByMoved[operands[u]] = true;
+            }
+        }
+        List<String> parts = new ArrayList<>();
+        for (int k = 0; k < count; k++) {
+            int i = moved[k], d = fn.dst[i];
+            boolean named = fn.registerName[d] != null;
+            // A temporary another moved instruction reads is described as part of that one
+            if ((!named && readByMoved[d]) || inlined(i, operands) || !computes(i, 0)) {
+                continue;
+            }
+            parts.add((named ? fn.registerLabel(d) + " = " : "") + expression(i, 0) + " (line " + fn.line[i] + ")");
+        }
+        if (!parts.isEmpty()) {
+            int loopLine = fn.line[fn.blockStart[loop.header]];
+            notes.add("Loop at line " + loopLine + " in " + fn.name + ": computed once before the loop: "
+                    + String.join(", ", parts));
+        }
+    }
+
+    private boolean inlined(int i, int[] operands) {
+        boolean inlined = fn.dst[i] >= fn.inlinedRegisters;
+        int count = fn.uses(i, operands);
+        for (int k = 0; k < count; k++) {
+            inlined |= operands[k] >= fn.inlinedRegisters;
+        }
+        return inlined;
+    }
+
+    // True when the value of instruction i, with the temporaries it reads traced back, involves an operation
+    private boolean computes(int i, int depth) {
+        int op = fn.op[i];
+        if (IrOp.isBinary(op) || op == IrOp.INEG || op == IrOp.DNEG || op == IrOp.NOT || op == IrOp.ALOAD) {
+            return true;
+        }
+        int source = op == IrOp.MOV || op == IrOp.I2D ? traced(fn.a[i], depth) : -1;
+        return source >= 0 && computes(source, depth + 1);
+    }
+
+    // The value instruction i computes, written the way the source would
+    private String expression(int i, int depth) {
+        int op = fn.op[i];
+        switch (op) {
+            case IrOp.ICONST:
+            case IrOp.DCONST:
+            case IrOp.SCONST: {
+                String text = fn.instructionText(i, program);
+                return text.substring(text.indexOf(" = ") + 3);
+            }
+            case IrOp.MOV:
+                return operand(fn.a[i], depth);
+            case IrOp.I2D:
+                return "(double) " + operand(fn.a[i], depth);
+            case IrOp.INEG:
+            case IrOp.DNEG:
+            case IrOp.NOT:
+                return IrOp.name(op) + operand(fn.a[i], depth);
+            case IrOp.ALOAD:
+                return operand(fn.a[i], depth) + "[" + operand(fn.b[i], depth) + "]";
+            case IrOp.GLOAD:
+                return program.globalNames[fn.a[i]];
+            default:
+                return operand(fn.a[i], depth) + " " + IrOp.name(op) + " " + operand(fn.b[i], depth);
+        }
+    }
+
+    private String operand(int register, int depth) {
+        int source = traced(register, depth);
+        if (source < 0) {
+            return fn.registerLabel(register);
+        }
+        String text = expression(source, depth + 1);
+        return IrOp.isBinary(fn.op[source]) ? "(" + text + ")" : text;
+    }
+
+    // The instruction a temporary's one value comes from, or -1 for a variable or a temporary written more
+    // than once; depth bounds the expressions spelled out
+    private int traced(int register, int depth) {
+        return fn.registerName[register] == null && writes[register] == 1 && depth < 8 ? definition[register] : -1;
+    }
+}
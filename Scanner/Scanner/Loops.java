@@ -0,0 +1,66 @@
+import java.util.ArrayList;
+import java.util.List;
+
+// Natural loops of a function's control-flow graph: for each back edge (a jump to a block that dominates its
+// source) the header and every block that reaches the edge without passing through the header. Back edges
+// sharing a header form one loop. Also records how many loops hold each block.
+final class Loops {
+    static final class Loop {
+        final int header;
+        final boolean[] body;
+        int size;
+
+        Loop(int header, int blockCount) {
+            this.header = header;
+            body = new boolean[blockCount];
+        }
+    }
+
+    final List<Loop> loops = new ArrayList<>(); // Innermost first: an inner loop is smaller than any loop holding it
+    final int[] depth; // Loops containing each block
+
+    Loops(IrFunction fn, Dominators dominators) {
+        Loop[] byHeader = new Loop[fn.blockCount];
+        int[] work = new int[fn.blockCount];
+        for (int tail : dominators.order) {
+            for (int header : fn.successors[tail]) {
+                if (!dominators.dominates(header, tail)) {
+                    continue;
+                }
+                Loop loop = byHeader[header];
+                if (loop == null) {
+                    loop = byHeader[header] = new Loop(header, fn.blockCount);
+                    loop.body[header] = true;
+                    loop.size = 1;
+                    loops.add(loop);
+                }
+                // Blocks join the body as they are pushed, so none is pushed twice and work cannot overflow
+                int count = 0;
+                if (!loop.body[tail]) {
+                    loop.body[tail] = true;
+                    loop.size++;
+                    work[count++] = tail;
+                }
+                while (count > 0) {
+                    int block = work[--count];
+                    for (int predecessor : fn.predecessors[block]) {
+                        if (!loop.body[predecessor] && dominators.isReachable(predecessor)) {
+                            loop.body[predecessor] = true;
+                            loop.size++;
+                            work[count++] = predecessor;
+                        }
+                    }
+                }
+            }
+        }
+        loops.sort((x, y) -> Integer.compare(x.size, y.size));
+        depth = new int[fn.blockCount];
+        for (Loop loop : loops) {
+            for (int block = 0; block < fn.blockCount; block++) {
+                if (loop.body[block]) {
+                    depth[block]++;
+                }
+            }
+        }
+    }
+}
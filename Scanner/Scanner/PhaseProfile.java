@@ -0,0 +1,84 @@
+import java.lang.management.ManagementFactory;
+
+// Time and heap allocation of each phase of a scan. A phase is measured from the previous mark to its own, so
+// the cost is one clock read and one read of the thread's allocation counter per mark; scanning marks three
+// phases per source line. Allocation reads zero where the JVM does not count it per thread.
+final class PhaseProfile {
+    static final int COMMENTS = 0; // Splitting lines and stripping comments
+    static final int TOKENIZE = 1;
+    static final int CLASSIFY = 2; // Turning lexemes into tokens
+    static final int ANALYZE = 3;
+    static final int SYMBOLS = 4; // Merging the symbol table and assigning storage
+    static final int LOWER = 5;
+    static final int OPTIMIZE = 6;
+    static final int TABLES = 7; // Filling the token and symbol tables
+    static final String[] NAMES = { "Comment stripping", "Tokenize", "Classification", "Syntax analysis",
+            "Symbol table", "Lowering", "Optimization", "Table population" };
+    static final String[] KEYS = { "comments", "tokenize", "classify", "analyze", "symbols", "lower", "optimize",
+            "tables" };
+
+    private static final com.sun.management.ThreadMXBean THREADS = threads();
+
+    final long[] nanos = new long[NAMES.length];
+    final long[] bytes = new long[NAMES.length];
+    private long lastNanos;
+    private long lastBytes;
+
+    private static com.sun.management.ThreadMXBean threads() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+            if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+                return threads;
+            }
+        }
+        return null;
+    }
+
+    private static long allocated() {
+        return THREADS != null ? THREADS.getCurrentThreadAllocatedBytes() : 0;
+    }
+
+    // Starts measuring; work before the next mark is charged to that mark's phase
+    void start() {
+        lastNanos = System.nanoTime();
+        lastBytes = allocated();
+    }
+
+    // Charges everything since the last mark or start to the phase
+    void mark(int phase) {
+        long now = System.nanoTime();
+        long allocatedNow = allocated();
+        nanos[phase] += now - lastNanos;
+        bytes[phase] += allocatedNow - lastBytes;
+        lastNanos = now;
+        lastBytes = allocatedNow;
+    }
+
+    long totalNanos() {
+        long total = 0;
+        for (long n : nanos) {
+            total += n;
+        }
+        return total;
+    }
+
+    long totalBytes() {
+        long total = 0;
+        for (long b : bytes) {
+            total += b;
+        }
+        return total;
+    }
+
+    // One object per phase, in pipeline order, followed by the totals
+    String toJson() {
+        StringBuilder sb = new StringBuilder("{\"phases\":[");
+        for (int phase = 0; phase < NAMES.length; phase++) {
+            sb.append(phase > 0 ? "," : "").append("{\"phase\":\"").append(KEYS[phase]).append("\",\"nanos\":")
+                    .append(nanos[phase]).append(",\"bytes\":").append(bytes[phase]).append('}');
+        }
+        return sb.append("],\"totalNanos\":").append(totalNanos()).append(",\"totalBytes\":").append(totalBytes())
+                .append('}').toString();
+    }
+}
@@ -0,0 +1,604 @@
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import javax.swing.text.AbstractDocument;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Position;
+import javax.swing.text.Segment;
+import javax.swing.undo.AbstractUndoableEdit;
+import javax.swing.undo.CannotRedoException;
+import javax.swing.undo.CannotUndoException;
+import javax.swing.undo.UndoableEdit;
+
+// Document content kept as a piece table: the text is a sequence of pieces, each a range of one append-only
+// buffer holding every string ever inserted. An edit cuts at most one piece in two and adds at most one, so
+// it costs O(log pieces) however long the text is, and typing at the end of the last insertion just makes
+// that piece longer. The pieces form a treap in text order whose nodes sum the lengths and line breaks
+// below them, which maps offsets to lines and back in O(log pieces) too. Undo takes pieces out of the tree
+// and puts them back, and a snapshot copies only the piece list, so neither copies text.
+//
+// Like GapContent, the content always ends with the '\n' AbstractDocument expects, and a Position at 0 stays
+// at 0 when text is inserted there.
+final class PieceTable implements AbstractDocument.Content {
+    private static final long GAP = 1L << 40; // Virtual gap length for marks, more than can ever be inserted
+
+    private char[] buffer = new char[1024];
+    private int bufferLength;
+    private int[] breaks = new int[64]; // Offsets in the buffer of its '\n's, in order
+    private int breakCount;
+    private Node root;
+
+    // Marks are kept sorted by offset. As in a gap buffer, a mark before the gap stores its offset and one
+    // after it stores its offset plus the gap's length, so an edit at the gap moves every later mark at once
+    // and moving the gap touches only the marks it passes.
+    private Mark[] marks = new Mark[64];
+    private int markCount;
+    private int gapStart;
+    private long gapEnd = GAP;
+    private final ReferenceQueue<StickyPosition> released = new ReferenceQueue<>();
+    private int releasedCount;
+
+    PieceTable() {
+        insert(0, "\n");
+    }
+
+    // A piece of the buffer and the subtree it roots
+    private static final class Node {
+        int start, length, breaks;
+        final int priority;
+        Node left, right;
+        int totalLength, totalBreaks;
+
+        Node(int start, int length, int priority) {
+            this.start = start;
+            this.length = length;
+            this.priority = priority;
+        }
+    }
+
+    private static final class Mark extends WeakReference<StickyPosition> {
+        long value;
+
+        Mark(StickyPosition position, ReferenceQueue<StickyPosition> queue, long value) {
+            super(position, queue);
+            this.value = value;
+        }
+    }
+
+    // Held by the document's elements; the Mark only weakly refers back, so unused positions are collected
+    private final class StickyPosition implements Position {
+        final Mark mark;
+
+        StickyPosition(long value) {
+            mark = new Mark(this, released, value);
+        }
+
+        public int getOffset() {
+            return offsetOf(mark);
+        }
+
+        @Override
+        public String toString() {
+            return Integer.toString(getOffset());
+        }
+    }
+
+    public int length() {
+        return total(root);
+    }
+
+    // Number of '\n's, which is the number of lines since the content ends with one
+    int lineCount() {
+        return root == null ? 0 : root.totalBreaks;
+    }
+
+    // Line, from 0, holding offset: the number of '\n's before it
+    int lineOfOffset(int offset) {
+        int line = 0;
+        Node node = root;
+        while (node != null) {
+            int leftLength = total(node.left);
+            if (offset < leftLength) {
+                node = node.left;
+                continue;
+            }
+            line += breaks(node.left);
+            offset -= leftLength;
+            if (offset < node.length) {
+                return line + breaksBefore(node.start + offset) - breaksBefore(node.start);
+            }
+            line += node.breaks;
+            offset -= node.length;
+            node = node.right;
+        }
+        return line;
+    }
+
+    // Offset of the first char of the line, from 0, or the length if there is no such line
+    int lineStartOffset(int line) {
+        if (line <= 0) {
+            return 0;
+        }
+        int offset = 0;
+        Node node = root;
+        while (node != null) {
+            int leftBreaks = breaks(node.left);
+            if (line <= leftBreaks) {
+                node = node.left;
+                continue;
+            }
+            line -= leftBreaks;
+            offset += total(node.left);
+            if (line <= node.breaks) {
+                // The line starts after the piece's line-th '\n'
+                return offset + breaks[breaksBefore(node.start) + line - 1] - node.start + 1;
+            }
+            line -= node.breaks;
+            offset += node.length;
+            node = node.right;
+        }
+        return offset;
+    }
+
+    public Position createPosition(int offset) throws BadLocationException {
+        if (offset < 0 || offset > length()) {
+            throw new BadLocationException("Invalid position", offset);
+        }
+        purgeReleasedMarks();
+        int index = firstMarkAtOrAfter(offset);
+        // Share a live mark already at the offset; a new one goes after any others there
+        while (index < markCount && offsetOf(marks[index]) == offset) {
+            StickyPosition existing = marks[index].get();
+            if (existing != null) {
+                return existing;
+            }
+            index++;
+        }
+        StickyPosition position = new StickyPosition(offset < gapStart ? offset : offset + gapLength());
+        if (markCount == marks.length) {
+            marks = Arrays.copyOf(marks, markCount * 2);
+        }
+        System.arraycopy(marks, index, marks, index + 1, markCount - index);
+        marks[index] = position.mark;
+        markCount++;
+        return position;
+    }
+
+    public UndoableEdit insertString(int where, String str) throws BadLocationException {
+        if (where < 0 || where >= length()) {
+            throw new BadLocationException("Invalid insert", length());
+        }
+        insert(where, str);
+        return new Edit(where, str.length(), true);
+    }
+
+    public UndoableEdit remove(int where, int nitems) throws BadLocationException {
+        if (where < 0 || nitems < 0 || where + nitems >= length()) {
+            throw new BadLocationException("Invalid remove", length() + 1);
+        }
+        Edit edit = new Edit(where, nitems, false);
+        edit.cut();
+        return edit;
+    }
+
+    public String getString(int where, int len) throws BadLocationException {
+        checkRange(where, len);
+        char[] chars = new char[len];
+        copy(root, where, len, chars, 0);
+        return new String(chars);
+    }
+
+    // Points the segment into the buffer when the range lies in one piece. Otherwise it gets a copy, or with a
+    // partial return only the part in the first piece.
+    public void getChars(int where, int len, Segment txt) throws BadLocationException {
+        checkRange(where, len);
+        Node node = root;
+        int offset = where;
+        while (node != null) {
+            int leftLength = total(node.left);
+            if (offset < leftLength) {
+                node = node.left;
+            } else if (offset - leftLength < node.length || node.right == null) {
+                offset -= leftLength;
+                break;
+            } else {
+                offset -= leftLength + node.length;
+                node = node.right;
+            }
+        }
+        int available = node == null ? 0 : node.length - offset;
+        if (len <= available || (txt.isPartialReturn() && available > 0)) {
+            txt.array = buffer;
+            txt.offset = node.start + offset;
+            txt.count = Math.min(len, available);
+            return;
+        }
+        char[] chars = new char[len];
+        copy(root, where, len, chars, 0);
+        txt.array = chars;
+        txt.offset = 0;
+        txt.count = len;
+    }
+
+    // The text as it is now, without the trailing '\n'. Later edits only add to the buffer and rearrange the
+    // tree, so the snapshot stays valid and may be read on another thread.
+    CharSequence snapshot() {
+        int count = count(root);
+        int[] starts = new int[count];
+        int[] offsets = new int[count + 1];
+        collect(root, starts, offsets, 0);
+        return new Snapshot(buffer, starts, offsets, length() - 1);
+    }
+
+    // Immutable view of the pieces; charAt remembers the last piece it used, so reading in order is O(1) a
+    // char. Not for use by several threads at once.
+    private static final class Snapshot implements CharSequence {
+        private final char[] buffer;
+        private final int[] starts; // Buffer offset of each piece
+        private final int[] offsets; // Text offset of each piece, then the total
+        private final int length;
+        private int piece;
+
+        Snapshot(char[] buffer, int[] starts, int[] offsets, int length) {
+            this.buffer = buffer;
+            this.starts = starts;
+            this.offsets = offsets;
+            this.length = length;
+        }
+
+        public int length() {
+            return length;
+        }
+
+        public char charAt(int index) {
+            if (index < 0 || index >= length) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            if (index < offsets[piece] || index >= offsets[piece + 1]) {
+                piece = pieceAt(index);
+            }
+            return buffer[starts[piece] + index - offsets[piece]];
+        }
+
+        public String subSequence(int start, int end) {
+            if (start < 0 || end > length || start > end) {
+                throw new IndexOutOfBoundsException(start + ".." + end);
+            }
+            char[] chars = new char[end - start];
+            for (int at = start, k = pieceAt(start); at < end; k++) {
+                int count = Math.min(end, offsets[k + 1]) - at;
+                System.arraycopy(buffer, starts[k] + at - offsets[k], chars, at - start, count);
+                at += count;
+            }
+            return new String(chars);
+        }
+
+        private int pieceAt(int index) {
+            int found = Arrays.binarySearch(offsets, 0, starts.length, index);
+            return found >= 0 ? found : -found - 2;
+        }
+
+        @Override
+        public String toString() {
+            return subSequence(0, length);
+        }
+    }
+
+    // Inserting and removing undo each other: one takes the edit's pieces out of the tree and keeps them, the
+    // other puts them back. Whichever takes them out also notes the marks it collapses, to put them back too.
+    private final class Edit extends AbstractUndoableEdit {
+        private static final long serialVersionUID = 1L;
+
+        private final int where, length;
+        private final boolean insertion;
+        private Node pieces; // The edit's text while it is out of the tree
+        private Mark[] moved;
+        private int[] movedOffsets;
+
+        Edit(int where, int length, boolean insertion) {
+            this.where = where;
+            this.length = length;
+            this.insertion = insertion;
+        }
+
+        void cut() {
+            int first = firstMarkAtOrAfter(where), last = first;
+            while (last < markCount && offsetOf(marks[last]) <= where + length) {
+                last++;
+            }
+            moved = Arrays.copyOfRange(marks, first, last);
+            movedOffsets = new int[moved.length];
+            for (int k = 0; k < moved.length; k++) {
+                movedOffsets[k] = offsetOf(moved[k]);
+            }
+            Node[] tail = split(root, where + length);
+            Node[] head = split(tail[0], where);
+            pieces = head[1];
+            root = merge(head[0], tail[1]);
+            removeMarks(where, length);
+        }
+
+        void paste() {
+            Node[] parts = split(root, where);
+            root = merge(merge(parts[0], pieces), parts[1]);
+            pieces = null;
+            insertMarks(where, length);
+            restoreMarks(where, length, moved, movedOffsets);
+            moved = null;
+            movedOffsets = null;
+        }
+
+        @Override
+        public void undo() throws CannotUndoException {
+            super.undo();
+            if (insertion) {
+                cut();
+            } else {
+                paste();
+            }
+        }
+
+        @Override
+        public void redo() throws CannotRedoException {
+            super.redo();
+            if (insertion) {
+                paste();
+            } else {
+                cut();
+            }
+        }
+    }
+
+    private void insert(int where, String str) {
+        if (str.isEmpty()) {
+            return; // Pieces are never empty, so every offset falls in exactly one
+        }
+        int start = bufferLength;
+        append(str);
+        Node[] parts = split(root, where);
+        if (!extendLast(parts[0], start, str.length())) {
+            Node piece = new Node(start, str.length(), ThreadLocalRandom.current().nextInt());
+            piece.breaks = breaksBefore(start + piece.length) - breaksBefore(start);
+            parts[0] = merge(parts[0], update(piece));
+        }
+        root = merge(parts[0], parts[1]);
+        insertMarks(where, str.length());
+    }
+
+    private void append(String str) {
+        int length = str.length();
+        if (bufferLength + length > buffer.length) {
+            // A new array, so snapshots holding the old one keep reading what it had
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, bufferLength + length));
+        }
+        str.getChars(0, length, buffer, bufferLength);
+        for (int k = bufferLength; k < bufferLength + length; k++) {
+            if (buffer[k] == '\n') {
+                if (breakCount == breaks.length) {
+                    breaks = Arrays.copyOf(breaks, breakCount * 2);
+                }
+                breaks[breakCount++] = k;
+            }
+        }
+        bufferLength += length;
+    }
+
+    // Lengthens the last piece of the tree when it ends where the new text starts in the buffer
+    private boolean extendLast(Node node, int start, int length) {
+        if (node == null) {
+            return false;
+        }
+        boolean extended;
+        if (node.right != null) {
+            extended = extendLast(node.right, start, length);
+        } else if (node.start + node.length == start) {
+            node.length += length;
+            node.breaks = breaksBefore(node.start + node.length) - breaksBefore(node.start);
+            extended = true;
+        } else {
+            extended = false;
+        }
+        if (extended) {
+            update(node);
+        }
+        return extended;
+    }
+
+    // Splits the tree into its first offset chars and the rest, cutting a piece in two if need be
+    private Node[] split(Node node, int offset) {
+        if (node == null) {
+            return new Node[2];
+        }
+        int leftLength = total(node.left);
+        if (offset <= leftLength) {
+            Node[] parts = split(node.left, offset);
+            node.left = parts[1];
+            parts[1] = update(node);
+            return parts;
+        }
+        if (offset >= leftLength + node.length) {
+            Node[] parts = split(node.right, offset - leftLength - node.length);
+            node.right = parts[0];
+            parts[0] = update(node);
+            return parts;
+        }
+        int cut = offset - leftLength;
+        Node tail = new Node(node.start + cut, node.length - cut, node.priority);
+        tail.breaks = breaksBefore(tail.start + tail.length) - breaksBefore(tail.start);
+        tail.right = node.right;
+        node.right = null;
+        node.length = cut;
+        node.breaks -= tail.breaks;
+        return new Node[] { update(node), update(tail) };
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority >= right.priority) {
+            left.right = merge(left.right, right);
+            return update(left);
+        }
+        right.left = merge(left, right.left);
+        return update(right);
+    }
+
+    private static Node update(Node node) {
+        node.totalLength = total(node.left) + node.length + total(node.right);
+        node.totalBreaks = breaks(node.left) + node.breaks + breaks(node.right);
+        return node;
+    }
+
+    private static int total(Node node) {
+        return node == null ? 0 : node.totalLength;
+    }
+
+    private static int breaks(Node node) {
+        return node == null ? 0 : node.totalBreaks;
+    }
+
+    private static int count(Node node) {
+        return node == null ? 0 : count(node.left) + 1 + count(node.right);
+    }
+
+    // Fills in the pieces in text order from index, returning the index after the last
+    private static int collect(Node node, int[] starts, int[] offsets, int index) {
+        if (node == null) {
+            return index;
+        }
+        index = collect(node.left, starts, offsets, index);
+        starts[index] = node.start;
+        offsets[index + 1] = offsets[index] + node.length;
+        return collect(node.right, starts, offsets, index + 1);
+    }
+
+    // Copies len chars of the subtree from its offset where into chars at to
+    private void copy(Node node, int where, int len, char[] chars, int to) {
+        if (node == null || len <= 0) {
+            return;
+        }
+        int leftLength = total(node.left);
+        if (where < leftLength) {
+            int fromLeft = Math.min(len, leftLength - where);
+            copy(node.left, where, fromLeft, chars, to);
+            where += fromLeft;
+            len -= fromLeft;
+            to += fromLeft;
+        }
+        int inPiece = where - leftLength;
+        if (len > 0 && inPiece < node.length) {
+            int fromPiece = Math.min(len, node.length - inPiece);
+            System.arraycopy(buffer, node.start + inPiece, chars, to, fromPiece);
+            where += fromPiece;
+            len -= fromPiece;
+            to += fromPiece;
+        }
+        copy(node.right, where - leftLength - node.length, len, chars, to);
+    }
+
+    // Number of '\n's in the buffer before offset
+    private int breaksBefore(int offset) {
+        int found = Arrays.binarySearch(breaks, 0, breakCount, offset);
+        return found >= 0 ? found : -found - 1;
+    }
+
+    private void checkRange(int where, int len) throws BadLocationException {
+        if (where < 0 || len < 0 || where + len > length()) {
+            throw new BadLocationException("Invalid range", where + len);
+        }
+    }
+
+    private long gapLength() {
+        return gapEnd - gapStart;
+    }
+
+    private int offsetOf(Mark mark) {
+        return (int) (mark.value < gapStart ? mark.value : mark.value - gapLength());
+    }
+
+    private int firstMarkAtOrAfter(int offset) {
+        int low = 0, high = markCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (offsetOf(marks[middle]) < offset) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // Moves the gap to offset, switching the marks it passes to the other side
+    private void moveGap(int offset) {
+        long length = gapLength();
+        if (offset < gapStart) {
+            for (int k = firstMarkAtOrAfter(offset); k < markCount && marks[k].value < gapStart; k++) {
+                marks[k].value += length;
+            }
+        } else if (offset > gapStart) {
+            for (int k = firstMarkAtOrAfter(gapStart); k < markCount && offsetOf(marks[k]) < offset; k++) {
+                marks[k].value -= length;
+            }
+        }
+        gapStart = offset;
+        gapEnd = offset + length;
+    }
+
+    private void insertMarks(int where, int length) {
+        moveGap(where);
+        gapStart += length;
+        if (where == 0) {
+            // Marks that were at 0 stay there
+            for (int k = 0; k < markCount && offsetOf(marks[k]) == length; k++) {
+                marks[k].value = 0;
+            }
+        }
+    }
+
+    private void removeMarks(int where, int length) {
+        moveGap(where);
+        for (int k = firstMarkAtOrAfter(where); k < markCount && offsetOf(marks[k]) <= where + length; k++) {
+            marks[k].value = gapEnd + length;
+        }
+        gapEnd += length;
+    }
+
+    // Returns marks collapsed by a removal to where they were, once its text is back
+    private void restoreMarks(int where, int length, Mark[] moved, int[] movedOffsets) {
+        for (int k = 0; k < moved.length; k++) {
+            moved[k].value = movedOffsets[k] < gapStart ? movedOffsets[k] : movedOffsets[k] + gapLength();
+        }
+        // Marks made at the collapsed offset meanwhile may now be out of order with the restored ones
+        int first = firstMarkAtOrAfter(where), last = first;
+        while (last < markCount && offsetOf(marks[last]) <= where + length) {
+            last++;
+        }
+        Arrays.sort(marks, first, last, Comparator.comparingInt(this::offsetOf));
+    }
+
+    // Drops marks whose positions are gone once they are a good share of all marks
+    private void purgeReleasedMarks() {
+        while (released.poll() != null) {
+            releasedCount++;
+        }
+        if (releasedCount < 256 || releasedCount < markCount / 2) {
+            return;
+        }
+        int kept = 0;
+        for (int k = 0; k < markCount; k++) {
+            if (marks[k].get() != null) {
+                marks[kept++] = marks[k];
+            }
+        }
+        Arrays.fill(marks, kept, markCount, null);
+        markCount = kept;
+        releasedCount = 0;
+    }
+}
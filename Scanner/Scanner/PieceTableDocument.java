@@ -0,0 +1,58 @@
+import javax.swing.text.DefaultStyledDocument;
+import javax.swing.text.StyleContext;
+
+// The editor's document: a DefaultStyledDocument over a PieceTable, with the table's line index and snapshots
+final class PieceTableDocument extends DefaultStyledDocument {
+    private static final long serialVersionUID = 1L;
+
+    private final PieceTable table;
+
+    PieceTableDocument() {
+        this(new PieceTable());
+    }
+
+    private PieceTableDocument(PieceTable table) {
+        super(table, new StyleContext());
+        this.table = table;
+    }
+
+    // Number of lines, counting the empty one after a final '\n'
+    int lineCount() {
+        readLock();
+        try {
+            return table.lineCount();
+        } finally {
+            readUnlock();
+        }
+    }
+
+    // Line, from 0, holding offset
+    int lineOfOffset(int offset) {
+        readLock();
+        try {
+            return table.lineOfOffset(offset);
+        } finally {
+            readUnlock();
+        }
+    }
+
+    // Offset of the first char of the line, from 0, or the length if there is no such line
+    int lineStartOffset(int line) {
+        readLock();
+        try {
+            return Math.min(table.lineStartOffset(line), getLength());
+        } finally {
+            readUnlock();
+        }
+    }
+
+    // The text as it is now, readable on another thread while editing goes on
+    CharSequence snapshot() {
+        readLock();
+        try {
+            return table.snapshot();
+        } finally {
+            readUnlock();
+        }
+    }
+}
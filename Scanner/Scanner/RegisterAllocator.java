@@ -0,0 +1,157 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Linear-scan register allocation (Poletto and Sarkar) of a function's IR registers to VM frame slots. Each
+// register gets one live interval spanning every point it may be live, numbered over the reachable blocks in
+// layout order; intervals are walked by start point and given a free register of their family, so registers
+// whose lifetimes do not overlap share a slot. Each family has a fixed register file; when it is full, the
+// interval that ends last is spilled to the slots above it, which are packed the same way.
+final class RegisterAllocator {
+    static final int[] REGISTER_FILE = { 16, 8, 8 }; // Registers per WppVm family: int, double, object
+
+    final int[] slot; // Frame slot of each IR register within its family
+    final int[] slotCounts = new int[3]; // Frame size per family, registers and spill slots
+
+    private final IrFunction fn;
+    private final int[] start;
+    private final int[] end;
+
+    RegisterAllocator(IrFunction fn) {
+        this.fn = fn;
+        slot = new int[fn.registerCount];
+        start = new int[fn.registerCount];
+        end = new int[fn.registerCount];
+        Arrays.fill(start, Integer.MAX_VALUE);
+        Arrays.fill(end, -1);
+        if (fn.defined) {
+            buildIntervals();
+        }
+        for (int family = 0; family < 3; family++) {
+            allocate(family);
+        }
+    }
+
+    // Reads at instruction k are at 2k and writes at 2k + 1, so a result may take the slot of an operand
+    // read for the last time by the same instruction
+    private void buildIntervals() {
+        Liveness liveness = new Liveness(fn);
+        int[] operands = new int[fn.argCount + 3];
+        int position = 0;
+        for (int block = 0; block < fn.blockCount; block++) {
+            if (block > 0 && fn.predecessors[block].length == 0) {
+                continue; // Never executed, so never emitted
+            }
+            int first = position;
+            int last = position + 2 * (fn.blockEnd[block] - fn.blockStart[block]) - 1;
+            for (int r = 0; r < fn.registerCount; r++) {
+                if (Liveness.contains(liveness.liveIn[block], r)) {
+                    extend(r, first);
+                }
+                if (Liveness.contains(liveness.liveOut[block], r)) {
+                    extend(r, last);
+                }
+            }
+            for (int i = fn.blockStart[block]; i < fn.blockEnd[block]; i++) {
+                int count = fn.uses(i, operands);
+                for (int k = 0; k < count; k++) {
+                    extend(operands[k], position);
+                }
+                if (IrOp.definesRegister(fn.op[i]) && fn.dst[i] >= 0) {
+                    extend(fn.dst[i], position + 1);
+                }
+                position += 2;
+            }
+        }
+        // Values live on entry, the parameters and variables read before they are written, hold what the
+        // caller or the zeroed frame put there, so their slots are not shared before that point
+        for (int r = 0; r < fn.registerCount; r++) {
+            if (r < fn.paramCount || (fn.blockCount > 0 && Liveness.contains(liveness.liveIn[0], r))) {
+                extend(r, 0);
+            }
+        }
+    }
+
+    private void extend(int r, int position) {
+        start[r] = Math.min(start[r], position);
+        end[r] = Math.max(end[r], position);
+    }
+
+    private void allocate(int family) {
+        List<Integer> intervals = new ArrayList<>();
+        int registers = REGISTER_FILE[family];
+        int params = 0;
+        for (int r = 0; r < fn.registerCount; r++) {
+            if (WppVm.family(fn.registerType[r]) != family) {
+                continue;
+            }
+            if (r < fn.paramCount) {
+                slot[r] = params++; // Call sites copy arguments to the callee's first slots
+            } else if (end[r] >= 0) {
+                intervals.add(r);
+            }
+        }
+        registers = Math.max(registers, params);
+        intervals.sort((x, y) -> Integer.compare(start[x], start[y]));
+
+        // Parameters occupy their registers until their intervals end
+        int[] occupant = new int[registers];
+        Arrays.fill(occupant, -1);
+        for (int r = 0; r < fn.paramCount; r++) {
+            if (WppVm.family(fn.registerType[r]) == family) {
+                occupant[slot[r]] = r;
+            }
+        }
+        List<Integer> spilled = new ArrayList<>();
+        int used = params;
+        for (int r : intervals) {
+            int free = -1;
+            int furthest = -1;
+            for (int s = 0; s < registers; s++) {
+                int other = occupant[s];
+                if (other >= 0 && end[other] < start[r]) {
+                    occupant[s] = other = -1; // Expired
+                }
+                if (other < 0) {
+                    if (free < 0) {
+                        free = s;
+                    }
+                } else if (other >= fn.paramCount && (furthest < 0 || end[other] > end[occupant[furthest]])) {
+                    furthest = s;
+                }
+            }
+            if (free >= 0) {
+                occupant[free] = r;
+                slot[r] = free;
+                used = Math.max(used, free + 1);
+            } else if (furthest >= 0 && end[occupant[furthest]] > end[r]) {
+                spilled.add(occupant[furthest]); // Frees a register for longer than keeping it would
+                occupant[furthest] = r;
+                slot[r] = furthest;
+            } else {
+                spilled.add(r);
+            }
+        }
+
+        // Spill slots are shared the same way, without a limit
+        spilled.sort((x, y) -> Integer.compare(start[x], start[y]));
+        List<Integer> spillOccupants = new ArrayList<>();
+        for (int r : spilled) {
+            int free = -1;
+            for (int s = 0; s < spillOccupants.size(); s++) {
+                if (end[spillOccupants.get(s)] < start[r]) {
+                    free = s;
+                    break;
+                }
+            }
+            if (free < 0) {
+                free = spillOccupants.size();
+                spillOccupants.add(r);
+            } else {
+                spillOccupants.set(free, r);
+            }
+            slot[r] = registers + free;
+        }
+        slotCounts[family] = spillOccupants.isEmpty() ? used : registers + spillOccupants.size();
+    }
+}
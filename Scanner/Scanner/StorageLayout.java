@@ -0,0 +1,66 @@
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Assigns storage to symbol table entries in declaration order: globals get offsets in the data segment,
+// locals and parameters get offsets below their function's frame pointer. Same program, same addresses.
+final class StorageLayout {
+    static final int POINTER_SIZE = 8; // Strings and arrays of unknown length are stored as references
+    static final int MAX_ALIGNMENT = 8;
+
+    private StorageLayout() {
+    }
+
+    // Lays out every variable entry and returns the bytes used per owner (null for the data segment)
+    static Map<String, Integer> assign(Collection<SymbolTableEntry> entries) {
+        Map<String, Integer> used = new LinkedHashMap<>();
+        for (SymbolTableEntry entry : entries) {
+            if (!hasStorage(entry)) {
+                entry.offset = -1;
+                entry.address = "N/A";
+                continue;
+            }
+            int size = storageSize(entry);
+            int align = alignment(entry);
+            int offset = used.getOrDefault(entry.owner, 0);
+            if (entry.owner == null) {
+                offset = alignUp(offset, align);
+                entry.offset = offset;
+                entry.address = String.format("0x%04X", offset);
+                used.put(null, offset + size);
+            } else {
+                // Frames grow downwards: the slot ends where the previous one began
+                offset = alignUp(offset + size, align);
+                entry.offset = offset;
+                entry.address = String.format("fp-0x%04X", offset);
+                used.put(entry.owner, offset);
+            }
+        }
+        return used;
+    }
+
+    static boolean hasStorage(SymbolTableEntry entry) {
+        return "variable".equals(entry.kind) || "parameter".equals(entry.kind);
+    }
+
+    // Bytes occupied by the entry: element size times length for arrays
+    static int storageSize(SymbolTableEntry entry) {
+        int element = entry.size > 0 ? entry.size : POINTER_SIZE;
+        if ("Array".equals(entry.dimension)) {
+            return entry.length > 0 ? element * entry.length : POINTER_SIZE;
+        }
+        return element;
+    }
+
+    static int alignment(SymbolTableEntry entry) {
+        int element = entry.size > 0 ? entry.size : POINTER_SIZE;
+        if ("Array".equals(entry.dimension) && entry.length <= 0) {
+            element = POINTER_SIZE;
+        }
+        return Math.min(element, MAX_ALIGNMENT);
+    }
+
+    static int alignUp(int offset, int align) {
+        return (offset + align - 1) / align * align;
+    }
+}
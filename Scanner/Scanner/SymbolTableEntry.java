@@ -0,0 +1,30 @@
+// SymbolTableEntry class
+class SymbolTableEntry {
+    String identifier, kind, type, value;
+    int size, lineOfDeclaration, lineOfUsage;
+    String dimension, address;
+    String owner; // Enclosing function, null for globals
+    int length; // Element count of arrays, 0 if not known
+    int offset; // Assigned by StorageLayout
+
+    public SymbolTableEntry(String identifier, String kind, String type) {
+        this.identifier = identifier;
+        this.kind = kind; // "variable" or "function"
+        this.type = type;
+        this.value = null;
+        this.size = "int".equals(type) || "float".equals(type) ? 4
+                : "double".equals(type) ? 8 : "char".equals(type) || "bool".equals(type) ? 1 : 0;
+        this.dimension = "1D";
+        this.lineOfDeclaration = -1;
+        this.lineOfUsage = -1;
+        this.length = 1;
+        this.offset = -1;
+        this.address = "N/A";
+    }
+
+    @Override
+    public String toString() {
+        return identifier + "\t" + kind + "\t" + type + "\t" + (value != null ? value : "N/A") + "\t" + size + "\t" +
+                dimension + "\t" + lineOfDeclaration + "\t" + lineOfUsage + "\t" + address;
+    }
+}
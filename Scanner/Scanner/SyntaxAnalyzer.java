@@ -0,0 +1,1356 @@
+import java.util.*;
+
+class SyntaxAnalyzer {
+    private List<Token> tokens;
+    private int currentIndex;
+    private List<String> errors;
+    private Stack<Map<String, Integer>> scopeStack; // Name -> symbol id per scope
+    private Map<String, Integer> globalVariables;
+    private Map<String, String> functionReturnTypes;
+    private Map<String, Integer> functionParamCounts; // Track parameter counts for functions
+    private Map<String, List<WppType>> functionParamTypes;
+    private boolean mainFunctionFound;
+    private int mainFunctionLine; // Track line of main() for duplicate detection
+    private SymbolTableEntry[] symbolEntries; // Variables declared by this analyzer, indexed by symbol id
+    private WppType[] symbolTypes;
+    private int symbolCount;
+    private List<SymbolTableEntry> symbolTable; // Functions and variables in declaration order
+    private int[] globalFirstUse; // Line of the first use of each global from a function body, 0 if none
+    private Map<String, SymbolTableEntry> functionEntries;
+    private Map<String, Integer> functionUses; // First call line per function, merged after phase two
+    private Map<String, Integer> functionDeclarations; // Token index of each function name, for declare-before-use checks
+    private List<SyntaxAnalyzer> functionBodies; // Bodies deferred to phase two, in source order
+    private String currentFunction; // Enclosing function while a body is checked
+    private int bodyStart; // Index of the body's '{'
+    private int diagnosticIndex; // Position in the phase one errors where this body's errors belong
+    private int symbolTableIndex; // Likewise for the body's symbol table entries
+    private SyntaxAnalyzer program; // Phase one analyzer owning the globals seen by this body
+    private int visibleGlobals; // Globals with a lower symbol id were declared before this function
+
+    private static final int UNDECLARED = Integer.MIN_VALUE; // Body analyzers refer to global id g as ~g
+
+    // Expression typing cursor over tokens[typeIndex, typeEnd)
+    private int typeIndex, typeEnd;
+    private boolean typeFailed; // Shape the type pass does not understand; stay quiet, the scan reports it
+
+    public SyntaxAnalyzer(List<Token> tokens) {
+        this.tokens = tokens;
+        this.currentIndex = 0;
+        this.errors = new ArrayList<>();
+        this.scopeStack = new Stack<>();
+        this.globalVariables = new HashMap<>();
+        this.functionReturnTypes = new HashMap<>();
+        this.functionParamCounts = new HashMap<>();
+        this.functionParamTypes = new HashMap<>();
+        this.mainFunctionFound = false;
+        this.mainFunctionLine = -1;
+        initSymbols();
+        this.functionDeclarations = new HashMap<>();
+        this.functionBodies = new ArrayList<>();
+        this.functionEntries = new HashMap<>();
+        scopeStack.push(globalVariables); // Global scope
+    }
+
+    private void initSymbols() {
+        this.symbolEntries = new SymbolTableEntry[16];
+        this.symbolTable = new ArrayList<>();
+        this.symbolTypes = new WppType[16];
+        this.functionUses = new HashMap<>();
+        this.symbolCount = 0;
+    }
+
+    // Body analyzer for phase two: shares the tokens and the signatures collected in phase one,
+    // but owns its scope stack, diagnostics and first-use lines so bodies can be checked in parallel
+    private SyntaxAnalyzer(SyntaxAnalyzer program, List<Token> bodyTokens, String functionName,
+            List<Token> parameters, List<WppType> parameterTypes, int bodyStart) {
+        this.tokens = bodyTokens;
+        this.currentIndex = bodyStart;
+        this.errors = new ArrayList<>();
+        this.scopeStack = new Stack<>();
+        this.functionReturnTypes = program.functionReturnTypes;
+        this.functionParamCounts = program.functionParamCounts;
+        this.functionParamTypes = program.functionParamTypes;
+        this.functionDeclarations = program.functionDeclarations;
+        this.currentFunction = functionName;
+        this.bodyStart = bodyStart;
+        this.diagnosticIndex = program.errors.size();
+        this.symbolTableIndex = program.symbolTable.size();
+        this.program = program;
+        this.visibleGlobals = program.symbolCount;
+        initSymbols();
+        scopeStack.push(new HashMap<>()); // Parameter scope
+        for (int i = 0; i < parameters.size(); i++) {
+            declareSymbol(parameters.get(i).value, parameters.get(i).line, parameterTypes.get(i), "parameter");
+        }
+    }
+
+    public List<String> analyze() {
+        // Phase one: global declarations and function signatures, sequentially
+        while (currentIndex < tokens.size()) {
+            Token token = tokens.get(currentIndex);
+            if (isFunctionDeclaration()) {
+                analyzeFunctionDeclaration();
+            } else if (isDataType(token.value)) {
+                analyzeVariableDeclaration();
+            } else if (isIdentifier(token)) {
+                Token nextToken = lookAhead();
+                if (nextToken.type.equals("Operator")) {
+                    if (nextToken.value.equals("=")) {
+                        analyzeAssignment();
+                    } else if (nextToken.value.equals("++") || nextToken.value.equals("--")) {
+                        if (!markUsed(token)) {
+                            errors.add("Syntax Error at Line " + token.line + ": Variable '" + token.value + "' used before declaration");
+                        }
+                        currentIndex += 2; // Skip identifier and operator
+                        if (currentIndex < tokens.size() && tokens.get(currentIndex).value.equals(";")) {
+                            currentIndex++;
+                        } else {
+                            errors.add("Syntax Error at Line " + token.line + ": Missing semicolon after increment/decrement");
+                        }
+                    } else if (nextToken.value.equals("<<") && token.value.equals("cout")) {
+                        analyzeCoutStatement();
+                    } else {
+                        errors.add("Syntax Error at Line " + token.line + ": Invalid operator '" + nextToken.value + "' after identifier '" + token.value + "'");
+                        currentIndex++;
+                    }
+                } else if (nextToken.type.equals("Separator") && nextToken.value.equals("(")) {
+                    analyzeFunctionCall();
+                } else if (nextToken.type.equals("Separator") && nextToken.value.equals("[")) {
+                    analyzeAssignment();
+                } else {
+                    errors.add("Syntax Error at Line " + token.line + ": Unexpected identifier '" + token.value + "' in statement");
+                    currentIndex++;
+                }
+            } else if (token.value.equals("if")) {
+                analyzeIfStatement();
+            } else if (token.value.equals("cout")) {
+                analyzeCoutStatement();
+            } else if (token.value.equals("for")) {
+                analyzeForLoop();
+            } else if (token.value.equals("while")) {
+                analyzeWhileLoop();
+            } else if (token.value.equals("return")) {
+                analyzeReturnStatement();
+            } else if (token.type.equals("Separator") && token.value.equals("{")) {
+                scopeStack.push(new HashMap<>()); // New scope
+                currentIndex++;
+            } else if (token.type.equals("Separator") && token.value.equals("}")) {
+                if (scopeStack.size() > 1) { // Preserve global scope
+                    scopeStack.pop();
+                }
+                currentIndex++;
+            } else if (token.type.equals("Separator") && token.value.equals(";")) {
+                errors.add("Syntax Error at Line " + token.line + ": Stray semicolon");
+                currentIndex++;
+            } else if (token.type.equals("Operator")) {
+                errors.add("Syntax Error at Line " + token.line + ": Unexpected operator '" + token.value + "' in global scope");
+                currentIndex++;
+            } else {
+                errors.add("Syntax Error at Line " + token.line + ": Unexpected token '" + token.value + "'");
+                currentIndex++;
+            }
+        }
+
+        // Phase two: function bodies only read the signatures, so they are checked in parallel
+        (functionBodies.size() > 1 ? functionBodies.parallelStream() : functionBodies.stream())
+                .forEach(SyntaxAnalyzer::skipBlock);
+        for (SyntaxAnalyzer body : functionBodies) {
+            if (body.globalFirstUse == null) {
+                continue;
+            }
+            for (int id = 0; id < body.globalFirstUse.length; id++) {
+                int firstUse = body.globalFirstUse[id];
+                SymbolTableEntry entry = symbolEntries[id];
+                if (firstUse != 0 && (entry.lineOfUsage == -1 || firstUse < entry.lineOfUsage)) {
+                    entry.lineOfUsage = firstUse;
+                }
+            }
+        }
+        recordFunctionUses(functionUses);
+        for (SyntaxAnalyzer body : functionBodies) {
+            recordFunctionUses(body.functionUses);
+        }
+        mergeBodyDiagnostics();
+
+        // Validate main() presence
+        if (!mainFunctionFound) {
+            errors.add("Semantic Error at Line 1: No valid 'main' function found - program must define 'int main()' or 'int main(int argc, char* argv[])'");
+        }
+        // Unused variables and dead stores are found by liveness analysis on the intermediate code, which is
+        // only built once the program has no errors; until then, report the variables nothing refers to
+        if (hasErrors()) {
+            List<SymbolTableEntry> unused = new ArrayList<>();
+            for (SymbolTableEntry entry : symbolTable) {
+                if (!entry.kind.equals("function") && entry.lineOfUsage == -1) {
+                    unused.add(entry);
+                }
+            }
+            unused.sort(Comparator.comparingInt(entry -> entry.lineOfDeclaration));
+            for (SymbolTableEntry entry : unused) {
+                errors.add("Warning at Line " + entry.lineOfDeclaration + ": Variable '" + entry.identifier
+                        + "' declared but never used");
+            }
+        }
+        return errors;
+    }
+
+    private void recordFunctionUses(Map<String, Integer> uses) {
+        uses.forEach((name, line) -> {
+            SymbolTableEntry entry = functionEntries.get(name);
+            if (entry.lineOfUsage == -1 || line < entry.lineOfUsage) {
+                entry.lineOfUsage = line;
+            }
+        });
+    }
+
+    // Entries created at declaration sites during analyze(), in source order
+    public List<SymbolTableEntry> getSymbolTable() {
+        return symbolTable;
+    }
+
+    // True if analyze() reported anything other than warnings
+    public boolean hasErrors() {
+        for (String error : errors) {
+            if (!error.startsWith("Warning")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Splice each body's diagnostics back in where the body appears in the source
+    private void mergeBodyDiagnostics() {
+        if (functionBodies.isEmpty()) {
+            return;
+        }
+        List<String> merged = new ArrayList<>();
+        int from = 0;
+        for (SyntaxAnalyzer body : functionBodies) {
+            merged.addAll(errors.subList(from, body.diagnosticIndex));
+            merged.addAll(body.errors);
+            from = body.diagnosticIndex;
+        }
+        merged.addAll(errors.subList(from, errors.size()));
+        errors = merged;
+
+        List<SymbolTableEntry> entries = new ArrayList<>();
+        from = 0;
+        for (SyntaxAnalyzer body : functionBodies) {
+            entries.addAll(symbolTable.subList(from, body.symbolTableIndex));
+            entries.addAll(body.symbolTable);
+            from = body.symbolTableIndex;
+        }
+        entries.addAll(symbolTable.subList(from, symbolTable.size()));
+        symbolTable = entries;
+    }
+
+    // Index of the '}' closing the block opened at start, or tokens.size() if it is never closed
+    private int findMatchingBrace(int start) {
+        int braceCount = 0;
+        for (int i = start; i < tokens.size(); i++) {
+            Token token = tokens.get(i);
+            if (token.type.equals("Separator")) {
+                if (token.value.equals("{")) {
+                    braceCount++;
+                } else if (token.value.equals("}") && --braceCount == 0) {
+                    return i;
+                }
+            }
+        }
+        return tokens.size();
+    }
+
+    // Queue the body starting at currentIndex for phase two and continue after its closing brace
+    private void deferFunctionBody(String functionName, List<Token> parameters, List<WppType> parameterTypes) {
+        int bodyEnd = findMatchingBrace(currentIndex);
+        List<Token> bodyTokens = bodyEnd < tokens.size() ? tokens.subList(0, bodyEnd + 1) : tokens;
+        functionBodies.add(new SyntaxAnalyzer(this, bodyTokens, functionName, parameters, parameterTypes,
+                currentIndex));
+        currentIndex = Math.min(bodyEnd + 1, tokens.size());
+    }
+
+    private boolean isFunctionDeclaration() {
+        int tempIndex = currentIndex;
+        if (tempIndex < tokens.size() && isDataType(tokens.get(tempIndex).value)) {
+            tempIndex++;
+            if (tempIndex < tokens.size() && isIdentifier(tokens.get(tempIndex))) {
+                tempIndex++;
+                if (tempIndex < tokens.size() && tokens.get(tempIndex).value.equals("(")) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void analyzeFunctionDeclaration() {
+        int line = tokens.get(currentIndex).line;
+        String returnType = tokens.get(currentIndex).value;
+        currentIndex++; // consume data type
+
+        if (currentIndex < tokens.size() && isIdentifier(tokens.get(currentIndex))) {
+            String functionName = tokens.get(currentIndex).value;
+            if (functionName.equals("main")) {
+                if (mainFunctionFound) {
+                    errors.add("Semantic Error at Line " + line + ": Duplicate 'main' function declaration; previous at Line " + mainFunctionLine);
+                    currentIndex++;
+                    return;
+                }
+                if (!returnType.equals("int")) {
+                    errors.add("Syntax Error at Line " + line + ": 'main' function must return 'int'");
+                } else {
+                    mainFunctionFound = true;
+                    mainFunctionLine = line;
+                }
+            }
+            functionReturnTypes.put(functionName, returnType);
+            if (functionDeclarations.putIfAbsent(functionName, currentIndex) == null) {
+                SymbolTableEntry entry = new SymbolTableEntry(functionName, "function", returnType);
+                entry.lineOfDeclaration = line;
+                symbolTable.add(entry);
+                functionEntries.put(functionName, entry);
+            }
+            currentIndex++; // consume identifier
+
+            if (currentIndex < tokens.size() && tokens.get(currentIndex).value.equals("(")) {
+                currentIndex++; // consume '('
+
+                List<Token> parameters = new ArrayList<>();
+                List<WppType> parameterTypes = new ArrayList<>();
+                int paramCount = analyzeParameters(functionName, parameters, parameterTypes);
+                functionParamCounts.put(functionName, paramCount);
+                functionParamTypes.put(functionName, parameterTypes);
+
+                if (currentIndex >= tokens.size() || !tokens.get(currentIndex).value.equals(")")) {
+                    errors.add("Syntax Error at Line " + line + ": Missing closing parenthesis in function declaration");
+                } else {
+                    currentIndex++; // consume ')'
+                }
+
+                if (currentIndex < tokens.size()) {
+                    if (tokens.get(currentIndex).value.equals("{")) {
+                        if (functionName.equals("main") && mainFunctionFound) {
+                            // Ensure main() has a body
+                            if (findMatchingBrace(currentIndex) == currentIndex + 1) {
+                                errors.add("Syntax Error at Line " + line + ": 'main' function must have a non-empty body");
+                                mainFunctionFound = false;
+                            }
+                        }
+                        deferFunctionBody(functionName, parameters, parameterTypes);
+                    } else if (tokens.get(currentIndex).value.equals(";")) {
+                        if (functionName.equals("main")) {
+                            errors.add("Syntax Error at Line " + line + ": 'main' function must have a body, not just a prototype");
+                            mainFunctionFound = false;
+                        }
+                        currentIndex++;
+                    } else {
+                        errors.add("Syntax Error at Line " + line + ": Expected '{' or ';' after function declaration");
+                    }
+                }
+            } else {
+                errors.add("Syntax Error at Line " + line + ": Expected '(' after function name");
+            }
+        } else {
+            errors.add("Syntax Error at Line " + line + ": Expected identifier after return type");
+        }
+    }
+
+    private int analyzeParameters(String functionName, List<Token> parameters, List<WppType> parameterTypes) {
+        int line = tokens.get(currentIndex).line;
+        boolean expectParam = true;
+        List<String> paramTypes = new ArrayList<>();
+        int paramCount = 0;
+
+        while (currentIndex < tokens.size() && !tokens.get(currentIndex).value.equals(")")) {
+            Token token = tokens.get(currentIndex);
+
+            if (token.value.equals(",")) {
+                if (expectParam) {
+                    errors.add("Syntax Error at Line " + line + ": Unexpected comma in parameter list");
+                }
+                expectParam = true;
+                currentIndex++;
+                continue;
+            }
+
+            if (expectParam) {
+                if (isDataType(token.value)) {
+                    String paramType = token.value;
+                    if (paramType.equals("void") && !functionName.equals("main")) {
+                        errors.add("Syntax Error at Line " + line + ": 'void' is not a valid parameter type");
+                    }
+                    paramTypes.add(paramType);
+                    currentIndex++;
+
+                    if (currentIndex < tokens.size() && isIdentifier(tokens.get(currentIndex))) {
+                        String paramName = tokens.get(currentIndex).value;
+                        for (Token parameter : parameters) {
+                            if (parameter.value.equals(paramName)) {
+                                errors.add("Syntax Error at Line " + line + ": Parameter '" + paramName + "' shadows variable in same scope");
+                                break;
+                            }
+                        }
+                        parameters.add(tokens.get(currentIndex)); // Declared by the body analyzer
+                        parameterTypes.add(WppType.of(paramType));
+                        currentIndex++;
+                        expectParam = false;
+                        paramCount++;
+
+                        if (currentIndex < tokens.size() && tokens.get(currentIndex).value.equals("[")) {
+                            currentIndex++;
+                            if (currentIndex < tokens.size() && tokens.get(currentIndex).value.equals("]")) {
+                                paramTypes.set(paramTypes.size() - 1, paramType + "[]");
+                                parameterTypes.set(parameterTypes.size() - 1, WppType.of(paramType).arrayOf());
+                                currentIndex++;
+                            } else {
+                                errors.add("Syntax Error at Line " + line + ": Expected ']' in array parameter declaration");
+                            }
+                        }
+                    } else {
+                        errors.add("Syntax Error at Line " + line + ": Expected parameter name after type");
+                    }
+                } else {
+                    errors.add("Syntax Error at Line " + line + ": Expected parameter type in function declaration");
+                    currentIndex++;
+                }
+            } else {
+                errors.add("Syntax Error at Line " + line + ": Expected comma between parameters");
+                currentIndex++;
+            }
+        }
+
+        // Validate main() parameters
+        if (functionName.equals("main") && mainFunctionFound) {
+            if (paramTypes.isEmpty()) {
+                // Valid: int main()
+            } else if (paramTypes.size() == 2 && paramTypes.get(0).equals("int") && paramTypes.get(1).equals("char[]")) {
+                // Valid: int main(int argc, char* argv[])
+            } else {
+                errors.add("Syntax Error at Line " + line + ": Invalid parameters for 'main' function. Expected 'int main()' or 'int main(int argc, char* argv[])'");
+                mainFunctionFound = false;
+            }
+        }
+
+        return paramCount;
+    }
+
+    private boolean isDataType(String value) {
+        return value.equals("int") || value.equals("float") || value.equals("double") ||
+                value.equals("char") || value.equals("string") || value.equals("bool") || value.equals("void");
+    }
+
+    private boolean isIdentifier(Token token) {
+        return token.type.equals("Identifier");
+    }
+
+    private Token lookAhead() {
+        if (currentIndex + 1 < tokens.size()) {
+            return tokens.get(currentIndex + 1);
+        }
+        return new Token("EOF", "", -1);
+    }
+
+    private void analyzeVariableDeclaration() {
+        Token dataTypeToken = tokens.get(currentIndex);
+        int line = dataTypeToken.line;
+        String dataType = dataTypeToken.value;
+        currentIndex++;
+
+        if (currentIndex < tokens.size() && isIdentifier(tokens.get(currentIndex))) {
+            String varName = tokens.get(currentIndex).value;
+            int symbol = UNDECLARED;
+            if (isVariableDeclaredInCurrentScope(varName)) {
+                errors.add("Syntax Error at Line " + line + ": Variable '" + varName + "' already declared in this scope");
+            } else if (isFunctionDeclared(varName)) {
+                errors.add("Syntax Error at Line " + line + ": Variable '" + varName + "' conflicts with function name");
+            } else {
+                symbol = declareSymbol(varName, tokens.get(currentIndex).line, WppType.of(dataType), "variable");
+            }
+            currentIndex++;
+
+            boolean isArray = false;
+            if (currentIndex < tokens.size() && tokens.get(currentIndex).value.equals("[")) {
+                isArray = true;
+                if (symbol != UNDECLARED) {
+                    symbolTypes[symbol] = symbolTypes[symbol].arrayOf();
+                    symbolEntries[symbol].dimension = "Array";
+                    symbolEntries[symbol].length = currentIndex + 2 < tokens.size()
+                            && tokens.get(currentIndex + 1).type.equals("Literal (Int)")
+                            && tokens.get(currentIndex + 2).value.equals("]")
+                            ? Math.max(0, intLiteralValue(tokens.get(currentIndex + 1).value)) : 0;
+                }
+                currentIndex++;
+                if (currentIndex < tokens.size() && (tokens.get(currentIndex).type.startsWith("Literal") ||
+                        isIdentifier(tokens.get(currentIndex)))) {
+                    Token indexToken = tokens.get(currentIndex);
+                    if (indexToken.type.equals("Literal (String)") || indexToken.type.equals("Literal (Char)")) {
+                        errors.add("Syntax Error at Line " + line + ": Array index must be an integer");
+                    } else if (indexToken.type.equals("Literal (Int)") && intLiteralValue(indexToken.value) < 0) {
+                        errors.add("Syntax Error at Line " + line + ": Array size '" + indexToken.value + "' out of range");
+                    }
+                    currentIndex++;
+                } else {
+                    errors.add("Syntax Error at Line " + line + ": Expected array size after '['");
+                }
+                if (currentIndex < tokens.size() && tokens.get(currentIndex).value.equals("]")) {
+                    currentIndex++;
+                } else {
+                    errors.add("Syntax Error at Line " + line + ": Expected ']' after array size");
+                }
+            }
+
+            if (currentIndex < tokens.size() && tokens.get(currentIndex).type.equals("Operator")
+                    && tokens.get(currentIndex).value.equals("=")) {
+                currentIndex++;
+                if (!isArray) {
+                    int exprStart = currentIndex;
+                    analyzeExpression(line, WppType.of(dataType));
+                    if (currentIndex == exprStart) {
+                        errors.add("Syntax Error at Line " + line + ": Expected value after '=' in variable initialization");
+                    }
+                    recordLiteralValue(symbol, exprStart);
+                } else {
+                    errors.add("Syntax Error at Line " + line + ": Array initialization not supported in this context");
+                    while (currentIndex < tokens.size() && !tokens.get(currentIndex).value.equals(";")) {
+                        currentIndex++;
+                    }
+                }
+            }
+
+            if (currentIndex < tokens.size() && tokens.get(currentIndex).type.equals("Separator")
+                    && tokens.get(currentIndex).value.equals(";")) {
+                currentIndex++;
+            } else {
+                errors.add("Syntax Error at Line " + line + ": Missing semicolon after variable declaration");
+            }
+        } else {
+            errors.add("Syntax Error at Line " + line + ": Expected identifier after data type");
+        }
+    }
+
+    private void analyzeExpression(int line, WppType expectedType) {
+        int parenCount = 0;
+        boolean lastWasOperator = false;
+        int exprStart = currentIndex;
+        int errorCount = errors.size();
+
+        while (currentIndex < tokens.size() && !tokens.get(currentIndex).value.equals(";")) {
+            Token token = tokens.get(currentIndex);
+            if (token.type.equals("Separator")) {
+                if (token.value.equals("(")) {
+                    parenCount++;
+                } else if (token.value.equals(")")) {
+                    parenCount--;
+                    if (parenCount < 0) {
+                        errors.add("Syntax Error at Line " + line + ": Unmatched closing parenthesis in expression");
+                        break;
+                    }
+                }
+            } else if (token.type.equals("Operator")) {
+                if (lastWasOperator) {
+                    errors.add("Syntax Error at Line " + line + ": Invalid consecutive operators in expression");
+                }
+                lastWasOperator = true;
+            } else if (isIdentifier(token)) {
+                boolean isCall = currentIndex + 1 < tokens.size() && tokens.get(currentIndex + 1).value.equals("(")
+                        && isFunctionDeclared(token.value);
+                if (!isCall && !markUsed(token)) {
+                    errors.add("Syntax Error at Line " + line + ": Variable '" + token.value + "' used before declaration");
+                }
+                lastWasOperator = false;
+            } else if (token.type.startsWith("Literal") || isBoolLiteral(token)) {
+                lastWasOperator = false;
+            } else {
+                errors.add("Syntax Error at Line " + line + ": Unexpected token '" + token.value + "' in expression");
+            }
+            currentIndex++;
+        }
+
+        if (parenCount > 0) {
+            errors.add("Syntax Error at Line " + line + ": Unmatched opening parenthesis in expression");
+        }
+        if (lastWasOperator && currentIndex > exprStart) {
+            errors.add("Syntax Error at Line " + line + ": Expression ends with an operator");
+        }
+        if (errors.size() == errorCount && currentIndex > exprStart) {
+            WppType type = typeOfExpression(exprStart, currentIndex, line);
+            if (expectedType != null && !WppType.isAssignable(expectedType, type)) {
+                errors.add("Type Error at Line " + line + ": Incompatible type '" + type + "' for expected type '" + expectedType + "'");
+            }
+        }
+    }
+
+    // Type of tokens[start, end), already scanned without errors; reports operator and operand mismatches
+    private WppType typeOfExpression(int start, int end, int line) {
+        typeIndex = start;
+        typeEnd = end;
+        typeFailed = false;
+        WppType type = typeOfBinary(1, line);
+        return typeFailed || typeIndex != typeEnd ? WppType.ERROR : type;
+    }
+
+    // Precedence climbing: operators binding at least as tightly as minPrecedence
+    private WppType typeOfBinary(int minPrecedence, int line) {
+        WppType left = typeOfUnary(line);
+        while (!typeFailed && typeIndex < typeEnd && tokens.get(typeIndex).type.equals("Operator")) {
+            String op = tokens.get(typeIndex).value;
+            int precedence = binaryPrecedence(op);
+            if (precedence == 0) {
+                errors.add("Type Error at Line " + line + ": Operator '" + op + "' is not supported in expressions");
+                typeFailed = true;
+                return WppType.ERROR;
+            }
+            if (precedence < minPrecedence) {
+                break;
+            }
+            typeIndex++;
+            WppType right = typeOfBinary(precedence + 1, line);
+            left = typeOfOperator(op, left, right, line);
+        }
+        return left;
+    }
+
+    private WppType typeOfOperator(String op, WppType left, WppType right, int line) {
+        WppType result;
+        switch (op) {
+            case "||":
+            case "&&":
+                result = left.isTestable() && right.isTestable() ? WppType.BOOL : null;
+                break;
+            case "==":
+            case "!=":
+                result = (left.isNumeric() && right.isNumeric()) || (left == right && !left.isArray() && left != WppType.VOID)
+                        ? WppType.BOOL : null;
+                break;
+            case "<":
+            case "<=":
+            case ">":
+            case ">=":
+                result = left.isNumeric() && right.isNumeric() ? WppType.BOOL : null;
+                break;
+            case "%":
+                result = left.isIntegral() && right.isIntegral() ? WppType.INT : null;
+                break;
+            default:
+                result = WppType.promote(left, right);
+        }
+        if (left == WppType.ERROR || right == WppType.ERROR) {
+            return result == WppType.BOOL ? result : WppType.ERROR;
+        }
+        if (result == null) {
+            errors.add("Type Error at Line " + line + ": Operator '" + op + "' cannot be applied to '" + left + "' and '" + right + "'");
+            return WppType.ERROR;
+        }
+        return result;
+    }
+
+    private WppType typeOfUnary(int line) {
+        if (typeIndex < typeEnd && tokens.get(typeIndex).type.equals("Operator")) {
+            String op = tokens.get(typeIndex).value;
+            if (op.equals("-") || op.equals("+") || op.equals("!")) {
+                typeIndex++;
+                WppType operand = typeOfUnary(line);
+                if (operand == WppType.ERROR) {
+                    return operand;
+                }
+                if (op.equals("!") ? operand.isTestable() : operand.isNumeric()) {
+                    return op.equals("!") ? WppType.BOOL : WppType.promote(operand, operand);
+                }
+                errors.add("Type Error at Line " + line + ": Operator '" + op + "' cannot be applied to '" + operand + "'");
+                return WppType.ERROR;
+            }
+        }
+        return typeOfPrimary(line);
+    }
+
+    private WppType typeOfPrimary(int line) {
+        if (typeIndex >= typeEnd) {
+            typeFailed = true;
+            return WppType.ERROR;
+        }
+        Token token = tokens.get(typeIndex++);
+        if (token.value.equals("(") && token.type.equals("Separator")) {
+            WppType inner = typeOfBinary(1, line);
+            expectTypeToken(")");
+            return inner;
+        }
+        if (!isIdentifier(token)) {
+            WppType literal = literalType(token);
+            if (literal == null) {
+                typeFailed = true;
+                return WppType.ERROR;
+            }
+            if (!checkIntLiteral(token)) {
+                return WppType.ERROR;
+            }
+            return literal;
+        }
+        if (typeIndex < typeEnd && tokens.get(typeIndex).value.equals("(") && isFunctionDeclared(token.value)) {
+            return typeOfCall(token, line);
+        }
+        WppType type = symbolType(resolveSymbol(token.value));
+        if (typeIndex < typeEnd && tokens.get(typeIndex).value.equals("[")) {
+            typeIndex++;
+            WppType index = typeOfBinary(1, line);
+            expectTypeToken("]");
+            if (index != WppType.ERROR && !index.isIntegral()) {
+                errors.add("Type Error at Line " + line + ": Array index must be an integer, found '" + index + "'");
+            }
+            if (type == WppType.ERROR) {
+                return type;
+            }
+            if (!type.isArray()) {
+                errors.add("Type Error at Line " + line + ": '" + token.value + "' is not an array");
+                return WppType.ERROR;
+            }
+            return type.elementType;
+        }
+        return type;
+    }
+
+    private WppType typeOfCall(Token funcToken, int line) {
+        typeIndex++; // consume '('
+        List<WppType> argTypes = new ArrayList<>();
+        if (typeIndex < typeEnd && tokens.get(typeIndex).value.equals(")")) {
+            typeIndex++;
+        } else {
+            while (!typeFailed) {
+                argTypes.add(typeOfBinary(1, line));
+                if (typeIndex < typeEnd && tokens.get(typeIndex).value.equals(",")) {
+                    typeIndex++;
+                } else {
+                    expectTypeToken(")");
+                    break;
+                }
+            }
+        }
+        checkArguments(funcToken.value, argTypes, line);
+        functionUses.putIfAbsent(funcToken.value, funcToken.line);
+        return WppType.of(functionReturnTypes.get(funcToken.value));
+    }
+
+    private void checkArguments(String funcName, List<WppType> argTypes, int line) {
+        List<WppType> paramTypes = functionParamTypes.get(funcName);
+        if (paramTypes == null) {
+            return;
+        }
+        if (argTypes.size() != paramTypes.size()) {
+            errors.add("Semantic Error at Line " + line + ": Function '" + funcName + "' expects " + paramTypes.size() +
+                       " arguments but " + argTypes.size() + " were provided");
+            return;
+        }
+        for (int i = 0; i < argTypes.size(); i++) {
+            if (!WppType.isAssignable(paramTypes.get(i), argTypes.get(i))) {
+                errors.add("Type Error at Line " + line + ": Argument " + (i + 1) + " of '" + funcName + "' expects '"
+                        + paramTypes.get(i) + "' but got '" + argTypes.get(i) + "'");
+            }
+        }
+    }
+
+    private void expectTypeToken(String value) {
+        if (typeIndex < typeEnd && tokens.get(typeIndex).value.equals(value)) {
+            typeIndex++;
+        } else {
+            typeFailed = true;
+        }
+    }
+
+    // Conditions of if/while/for must be boolean or numeric
+    private void checkCondition(int start, int end, int line, int errorCount) {
+        if (errors.size() != errorCount || start >= end) {
+            return;
+        }
+        WppType type = typeOfExpression(start, end, line);
+        if (!type.isTestable()) {
+            errors.add("Type Error at Line " + line + ": Condition of type '" + type + "' is not a boolean expression");
+        }
+    }
+
+    // Reports an int literal that does not fit in 32 bits, so lowering never parses one
+    private boolean checkIntLiteral(Token token) {
+        if (token.type.equals("Literal (Int)") && intLiteralValue(token.value) < 0) {
+            errors.add("Type Error at Line " + token.line + ": Integer literal '" + token.value + "' out of range");
+            return false;
+        }
+        return true;
+    }
+
+    // Value of an int literal, or -1 when it does not fit in an int
+    static int intLiteralValue(String digits) {
+        try {
+            return Integer.parseInt(digits);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private WppType literalType(Token token) {
+        switch (token.type) {
+            case "Literal (Int)":
+                return WppType.INT;
+            case "Literal (Float)":
+                return WppType.DOUBLE;
+            case "Literal (Char)":
+                return WppType.CHAR;
+            case "Literal (String)":
+                return WppType.STRING;
+            default:
+                return isBoolLiteral(token) ? WppType.BOOL : null;
+        }
+    }
+
+    private boolean isBoolLiteral(Token token) {
+        return token.type.equals("Keyword") && (token.value.equals("true") || token.value.equals("false"));
+    }
+
+    private WppType symbolType(int symbol) {
+        if (symbol == UNDECLARED)
+            return WppType.ERROR;
+        return symbol >= 0 ? symbolTypes[symbol] : program.symbolTypes[~symbol];
+    }
+
+    static int binaryPrecedence(String op) {
+        switch (op) {
+            case "||":
+                return 1;
+            case "&&":
+                return 2;
+            case "==":
+            case "!=":
+                return 3;
+            case "<":
+            case "<=":
+            case ">":
+            case ">=":
+                return 4;
+            case "+":
+            case "-":
+                return 5;
+            case "*":
+            case "/":
+            case "%":
+                return 6;
+            default:
+                return 0;
+        }
+    }
+
+    private void analyzeAssignment() {
+        Token token = tokens.get(currentIndex);
+        int line = token.line;
+        if (isIdentifier(token)) {
+            String varName = token.value;
+            if (!markUsed(token)) {
+                errors.add("Syntax Error at Line " + line + ": Variable '" + varName + "' used before declaration");
+            }
+            int symbol = resolveSymbol(varName);
+            WppType targetType = symbolType(symbol);
+            currentIndex++;
+            boolean isArray = false;
+            if (currentIndex < tokens.size() && tokens.get(currentIndex).value.equals("[")) {
+                isArray = true;
+                if (targetType.isArray()) {
+                    targetType = targetType.elementType;
+                } else if (targetType != WppType.ERROR) {
+                    errors.add("Type Error at Line " + line + ": '" + varName + "' is not an array");
+                    targetType = WppType.ERROR;
+                }
+                currentIndex++;
+                if (currentIndex < tokens.size() && (isIdentifier(tokens.get(currentIndex))
+                        || tokens.get(currentIndex).type.startsWith("Literal"))) {
+                    Token indexToken = tokens.get(currentIndex);
+                    if (indexToken.type.equals("Literal (String)") || indexToken.type.equals("Literal (Char)")) {
+                        errors.add("Syntax Error at Line " + line + ": Array index must be an integer");
+                    } else if (isIdentifier(indexToken)) {
+                        WppType indexType = symbolType(resolveSymbol(indexToken.value));
+                        if (!markUsed(indexToken)) {
+                            errors.add("Syntax Error at Line " + line + ": Variable '" + indexToken.value + "' used before declaration");
+                        } else if (indexType != WppType.ERROR && !indexType.isIntegral()) {
+                            errors.add("Type Error at Line " + line + ": Array index must be an integer, found '" + indexType + "'");
+                        }
+                    } else {
+                        checkIntLiteral(indexToken);
+                    }
+                    currentIndex++;
+                    if (currentIndex < tokens.size() && tokens.get(currentIndex).value.equals("]")) {
+                        currentIndex++;
+                    } else {
+                        errors.add("Syntax Error at Line " + line + ": Expected ']' after array index");
+                    }
+                } else {
+                    errors.add("Syntax Error at Line " + line + ": Expected array index after '['");
+                }
+            }
+            if (currentIndex < tokens.size() && tokens.get(currentIndex).type.equals("Operator")
+                    && tokens.get(currentIndex).value.equals("=")) {
+                currentIndex++;
+                int startIndex = currentIndex;
+                analyzeExpression(line, targetType);
+                if (currentIndex == startIndex) {
+                    errors.add("Syntax Error at Line " + line + ": Expected value after '=' in assignment");
+                }
+                if (!isArray) {
+                    recordLiteralValue(symbol, startIndex);
+                }
+                if (currentIndex < tokens.size() && tokens.get(currentIndex).value.equals(";")) {
+                    currentIndex++;
+                } else {
+                    errors.add("Syntax Error at Line " + line + ": Missing semicolon after assignment");
+                }
+            } else {
+                errors.add("Syntax Error at Line " + line + ": Expected '=' in assignment");
+            }
+        } else {
+            errors.add("Syntax Error at Line " + line + ": Expected identifier in assignment");
+            currentIndex++;
+        }
+    }
+
+    private void analyzeIfStatement() {
+        int line = tokens.get(currentIndex).line;
+        currentIndex++;
+        if (currentIndex < tokens.size() && tokens.get(currentIndex).type.equals("Separator")
+                && tokens.get(currentIndex).value.equals("(")) {
+            currentIndex++;
+            int openParens = 1;
+            int conditionStart = currentIndex;
+            int errorCount = errors.size();
+            while (currentIndex < tokens.size() && openParens > 0) {
+                Token token = tokens.get(currentIndex);
+                if (token.type.equals("Separator")) {
+                    if (token.value.equals("("))
+                        openParens++;
+                    else if (token.value.equals(")"))
+                        openParens--;
+                } else if (isIdentifier(token)) {
+                    if (!markUsed(token)) {
+                        errors.add("Syntax Error at Line " + token.line + ": Variable '" + token.value + "' used before declaration");
+                    }
+                }
+                currentIndex++;
+            }
+            if (openParens > 0) {
+                errors.add("Syntax Error at Line " + line + ": Missing closing parenthesis in if statement");
+            } else if (conditionStart == currentIndex - 1) {
+                errors.add("Syntax Error at Line " + line + ": Empty condition in if statement");
+            } else {
+                checkCondition(conditionStart, currentIndex - 1, line, errorCount);
+            }
+            if (currentIndex < tokens.size() && tokens.get(currentIndex).type.equals("Separator")
+                    && tokens.get(currentIndex).value.equals("{")) {
+                skipBlock();
+                if (currentIndex < tokens.size() && tokens.get(currentIndex).value.equals("else")) {
+                    currentIndex++;
+                    if (currentIndex < tokens.size() && tokens.get(currentIndex).value.equals("if")) {
+                        analyzeIfStatement();
+                    } else if (currentIndex < tokens.size() && tokens.get(currentIndex).type.equals("Separator")
+                            && tokens.get(currentIndex).value.equals("{")) {
+                        skipBlock();
+                    } else if (currentIndex < tokens.size()) {
+                        while (currentIndex < tokens.size() && !tokens.get(currentIndex).value.equals(";")) {
+                            Token token = tokens.get(currentIndex);
+                            if (isIdentifier(token) && !isVariableDeclared(token.value)) {
+                                errors.add("Syntax Error at Line " + token.line + ": Variable '" + token.value
+                                        + "' used before declaration");
+                            }
+                            currentIndex++;
+                        }
+                        if (currentIndex < tokens.size() && tokens.get(currentIndex).value.equals(";")) {
+                            currentIndex++;
+                        } else {
+                            errors.add("Syntax Error at Line " + line + ": Missing semicolon after else statement");
+                        }
+                    } else {
+                        errors.add("Syntax Error at Line " + line + ": Expected statement or '{' after 'else'");
+                    }
+                }
+            } else {
+                errors.add("Syntax Error at Line " + line + ": Expected '{' after if condition");
+            }
+        } else {
+            errors.add("Syntax Error at Line " + line + ": Missing opening parenthesis in if statement");
+        }
+    }
+
+    private void analyzeForLoop() {
+        int line = tokens.get(currentIndex).line;
+        currentIndex++;
+        if (currentIndex < tokens.size() && tokens.get(currentIndex).type.equals("Separator")
+                && tokens.get(currentIndex).value.equals("(")) {
+            currentIndex++;
+            scopeStack.push(new HashMap<>());
+            if (currentIndex < tokens.size() && isDataType(tokens.get(currentIndex).value)) {
+                analyzeVariableDeclaration();
+            } else {
+                while (currentIndex < tokens.size() && !tokens.get(currentIndex).value.equals(";")) {
+                    Token token = tokens.get(currentIndex);
+                    if (isIdentifier(token) && !isVariableDeclared(token.value)) {
+                        errors.add("Syntax Error at Line " + token.line + ": Variable '" + token.value + "' used before declaration");
+                    }
+                    checkIntLiteral(token);
+                    currentIndex++;
+                }
+                if (currentIndex < tokens.size() && tokens.get(currentIndex).value.equals(";")) {
+                    currentIndex++;
+                } else {
+                    errors.add("Syntax Error at Line " + line + ": Missing semicolon in for loop initialization");
+                }
+            }
+            int conditionStart = currentIndex;
+            int errorCount = errors.size();
+            while (currentIndex < tokens.size() && !tokens.get(currentIndex).value.equals(";")) {
+                Token token = tokens.get(currentIndex);
+                if (isIdentifier(token) && !markUsed(token)) {
+                    errors.add("Syntax Error at Line " + token.line + ": Variable '" + token.value + "' used before declaration");
+                }
+                currentIndex++;
+            }
+            if (currentIndex >= tokens.size() || !tokens.get(currentIndex).value.equals(";")) {
+                errors.add("Syntax Error at Line " + line + ": Missing semicolon in for loop condition");
+            } else {
+                currentIndex++;
+            }
+            if (conditionStart == currentIndex - 1) {
+                errors.add("Syntax Error at Line " + line + ": Empty or invalid condition in for loop");
+            } else {
+                checkCondition(conditionStart, currentIndex - 1, line, errorCount);
+            }
+            while (currentIndex < tokens.size() && !tokens.get(currentIndex).value.equals(")")) {
+                Token token = tokens.get(currentIndex);
+                if (isIdentifier(token) && !markUsed(token)) {
+                    errors.add("Syntax Error at Line " + token.line + ": Variable '" + token.value + "' used before declaration");
+                }
+                checkIntLiteral(token);
+                currentIndex++;
+            }
+            if (currentIndex < tokens.size() && tokens.get(currentIndex).value.equals(")")) {
+                currentIndex++;
+                if (currentIndex < tokens.size() && tokens.get(currentIndex).type.equals("Separator")
+                        && tokens.get(currentIndex).value.equals("{")) {
+                    skipBlock();
+                } else {
+                    errors.add("Syntax Error at Line " + line + ": Expected '{' after for loop");
+                }
+            } else {
+                errors.add("Syntax Error at Line " + line + ": Missing closing parenthesis in for loop");
+            }
+            scopeStack.pop();
+        } else {
+            errors.add("Syntax Error at Line " + line + ": Missing opening parenthesis in for loop");
+        }
+    }
+
+    private void analyzeWhileLoop() {
+        int line = tokens.get(currentIndex).line;
+        currentIndex++;
+        if (currentIndex < tokens.size() && tokens.get(currentIndex).type.equals("Separator") &&
+                tokens.get(currentIndex).value.equals("(")) {
+            currentIndex++;
+            int openParens = 1;
+            int conditionStart = currentIndex;
+            int errorCount = errors.size();
+            while (currentIndex < tokens.size() && openParens > 0) {
+                Token token = tokens.get(currentIndex);
+                if (token.type.equals("Separator")) {
+                    if (token.value.equals("("))
+                        openParens++;
+                    else if (token.value.equals(")"))
+                        openParens--;
+                } else if (isIdentifier(token)) {
+                    if (!markUsed(token)) {
+                        errors.add("Syntax Error at Line " + token.line + ": Variable '" + token.value + "' used before declaration");
+                    }
+                }
+                currentIndex++;
+            }
+            if (openParens > 0) {
+                errors.add("Syntax Error at Line " + line + ": Missing closing parenthesis in while loop");
+            } else if (conditionStart == currentIndex - 1) {
+                errors.add("Syntax Error at Line " + line + ": Empty condition in while loop");
+            } else {
+                checkCondition(conditionStart, currentIndex - 1, line, errorCount);
+            }
+            if (currentIndex < tokens.size() && tokens.get(currentIndex).type.equals("Separator") &&
+                    tokens.get(currentIndex).value.equals("{")) {
+                skipBlock();
+            } else {
+                errors.add("Syntax Error at Line " + line + ": Expected '{' after while loop");
+            }
+        } else {
+            errors.add("Syntax Error at Line " + line + ": Missing opening parenthesis in while loop");
+        }
+    }
+
+    private void analyzeCoutStatement() {
+        int line = tokens.get(currentIndex).line;
+        currentIndex++; // consume 'cout'
+
+        while (currentIndex < tokens.size() && tokens.get(currentIndex).type.equals("Operator") &&
+               tokens.get(currentIndex).value.equals("<<")) {
+            currentIndex++; // consume '<<'
+
+            if (currentIndex >= tokens.size()) {
+                errors.add("Syntax Error at Line " + line + ": Expected expression after '<<' in cout statement");
+                return;
+            }
+
+            Token outputToken = tokens.get(currentIndex);
+            if (outputToken.type.startsWith("Literal") ||
+                (outputToken.type.equals("Identifier") && markUsed(outputToken)) ||
+                outputToken.value.equals("endl")) {
+                checkIntLiteral(outputToken);
+                currentIndex++; // consume the output item
+            } else {
+                errors.add("Syntax Error at Line " + line + ": Invalid output item '" + outputToken.value + "' after '<<'");
+                currentIndex++;
+                return;
+            }
+        }
+
+        if (currentIndex >= tokens.size() || !tokens.get(currentIndex).value.equals(";")) {
+            errors.add("Syntax Error at Line " + line + ": Missing semicolon after cout statement");
+        } else {
+            currentIndex++;
+        }
+    }
+
+    private void analyzeFunctionCall() {
+        Token funcToken = tokens.get(currentIndex);
+        int line = funcToken.line;
+        String funcName = funcToken.value;
+        if (funcName.equals("cout")) {
+            analyzeCoutStatement();
+            return;
+        }
+        boolean declared = isFunctionDeclared(funcName);
+        if (!declared) {
+            errors.add("Semantic Error at Line " + line + ": Function '" + funcName + "' called before declaration");
+        } else {
+            functionUses.putIfAbsent(funcName, line);
+        }
+        currentIndex++;
+        if (currentIndex < tokens.size() && tokens.get(currentIndex).type.equals("Separator")
+                && tokens.get(currentIndex).value.equals("(")) {
+            currentIndex++;
+            boolean expectArg = true;
+            int argCount = 0;
+            List<WppType> argTypes = new ArrayList<>();
+            while (currentIndex < tokens.size() && !tokens.get(currentIndex).value.equals(")")) {
+                Token token = tokens.get(currentIndex);
+                if (token.type.equals("Separator") && token.value.equals(",")) {
+                    if (expectArg) {
+                        errors.add("Syntax Error at Line " + line + ": Missing argument before comma in function call");
+                    }
+                    expectArg = true;
+                } else if (isIdentifier(token) || token.type.startsWith("Literal")) {
+                    if (!expectArg) {
+                        errors.add("Syntax Error at Line " + line + ": Expected ',' between arguments in function call");
+                    }
+                    if (isIdentifier(token) && !markUsed(token)) {
+                        errors.add("Syntax Error at Line " + token.line + ": Variable '" + token.value + "' used before declaration");
+                    }
+                    argTypes.add(isIdentifier(token) ? symbolType(resolveSymbol(token.value)) : literalType(token));
+                    expectArg = false;
+                    argCount++;
+                } else {
+                    errors.add("Syntax Error at Line " + line + ": Invalid token '" + token.value + "' in function call argument");
+                }
+                currentIndex++;
+            }
+            if (currentIndex < tokens.size() && tokens.get(currentIndex).value.equals(")")) {
+                currentIndex++;
+                if (expectArg && argCount == 0) {
+                    // Allow empty argument list
+                } else if (expectArg) {
+                    errors.add("Syntax Error at Line " + line + ": Missing argument after comma in function call");
+                }
+                // Check argument count and types
+                if (declared) {
+                    checkArguments(funcName, argTypes, line);
+                }
+            } else {
+                errors.add("Syntax Error at Line " + line + ": Missing closing parenthesis in function call");
+            }
+            if (currentIndex < tokens.size() && tokens.get(currentIndex).type.equals("Separator")
+                    && tokens.get(currentIndex).value.equals(";")) {
+                currentIndex++;
+            } else {
+                errors.add("Syntax Error at Line " + line + ": Missing semicolon after function call");
+            }
+        } else {
+            errors.add("Syntax Error at Line " + line + ": Expected '(' after function name");
+        }
+    }
+
+    private void analyzeReturnStatement() {
+        int line = tokens.get(currentIndex).line;
+        currentIndex++;
+
+        String functionName = currentFunction;
+        String expectedReturnType = functionName != null ? functionReturnTypes.get(functionName) : "void";
+
+        if (currentIndex < tokens.size() && !tokens.get(currentIndex).value.equals(";")) {
+            if (expectedReturnType.equals("void")) {
+                errors.add("Syntax Error at Line " + line + ": Void function should not return a value");
+            }
+            int startIndex = currentIndex;
+            analyzeExpression(line, expectedReturnType.equals("void") ? null : WppType.of(expectedReturnType));
+            if (startIndex == currentIndex) {
+                errors.add("Syntax Error at Line " + line + ": Expected return value for non-void function");
+            }
+        } else if (!expectedReturnType.equals("void")) {
+            errors.add("Syntax Error at Line " + line + ": Non-void function '" + (functionName != null ? functionName : "") +
+                       "' must return a value");
+        }
+
+        if (currentIndex < tokens.size() && tokens.get(currentIndex).value.equals(";")) {
+            currentIndex++;
+        } else {
+            errors.add("Syntax Error at Line " + line + ": Missing semicolon after return statement");
+        }
+    }
+
+    private void skipBlock() {
+        currentIndex++; // Consume '{'
+        scopeStack.push(new HashMap<>());
+        int braceCount = 1;
+
+        while (currentIndex < tokens.size() && braceCount > 0) {
+            Token token = tokens.get(currentIndex);
+
+            if (token.type.equals("Separator") && token.value.equals("{")) {
+                skipBlock(); // Consumes the nested block up to its own '}'
+            } else if (token.type.equals("Separator") && token.value.equals("}")) {
+                braceCount--;
+                if (braceCount == 0) {
+                    scopeStack.pop();
+                    currentIndex++;
+                    break;
+                }
+                currentIndex++;
+            } else {
+                if (isDataType(token.value)) {
+                    analyzeVariableDeclaration();
+                } else if (isIdentifier(token)) {
+                    if (lookAhead().type.equals("Operator") && lookAhead().value.equals("=")) {
+                        analyzeAssignment();
+                    } else if (lookAhead().type.equals("Separator") && lookAhead().value.equals("(")) {
+                        analyzeFunctionCall();
+                    } else if (lookAhead().type.equals("Separator") && lookAhead().value.equals("[")) {
+                        analyzeAssignment();
+                    } else if (lookAhead().type.equals("Operator") &&
+                            (lookAhead().value.equals("++") || lookAhead().value.equals("--"))) {
+                        if (!markUsed(token)) {
+                            errors.add("Syntax Error at Line " + token.line + ": Variable '" + token.value + "' used before declaration");
+                        }
+                        currentIndex += 2;
+                        if (currentIndex < tokens.size() && tokens.get(currentIndex).value.equals(";")) {
+                            currentIndex++;
+                        } else {
+                            errors.add("Syntax Error at Line " + token.line + ": Missing semicolon after increment/decrement");
+                        }
+                    } else {
+                        errors.add("Syntax Error at Line " + token.line + ": Invalid statement - unexpected identifier '" + token.value + "'");
+                        currentIndex++;
+                    }
+                } else if (token.value.equals("if")) {
+                    analyzeIfStatement();
+                } else if (token.value.equals("for")) {
+                    analyzeForLoop();
+                } else if (token.value.equals("while")) {
+                    analyzeWhileLoop();
+                } else if (token.value.equals("return")) {
+                    analyzeReturnStatement();
+                } else if (token.value.equals("cout")) { // Lexed as a keyword
+                    analyzeCoutStatement();
+                } else if (token.type.equals("Separator") && token.value.equals(";")) {
+                    errors.add("Syntax Error at Line " + token.line + ": Stray semicolon in block");
+                    currentIndex++;
+                } else if (token.type.equals("Operator")) {
+                    errors.add("Syntax Error at Line " + token.line + ": Unexpected operator '" + token.value + "' in block");
+                    currentIndex++;
+                } else {
+                    errors.add("Syntax Error at Line " + token.line + ": Unexpected token '" + token.value + "' in block");
+                    currentIndex++;
+                }
+            }
+        }
+
+        if (braceCount > 0) {
+            errors.add("Syntax Error at Line " + tokens.get(currentIndex - 1).line + ": Missing closing brace '}'");
+        }
+    }
+
+    private boolean isVariableDeclared(String varName) {
+        return resolveSymbol(varName) != UNDECLARED || varName.equals("cout") || varName.equals("endl");
+    }
+
+    // Innermost declaration wins, so shadowed variables keep separate counters
+    private int resolveSymbol(String varName) {
+        for (int i = scopeStack.size() - 1; i >= 0; i--) {
+            Integer symbol = scopeStack.get(i).get(varName);
+            if (symbol != null)
+                return symbol;
+        }
+        if (program != null) {
+            Integer global = program.globalVariables.get(varName);
+            if (global != null && global < visibleGlobals)
+                return ~global;
+        }
+        return UNDECLARED;
+    }
+
+    // Record a use of the identifier; false if it is not declared
+    private boolean markUsed(Token token) {
+        int symbol = resolveSymbol(token.value);
+        if (symbol >= 0) {
+            if (symbolEntries[symbol].lineOfUsage == -1)
+                symbolEntries[symbol].lineOfUsage = token.line;
+        } else if (symbol != UNDECLARED) {
+            if (globalFirstUse == null) {
+                globalFirstUse = new int[visibleGlobals];
+            }
+            if (globalFirstUse[~symbol] == 0)
+                globalFirstUse[~symbol] = token.line;
+        } else {
+            return token.value.equals("cout") || token.value.equals("endl");
+        }
+        return true;
+    }
+
+    // Remember '= <literal>' as the symbol's value; globals are only updated by their owner
+    private void recordLiteralValue(int symbol, int exprStart) {
+        if (symbol >= 0 && currentIndex == exprStart + 1 && literalType(tokens.get(exprStart)) != null) {
+            symbolEntries[symbol].value = tokens.get(exprStart).value;
+        }
+    }
+
+    // Phase one records every signature up front, so only functions declared before this point count
+    private boolean isFunctionDeclared(String name) {
+        Integer declaredAt = functionDeclarations.get(name);
+        return declaredAt != null && declaredAt < currentIndex;
+    }
+
+    private boolean isVariableDeclaredInCurrentScope(String varName) {
+        return scopeStack.peek().containsKey(varName);
+    }
+
+    private int declareSymbol(String varName, int line, WppType type, String kind) {
+        if (symbolCount == symbolEntries.length) {
+            symbolEntries = Arrays.copyOf(symbolEntries, symbolCount * 2);
+            symbolTypes = Arrays.copyOf(symbolTypes, symbolCount * 2);
+        }
+        SymbolTableEntry entry = new SymbolTableEntry(varName, kind, (type.isArray() ? type.elementType : type).name);
+        entry.lineOfDeclaration = line;
+        entry.owner = currentFunction;
+        if (type.isArray()) {
+            entry.dimension = "Array";
+            entry.length = 0;
+        }
+        symbolTable.add(entry);
+        symbolEntries[symbolCount] = entry;
+        symbolTypes[symbolCount] = type;
+        scopeStack.peek().put(varName, symbolCount);
+        return symbolCount++;
+    }
+}
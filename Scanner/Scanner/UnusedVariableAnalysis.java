@@ -0,0 +1,105 @@
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+// Unused variables and dead stores, found with liveness on the IR as lowered, before optimizations change
+// which reads remain. A variable nothing ever reads is reported once at its declaration; any other
+// assignment is reported when no path reads the value before it is overwritten or the function returns.
+final class UnusedVariableAnalysis {
+    private final IrProgram program;
+    private final List<String> warnings;
+    private final List<Object[]> found = new ArrayList<>(); // {line, message}
+
+    UnusedVariableAnalysis(IrProgram program, List<String> warnings) {
+        this.program = program;
+        this.warnings = warnings;
+    }
+
+    void run() {
+        boolean[] globalRead = new boolean[program.globalCount];
+        for (IrFunction fn : program.functions) {
+            if (!fn.defined) {
+                continue;
+            }
+            check(fn);
+            for (int i = 0; i < fn.size; i++) {
+                if (fn.op[i] == IrOp.GLOAD) {
+                    globalRead[fn.a[i]] = true;
+                }
+            }
+        }
+        for (int g = 0; g < program.globalCount; g++) {
+            SymbolTableEntry symbol = program.globalSymbols[g];
+            if (!globalRead[g] && symbol != null) {
+                report(symbol.lineOfDeclaration, "Variable '" + symbol.identifier + "' declared but never used");
+            }
+        }
+        found.sort(Comparator.comparingInt(f -> (Integer) f[0]));
+        for (Object[] f : found) {
+            warnings.add("Warning at Line " + f[0] + ": " + f[1]);
+        }
+    }
+
+    private void check(IrFunction fn) {
+        boolean[] read = new boolean[fn.registerCount];
+        boolean[] written = new boolean[fn.registerCount];
+        int[] operands = new int[fn.argCount + 3];
+        for (int i = 0; i < fn.size; i++) {
+            int count = fn.uses(i, operands);
+            for (int k = 0; k < count; k++) {
+                read[operands[k]] = true;
+            }
+            if (IrOp.definesRegister(fn.op[i]) && fn.dst[i] >= 0) {
+                written[fn.dst[i]] = true;
+            }
+        }
+        for (int r = 0; r < fn.registerCount; r++) {
+            SymbolTableEntry symbol = fn.registerSymbol[r];
+            if (symbol != null && !read[r]) {
+                report(symbol.lineOfDeclaration, "Variable '" + symbol.identifier + "' "
+                        + (written[r] ? "is assigned but never used" : "declared but never used"));
+            }
+        }
+
+        // Walk each reachable block backwards from its live-out set; code no path reaches is left to
+        // dead code elimination to report
+        Liveness liveness = new Liveness(fn);
+        boolean[] reachable = new boolean[fn.blockCount];
+        int[] work = new int[fn.blockCount];
+        int pending = 0;
+        reachable[0] = true;
+        work[pending++] = 0;
+        while (pending > 0) {
+            for (int successor : fn.successors[work[--pending]]) {
+                if (!reachable[successor]) {
+                    reachable[successor] = true;
+                    work[pending++] = successor;
+                }
+            }
+        }
+        for (int block = 0; block < fn.blockCount; block++) {
+            if (!reachable[block]) {
+                continue;
+            }
+            long[] live = liveness.liveOut[block].clone();
+            for (int i = fn.blockEnd[block] - 1; i >= fn.blockStart[block]; i--) {
+                int dst = fn.dst[i];
+                if (IrOp.definesRegister(fn.op[i]) && dst >= 0) {
+                    SymbolTableEntry symbol = fn.registerSymbol[dst];
+                    if (symbol != null && read[dst] && !Liveness.contains(live, dst)) {
+                        report(fn.line[i], "Value assigned to '" + symbol.identifier + "' is never used");
+                    }
+                    Liveness.remove(live, dst);
+                }
+                int count = fn.uses(i, operands);
+                for (int k = 0; k < count; k++) {
+                    Liveness.add(live, operands[k]);
+                }
+            }
+        }
+    }
+
+    private void report(int line, String message) {
+        found.add(new Object[] { line, message });
+    }
+}
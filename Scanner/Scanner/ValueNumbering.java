@@ -0,0 +1,233 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Hash-based value numbering with common subexpression elimination over the dominator tree. Each computation
+// is keyed by its opcode, result type and operand value numbers; when the key is already available and a
+// register still holds that value, the computation becomes a copy, and reads are redirected to the register
+// that first computed the value. The IR is not in SSA form, so only registers written once carry their value
+// into dominated blocks; the value of any other register is known only in the block that wrote it.
+// Copies left behind are removed by the dead code pass that follows.
+final class ValueNumbering {
+    private static final int SCOPED = -2; // valueBlock of single-definition registers
+
+    private final IrProgram program;
+    private IrFunction fn;
+    private boolean[] single; // Written at most once, counting a parameter's value on entry
+    private int[] valueOf; // Value number each register holds, -1 if unknown
+    private int[] valueBlock; // SCOPED, or the block a multiply-written register's value is known in
+    private int[] holder = new int[64]; // Single-definition register holding each value, -1 if none
+    private int[] localHolder = new int[64]; // Latest other register written with each value
+    private int valueCount;
+    private final Map<Expression, Integer> available = new HashMap<>();
+    private int[] operands;
+
+    private static final class Expression {
+        final int op, type, x, y;
+
+        Expression(int op, int type, int x, int y) {
+            this.op = op;
+            this.type = type;
+            this.x = x;
+            this.y = y;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Expression)) {
+                return false;
+            }
+            Expression e = (Expression) other;
+            return op == e.op && type == e.type && x == e.x && y == e.y;
+        }
+
+        @Override
+        public int hashCode() {
+            return ((op * 31 + type) * 31 + x) * 31 + y;
+        }
+    }
+
+    ValueNumbering(IrProgram program) {
+        this.program = program;
+    }
+
+    void run() {
+        for (IrFunction function : program.functions) {
+            if (function.defined) {
+                number(function);
+            }
+        }
+    }
+
+    private void number(IrFunction function) {
+        fn = function;
+        int[] writes = new int[fn.registerCount];
+        for (int i = 0; i < fn.size; i++) {
+            if (IrOp.definesRegister(fn.op[i]) && fn.dst[i] >= 0) {
+                writes[fn.dst[i]]++;
+            }
+        }
+        single = new boolean[fn.registerCount];
+        valueOf = new int[fn.registerCount];
+        valueBlock = new int[fn.registerCount];
+        Arrays.fill(valueOf, -1);
+        Arrays.fill(valueBlock, -1);
+        valueCount = 0;
+        available.clear();
+        operands = new int[fn.argCount + 3];
+        for (int r = 0; r < fn.registerCount; r++) {
+            single[r] = writes[r] + (r < fn.paramCount ? 1 : 0) <= 1;
+            if (single[r] && writes[r] == 0) {
+                assign(r, newValue(), 0, new ArrayList<>()); // Holds its entry value throughout
+            }
+        }
+        visit(0, new Dominators(fn));
+    }
+
+    private void visit(int block, Dominators dominators) {
+        List<Object> undo = new ArrayList<>(); // Expressions made available and registers given a value here
+        for (int i = fn.blockStart[block]; i < fn.blockEnd[block]; i++) {
+            int count = fn.uses(i, operands);
+            for (int k = 0; k < count; k++) {
+                int r = operands[k];
+                int value = valueIn(r, block);
+                int h = value >= 0 ? holderOf(value, block, fn.registerType[r]) : -1;
+                if (h >= 0 && h != r) {
+                    fn.setUse(i, k, h);
+                }
+            }
+            int op = fn.op[i];
+            int dst = fn.dst[i];
+            if (!IrOp.definesRegister(op) || dst < 0) {
+                continue;
+            }
+            int value;
+            if (op == IrOp.MOV) {
+                value = knownValue(fn.a[i], block);
+            } else if (isPure(op)) {
+                Expression key = key(i, block);
+                Integer known = available.get(key);
+                if (known == null) {
+                    value = newValue();
+                    available.put(key, value);
+                    undo.add(key);
+                } else {
+                    value = known;
+                    int h = holderOf(value, block, fn.registerType[dst]);
+                    if (h == dst) {
+                        fn.op[i] = IrOp.NOP; // Already holds the value
+                        fn.dst[i] = -1;
+                        continue;
+                    }
+                    if (h >= 0 && !isConstant(op)) { // A constant load is as cheap as the copy
+                        fn.op[i] = IrOp.MOV;
+                        fn.a[i] = h;
+                        fn.b[i] = -1;
+                        fn.c[i] = -1;
+                    }
+                }
+            } else {
+                value = newValue();
+            }
+            assign(dst, value, block, undo);
+        }
+        for (int child : dominators.children[block]) {
+            visit(child, dominators);
+        }
+        for (int k = undo.size() - 1; k >= 0; k--) {
+            Object entry = undo.get(k);
+            if (entry instanceof Expression) {
+                available.remove(entry);
+            } else {
+                int r = (Integer) entry;
+                if (holder[valueOf[r]] == r) {
+                    holder[valueOf[r]] = -1;
+                }
+                valueOf[r] = -1;
+                valueBlock[r] = -1;
+            }
+        }
+    }
+
+    private static boolean isConstant(int op) {
+        return op == IrOp.ICONST || op == IrOp.DCONST || op == IrOp.SCONST;
+    }
+
+    private static boolean isPure(int op) {
+        return isConstant(op) || (op >= IrOp.I2D && op <= IrOp.SNE);
+    }
+
+    private static boolean isCommutative(int op) {
+        return op == IrOp.IADD || op == IrOp.IMUL || op == IrOp.DADD || op == IrOp.DMUL || op == IrOp.IEQ
+                || op == IrOp.INE || op == IrOp.DEQ || op == IrOp.DNE || op == IrOp.SEQ || op == IrOp.SNE;
+    }
+
+    private Expression key(int i, int block) {
+        int op = fn.op[i];
+        int type = fn.registerType[fn.dst[i]].id;
+        if (isConstant(op)) {
+            return new Expression(op, type, fn.a[i], 0); // Immediate or pool index
+        }
+        int x = knownValue(fn.a[i], block);
+        int y = IrOp.isBinary(op) ? knownValue(fn.b[i], block) : -1;
+        if (isCommutative(op) && x > y) {
+            return new Expression(op, type, y, x);
+        }
+        return new Expression(op, type, x, y);
+    }
+
+    private int valueIn(int r, int block) {
+        return valueBlock[r] == SCOPED || valueBlock[r] == block ? valueOf[r] : -1;
+    }
+
+    // Value of r at this point, numbering it afresh if nothing is known about it here
+    private int knownValue(int r, int block) {
+        int value = valueIn(r, block);
+        if (value < 0) {
+            value = newValue();
+            valueOf[r] = value;
+            valueBlock[r] = block;
+            localHolder[value] = r;
+        }
+        return value;
+    }
+
+    // A register of the given type that holds the value at this point, or -1
+    private int holderOf(int value, int block, WppType type) {
+        int h = holder[value];
+        if (h >= 0 && fn.registerType[h] == type) {
+            return h;
+        }
+        h = localHolder[value];
+        if (h >= 0 && fn.registerType[h] == type && valueIn(h, block) == value) {
+            return h;
+        }
+        return -1;
+    }
+
+    private void assign(int r, int value, int block, List<Object> undo) {
+        valueOf[r] = value;
+        if (single[r]) {
+            valueBlock[r] = SCOPED;
+            undo.add(r);
+            if (holder[value] < 0) {
+                holder[value] = r;
+            }
+        } else {
+            valueBlock[r] = block;
+            localHolder[value] = r;
+        }
+    }
+
+    private int newValue() {
+        if (valueCount == holder.length) {
+            holder = Arrays.copyOf(holder, valueCount * 2);
+            localHolder = Arrays.copyOf(localHolder, valueCount * 2);
+        }
+        holder[valueCount] = -1;
+        localHolder[valueCount] = -1;
+        return valueCount++;
+    }
+}
@@ -0,0 +1,233 @@
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.swing.table.DefaultTableModel;
+
+// Command-line interface, reached through WppScannerGUI.main when it is given arguments:
+//   generate [--seed N] [--functions N] [--globals N] [--statements N] [--depth N] [--expression N]
+//            [--comments P] [--strings P] [--errors P] [--out FILE]
+//   check FILE
+//   profile FILE    prints the time and allocation of each phase of a scan as JSON
+//   daemon [--socket PATH]                   serves checks to WppClient until stopped
+//   client [--socket PATH] [--stop] FILE...  checks files through the daemon
+//   --watch DIR     rechecks the .wpp files under DIR as they change
+//   --lsp           serves the Language Server Protocol on stdin and stdout
+// Exit status is 0 on success, 1 when the checked program has errors and 2 on bad usage.
+final class WppCli {
+    private static final String USAGE = "Usage: generate [--seed N] [--functions N] [--globals N] [--statements N]"
+            + " [--depth N] [--expression N] [--comments P] [--strings P] [--errors P] [--out FILE]\n"
+            + "       check FILE\n"
+            + "       profile FILE\n"
+            + "       daemon [--socket PATH]\n"
+            + "       client [--socket PATH] [--stop] FILE...\n"
+            + "       --watch DIR\n"
+            + "       --lsp";
+
+    private WppCli() {
+    }
+
+    static int run(String[] args, PrintStream out, PrintStream err) {
+        if (args.length == 0) {
+            err.println(USAGE);
+            return 2;
+        }
+        try {
+            switch (args[0]) {
+                case "generate":
+                    return generate(args, out);
+                case "check":
+                    if (args.length != 2) {
+                        break;
+                    }
+                    return check(args[1], out);
+                case "profile":
+                    if (args.length != 2) {
+                        break;
+                    }
+                    return profile(args[1], out);
+                case "daemon":
+                    if (args.length == 1) {
+                        new WppDaemon(WppClient.defaultSocket(), err).serve();
+                        return 0;
+                    }
+                    if (args.length == 3 && args[1].equals("--socket")) {
+                        new WppDaemon(Paths.get(args[2]), err).serve();
+                        return 0;
+                    }
+                    break;
+                case "--watch":
+                    if (args.length != 2) {
+                        break;
+                    }
+                    if (!Files.isDirectory(Paths.get(args[1]))) {
+                        throw new IllegalArgumentException("Not a directory: " + args[1]);
+                    }
+                    new WppWatcher(Paths.get(args[1]), out).run();
+                    return 0;
+                case "--lsp": {
+                    if (args.length != 1) {
+                        break;
+                    }
+                    // Standard output carries the protocol; stray prints go to standard error instead
+                    OutputStream protocol = new FileOutputStream(FileDescriptor.out);
+                    System.setOut(err);
+                    return new WppLanguageServer(System.in, protocol).run();
+                }
+                case "client":
+                    return WppClient.run(Arrays.copyOfRange(args, 1, args.length), out, err);
+                default:
+                    break;
+            }
+        } catch (IllegalArgumentException | IOException e) {
+            err.println("Error: " + e.getMessage());
+            return 2;
+        }
+        err.println(USAGE);
+        return 2;
+    }
+
+    private static int generate(String[] args, PrintStream out) throws IOException {
+        String file = null;
+        WppGenerator generator = new WppGenerator();
+        for (int k = 1; k < args.length; k += 2) {
+            if (k + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + args[k]);
+            }
+            String value = args[k + 1];
+            switch (args[k]) {
+                case "--seed":
+                    generator.seed = Long.parseLong(value);
+                    break;
+                case "--functions":
+                    generator.functions = Integer.parseInt(value);
+                    break;
+                case "--globals":
+                    generator.globals = Integer.parseInt(value);
+                    break;
+                case "--statements":
+                    generator.statements = Integer.parseInt(value);
+                    break;
+                case "--depth":
+                    generator.maxDepth = Integer.parseInt(value);
+                    break;
+                case "--expression":
+                    generator.expressionLength = Integer.parseInt(value);
+                    break;
+                case "--comments":
+                    generator.commentDensity = Double.parseDouble(value);
+                    break;
+                case "--strings":
+                    generator.stringDensity = Double.parseDouble(value);
+                    break;
+                case "--errors":
+                    generator.errorRate = Double.parseDouble(value);
+                    break;
+                case "--out":
+                    file = value;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[k]);
+            }
+        }
+        String program = generator.generate();
+        if (file != null) {
+            Files.write(Paths.get(file), program.getBytes(StandardCharsets.UTF_8));
+        } else {
+            out.print(program);
+        }
+        return 0;
+    }
+
+    private static int check(String file, PrintStream out) throws IOException {
+        List<String> output = new ArrayList<>();
+        int status = check(read(file), output);
+        for (String line : output) {
+            out.println(line);
+        }
+        return status;
+    }
+
+    // Adds the analyzer's diagnostics to output, then the optimizer's once the program is free of errors;
+    // returns the exit status
+    static int check(String text, List<String> output) {
+        List<Token> tokens = WppScannerGUI.scanTokens(text);
+        WppEvents.Parse parse = new WppEvents.Parse(text.length(), tokens.size());
+        parse.begin();
+        SyntaxAnalyzer analyzer = new SyntaxAnalyzer(tokens);
+        List<String> diagnostics = analyzer.analyze();
+        parse.diagnostics = diagnostics.size();
+        parse.commit();
+        output.addAll(diagnostics);
+        if (analyzer.hasErrors()) {
+            return 1;
+        }
+        WppEvents.SemanticAnalysis semantic = new WppEvents.SemanticAnalysis(text.length(), tokens.size());
+        semantic.begin();
+        try {
+            semantic.symbols = analyzer.getSymbolTable().size();
+            List<String> warnings = IrOptimizer.optimize(new IrBuilder(tokens, analyzer.getSymbolTable()).build());
+            semantic.warnings = warnings.size();
+            semantic.commit();
+            output.addAll(warnings);
+        } catch (IllegalStateException e) {
+            output.add("Could not lower the program: " + e.getMessage());
+            return 1;
+        }
+        return 0;
+    }
+
+    static String read(String file) throws IOException {
+        return new String(Files.readAllBytes(Paths.get(file)), StandardCharsets.UTF_8);
+    }
+
+    // Runs the same phases as a scan in the GUI, tables included, and prints their profile
+    private static int profile(String file, PrintStream out) throws IOException {
+        String text = read(file);
+        PhaseProfile profile = new PhaseProfile();
+        List<Token> tokens = WppScannerGUI.scanTokens(text, profile);
+        WppEvents.Parse parse = new WppEvents.Parse(text.length(), tokens.size());
+        parse.begin();
+        SyntaxAnalyzer analyzer = new SyntaxAnalyzer(tokens);
+        List<String> diagnostics = analyzer.analyze();
+        profile.mark(PhaseProfile.ANALYZE);
+        parse.diagnostics = diagnostics.size();
+        parse.commit();
+        WppEvents.SemanticAnalysis semantic = new WppEvents.SemanticAnalysis(text.length(), tokens.size());
+        semantic.begin();
+        profile.start();
+        List<SymbolTableEntry> symbols = new ArrayList<>(analyzer.getSymbolTable());
+        StorageLayout.assign(symbols);
+        profile.mark(PhaseProfile.SYMBOLS);
+        semantic.symbols = symbols.size();
+        if (!analyzer.hasErrors()) {
+            try {
+                IrProgram program = new IrBuilder(tokens, analyzer.getSymbolTable()).build();
+                profile.mark(PhaseProfile.LOWER);
+                semantic.warnings = IrOptimizer.optimize(program).size();
+                profile.mark(PhaseProfile.OPTIMIZE);
+            } catch (IllegalStateException e) {
+                // Profiled up to the failure
+            }
+        }
+        semantic.commit();
+        WppEvents.TableRefresh refresh = new WppEvents.TableRefresh(text.length(), tokens.size(), symbols.size());
+        refresh.begin();
+        profile.start();
+        WppScannerGUI.populateTables(new DefaultTableModel(WppScannerGUI.TOKEN_COLUMNS, 0),
+                new DefaultTableModel(WppScannerGUI.SYMBOL_COLUMNS, 0), tokens, symbols);
+        profile.mark(PhaseProfile.TABLES);
+        refresh.commit();
+        String json = profile.toJson();
+        out.println("{\"file\":" + Json.quote(file) + ",\"tokens\":" + tokens.size() + ",\"diagnostics\":"
+                + diagnostics.size() + "," + json.substring(1));
+        return analyzer.hasErrors() ? 1 : 0;
+    }
+}
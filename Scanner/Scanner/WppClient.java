@@ -0,0 +1,115 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+// Thin client of WppDaemon: sends files to the daemon and prints their diagnostics, each prefixed with its file
+// when there are several. Until it has to check files itself it loads no compiler classes, so a check costs
+// little more than JVM startup:
+//   java -cp wpp-compiler.jar WppClient [--socket PATH] [--stop] FILE...
+// With no daemon listening the files are checked in this process instead. The exit status is the highest of
+// the files' statuses.
+public final class WppClient {
+    private WppClient() {
+    }
+
+    // In a directory of the user's own, which the daemon creates private to them
+    static Path defaultSocket() {
+        String user = System.getProperty("user.name");
+        return Paths.get(System.getProperty("java.io.tmpdir"), "wpp-" + user, "daemon.sock");
+    }
+
+    public static void main(String[] args) {
+        System.exit(run(args, System.out, System.err));
+    }
+
+    static int run(String[] args, PrintStream out, PrintStream err) {
+        Path socket = null;
+        boolean stop = false;
+        int first = 0;
+        while (first < args.length && args[first].startsWith("--")) {
+            if (args[first].equals("--stop")) {
+                stop = true;
+                first++;
+            } else if (args[first].equals("--socket") && first + 1 < args.length) {
+                socket = Paths.get(args[first + 1]);
+                first += 2;
+            } else {
+                err.println("Usage: WppClient [--socket PATH] [--stop] FILE...");
+                return 2;
+            }
+        }
+        if (socket == null) {
+            socket = defaultSocket();
+        }
+        boolean prefix = args.length - first > 1;
+        SocketChannel channel;
+        try {
+            channel = SocketChannel.open(UnixDomainSocketAddress.of(socket));
+        } catch (IOException e) {
+            if (stop) {
+                err.println("No daemon is listening on " + socket);
+                return 2;
+            }
+            return checkHere(args, first, prefix, out);
+        }
+        int status = 0;
+        try (channel;
+                BufferedReader in = new BufferedReader(Channels.newReader(channel, StandardCharsets.UTF_8));
+                Writer requests = Channels.newWriter(channel, StandardCharsets.UTF_8)) {
+            // All requests go out at once; the daemon answers them in order
+            for (int k = first; k < args.length; k++) {
+                requests.write("check " + Paths.get(args[k]).toAbsolutePath() + "\n");
+            }
+            if (stop) {
+                requests.write("stop\n");
+            }
+            requests.flush();
+            for (int k = first; k < args.length; k++) {
+                String line;
+                while ((line = in.readLine()) != null && !line.startsWith("end ")) {
+                    out.println(prefix ? args[k] + ": " + line : line);
+                }
+                if (line == null) {
+                    err.println("The daemon closed the connection");
+                    return 2;
+                }
+                status = Math.max(status, Integer.parseInt(line.substring(4)));
+            }
+            if (stop) {
+                in.readLine();
+            }
+        } catch (IOException e) {
+            err.println("Error: " + e.getMessage());
+            return 2;
+        }
+        return status;
+    }
+
+    private static int checkHere(String[] args, int first, boolean prefix, PrintStream out) {
+        int status = 0;
+        for (int k = first; k < args.length; k++) {
+            List<String> lines = new ArrayList<>();
+            int fileStatus;
+            try {
+                fileStatus = WppCli.check(WppCli.read(args[k]), lines);
+            } catch (IOException e) {
+                lines.add("Error: cannot read " + args[k]);
+                fileStatus = 2;
+            }
+            for (String line : lines) {
+                out.println(prefix ? args[k] + ": " + line : line);
+            }
+            status = Math.max(status, fileStatus);
+        }
+        return status;
+    }
+}
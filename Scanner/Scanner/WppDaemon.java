@@ -0,0 +1,185 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Keeps a warmed-up compiler resident and checks files for clients over a Unix domain socket, so a build pays
+// JVM startup and JIT warmup once rather than per file. Each request is one line, answered by the file's
+// diagnostics and a line "end STATUS" with the status check would exit with (2 if the file cannot be read):
+//   check ABSOLUTE-PATH
+//   stop                   answered with "end 0", then the daemon exits
+// Results are cached by path and reused while the file's content is unchanged. Java 17 has no virtual
+// threads, so each connection is served on a thread of a cached pool.
+final class WppDaemon {
+    static final int CACHE_SIZE = 512; // Files whose last result is kept
+
+    private final Path socket;
+    private final PrintStream log;
+    private final Map<String, Result> cache = Collections.synchronizedMap(new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Result> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    });
+    private final ExecutorService workers = Executors.newCachedThreadPool(task -> {
+        Thread thread = new Thread(task, "wpp-daemon");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private ServerSocketChannel server;
+    private volatile boolean stopping;
+
+    private static final class Result {
+        final String text;
+        final List<String> lines;
+        final int status;
+
+        Result(String text, List<String> lines, int status) {
+            this.text = text;
+            this.lines = lines;
+            this.status = status;
+        }
+    }
+
+    WppDaemon(Path socket, PrintStream log) {
+        this.socket = socket;
+        this.log = log;
+    }
+
+    // Accepts connections until a client asks the daemon to stop
+    void serve() throws IOException {
+        if (socket.equals(WppClient.defaultSocket())) {
+            createPrivateDirectory(socket.getParent());
+        }
+        if (Files.exists(socket)) {
+            if (isListening(socket)) {
+                throw new IOException("A daemon is already listening on " + socket);
+            }
+            Files.delete(socket); // Left by a daemon that did not shut down
+        }
+        server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        server.bind(UnixDomainSocketAddress.of(socket));
+        log.println("Listening on " + socket);
+        try {
+            while (true) {
+                SocketChannel client = server.accept();
+                workers.execute(() -> handle(client));
+            }
+        } catch (AsynchronousCloseException e) {
+            if (!stopping) {
+                throw e;
+            }
+        } finally {
+            server.close();
+            workers.shutdown();
+            Files.deleteIfExists(socket);
+        }
+    }
+
+    // Only the user may reach the socket; a directory someone else made, or opened up, is refused
+    private static void createPrivateDirectory(Path directory) throws IOException {
+        if (!FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            Files.createDirectories(directory);
+            return;
+        }
+        Set<PosixFilePermission> ownerOnly = PosixFilePermissions.fromString("rwx------");
+        try {
+            Files.createDirectory(directory, PosixFilePermissions.asFileAttribute(ownerOnly));
+        } catch (FileAlreadyExistsException e) {
+            UserPrincipal user = directory.getFileSystem().getUserPrincipalLookupService()
+                    .lookupPrincipalByName(System.getProperty("user.name"));
+            if (!Files.isDirectory(directory, LinkOption.NOFOLLOW_LINKS)
+                    || !Files.getOwner(directory, LinkOption.NOFOLLOW_LINKS).equals(user)
+                    || !Files.getPosixFilePermissions(directory, LinkOption.NOFOLLOW_LINKS).equals(ownerOnly)) {
+                throw new IOException(directory + " is not a directory private to " + user.getName());
+            }
+        }
+    }
+
+    private static boolean isListening(Path socket) {
+        try {
+            SocketChannel.open(UnixDomainSocketAddress.of(socket)).close();
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void handle(SocketChannel client) {
+        try (client;
+                BufferedReader in = new BufferedReader(Channels.newReader(client, StandardCharsets.UTF_8));
+                Writer out = Channels.newWriter(client, StandardCharsets.UTF_8)) {
+            String request;
+            while ((request = in.readLine()) != null) {
+                if (request.equals("stop")) {
+                    out.write("end 0\n");
+                    out.flush();
+                    stopping = true;
+                    server.close();
+                    return;
+                }
+                if (!request.startsWith("check ")) {
+                    out.write("Unknown request: " + request + "\nend 2\n");
+                } else {
+                    Result result = check(request.substring(6));
+                    for (String line : result.lines) {
+                        out.write(line);
+                        out.write('\n');
+                    }
+                    out.write("end " + result.status + "\n");
+                }
+                out.flush();
+            }
+        } catch (IOException e) {
+            // The client went away; nothing to answer
+        }
+    }
+
+    private Result check(String file) {
+        String text;
+        try {
+            text = WppCli.read(file);
+        } catch (IOException e) {
+            return new Result(null, List.of("Error: cannot read " + file), 2);
+        }
+        Result cached = cache.get(file);
+        if (cached != null && text.equals(cached.text)) {
+            return cached;
+        }
+        List<String> lines = new ArrayList<>();
+        int status;
+        try {
+            status = WppCli.check(text, lines);
+        } catch (RuntimeException e) {
+            // One bad file must not take the daemon down
+            lines.add("Error: " + e);
+            status = 2;
+        }
+        Result result = new Result(text, lines, status);
+        cache.put(file, result);
+        return result;
+    }
+}
@@ -0,0 +1,120 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// Flight Recorder events for the compiler's phases and the editor, so a recording shows scans and highlighting
+// next to GC and JIT activity on the same threads. Each event's duration is the phase's; sizes are in
+// characters and tokens of the source. Events cost a check of a flag unless a recording enables them.
+final class WppEvents {
+    private WppEvents() {
+    }
+
+    @Name("wpp.Lex")
+    @Label("Lexing")
+    @Category({ "Wpp", "Compiler" })
+    @Description("Comment stripping, tokenizing and classifying the source")
+    @StackTrace(false)
+    static final class Lex extends Event {
+        @Label("Characters")
+        int characters;
+        @Label("Lines")
+        int lines;
+        @Label("Tokens")
+        int tokens;
+
+        Lex(int characters) {
+            this.characters = characters;
+        }
+    }
+
+    @Name("wpp.Parse")
+    @Label("Parsing")
+    @Category({ "Wpp", "Compiler" })
+    @Description("Syntax analysis, with the declaration and type checks made while parsing")
+    @StackTrace(false)
+    static final class Parse extends Event {
+        @Label("Characters")
+        int characters;
+        @Label("Tokens")
+        int tokens;
+        @Label("Diagnostics")
+        int diagnostics;
+
+        Parse(int characters, int tokens) {
+            this.characters = characters;
+            this.tokens = tokens;
+        }
+    }
+
+    @Name("wpp.SemanticAnalysis")
+    @Label("Semantic Analysis")
+    @Category({ "Wpp", "Compiler" })
+    @Description("Symbol table and storage layout, then lowering and the dataflow passes that report unused values")
+    @StackTrace(false)
+    static final class SemanticAnalysis extends Event {
+        @Label("Characters")
+        int characters;
+        @Label("Tokens")
+        int tokens;
+        @Label("Symbols")
+        int symbols;
+        @Label("Warnings")
+        int warnings;
+
+        SemanticAnalysis(int characters, int tokens) {
+            this.characters = characters;
+            this.tokens = tokens;
+        }
+    }
+
+    @Name("wpp.TableRefresh")
+    @Label("Table Refresh")
+    @Category({ "Wpp", "Editor" })
+    @Description("Filling the token and symbol tables after a scan")
+    @StackTrace(false)
+    static final class TableRefresh extends Event {
+        @Label("Characters")
+        int characters;
+        @Label("Tokens")
+        int tokens;
+        @Label("Symbols")
+        int symbols;
+
+        TableRefresh(int characters, int tokens, int symbols) {
+            this.characters = characters;
+            this.tokens = tokens;
+            this.symbols = symbols;
+        }
+    }
+
+    @Name("wpp.Highlight")
+    @Label("Syntax Highlighting")
+    @Category({ "Wpp", "Editor" })
+    @Description("Restyling the whole document on the event dispatch thread")
+    @StackTrace(false)
+    static final class Highlight extends Event {
+        @Label("Characters")
+        int characters;
+        @Label("Tokens")
+        int tokens;
+        @Label("Keywords")
+        int keywords;
+    }
+
+    @Name("wpp.EditLatency")
+    @Label("Keystroke to Highlight")
+    @Category({ "Wpp", "Editor" })
+    @Description("From a change to the document until its highlighting is applied")
+    @StackTrace(false)
+    static final class EditLatency extends Event {
+        @Label("Characters")
+        int characters;
+        @Label("Edit Length")
+        int editLength;
+        @Label("Tokens")
+        int tokens;
+    }
+}
@@ -0,0 +1,367 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Seeded generator of synthetic Wpp programs for benchmarks and stress tests. Output stays inside the grammar
+// SyntaxAnalyzer accepts: globals, then functions that only call functions declared before them (so there is
+// no recursion and no call inside a loop), typed locals, nested if/else, while, for and plain blocks, long
+// arithmetic and boolean expressions, cout of single tokens, and line and block comments. Loops run a few
+// iterations and divisions are by non-zero literals, so valid programs also execute quickly. With an error
+// rate above zero, that share of functions gets one deliberate error. The same seed and settings always
+// produce the same program.
+final class WppGenerator {
+    private static final String[] TYPES = { "int", "double", "bool", "string" };
+    private static final String[] WORDS = { "alpha", "beta", "gamma", "delta", "total", "count", "ready", "value" };
+
+    long seed = 1;
+    int functions = 100;
+    int globals = 8;
+    int statements = 12; // Per function body, before nesting
+    int maxDepth = 3; // Nesting of if, while, for and blocks
+    int expressionLength = 6; // Operands per generated expression, at most
+    double commentDensity = 0.2; // Chance of a comment before a statement
+    double stringDensity = 0.2; // Chance a declaration is a string
+    double errorRate; // Share of functions given one deliberate error
+
+    private Random random;
+    private StringBuilder out;
+    private final List<List<Variable>> scopes = new ArrayList<>();
+    private final List<Function> declared = new ArrayList<>();
+    private int nextVariable;
+    private int depth;
+
+    private static final class Variable {
+        final String name;
+        final String type;
+
+        Variable(String name, String type) {
+            this.name = name;
+            this.type = type;
+        }
+    }
+
+    private static final class Function {
+        final String name;
+        final String returnType;
+        final String[] parameterTypes;
+
+        Function(String name, String returnType, String[] parameterTypes) {
+            this.name = name;
+            this.returnType = returnType;
+            this.parameterTypes = parameterTypes;
+        }
+    }
+
+    String generate() {
+        StringBuilder sb = new StringBuilder();
+        generate(sb);
+        return sb.toString();
+    }
+
+    void generate(StringBuilder target) {
+        out = target;
+        random = new Random(seed);
+        scopes.clear();
+        declared.clear();
+        nextVariable = 0;
+        scopes.add(new ArrayList<>());
+        out.append("// Generated Wpp program\n");
+        for (int g = 0; g < globals; g++) {
+            declare(0, "g");
+        }
+        for (int f = 0; f < functions; f++) {
+            function(f);
+        }
+        mainFunction();
+    }
+
+    private void function(int index) {
+        String returnType = pick(TYPES);
+        String[] parameterTypes = new String[random.nextInt(4)];
+        for (int k = 0; k < parameterTypes.length; k++) {
+            parameterTypes[k] = pick(TYPES);
+        }
+        Function function = new Function("f" + index, returnType, parameterTypes);
+        if (chance(commentDensity)) {
+            out.append("/* ").append(function.name).append(": ").append(pick(WORDS)).append(' ')
+                    .append(pick(WORDS)).append("\n   ").append(pick(WORDS)).append(" */\n");
+        }
+        out.append(returnType).append(' ').append(function.name).append('(');
+        List<Variable> parameters = new ArrayList<>();
+        for (int k = 0; k < parameterTypes.length; k++) {
+            Variable parameter = new Variable("p" + k, parameterTypes[k]);
+            parameters.add(parameter);
+            out.append(k > 0 ? ", " : "").append(parameter.type).append(' ').append(parameter.name);
+        }
+        out.append(") {\n");
+        scopes.add(parameters);
+        depth = 1;
+        int errorAt = chance(errorRate) ? random.nextInt(statements) : -1;
+        for (int s = 0; s < statements; s++) {
+            if (s == errorAt) {
+                error();
+            }
+            statement();
+        }
+        // The call comes last, outside any loop, so calls never multiply
+        if (!declared.isEmpty() && chance(0.7)) {
+            Function callee = declared.get(random.nextInt(declared.size()));
+            indent().append(callee.returnType).append(" v").append(nextVariable).append(" = ").append(call(callee))
+                    .append(";\n");
+            scopes.get(scopes.size() - 1).add(new Variable("v" + nextVariable++, callee.returnType));
+        }
+        indent().append("return ").append(expression(returnType, 1)).append(";\n");
+        scopes.remove(scopes.size() - 1);
+        out.append("}\n");
+        declared.add(function);
+    }
+
+    private void mainFunction() {
+        out.append("int main() {\n");
+        scopes.add(new ArrayList<>());
+        depth = 1;
+        for (int k = Math.max(0, declared.size() - 5); k < declared.size(); k++) {
+            Function callee = declared.get(k);
+            String name = "v" + nextVariable++;
+            indent().append(callee.returnType).append(' ').append(name).append(" = ").append(call(callee)).append(";\n");
+            indent().append("cout << ").append(name).append(" << endl;\n");
+        }
+        indent().append("return 0;\n");
+        scopes.remove(scopes.size() - 1);
+        out.append("}\n");
+    }
+
+    private void statement() {
+        if (chance(commentDensity)) {
+            indent().append("// ").append(pick(WORDS)).append(' ').append(pick(WORDS)).append('\n');
+        }
+        int kind = random.nextInt(depth < maxDepth ? 9 : 5);
+        switch (kind) {
+            case 0:
+            case 1:
+                declare(depth, "v");
+                break;
+            case 2:
+            case 3:
+                assignment();
+                break;
+            case 4:
+                output();
+                break;
+            case 5:
+                ifStatement();
+                break;
+            case 6:
+                whileLoop();
+                break;
+            case 7:
+                forLoop();
+                break;
+            default:
+                block();
+        }
+    }
+
+    private void declare(int indentation, String prefix) {
+        String type = chance(stringDensity) ? "string" : pick(TYPES);
+        String name = prefix + nextVariable++;
+        for (int k = 0; k < indentation; k++) {
+            out.append("    ");
+        }
+        out.append(type).append(' ').append(name);
+        if (indentation == 0 || chance(0.8)) {
+            // Globals start from literals; locals may use anything in scope
+            out.append(" = ").append(indentation == 0 ? literal(type) : expression(type, expressionLength));
+        }
+        out.append(';');
+        if (chance(commentDensity / 2)) {
+            out.append(" // ").append(pick(WORDS));
+        }
+        out.append('\n');
+        scopes.get(scopes.size() - 1).add(new Variable(name, type));
+    }
+
+    private void assignment() {
+        Variable target = anyVariable(null);
+        if (target == null || target.name.startsWith("p")) {
+            declare(depth, "v");
+            return;
+        }
+        indent().append(target.name).append(" = ").append(expression(target.type, expressionLength)).append(";\n");
+    }
+
+    private void output() {
+        Variable variable = anyVariable(null);
+        indent().append("cout << ").append(variable != null ? variable.name : "\"" + pick(WORDS) + "\"")
+                .append(" << endl;\n");
+    }
+
+    private void ifStatement() {
+        indent().append("if (").append(condition()).append(") {\n");
+        nested();
+        if (chance(0.5)) {
+            indent().append("} else {\n");
+            nested();
+        }
+        indent().append("}\n");
+    }
+
+    private void whileLoop() {
+        String counter = "w" + nextVariable++;
+        indent().append("int ").append(counter).append(" = 0;\n");
+        scopes.get(scopes.size() - 1).add(new Variable(counter, "loop"));
+        indent().append("while (").append(counter).append(" < ").append(2 + random.nextInt(4)).append(") {\n");
+        nested();
+        depth++;
+        indent().append(counter).append("++;\n");
+        depth--;
+        indent().append("}\n");
+    }
+
+    private void forLoop() {
+        String counter = "i" + nextVariable++;
+        indent().append("for (int ").append(counter).append(" = 0; ").append(counter).append(" < ")
+                .append(2 + random.nextInt(4)).append("; ").append(counter).append("++) {\n");
+        List<Variable> loopScope = new ArrayList<>();
+        loopScope.add(new Variable(counter, "loop"));
+        scopes.add(loopScope);
+        nested();
+        scopes.remove(scopes.size() - 1);
+        indent().append("}\n");
+    }
+
+    private void block() {
+        indent().append("{\n");
+        nested();
+        indent().append("}\n");
+    }
+
+    private void nested() {
+        scopes.add(new ArrayList<>());
+        depth++;
+        int count = 1 + random.nextInt(3);
+        for (int s = 0; s < count; s++) {
+            statement();
+        }
+        depth--;
+        scopes.remove(scopes.size() - 1);
+    }
+
+    // One statement the analyzer rejects
+    private void error() {
+        switch (random.nextInt(5)) {
+            case 0:
+                indent().append("undeclared").append(nextVariable++).append(" = 1;\n");
+                break;
+            case 1:
+                indent().append("int v").append(nextVariable++).append(" = 1\n");
+                break;
+            case 2:
+                indent().append("int v").append(nextVariable++).append(" = \"").append(pick(WORDS)).append("\";\n");
+                break;
+            case 3:
+                indent().append("missing").append(nextVariable++).append("(1);\n");
+                break;
+            default:
+                indent().append("bool v").append(nextVariable++).append(" = 1 +;\n");
+        }
+    }
+
+    private String call(Function callee) {
+        StringBuilder sb = new StringBuilder(callee.name).append('(');
+        for (int k = 0; k < callee.parameterTypes.length; k++) {
+            sb.append(k > 0 ? ", " : "").append(atom(callee.parameterTypes[k]));
+        }
+        return sb.append(')').toString();
+    }
+
+    private String condition() {
+        StringBuilder sb = new StringBuilder(comparison());
+        int extra = random.nextInt(Math.max(1, expressionLength / 3));
+        for (int k = 0; k < extra; k++) {
+            sb.append(chance(0.5) ? " && " : " || ").append(comparison());
+        }
+        return sb.toString();
+    }
+
+    private String comparison() {
+        if (chance(0.3)) {
+            return expression("double", 2) + (chance(0.5) ? " < " : " >= ") + atom("double");
+        }
+        String[] operators = { " < ", " <= ", " > ", " >= ", " == ", " != " };
+        return expression("int", Math.max(1, expressionLength / 2)) + pick(operators) + atom("int");
+    }
+
+    // An expression of the type with up to the given number of operands
+    private String expression(String type, int length) {
+        switch (type) {
+            case "bool":
+                return length > 1 && chance(0.5) ? comparison() : atom("bool");
+            case "string":
+                return atom("string");
+            default: {
+                int operands = 1 + random.nextInt(Math.max(1, length));
+                StringBuilder sb = new StringBuilder(atom(type));
+                for (int k = 1; k < operands; k++) {
+                    int op = random.nextInt(type.equals("int") ? 5 : 4);
+                    if (op == 4) {
+                        sb.append(" % ").append(2 + random.nextInt(9)); // Never by zero
+                    } else if (op == 3 && chance(0.3)) {
+                        sb.insert(0, '(').append(" + ").append(atom(type)).append(") * ").append(atom(type));
+                    } else {
+                        sb.append(op == 0 || op == 3 ? " + " : op == 1 ? " - " : " * ").append(atom(type));
+                    }
+                }
+                return sb.toString();
+            }
+        }
+    }
+
+    // A variable of the type in scope, or a literal
+    private String atom(String type) {
+        Variable variable = chance(0.6) ? anyVariable(type) : null;
+        return variable != null ? variable.name : literal(type);
+    }
+
+    private String literal(String type) {
+        switch (type) {
+            case "int":
+                return Integer.toString(random.nextInt(100));
+            case "double":
+                return random.nextInt(100) + "." + random.nextInt(10);
+            case "bool":
+                return random.nextBoolean() ? "true" : "false";
+            default:
+                return "\"" + pick(WORDS) + (chance(0.3) ? " " + pick(WORDS) : "") + "\"";
+        }
+    }
+
+    // A random visible variable of the type (any type if null); loop counters read as int but are never assigned
+    private Variable anyVariable(String type) {
+        List<Variable> candidates = new ArrayList<>();
+        for (List<Variable> scope : scopes) {
+            for (Variable variable : scope) {
+                boolean counter = variable.type.equals("loop");
+                if (type == null ? !counter : variable.type.equals(type) || (counter && type.equals("int"))) {
+                    candidates.add(variable);
+                }
+            }
+        }
+        return candidates.isEmpty() ? null : candidates.get(random.nextInt(candidates.size()));
+    }
+
+    private StringBuilder indent() {
+        for (int k = 0; k < depth; k++) {
+            out.append("    ");
+        }
+        return out;
+    }
+
+    private String pick(String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private boolean chance(double probability) {
+        return random.nextDouble() < probability;
+    }
+}
@@ -0,0 +1,560 @@
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+// Language Server Protocol over stdio: JSON-RPC messages framed by Content-Length headers. Documents are kept
+// in memory and edited in place by incremental didChange events. Analysis runs on its own thread once a
+// document has been quiet for DEBOUNCE_MILLIS: the analyzer's diagnostics are published first, then, for a
+// program without errors, again with the optimizer's warnings. Hover and definition read the symbol table of
+// the last analysis, so they answer without analyzing.
+final class WppLanguageServer {
+    static final long DEBOUNCE_MILLIS = 200;
+    private static final Object NO_RESPONSE = new Object(); // Result of a notification
+
+    private final InputStream in;
+    private final OutputStream out;
+    private final Map<String, Document> documents = new HashMap<>(); // Used on the reading thread only
+    private final ScheduledExecutorService analysis = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "wpp-lsp-analysis");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private boolean shutdownRequested;
+
+    // Text and line starts are guarded by the document's lock; the reading thread edits them and the analysis
+    // thread takes snapshots
+    private static final class Document {
+        final String uri;
+        final StringBuilder text;
+        int[] lineStarts;
+        int version; // Counts edits; an analysis of an older version is not published
+        boolean closed;
+        ScheduledFuture<?> pending;
+        volatile Symbols symbols; // From the last analysis, null before the first
+
+        Document(String uri, String text) {
+            this.uri = uri;
+            this.text = new StringBuilder(text);
+            lineStarts = lineStarts(text);
+        }
+    }
+
+    private static final class Symbols {
+        final Map<String, List<SymbolTableEntry>> byName = new HashMap<>();
+        final List<SymbolTableEntry> functions = new ArrayList<>(); // In declaration order
+    }
+
+    WppLanguageServer(InputStream in, OutputStream out) {
+        this.in = new BufferedInputStream(in);
+        this.out = out;
+    }
+
+    // Serves requests until the client sends exit; returns the process exit status
+    int run() throws IOException {
+        while (true) {
+            String message = readMessage();
+            if (message == null) {
+                return 1; // The client went away without exit
+            }
+            Map<?, ?> request;
+            try {
+                request = (Map<?, ?>) Json.parse(message);
+            } catch (IllegalArgumentException | ClassCastException e) {
+                sendError(null, -32700, "Parse error: " + e.getMessage());
+                continue;
+            }
+            String method = (String) request.get("method");
+            Object id = request.get("id");
+            if ("exit".equals(method)) {
+                analysis.shutdownNow();
+                return shutdownRequested ? 0 : 1;
+            }
+            Object result;
+            try {
+                result = dispatch(method, (Map<?, ?>) request.get("params"));
+            } catch (RuntimeException e) {
+                if (id != null) {
+                    sendError(id, -32603, "Internal error: " + e);
+                }
+                continue;
+            }
+            if (id != null) {
+                if (result == NO_RESPONSE) {
+                    sendError(id, -32601, "Method not found: " + method);
+                } else {
+                    Map<String, Object> response = new LinkedHashMap<>();
+                    response.put("jsonrpc", "2.0");
+                    response.put("id", id);
+                    response.put("result", result);
+                    send(response);
+                }
+            }
+        }
+    }
+
+    private Object dispatch(String method, Map<?, ?> params) {
+        if (method == null) {
+            return NO_RESPONSE;
+        }
+        switch (method) {
+            case "initialize":
+                return capabilities();
+            case "shutdown":
+                shutdownRequested = true;
+                return null;
+            case "textDocument/didOpen": {
+                Map<?, ?> item = (Map<?, ?>) params.get("textDocument");
+                Document document = new Document((String) item.get("uri"), (String) item.get("text"));
+                Document previous = documents.put(document.uri, document);
+                if (previous != null) {
+                    close(previous);
+                }
+                schedule(document);
+                return NO_RESPONSE;
+            }
+            case "textDocument/didChange": {
+                Document document = documents.get(uri(params));
+                if (document != null) {
+                    for (Object change : (List<?>) params.get("contentChanges")) {
+                        applyChange(document, (Map<?, ?>) change);
+                    }
+                    schedule(document);
+                }
+                return NO_RESPONSE;
+            }
+            case "textDocument/didClose": {
+                Document document = documents.remove(uri(params));
+                if (document != null) {
+                    close(document);
+                    publish(document.uri, new ArrayList<>());
+                }
+                return NO_RESPONSE;
+            }
+            case "textDocument/hover":
+                return hover(documents.get(uri(params)), (Map<?, ?>) params.get("position"));
+            case "textDocument/definition":
+                return definition(documents.get(uri(params)), (Map<?, ?>) params.get("position"));
+            default:
+                return NO_RESPONSE; // Including initialized and other notifications this server ignores
+        }
+    }
+
+    private static Map<String, Object> capabilities() {
+        Map<String, Object> sync = new LinkedHashMap<>();
+        sync.put("openClose", true);
+        sync.put("change", 2); // Incremental
+        Map<String, Object> capabilities = new LinkedHashMap<>();
+        capabilities.put("textDocumentSync", sync);
+        capabilities.put("hoverProvider", true);
+        capabilities.put("definitionProvider", true);
+        Map<String, Object> info = new LinkedHashMap<>();
+        info.put("name", "wpp");
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("capabilities", capabilities);
+        result.put("serverInfo", info);
+        return result;
+    }
+
+    private static String uri(Map<?, ?> params) {
+        return (String) ((Map<?, ?>) params.get("textDocument")).get("uri");
+    }
+
+    private static int number(Map<?, ?> map, String key) {
+        return ((Number) map.get(key)).intValue();
+    }
+
+
+    private static int[] lineStarts(CharSequence text) {
+        int count = 1;
+        for (int k = 0; k < text.length(); k++) {
+            if (text.charAt(k) == '\n') {
+                count++;
+            }
+        }
+        int[] starts = new int[count];
+        int line = 1;
+        for (int k = 0; k < text.length(); k++) {
+            if (text.charAt(k) == '\n') {
+                starts[line++] = k + 1;
+            }
+        }
+        return starts;
+    }
+
+    // LSP characters are UTF-16 code units, as Java's are; positions past a line's end mean its end
+    private static int offset(Document document, int line, int character) {
+        if (line >= document.lineStarts.length) {
+            return document.text.length();
+        }
+        int end = line + 1 < document.lineStarts.length ? document.lineStarts[line + 1] - 1 : document.text.length();
+        return Math.min(document.lineStarts[line] + character, end);
+    }
+
+    // Replaces the range and patches the line starts: those before the range are kept, those inside it are
+    // replaced by the inserted text's and those after it shift by the change in length
+    private static void applyChange(Document document, Map<?, ?> change) {
+        String inserted = (String) change.get("text");
+        Map<?, ?> range = (Map<?, ?>) change.get("range");
+        synchronized (document) {
+            document.version++;
+            if (range == null) {
+                document.text.setLength(0);
+                document.text.append(inserted);
+                document.lineStarts = lineStarts(inserted);
+                return;
+            }
+            Map<?, ?> from = (Map<?, ?>) range.get("start");
+            Map<?, ?> to = (Map<?, ?>) range.get("end");
+            int lineCount = document.lineStarts.length;
+            int startLine = Math.min(number(from, "line"), lineCount - 1);
+            int endLine = Math.max(startLine, Math.min(number(to, "line"), lineCount - 1));
+            int start = offset(document, number(from, "line"), number(from, "character"));
+            int end = Math.max(start, offset(document, number(to, "line"), number(to, "character")));
+            document.text.replace(start, end, inserted);
+
+            int[] insertedStarts = lineStarts(inserted);
+            int delta = inserted.length() - (end - start);
+            int kept = startLine + 1;
+            int after = lineCount - endLine - 1;
+            int[] starts = new int[kept + insertedStarts.length - 1 + after];
+            System.arraycopy(document.lineStarts, 0, starts, 0, kept);
+            for (int k = 1; k < insertedStarts.length; k++) {
+                starts[kept + k - 1] = start + insertedStarts[k];
+            }
+            for (int k = 0; k < after; k++) {
+                starts[kept + insertedStarts.length - 1 + k] = document.lineStarts[endLine + 1 + k] + delta;
+            }
+            document.lineStarts = starts;
+        }
+    }
+
+    private void close(Document document) {
+        synchronized (document) {
+            document.closed = true;
+        }
+        if (document.pending != null) {
+            document.pending.cancel(false);
+        }
+    }
+
+
+    private void schedule(Document document) {
+        if (document.pending != null) {
+            document.pending.cancel(false);
+        }
+        document.pending = analysis.schedule(() -> analyze(document), DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private void analyze(Document document) {
+        String text;
+        int version;
+        synchronized (document) {
+            text = document.text.toString();
+            version = document.version;
+        }
+        try {
+            List<Token> tokens = WppScannerGUI.scanTokens(text);
+            SyntaxAnalyzer analyzer = new SyntaxAnalyzer(tokens);
+            List<String> diagnostics = new ArrayList<>(analyzer.analyze());
+            document.symbols = index(analyzer.getSymbolTable());
+            if (!isCurrent(document, version)) {
+                return;
+            }
+            publish(document.uri, diagnostics);
+            if (analyzer.hasErrors()) {
+                return;
+            }
+            boolean warned = false;
+            for (String warning : IrOptimizer.optimize(new IrBuilder(tokens, analyzer.getSymbolTable()).build())) {
+                if (warning.startsWith("Warning")) { // Notes on optimizations are not for the editor
+                    diagnostics.add(warning);
+                    warned = true;
+                }
+            }
+            if (warned && isCurrent(document, version)) {
+                publish(document.uri, diagnostics);
+            }
+        } catch (RuntimeException e) {
+            // Keep the last diagnostics; the next edit analyzes again
+        }
+    }
+
+    private static boolean isCurrent(Document document, int version) {
+        synchronized (document) {
+            return !document.closed && document.version == version;
+        }
+    }
+
+    private static Symbols index(List<SymbolTableEntry> table) {
+        Symbols symbols = new Symbols();
+        for (SymbolTableEntry entry : table) {
+            symbols.byName.computeIfAbsent(entry.identifier, name -> new ArrayList<>()).add(entry);
+            if (entry.kind.equals("function")) {
+                symbols.functions.add(entry);
+            }
+        }
+        return symbols;
+    }
+
+    // Diagnostics name their line as "Line N:"; each covers its whole line
+    private void publish(String uri, List<String> messages) {
+        List<Object> diagnostics = new ArrayList<>();
+        for (String message : messages) {
+            int line = 0;
+            String text = message;
+            int at = message.indexOf(" at Line ");
+            int colon = at >= 0 ? message.indexOf(": ", at) : -1;
+            if (colon >= 0) {
+                try {
+                    line = Math.max(0, Integer.parseInt(message.substring(at + 9, colon)) - 1);
+                    text = message.substring(0, at) + ": " + message.substring(colon + 2);
+                } catch (NumberFormatException e) {
+                    // Report it on the first line
+                }
+            }
+            Map<String, Object> diagnostic = new LinkedHashMap<>();
+            diagnostic.put("range", range(line, 0, line + 1, 0));
+            diagnostic.put("severity", message.startsWith("Warning") ? 2 : message.startsWith("Info") ? 3 : 1);
+            diagnostic.put("source", "wpp");
+            diagnostic.put("message", text);
+            diagnostics.add(diagnostic);
+        }
+        Map<String, Object> params = new LinkedHashMap<>();
+        params.put("uri", uri);
+        params.put("diagnostics", diagnostics);
+        Map<String, Object> notification = new LinkedHashMap<>();
+        notification.put("jsonrpc", "2.0");
+        notification.put("method", "textDocument/publishDiagnostics");
+        notification.put("params", params);
+        send(notification);
+    }
+
+
+    private Object hover(Document document, Map<?, ?> position) {
+        Symbol symbol = symbolAt(document, position);
+        if (symbol == null) {
+            return null;
+        }
+        SymbolTableEntry entry = symbol.entry;
+        StringBuilder sb = new StringBuilder("```wpp\n");
+        if (entry.kind.equals("function")) {
+            sb.append(entry.type).append(' ').append(entry.identifier).append("()\n```\nfunction");
+        } else {
+            sb.append(entry.type).append(' ').append(entry.identifier)
+                    .append(entry.dimension.equals("Array") ? "[]" : "").append("\n```\n").append(entry.kind)
+                    .append(entry.owner != null ? " in `" + entry.owner + "`" : ", global");
+            if (entry.value != null) {
+                sb.append(", value `").append(entry.value).append('`');
+            }
+        }
+        if (entry.lineOfDeclaration > 0) {
+            sb.append(", declared at line ").append(entry.lineOfDeclaration);
+        }
+        Map<String, Object> contents = new LinkedHashMap<>();
+        contents.put("kind", "markdown");
+        contents.put("value", sb.toString());
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("contents", contents);
+        result.put("range", range(symbol.line, symbol.start, symbol.line, symbol.end));
+        return result;
+    }
+
+    private Object definition(Document document, Map<?, ?> position) {
+        Symbol symbol = symbolAt(document, position);
+        if (symbol == null || symbol.entry.lineOfDeclaration <= 0) {
+            return null;
+        }
+        int line = symbol.entry.lineOfDeclaration - 1;
+        int column = 0;
+        synchronized (document) {
+            if (line < document.lineStarts.length) {
+                column = Math.max(0, findWord(document, line, symbol.entry.identifier));
+            }
+        }
+        Map<String, Object> location = new LinkedHashMap<>();
+        location.put("uri", document.uri);
+        location.put("range", range(line, column, line, column + symbol.entry.identifier.length()));
+        return location;
+    }
+
+    private static final class Symbol {
+        final SymbolTableEntry entry;
+        final int line;
+        final int start;
+        final int end;
+
+        Symbol(SymbolTableEntry entry, int line, int start, int end) {
+            this.entry = entry;
+            this.line = line;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    // The identifier under the position and the declaration it most likely names: a local of the function
+    // around the position declared before it, else a global or function
+    private static Symbol symbolAt(Document document, Map<?, ?> position) {
+        if (document == null || document.symbols == null) {
+            return null;
+        }
+        int line = number(position, "line");
+        int character = number(position, "character");
+        String word;
+        int start;
+        int end;
+        synchronized (document) {
+            if (line >= document.lineStarts.length) {
+                return null;
+            }
+            int lineStart = document.lineStarts[line];
+            int lineEnd = offset(document, line, Integer.MAX_VALUE - lineStart);
+            start = Math.min(lineStart + character, lineEnd);
+            end = start;
+            while (start > lineStart && isWordChar(document.text.charAt(start - 1))) {
+                start--;
+            }
+            while (end < lineEnd && isWordChar(document.text.charAt(end))) {
+                end++;
+            }
+            if (start == end) {
+                return null;
+            }
+            word = document.text.substring(start, end);
+            start -= lineStart;
+            end -= lineStart;
+        }
+        Symbols symbols = document.symbols;
+        List<SymbolTableEntry> candidates = symbols.byName.get(word);
+        if (candidates == null) {
+            return null;
+        }
+        int sourceLine = line + 1;
+        String function = null;
+        for (SymbolTableEntry entry : symbols.functions) {
+            if (entry.lineOfDeclaration <= sourceLine) {
+                function = entry.identifier;
+            }
+        }
+        SymbolTableEntry local = null;
+        SymbolTableEntry global = null;
+        for (SymbolTableEntry entry : candidates) {
+            if (entry.owner == null) {
+                global = global == null ? entry : global;
+            } else if (entry.owner.equals(function) && entry.lineOfDeclaration <= sourceLine
+                    && (local == null || entry.lineOfDeclaration > local.lineOfDeclaration)) {
+                local = entry;
+            }
+        }
+        SymbolTableEntry entry = local != null ? local : global != null ? global : candidates.get(0);
+        return new Symbol(entry, line, start, end);
+    }
+
+    // Column of the word as a whole identifier in the line, or -1
+    private static int findWord(Document document, int line, String word) {
+        int lineStart = document.lineStarts[line];
+        int lineEnd = offset(document, line, Integer.MAX_VALUE - lineStart);
+        int from = lineStart;
+        while (true) {
+            int at = document.text.indexOf(word, from);
+            if (at < 0 || at + word.length() > lineEnd) {
+                return -1;
+            }
+            boolean before = at == lineStart || !isWordChar(document.text.charAt(at - 1));
+            boolean after = at + word.length() == lineEnd || !isWordChar(document.text.charAt(at + word.length()));
+            if (before && after) {
+                return at - lineStart;
+            }
+            from = at + 1;
+        }
+    }
+
+    private static boolean isWordChar(char ch) {
+        return Character.isLetterOrDigit(ch) || ch == '_';
+    }
+
+    private static Map<String, Object> range(int startLine, int startCharacter, int endLine, int endCharacter) {
+        Map<String, Object> range = new LinkedHashMap<>();
+        range.put("start", position(startLine, startCharacter));
+        range.put("end", position(endLine, endCharacter));
+        return range;
+    }
+
+    private static Map<String, Object> position(int line, int character) {
+        Map<String, Object> position = new LinkedHashMap<>();
+        position.put("line", line);
+        position.put("character", character);
+        return position;
+    }
+
+
+    // The body of the next message, or null at the end of input
+    private String readMessage() throws IOException {
+        int length = -1;
+        String header;
+        while ((header = readHeaderLine()) != null && !header.isEmpty()) {
+            if (header.regionMatches(true, 0, "Content-Length:", 0, 15)) {
+                length = Integer.parseInt(header.substring(15).trim());
+            }
+        }
+        if (header == null) {
+            return null;
+        }
+        if (length < 0) {
+            throw new IOException("Message without Content-Length");
+        }
+        byte[] body = in.readNBytes(length);
+        if (body.length < length) {
+            return null;
+        }
+        return new String(body, StandardCharsets.UTF_8);
+    }
+
+    private String readHeaderLine() throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != -1 && b != '\n') {
+            if (b != '\r') {
+                line.write(b);
+            }
+        }
+        if (b == -1 && line.size() == 0) {
+            return null;
+        }
+        return line.toString(StandardCharsets.US_ASCII);
+    }
+
+    private void sendError(Object id, int code, String message) {
+        Map<String, Object> error = new LinkedHashMap<>();
+        error.put("code", code);
+        error.put("message", message);
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("jsonrpc", "2.0");
+        response.put("id", id);
+        response.put("error", error);
+        send(response);
+    }
+
+    // Both threads write messages, so whole messages go out under a lock
+    private synchronized void send(Map<String, Object> message) {
+        byte[] body = Json.write(message).getBytes(StandardCharsets.UTF_8);
+        try {
+            out.write(("Content-Length: " + body.length + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            out.write(body);
+            out.flush();
+        } catch (IOException e) {
+            // The client is gone; the reading thread sees the end of input and stops
+        }
+    }
+}
@@ -8,958 +8,39 @@ import javax.swing.undo.UndoManager;
 import java.awt.*;
 import java.awt.event.*;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
 import java.util.List;
 
-// Token class with line number
-class Token {
-    String type, value;
-    int line;
-
-    public Token(String type, String value, int line) {
-        this.type = type;
-        this.value = value;
-        this.line = line;
-    }
-
-    @Override
-    public String toString() {
-        return type + "\t" + value + "\tLine: " + line;
-    }
-}
-
-// SymbolTableEntry class
-class SymbolTableEntry {
-    String identifier, kind, type, value;
-    int size, lineOfDeclaration, lineOfUsage;
-    String dimension, address;
-
-    public SymbolTableEntry(String identifier, String kind, String type) {
-        this.identifier = identifier;
-        this.kind = kind; // "variable" or "function"
-        this.type = type;
-        this.value = null;
-        this.size = "int".equals(type) || "float".equals(type) ? 4
-                : "double".equals(type) ? 8 : "char".equals(type) || "bool".equals(type) ? 1 : 0;
-        this.dimension = "1D";
-        this.lineOfDeclaration = -1;
-        this.lineOfUsage = -1;
-        this.address = "0x" + Integer.toHexString(System.identityHashCode(this));
-    }
-
-    @Override
-    public String toString() {
-        return identifier + "\t" + kind + "\t" + type + "\t" + (value != null ? value : "N/A") + "\t" + size + "\t" +
-                dimension + "\t" + lineOfDeclaration + "\t" + lineOfUsage + "\t" + address;
-    }
-}
-
-
-
-class SyntaxAnalyzer {
-    private List<Token> tokens;
-    private int currentIndex;
-    private List<String> errors;
-    private Stack<Set<String>> scopeStack;
-    private Set<String> globalVariables;
-    private Map<String, String> functionReturnTypes;
-    private Map<String, Integer> functionParamCounts; // Track parameter counts for functions
-    private boolean mainFunctionFound;
-    private int mainFunctionLine; // Track line of main() for duplicate detection
-    private Map<String, Integer> variableUsage; // Track variable usage for unused variable detection
-
-    public SyntaxAnalyzer(List<Token> tokens) {
-        this.tokens = tokens;
-        this.currentIndex = 0;
-        this.errors = new ArrayList<>();
-        this.scopeStack = new Stack<>();
-        this.globalVariables = new HashSet<>();
-        this.functionReturnTypes = new HashMap<>();
-        this.functionParamCounts = new HashMap<>();
-        this.mainFunctionFound = false;
-        this.mainFunctionLine = -1;
-        this.variableUsage = new HashMap<>();
-        scopeStack.push(globalVariables); // Global scope
-    }
-
-    public List<String> analyze() {
-        while (currentIndex < tokens.size()) {
-            Token token = tokens.get(currentIndex);
-            if (isFunctionDeclaration()) {
-                analyzeFunctionDeclaration();
-            } else if (isDataType(token.value)) {
-                analyzeVariableDeclaration();
-            } else if (isIdentifier(token)) {
-                Token nextToken = lookAhead();
-                if (nextToken.type.equals("Operator")) {
-                    if (nextToken.value.equals("=")) {
-                        analyzeAssignment();
-                    } else if (nextToken.value.equals("++") || nextToken.value.equals("--")) {
-                        if (!isVariableDeclared(token.value)) {
-                            errors.add("Syntax Error at Line " + token.line + ": Variable '" + token.value + "' used before declaration");
-                        }
-                        currentIndex += 2; // Skip identifier and operator
-                        if (currentIndex < tokens.size() && tokens.get(currentIndex).value.equals(";")) {
-                            currentIndex++;
-                        } else {
-                            errors.add("Syntax Error at Line " + token.line + ": Missing semicolon after increment/decrement");
-                        }
-                    } else if (nextToken.value.equals("<<") && token.value.equals("cout")) {
-                        analyzeCoutStatement();
-                    } else {
-                        errors.add("Syntax Error at Line " + token.line + ": Invalid operator '" + nextToken.value + "' after identifier '" + token.value + "'");
-                        currentIndex++;
-                    }
-                } else if (nextToken.type.equals("Separator") && nextToken.value.equals("(")) {
-                    analyzeFunctionCall();
-                } else {
-                    errors.add("Syntax Error at Line " + token.line + ": Unexpected identifier '" + token.value + "' in statement");
-                    currentIndex++;
-                }
-            } else if (token.value.equals("if")) {
-                analyzeIfStatement();
-            } else if (token.value.equals("cout")) {
-                analyzeCoutStatement();
-            } else if (token.value.equals("for")) {
-                analyzeForLoop();
-            } else if (token.value.equals("while")) {
-                analyzeWhileLoop();
-            } else if (token.value.equals("return")) {
-                analyzeReturnStatement();
-            } else if (token.type.equals("Separator") && token.value.equals("{")) {
-                scopeStack.push(new HashSet<>()); // New scope
-                currentIndex++;
-            } else if (token.type.equals("Separator") && token.value.equals("}")) {
-                if (scopeStack.size() > 1) { // Preserve global scope
-                    scopeStack.pop();
-                }
-                currentIndex++;
-            } else if (token.type.equals("Separator") && token.value.equals(";")) {
-                errors.add("Syntax Error at Line " + token.line + ": Stray semicolon");
-                currentIndex++;
-            } else if (token.type.equals("Operator")) {
-                errors.add("Syntax Error at Line " + token.line + ": Unexpected operator '" + token.value + "' in global scope");
-                currentIndex++;
-            } else {
-                errors.add("Syntax Error at Line " + token.line + ": Unexpected token '" + token.value + "'");
-                currentIndex++;
-            }
-        }
-
-        // Validate main() presence and variable usage
-        if (!mainFunctionFound) {
-            errors.add("Semantic Error at Line 1: No valid 'main' function found - program must define 'int main()' or 'int main(int argc, char* argv[])'");
-        }
-        // Check for unused variables
-        for (Map.Entry<String, Integer> entry : variableUsage.entrySet()) {
-            if (entry.getValue() == 0) {
-                errors.add("Warning at Line 1: Variable '" + entry.getKey() + "' declared but never used");
-            }
-        }
-
-        return errors;
-    }
-
-    private boolean isFunctionDeclaration() {
-        int tempIndex = currentIndex;
-        if (tempIndex < tokens.size() && isDataType(tokens.get(tempIndex).value)) {
-            tempIndex++;
-            if (tempIndex < tokens.size() && isIdentifier(tokens.get(tempIndex))) {
-                tempIndex++;
-                if (tempIndex < tokens.size() && tokens.get(tempIndex).value.equals("(")) {
-                    return true;
-                }
-            }
-        }
-        return false;
-    }
-
-    private void analyzeFunctionDeclaration() {
-        int line = tokens.get(currentIndex).line;
-        String returnType = tokens.get(currentIndex).value;
-        currentIndex++; // consume data type
-
-        if (currentIndex < tokens.size() && isIdentifier(tokens.get(currentIndex))) {
-            String functionName = tokens.get(currentIndex).value;
-            if (functionName.equals("main")) {
-                if (mainFunctionFound) {
-                    errors.add("Semantic Error at Line " + line + ": Duplicate 'main' function declaration; previous at Line " + mainFunctionLine);
-                    currentIndex++;
-                    return;
-                }
-                if (!returnType.equals("int")) {
-                    errors.add("Syntax Error at Line " + line + ": 'main' function must return 'int'");
-                } else {
-                    mainFunctionFound = true;
-                    mainFunctionLine = line;
-                }
-            }
-            functionReturnTypes.put(functionName, returnType);
-            currentIndex++; // consume identifier
-
-            if (currentIndex < tokens.size() && tokens.get(currentIndex).value.equals("(")) {
-                currentIndex++; // consume '('
-
-                int paramCount = analyzeParameters(functionName);
-                functionParamCounts.put(functionName, paramCount);
-
-                if (currentIndex >= tokens.size() || !tokens.get(currentIndex).value.equals(")")) {
-                    errors.add("Syntax Error at Line " + line + ": Missing closing parenthesis in function declaration");
-                } else {
-                    currentIndex++; // consume ')'
-                }
-
-                if (currentIndex < tokens.size()) {
-                    if (tokens.get(currentIndex).value.equals("{")) {
-                        if (functionName.equals("main") && mainFunctionFound) {
-                            // Ensure main() has a body
-                            int startIndex = currentIndex;
-                            skipBlock();
-                            if (startIndex == currentIndex - 1) {
-                                errors.add("Syntax Error at Line " + line + ": 'main' function must have a non-empty body");
-                                mainFunctionFound = false;
-                            }
-                        } else {
-                            skipBlock();
-                        }
-                    } else if (tokens.get(currentIndex).value.equals(";")) {
-                        if (functionName.equals("main")) {
-                            errors.add("Syntax Error at Line " + line + ": 'main' function must have a body, not just a prototype");
-                            mainFunctionFound = false;
-                        }
-                        currentIndex++;
-                    } else {
-                        errors.add("Syntax Error at Line " + line + ": Expected '{' or ';' after function declaration");
-                    }
-                }
-            } else {
-                errors.add("Syntax Error at Line " + line + ": Expected '(' after function name");
-            }
-        } else {
-            errors.add("Syntax Error at Line " + line + ": Expected identifier after return type");
-        }
-    }
-
-    private int analyzeParameters(String functionName) {
-        int line = tokens.get(currentIndex).line;
-        boolean expectParam = true;
-        List<String> paramTypes = new ArrayList<>();
-        int paramCount = 0;
-
-        while (currentIndex < tokens.size() && !tokens.get(currentIndex).value.equals(")")) {
-            Token token = tokens.get(currentIndex);
-
-            if (token.value.equals(",")) {
-                if (expectParam) {
-                    errors.add("Syntax Error at Line " + line + ": Unexpected comma in parameter list");
-                }
-                expectParam = true;
-                currentIndex++;
-                continue;
-            }
-
-            if (expectParam) {
-                if (isDataType(token.value)) {
-                    String paramType = token.value;
-                    if (paramType.equals("void") && !functionName.equals("main")) {
-                        errors.add("Syntax Error at Line " + line + ": 'void' is not a valid parameter type");
-                    }
-                    paramTypes.add(paramType);
-                    currentIndex++;
-
-                    if (currentIndex < tokens.size() && isIdentifier(tokens.get(currentIndex))) {
-                        String paramName = tokens.get(currentIndex).value;
-                        if (isVariableDeclaredInCurrentScope(paramName)) {
-                            errors.add("Syntax Error at Line " + line + ": Parameter '" + paramName + "' shadows variable in same scope");
-                        }
-                        addVariableToScope(paramName);
-                        variableUsage.put(paramName, 0); // Initialize usage count
-                        currentIndex++;
-                        expectParam = false;
-                        paramCount++;
-
-                        if (currentIndex < tokens.size() && tokens.get(currentIndex).value.equals("[")) {
-                            currentIndex++;
-                            if (currentIndex < tokens.size() && tokens.get(currentIndex).value.equals("]")) {
-                                paramTypes.set(paramTypes.size() - 1, paramType + "[]");
-                                currentIndex++;
-                            } else {
-                                errors.add("Syntax Error at Line " + line + ": Expected ']' in array parameter declaration");
-                            }
-                        }
-                    } else {
-                        errors.add("Syntax Error at Line " + line + ": Expected parameter name after type");
-                    }
-                } else {
-                    errors.add("Syntax Error at Line " + line + ": Expected parameter type in function declaration");
-                    currentIndex++;
-                }
-            } else {
-                errors.add("Syntax Error at Line " + line + ": Expected comma between parameters");
-                currentIndex++;
-            }
-        }
-
-        // Validate main() parameters
-        if (functionName.equals("main") && mainFunctionFound) {
-            if (paramTypes.isEmpty()) {
-                // Valid: int main()
-            } else if (paramTypes.size() == 2 && paramTypes.get(0).equals("int") && paramTypes.get(1).equals("char[]")) {
-                // Valid: int main(int argc, char* argv[])
-            } else {
-                errors.add("Syntax Error at Line " + line + ": Invalid parameters for 'main' function. Expected 'int main()' or 'int main(int argc, char* argv[])'");
-                mainFunctionFound = false;
-            }
-        }
-
-        return paramCount;
-    }
-
-    private boolean isDataType(String value) {
-        return value.equals("int") || value.equals("float") || value.equals("double") ||
-                value.equals("char") || value.equals("string") || value.equals("bool") || value.equals("void");
-    }
-
-    private boolean isIdentifier(Token token) {
-        return token.type.equals("Identifier");
-    }
-
-    private Token lookAhead() {
-        if (currentIndex + 1 < tokens.size()) {
-            return tokens.get(currentIndex + 1);
-        }
-        return new Token("EOF", "", -1);
-    }
-
-    private void analyzeVariableDeclaration() {
-        Token dataTypeToken = tokens.get(currentIndex);
-        int line = dataTypeToken.line;
-        String dataType = dataTypeToken.value;
-        currentIndex++;
-
-        if (currentIndex < tokens.size() && isIdentifier(tokens.get(currentIndex))) {
-            String varName = tokens.get(currentIndex).value;
-            if (isVariableDeclaredInCurrentScope(varName)) {
-                errors.add("Syntax Error at Line " + line + ": Variable '" + varName + "' already declared in this scope");
-            } else if (functionReturnTypes.containsKey(varName)) {
-                errors.add("Syntax Error at Line " + line + ": Variable '" + varName + "' conflicts with function name");
-            } else {
-                addVariableToScope(varName);
-                variableUsage.put(varName, 0); // Initialize usage count
-            }
-            currentIndex++;
-
-            boolean isArray = false;
-            if (currentIndex < tokens.size() && tokens.get(currentIndex).value.equals("[")) {
-                isArray = true;
-                currentIndex++;
-                if (currentIndex < tokens.size() && (tokens.get(currentIndex).type.startsWith("Literal") ||
-                        isIdentifier(tokens.get(currentIndex)))) {
-                    Token indexToken = tokens.get(currentIndex);
-                    if (indexToken.type.equals("Literal (String)") || indexToken.type.equals("Literal (Char)")) {
-                        errors.add("Syntax Error at Line " + line + ": Array index must be an integer");
-                    }
-                    currentIndex++;
-                } else {
-                    errors.add("Syntax Error at Line " + line + ": Expected array size after '['");
-                }
-                if (currentIndex < tokens.size() && tokens.get(currentIndex).value.equals("]")) {
-                    currentIndex++;
-                } else {
-                    errors.add("Syntax Error at Line " + line + ": Expected ']' after array size");
-                }
-            }
-
-            if (currentIndex < tokens.size() && tokens.get(currentIndex).type.equals("Operator")
-                    && tokens.get(currentIndex).value.equals("=")) {
-                currentIndex++;
-                if (!isArray) {
-                    int exprStart = currentIndex;
-                    analyzeExpression(line, dataType);
-                    if (currentIndex == exprStart) {
-                        errors.add("Syntax Error at Line " + line + ": Expected value after '=' in variable initialization");
-                    }
-                } else {
-                    errors.add("Syntax Error at Line " + line + ": Array initialization not supported in this context");
-                    while (currentIndex < tokens.size() && !tokens.get(currentIndex).value.equals(";")) {
-                        currentIndex++;
-                    }
-                }
-            }
-
-            if (currentIndex < tokens.size() && tokens.get(currentIndex).type.equals("Separator")
-                    && tokens.get(currentIndex).value.equals(";")) {
-                currentIndex++;
-            } else {
-                errors.add("Syntax Error at Line " + line + ": Missing semicolon after variable declaration");
-            }
-        } else {
-            errors.add("Syntax Error at Line " + line + ": Expected identifier after data type");
-        }
-    }
-
-    private void analyzeExpression(int line, String expectedType) {
-        int parenCount = 0;
-        boolean lastWasOperator = false;
-        int exprStart = currentIndex;
-
-        while (currentIndex < tokens.size() && !tokens.get(currentIndex).value.equals(";")) {
-            Token token = tokens.get(currentIndex);
-            if (token.type.equals("Separator")) {
-                if (token.value.equals("(")) {
-                    parenCount++;
-                } else if (token.value.equals(")")) {
-                    parenCount--;
-                    if (parenCount < 0) {
-                        errors.add("Syntax Error at Line " + line + ": Unmatched closing parenthesis in expression");
-                        break;
-                    }
-                }
-            } else if (token.type.equals("Operator")) {
-                if (lastWasOperator) {
-                    errors.add("Syntax Error at Line " + line + ": Invalid consecutive operators in expression");
-                }
-                lastWasOperator = true;
-            } else if (isIdentifier(token)) {
-                if (!isVariableDeclared(token.value)) {
-                    errors.add("Syntax Error at Line " + line + ": Variable '" + token.value + "' used before declaration");
-                } else {
-                    variableUsage.merge(token.value, 1, Integer::sum); // Increment usage
-                }
-                lastWasOperator = false;
-            } else if (token.type.startsWith("Literal")) {
-                if (expectedType != null && !isTypeCompatible(expectedType, token)) {
-                    errors.add("Type Error at Line " + line + ": Incompatible type '" + token.type + "' for expected type '" + expectedType + "'");
-                }
-                lastWasOperator = false;
-            } else {
-                errors.add("Syntax Error at Line " + line + ": Unexpected token '" + token.value + "' in expression");
-            }
-            currentIndex++;
-        }
-
-        if (parenCount > 0) {
-            errors.add("Syntax Error at Line " + line + ": Unmatched opening parenthesis in expression");
-        }
-        if (lastWasOperator && currentIndex > exprStart) {
-            errors.add("Syntax Error at Line " + line + ": Expression ends with an operator");
-        }
-    }
-
-    private boolean isTypeCompatible(String dataType, Token valueToken) {
-        String valueType = valueToken.type;
-        if (dataType.equals("int") && valueType.equals("Literal (Int)"))
-            return true;
-        if (dataType.equals("float") && (valueType.equals("Literal (Float)") || valueType.equals("Literal (Int)")))
-            return true;
-        if (dataType.equals("double") && (valueType.equals("Literal (Float)") || valueType.equals("Literal (Int)")))
-            return true;
-        if (dataType.equals("char") && valueType.equals("Literal (Char)"))
-            return true;
-        if (dataType.equals("string") && valueType.equals("Literal (String)"))
-            return true;
-        if (dataType.equals("bool") && (valueType.equals("Keyword")
-                && (valueToken.value.equals("true") || valueToken.value.equals("false"))))
-            return true;
-        return false;
-    }
-
-    private void analyzeAssignment() {
-        Token token = tokens.get(currentIndex);
-        int line = token.line;
-        if (isIdentifier(token)) {
-            String varName = token.value;
-            if (!isVariableDeclared(varName)) {
-                errors.add("Syntax Error at Line " + line + ": Variable '" + varName + "' used before declaration");
-            } else {
-                variableUsage.merge(varName, 1, Integer::sum); // Increment usage
-            }
-            currentIndex++;
-            boolean isArray = false;
-            if (currentIndex < tokens.size() && tokens.get(currentIndex).value.equals("[")) {
-                isArray = true;
-                currentIndex++;
-                if (currentIndex < tokens.size() && (isIdentifier(tokens.get(currentIndex))
-                        || tokens.get(currentIndex).type.startsWith("Literal"))) {
-                    Token indexToken = tokens.get(currentIndex);
-                    if (indexToken.type.equals("Literal (String)") || indexToken.type.equals("Literal (Char)")) {
-                        errors.add("Syntax Error at Line " + line + ": Array index must be an integer");
-                    }
-                    currentIndex++;
-                    if (currentIndex < tokens.size() && tokens.get(currentIndex).value.equals("]")) {
-                        currentIndex++;
-                    } else {
-                        errors.add("Syntax Error at Line " + line + ": Expected ']' after array index");
-                    }
-                } else {
-                    errors.add("Syntax Error at Line " + line + ": Expected array index after '['");
-                }
-            }
-            if (currentIndex < tokens.size() && tokens.get(currentIndex).type.equals("Operator")
-                    && tokens.get(currentIndex).value.equals("=")) {
-                currentIndex++;
-                int startIndex = currentIndex;
-                analyzeExpression(line, null); // Type checking optional here
-                if (currentIndex == startIndex) {
-                    errors.add("Syntax Error at Line " + line + ": Expected value after '=' in assignment");
-                }
-                if (currentIndex < tokens.size() && tokens.get(currentIndex).value.equals(";")) {
-                    currentIndex++;
-                } else {
-                    errors.add("Syntax Error at Line " + line + ": Missing semicolon after assignment");
-                }
-            } else {
-                errors.add("Syntax Error at Line " + line + ": Expected '=' in assignment");
-            }
-        } else {
-            errors.add("Syntax Error at Line " + line + ": Expected identifier in assignment");
-            currentIndex++;
-        }
-    }
-
-    private void analyzeIfStatement() {
-        int line = tokens.get(currentIndex).line;
-        currentIndex++;
-        if (currentIndex < tokens.size() && tokens.get(currentIndex).type.equals("Separator")
-                && tokens.get(currentIndex).value.equals("(")) {
-            currentIndex++;
-            int openParens = 1;
-            int conditionStart = currentIndex;
-            boolean hasComparison = false;
-            while (currentIndex < tokens.size() && openParens > 0) {
-                Token token = tokens.get(currentIndex);
-                if (token.type.equals("Separator")) {
-                    if (token.value.equals("("))
-                        openParens++;
-                    else if (token.value.equals(")"))
-                        openParens--;
-                } else if (token.type.equals("Operator") && isComparisonOperator(token.value)) {
-                    hasComparison = true;
-                } else if (isIdentifier(token)) {
-                    if (!isVariableDeclared(token.value)) {
-                        errors.add("Syntax Error at Line " + token.line + ": Variable '" + token.value + "' used before declaration");
-                    } else {
-                        variableUsage.merge(token.value, 1, Integer::sum);
-                    }
-                }
-                currentIndex++;
-            }
-            if (openParens > 0) {
-                errors.add("Syntax Error at Line " + line + ": Missing closing parenthesis in if statement");
-            } else if (conditionStart == currentIndex - 1) {
-                errors.add("Syntax Error at Line " + line + ": Empty condition in if statement");
-            } else if (!hasComparison) {
-                errors.add("Syntax Error at Line " + line + ": No comparison operator in if condition; expected boolean expression");
-            }
-            if (currentIndex < tokens.size() && tokens.get(currentIndex).type.equals("Separator")
-                    && tokens.get(currentIndex).value.equals("{")) {
-                scopeStack.push(new HashSet<>());
-                skipBlock();
-                if (currentIndex < tokens.size() && tokens.get(currentIndex).value.equals("else")) {
-                    currentIndex++;
-                    if (currentIndex < tokens.size() && tokens.get(currentIndex).value.equals("if")) {
-                        analyzeIfStatement();
-                    } else if (currentIndex < tokens.size() && tokens.get(currentIndex).type.equals("Separator")
-                            && tokens.get(currentIndex).value.equals("{")) {
-                        scopeStack.push(new HashSet<>());
-                        skipBlock();
-                    } else if (currentIndex < tokens.size()) {
-                        while (currentIndex < tokens.size() && !tokens.get(currentIndex).value.equals(";")) {
-                            Token token = tokens.get(currentIndex);
-                            if (isIdentifier(token) && !isVariableDeclared(token.value)) {
-                                errors.add("Syntax Error at Line " + token.line + ": Variable '" + token.value
-                                        + "' used before declaration");
-                            }
-                            currentIndex++;
-                        }
-                        if (currentIndex < tokens.size() && tokens.get(currentIndex).value.equals(";")) {
-                            currentIndex++;
-                        } else {
-                            errors.add("Syntax Error at Line " + line + ": Missing semicolon after else statement");
-                        }
-                    } else {
-                        errors.add("Syntax Error at Line " + line + ": Expected statement or '{' after 'else'");
-                    }
-                }
-            } else {
-                errors.add("Syntax Error at Line " + line + ": Expected '{' after if condition");
-            }
-        } else {
-            errors.add("Syntax Error at Line " + line + ": Missing opening parenthesis in if statement");
-        }
-    }
-
-    private void analyzeForLoop() {
-        int line = tokens.get(currentIndex).line;
-        currentIndex++;
-        if (currentIndex < tokens.size() && tokens.get(currentIndex).type.equals("Separator")
-                && tokens.get(currentIndex).value.equals("(")) {
-            currentIndex++;
-            scopeStack.push(new HashSet<>());
-            if (currentIndex < tokens.size() && isDataType(tokens.get(currentIndex).value)) {
-                analyzeVariableDeclaration();
-            } else {
-                while (currentIndex < tokens.size() && !tokens.get(currentIndex).value.equals(";")) {
-                    Token token = tokens.get(currentIndex);
-                    if (isIdentifier(token) && !isVariableDeclared(token.value)) {
-                        errors.add("Syntax Error at Line " + token.line + ": Variable '" + token.value + "' used before declaration");
-                    }
-                    currentIndex++;
-                }
-                if (currentIndex < tokens.size() && tokens.get(currentIndex).value.equals(";")) {
-                    currentIndex++;
-                } else {
-                    errors.add("Syntax Error at Line " + line + ": Missing semicolon in for loop initialization");
-                }
-            }
-            int conditionStart = currentIndex;
-            boolean hasComparison = false;
-            while (currentIndex < tokens.size() && !tokens.get(currentIndex).value.equals(";")) {
-                Token token = tokens.get(currentIndex);
-                if (token.type.equals("Operator") && isComparisonOperator(token.value)) {
-                    hasComparison = true;
-                }
-                if (isIdentifier(token) && !isVariableDeclared(token.value)) {
-                    errors.add("Syntax Error at Line " + token.line + ": Variable '" + token.value + "' used before declaration");
-                } else if (isIdentifier(token)) {
-                    variableUsage.merge(token.value, 1, Integer::sum);
-                }
-                currentIndex++;
-            }
-            if (currentIndex >= tokens.size() || !tokens.get(currentIndex).value.equals(";")) {
-                errors.add("Syntax Error at Line " + line + ": Missing semicolon in for loop condition");
-            } else {
-                currentIndex++;
-            }
-            if (conditionStart == currentIndex - 1 && !hasComparison) {
-                errors.add("Syntax Error at Line " + line + ": Empty or invalid condition in for loop");
-            }
-            while (currentIndex < tokens.size() && !tokens.get(currentIndex).value.equals(")")) {
-                Token token = tokens.get(currentIndex);
-                if (isIdentifier(token) && !isVariableDeclared(token.value)) {
-                    errors.add("Syntax Error at Line " + token.line + ": Variable '" + token.value + "' used before declaration");
-                } else if (isIdentifier(token)) {
-                    variableUsage.merge(token.value, 1, Integer::sum);
-                }
-                currentIndex++;
-            }
-            if (currentIndex < tokens.size() && tokens.get(currentIndex).value.equals(")")) {
-                currentIndex++;
-                if (currentIndex < tokens.size() && tokens.get(currentIndex).type.equals("Separator")
-                        && tokens.get(currentIndex).value.equals("{")) {
-                    skipBlock();
-                } else {
-                    errors.add("Syntax Error at Line " + line + ": Expected '{' after for loop");
-                }
-            } else {
-                errors.add("Syntax Error at Line " + line + ": Missing closing parenthesis in for loop");
-            }
-            scopeStack.pop();
-        } else {
-            errors.add("Syntax Error at Line " + line + ": Missing opening parenthesis in for loop");
-        }
-    }
-
-    private void analyzeWhileLoop() {
-        int line = tokens.get(currentIndex).line;
-        currentIndex++;
-        if (currentIndex < tokens.size() && tokens.get(currentIndex).type.equals("Separator") &&
-                tokens.get(currentIndex).value.equals("(")) {
-            currentIndex++;
-            int openParens = 1;
-            int conditionStart = currentIndex;
-            boolean hasComparison = false;
-            while (currentIndex < tokens.size() && openParens > 0) {
-                Token token = tokens.get(currentIndex);
-                if (token.type.equals("Separator")) {
-                    if (token.value.equals("("))
-                        openParens++;
-                    else if (token.value.equals(")"))
-                        openParens--;
-                } else if (token.type.equals("Operator") && isComparisonOperator(token.value)) {
-                    hasComparison = true;
-                } else if (isIdentifier(token)) {
-                    if (!isVariableDeclared(token.value)) {
-                        errors.add("Syntax Error at Line " + token.line + ": Variable '" + token.value + "' used before declaration");
-                    } else {
-                        variableUsage.merge(token.value, 1, Integer::sum);
-                    }
-                }
-                currentIndex++;
-            }
-            if (openParens > 0) {
-                errors.add("Syntax Error at Line " + line + ": Missing closing parenthesis in while loop");
-            } else if (conditionStart == currentIndex - 1) {
-                errors.add("Syntax Error at Line " + line + ": Empty condition in while loop");
-            } else if (!hasComparison) {
-                errors.add("Syntax Error at Line " + line + ": No comparison operator in while condition; expected boolean expression");
-            }
-            if (currentIndex < tokens.size() && tokens.get(currentIndex).type.equals("Separator") &&
-                    tokens.get(currentIndex).value.equals("{")) {
-                scopeStack.push(new HashSet<>());
-                skipBlock();
-            } else {
-                errors.add("Syntax Error at Line " + line + ": Expected '{' after while loop");
-            }
-        } else {
-            errors.add("Syntax Error at Line " + line + ": Missing opening parenthesis in while loop");
-        }
-    }
-
-    private void analyzeCoutStatement() {
-        int line = tokens.get(currentIndex).line;
-        currentIndex++; // consume 'cout'
-
-        while (currentIndex < tokens.size() && tokens.get(currentIndex).type.equals("Operator") &&
-               tokens.get(currentIndex).value.equals("<<")) {
-            currentIndex++; // consume '<<'
-
-            if (currentIndex >= tokens.size()) {
-                errors.add("Syntax Error at Line " + line + ": Expected expression after '<<' in cout statement");
-                return;
-            }
-
-            Token outputToken = tokens.get(currentIndex);
-            if (outputToken.type.startsWith("Literal") ||
-                (outputToken.type.equals("Identifier") && isVariableDeclared(outputToken.value)) ||
-                outputToken.value.equals("endl")) {
-                if (isIdentifier(outputToken)) {
-                    variableUsage.merge(outputToken.value, 1, Integer::sum);
-                }
-                currentIndex++; // consume the output item
-            } else {
-                errors.add("Syntax Error at Line " + line + ": Invalid output item '" + outputToken.value + "' after '<<'");
-                currentIndex++;
-                return;
-            }
-        }
-
-        if (currentIndex >= tokens.size() || !tokens.get(currentIndex).value.equals(";")) {
-            errors.add("Syntax Error at Line " + line + ": Missing semicolon after cout statement");
-        } else {
-            currentIndex++;
-        }
-    }
-
-    private void analyzeFunctionCall() {
-        Token funcToken = tokens.get(currentIndex);
-        int line = funcToken.line;
-        String funcName = funcToken.value;
-        if (funcName.equals("cout")) {
-            analyzeCoutStatement();
-            return;
-        }
-        if (!functionReturnTypes.containsKey(funcName)) {
-            errors.add("Semantic Error at Line " + line + ": Function '" + funcName + "' called before declaration");
-        }
-        currentIndex++;
-        if (currentIndex < tokens.size() && tokens.get(currentIndex).type.equals("Separator")
-                && tokens.get(currentIndex).value.equals("(")) {
-            currentIndex++;
-            boolean expectArg = true;
-            int argCount = 0;
-            while (currentIndex < tokens.size() && !tokens.get(currentIndex).value.equals(")")) {
-                Token token = tokens.get(currentIndex);
-                if (token.type.equals("Separator") && token.value.equals(",")) {
-                    if (expectArg) {
-                        errors.add("Syntax Error at Line " + line + ": Missing argument before comma in function call");
-                    }
-                    expectArg = true;
-                } else if (isIdentifier(token) || token.type.startsWith("Literal")) {
-                    if (!expectArg) {
-                        errors.add("Syntax Error at Line " + line + ": Expected ',' between arguments in function call");
-                    }
-                    if (isIdentifier(token)) {
-                        if (!isVariableDeclared(token.value)) {
-                            errors.add("Syntax Error at Line " + token.line + ": Variable '" + token.value + "' used before declaration");
-                        } else {
-                            variableUsage.merge(token.value, 1, Integer::sum);
-                        }
-                    }
-                    expectArg = false;
-                    argCount++;
-                } else {
-                    errors.add("Syntax Error at Line " + line + ": Invalid token '" + token.value + "' in function call argument");
-                }
-                currentIndex++;
-            }
-            if (currentIndex < tokens.size() && tokens.get(currentIndex).value.equals(")")) {
-                currentIndex++;
-                if (expectArg && argCount == 0) {
-                    // Allow empty argument list
-                } else if (expectArg) {
-                    errors.add("Syntax Error at Line " + line + ": Missing argument after comma in function call");
-                }
-                // Check argument count
-                if (functionReturnTypes.containsKey(funcName)) {
-                    int expectedParams = functionParamCounts.getOrDefault(funcName, 0);
-                    if (argCount != expectedParams) {
-                        errors.add("Semantic Error at Line " + line + ": Function '" + funcName + "' expects " + expectedParams +
-                                   " arguments but " + argCount + " were provided");
-                    }
-                }
-            } else {
-                errors.add("Syntax Error at Line " + line + ": Missing closing parenthesis in function call");
-            }
-            if (currentIndex < tokens.size() && tokens.get(currentIndex).type.equals("Separator")
-                    && tokens.get(currentIndex).value.equals(";")) {
-                currentIndex++;
-            } else {
-                errors.add("Syntax Error at Line " + line + ": Missing semicolon after function call");
-            }
-        } else {
-            errors.add("Syntax Error at Line " + line + ": Expected '(' after function name");
-        }
-    }
-
-    private void analyzeReturnStatement() {
-        int line = tokens.get(currentIndex).line;
-        currentIndex++;
-
-        boolean inFunction = scopeStack.size() > 1;
-        String expectedReturnType = "void";
-        String functionName = null;
-
-        if (inFunction) {
-            for (int i = tokens.size() - 1; i >= 0; i--) {
-                Token t = tokens.get(i);
-                if (t.type.equals("Identifier") && functionReturnTypes.containsKey(t.value)) {
-                    expectedReturnType = functionReturnTypes.get(t.value);
-                    functionName = t.value;
-                    break;
-                }
-            }
-        }
-
-        if (currentIndex < tokens.size() && !tokens.get(currentIndex).value.equals(";")) {
-            if (expectedReturnType.equals("void")) {
-                errors.add("Syntax Error at Line " + line + ": Void function should not return a value");
-            }
-            int startIndex = currentIndex;
-            analyzeExpression(line, expectedReturnType);
-            if (startIndex == currentIndex) {
-                errors.add("Syntax Error at Line " + line + ": Expected return value for non-void function");
-            }
-            if (functionName != null && functionName.equals("main") && expectedReturnType.equals("int")) {
-                Token lastToken = tokens.get(currentIndex - 1);
-                if (!lastToken.type.equals("Literal (Int)")) {
-                    errors.add("Syntax Error at Line " + line + ": 'main' function must return an integer value");
-                }
-            }
-        } else if (!expectedReturnType.equals("void")) {
-            errors.add("Syntax Error at Line " + line + ": Non-void function '" + (functionName != null ? functionName : "") +
-                       "' must return a value");
-        }
-
-        if (currentIndex < tokens.size() && tokens.get(currentIndex).value.equals(";")) {
-            currentIndex++;
-        } else {
-            errors.add("Syntax Error at Line " + line + ": Missing semicolon after return statement");
-        }
-    }
-
-    private void skipBlock() {
-        currentIndex++; // Consume '{'
-        scopeStack.push(new HashSet<>());
-        int braceCount = 1;
-
-        while (currentIndex < tokens.size() && braceCount > 0) {
-            Token token = tokens.get(currentIndex);
-
-            if (token.type.equals("Separator") && token.value.equals("{")) {
-                braceCount++;
-                skipBlock();
-            } else if (token.type.equals("Separator") && token.value.equals("}")) {
-                braceCount--;
-                if (braceCount == 0) {
-                    scopeStack.pop();
-                    currentIndex++;
-                    break;
-                }
-                currentIndex++;
-            } else {
-                if (isDataType(token.value)) {
-                    analyzeVariableDeclaration();
-                } else if (isIdentifier(token)) {
-                    if (lookAhead().type.equals("Operator") && lookAhead().value.equals("=")) {
-                        analyzeAssignment();
-                    } else if (lookAhead().type.equals("Separator") && lookAhead().value.equals("(")) {
-                        analyzeFunctionCall();
-                    }else if (token.value.equals("cout")) {
-    analyzeCoutStatement();
-} else if (lookAhead().type.equals("Operator") &&
-                            (lookAhead().value.equals("++") || lookAhead().value.equals("--"))) {
-                        if (!isVariableDeclared(token.value)) {
-                            errors.add("Syntax Error at Line " + token.line + ": Variable '" + token.value + "' used before declaration");
-                        } else {
-                            variableUsage.merge(token.value, 1, Integer::sum);
-                        }
-                        currentIndex += 2;
-                        if (currentIndex < tokens.size() && tokens.get(currentIndex).value.equals(";")) {
-                            currentIndex++;
-                        } else {
-                            errors.add("Syntax Error at Line " + token.line + ": Missing semicolon after increment/decrement");
-                        }
-                    } else if (token.value.equals("cout")) {
-                        analyzeCoutStatement();
-                    } else {
-                        errors.add("Syntax Error at Line " + token.line + ": Invalid statement - unexpected identifier '" + token.value + "'");
-                        currentIndex++;
-                    }
-                } else if (token.value.equals("if")) {
-                    analyzeIfStatement();
-                } else if (token.value.equals("for")) {
-                    analyzeForLoop();
-                } else if (token.value.equals("while")) {
-                    analyzeWhileLoop();
-                } else if (token.value.equals("return")) {
-                    analyzeReturnStatement();
-                } else if (token.type.equals("Separator") && token.value.equals(";")) {
-                    errors.add("Syntax Error at Line " + token.line + ": Stray semicolon in block");
-                    currentIndex++;
-                } else if (token.type.equals("Operator")) {
-                    errors.add("Syntax Error at Line " + token.line + ": Unexpected operator '" + token.value + "' in block");
-                    currentIndex++;
-                } else {
-                    errors.add("Syntax Error at Line " + token.line + ": Unexpected token '" + token.value + "' in block");
-                    currentIndex++;
-                }
-            }
-        }
-
-        if (braceCount > 0) {
-            errors.add("Syntax Error at Line " + tokens.get(currentIndex - 1).line + ": Missing closing brace '}'");
-        }
-    }
-
-    private boolean isVariableDeclared(String varName) {
-        for (Set<String> scope : scopeStack) {
-            if (scope.contains(varName))
-                return true;
-        }
-        return varName.equals("cout") || varName.equals("endl");
-    }
-
-    private boolean isVariableDeclaredInCurrentScope(String varName) {
-        return scopeStack.peek().contains(varName);
-    }
-
-    private void addVariableToScope(String varName) {
-        scopeStack.peek().add(varName);
-    }
-
-    private boolean isComparisonOperator(String op) {
-        return op.equals("==") || op.equals("!=") || op.equals("<") || op.equals(">") ||
-                op.equals("<=") || op.equals(">=");
-    }
-}
-
-
 public class WppScannerGUI extends JFrame {
-    private JTextPane codeArea;
+    private JTextPane codeArea; // The selected tab's, as are lineNumbers and undoManager
     private JTextArea lineNumbers;
-    private JTable tokensTable, symbolTable, errorsTable;
-    private DefaultTableModel tokensTableModel, symbolTableModel, errorsTableModel;
+    private JTabbedPane editorTabs;
+    private final java.util.List<EditorTab> tabs = new ArrayList<>(); // In editorTabs order
+    private int untitledCount;
+    private String fontName;
+    private javax.swing.Timer statsTimer; // Recounts the status bar once typing pauses
+    private javax.swing.Timer highlightTimer; // Works through the tabs' queued highlighting while there is any
+    private static final int IMMEDIATE_HIGHLIGHT_LINES = 100; // Edits spanning more lines are queued
+    private static final int HIGHLIGHT_SLICE_LINES = 200;
+    private static final long HIGHLIGHT_TICK_NANOS = 8_000_000; // Highlighting per tick, so the EDT stays responsive
+    private static final int FIRST_CHUNK_BYTES = 16 << 10; // Enough for the first screen
+    private static final int LOAD_CHUNK_BYTES = 64 << 10;
+    private JTable tokensTable, symbolTable, errorsTable, performanceTable;
+    private JTextArea irArea, outputArea;
+    private JTabbedPane tablesTabbedPane;
+    private Runnable stopRunning; // Stops the program currently executing, if any
+    private JCheckBoxMenuItem jvmBackendItem;
+    private static final long VM_STACK_SIZE = 256L << 20; // Deeply recursive programs recurse in the VM too
+    private DefaultTableModel tokensTableModel, symbolTableModel, errorsTableModel, performanceTableModel;
     private JLabel statusLabelLeft, statusLabelCenter, statusLabelRight;
     private JMenuItem toggleDarkModeItem;
     private UndoManager undoManager;
@@ -967,8 +48,6 @@ public class WppScannerGUI extends JFrame {
     private static final int MAX_RECENTS = 5;
     private final LinkedList<File> recentFiles = new LinkedList<>();
     private JMenu openRecentMenu;
-    private Map<String, SymbolTableEntry> symbolTableMap;
-    private java.util.List<Token> tokens;
     private static final Set<String> KEYWORDS = new HashSet<>(Arrays.asList(
             "int", "float", "double", "char", "string", "bool", "void", "class", "namespace",
             "public", "private", "protected", "static", "virtual", "const", "constexpr",
@@ -980,6 +59,10 @@ public class WppScannerGUI extends JFrame {
             "&", "|", "^", "~", "<<", ">>", "+=", "-=", "*=", "/=", "%=", "&=", "|=", "^=", "<<=", ">>=",
             "->", "::", "?", ":"));
     private static final Set<String> SEPARATORS = new HashSet<>(Arrays.asList("(", ")", "{", "}", "[", "]", ";", ","));
+    static final Object[] PERFORMANCE_COLUMNS = { "Phase", "Time (ms)", "Share of Time", "Allocated (KB)" };
+    static final Object[] TOKEN_COLUMNS = { "Token Type", "Value", "Line" };
+    static final Object[] SYMBOL_COLUMNS = { "Name", "Kind", "Type", "Value", "Size", "Dimension", "Line of Declaration",
+            "Line of Usage", "Address" };
 
     private Style defaultStyle, keywordStyle, errorStyle;
 
@@ -1006,10 +89,8 @@ public class WppScannerGUI extends JFrame {
         JMenu fileMenu = new JMenu("File");
         fileMenu.add(createMenuItem("New", "FileView.fileIcon",
                 KeyStroke.getKeyStroke(KeyEvent.VK_N, InputEvent.CTRL_DOWN_MASK), e -> {
-                    codeArea.setText("");
+                    newTab(null);
                     statusLabelLeft.setText("New file");
-                    updateLineNumbers();
-                    updateDocumentStats();
                 }));
         fileMenu.add(createMenuItem("Open", "FileView.directoryIcon",
                 KeyStroke.getKeyStroke(KeyEvent.VK_O, InputEvent.CTRL_DOWN_MASK), e -> openFile()));
@@ -1017,6 +98,8 @@ public class WppScannerGUI extends JFrame {
         fileMenu.add(openRecentMenu);
         fileMenu.add(createMenuItem("Save", "FileView.fileIcon",
                 KeyStroke.getKeyStroke(KeyEvent.VK_S, InputEvent.CTRL_DOWN_MASK), e -> saveFile()));
+        fileMenu.add(createMenuItem("Close Tab", null,
+                KeyStroke.getKeyStroke(KeyEvent.VK_W, InputEvent.CTRL_DOWN_MASK), e -> closeTab()));
         fileMenu.addSeparator();
         fileMenu.add(createMenuItem("Exit", null,
                 KeyStroke.getKeyStroke(KeyEvent.VK_Q, InputEvent.CTRL_DOWN_MASK), e -> System.exit(0)));
@@ -1036,6 +119,13 @@ public class WppScannerGUI extends JFrame {
         JMenu compileMenu = new JMenu("Compile");
         compileMenu.add(createMenuItem("Run Scanner", "FileView.computerIcon",
                 KeyStroke.getKeyStroke(KeyEvent.VK_R, InputEvent.CTRL_DOWN_MASK), e -> runScanner()));
+        compileMenu.add(createMenuItem("Execute Program", "FileView.computerIcon",
+                KeyStroke.getKeyStroke(KeyEvent.VK_F5, 0), e -> executeProgram()));
+        compileMenu.add(createMenuItem("Stop Program", null,
+                KeyStroke.getKeyStroke(KeyEvent.VK_F5, InputEvent.SHIFT_DOWN_MASK), e -> stopProgram()));
+        jvmBackendItem = new JCheckBoxMenuItem("Compile to JVM Bytecode", true);
+        jvmBackendItem.setToolTipText("Run programs as generated JVM classes instead of on the interpreter");
+        compileMenu.add(jvmBackendItem);
 
         JMenu searchMenu = new JMenu("Search");
         searchMenu.add(createMenuItem("Find/Replace...", null,
@@ -1071,51 +161,23 @@ public class WppScannerGUI extends JFrame {
         toolBar.add(createToolbarButton("Save", "FileView.fileIcon", "Save", e -> saveFile()));
         toolBar.addSeparator();
         toolBar.add(createToolbarButton("Run", "FileView.computerIcon", "Run Scanner", e -> runScanner()));
+        toolBar.addSeparator();
+        toolBar.add(createToolbarButton("Execute", "FileView.computerIcon", "Execute Program", e -> executeProgram()));
+        toolBar.addSeparator();
+        toolBar.add(createToolbarButton("Stop", null, "Stop Program", e -> stopProgram()));
 
-        // Code area setup
-       codeArea = new JTextPane();
+        // Editor tabs, one per open document
         initializeStyles();
-        String fontName = Arrays.asList(GraphicsEnvironment.getLocalGraphicsEnvironment().getAvailableFontFamilyNames())
+        fontName = Arrays.asList(GraphicsEnvironment.getLocalGraphicsEnvironment().getAvailableFontFamilyNames())
                 .contains("JetBrains Mono") ? "JetBrains Mono" : Font.MONOSPACED;
-        codeArea.setFont(new Font(fontName, Font.PLAIN, 16));
-        codeArea.setBackground(new Color(245, 247, 250));
-        codeArea.setDocument(new DefaultStyledDocument());
-        codeArea.putClientProperty("caretWidth", 2);
-        codeArea.getDocument().addDocumentListener(new SyntaxHighlightListener());
-        codeArea.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
-        undoManager = new UndoManager();
-        codeArea.getDocument().addUndoableEditListener(undoManager);
-
-        // Line numbers
-        lineNumbers = new JTextArea("1");
-        lineNumbers.setBackground(new Color(230, 234, 240));
-        lineNumbers.setForeground(new Color(80, 80, 80));
-        lineNumbers.setEditable(false);
-        lineNumbers.setFont(new Font(fontName, Font.PLAIN, 16));
-        lineNumbers.setBorder(BorderFactory.createEmptyBorder(10, 5, 10, 5));
-        lineNumbers.setMargin(new Insets(0, 5, 0, 5));
-        codeArea.getDocument().addDocumentListener(new DocumentListener() {
-            public void insertUpdate(DocumentEvent e) {
-                updateLineNumbers();
-                updateDocumentStats();
-            }
-
-            public void removeUpdate(DocumentEvent e) {
-                updateLineNumbers();
-                updateDocumentStats();
-            }
-
-            public void changedUpdate(DocumentEvent e) {
-                updateLineNumbers();
-                updateDocumentStats();
-            }
-        });
-
-        JScrollPane codeScrollPane = new JScrollPane(codeArea);
-        codeScrollPane.setRowHeaderView(lineNumbers);
+        statsTimer = new javax.swing.Timer(150, e -> updateDocumentStats());
+        statsTimer.setRepeats(false);
+        highlightTimer = new javax.swing.Timer(1, e -> highlightQueued());
+        editorTabs = new JTabbedPane();
+        editorTabs.addChangeListener(e -> selectTab());
 
         // Tables setup
-        tokensTableModel = new DefaultTableModel(new Object[] { "Token Type", "Value", "Line" }, 0);
+        tokensTableModel = new DefaultTableModel(TOKEN_COLUMNS, 0);
         tokensTable = new JTable(tokensTableModel);
         tokensTable.setRowHeight(25);
         tokensTable.setIntercellSpacing(new Dimension(10, 0));
@@ -1128,8 +190,7 @@ public class WppScannerGUI extends JFrame {
         tokensTable.setFont(new Font("Segoe UI", Font.PLAIN, 14));
         tokensTable.setFillsViewportHeight(true);
 
-        symbolTableModel = new DefaultTableModel(new Object[] { "Name", "Kind", "Type", "Value", "Size", "Dimension",
-                "Line of Declaration", "Line of Usage", "Address" }, 0);
+        symbolTableModel = new DefaultTableModel(SYMBOL_COLUMNS, 0);
         symbolTable = new JTable(symbolTableModel);
         symbolTable.setRowHeight(25);
         symbolTable.setIntercellSpacing(new Dimension(10, 0));
@@ -1192,14 +253,42 @@ public class WppScannerGUI extends JFrame {
             }
         });
 
-        JTabbedPane tablesTabbedPane = new JTabbedPane();
+        performanceTableModel = new DefaultTableModel(PERFORMANCE_COLUMNS, 0);
+        performanceTable = new JTable(performanceTableModel);
+        performanceTable.setRowHeight(25);
+        performanceTable.setIntercellSpacing(new Dimension(10, 0));
+        performanceTable.setShowGrid(true);
+        performanceTable.setBackground(new Color(245, 247, 250));
+        performanceTable.setForeground(new Color(33, 33, 33));
+        performanceTable.getTableHeader().setBackground(new Color(230, 234, 240));
+        performanceTable.getTableHeader().setForeground(new Color(33, 33, 33));
+        performanceTable.getTableHeader().setFont(new Font("Segoe UI", Font.BOLD, 14));
+        performanceTable.setFont(new Font("Segoe UI", Font.PLAIN, 14));
+        performanceTable.setFillsViewportHeight(true);
+
+        irArea = new JTextArea();
+        irArea.setEditable(false);
+        irArea.setFont(new Font(fontName, Font.PLAIN, 14));
+        irArea.setBackground(new Color(245, 247, 250));
+        irArea.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+
+        outputArea = new JTextArea();
+        outputArea.setEditable(false);
+        outputArea.setFont(new Font(fontName, Font.PLAIN, 14));
+        outputArea.setBackground(new Color(245, 247, 250));
+        outputArea.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+
+        tablesTabbedPane = new JTabbedPane();
         tablesTabbedPane.setBackground(new Color(236, 240, 245));
         tablesTabbedPane.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
         tablesTabbedPane.addTab("Tokens", new JScrollPane(tokensTable));
         tablesTabbedPane.addTab("Symbol Table", new JScrollPane(symbolTable));
         tablesTabbedPane.addTab("Syntax Errors", new JScrollPane(errorsTable));
+        tablesTabbedPane.addTab("Intermediate Code", new JScrollPane(irArea));
+        tablesTabbedPane.addTab("Output", new JScrollPane(outputArea));
+        tablesTabbedPane.addTab("Performance", new JScrollPane(performanceTable));
 
-        JSplitPane mainSplit = new JSplitPane(JSplitPane.VERTICAL_SPLIT, codeScrollPane, tablesTabbedPane);
+        JSplitPane mainSplit = new JSplitPane(JSplitPane.VERTICAL_SPLIT, editorTabs, tablesTabbedPane);
         mainSplit.setDividerLocation(400);
         mainSplit.setOneTouchExpandable(true);
         mainSplit.setDividerSize(8);
@@ -1216,20 +305,139 @@ public class WppScannerGUI extends JFrame {
         statusPanel.add(statusLabelCenter, BorderLayout.CENTER);
         statusPanel.add(statusLabelRight, BorderLayout.EAST);
 
-        // Main panel
-        JPanel mainPanel = new JPanel(new BorderLayout());
-        mainPanel.setBackground(new Color(236, 240, 245));
-        mainPanel.add(toolBar, BorderLayout.NORTH);
-        mainPanel.add(mainSplit, BorderLayout.CENTER);
-        mainPanel.add(statusPanel, BorderLayout.SOUTH);
-        getContentPane().add(mainPanel);
+        // Main panel
+        JPanel mainPanel = new JPanel(new BorderLayout());
+        mainPanel.setBackground(new Color(236, 240, 245));
+        mainPanel.add(toolBar, BorderLayout.NORTH);
+        mainPanel.add(mainSplit, BorderLayout.CENTER);
+        mainPanel.add(statusPanel, BorderLayout.SOUTH);
+        getContentPane().add(mainPanel);
+
+        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        setSize(1200, 700);
+        setLocationRelativeTo(null);
+        newTab(null);
+        setVisible(true);
+        updateRecentMenu();
+    }
+
+    // One open document: its editor, undo history and file, and the last analysis of its text
+    private final class EditorTab {
+        final PieceTableDocument document = new PieceTableDocument();
+        final JTextPane codeArea = new JTextPane(document);
+        final JTextArea lineNumbers = new JTextArea("1");
+        final UndoManager undoManager = new UndoManager();
+        final JScrollPane scrollPane = new JScrollPane(codeArea);
+        final AnalysisPipeline pipeline = new AnalysisPipeline();
+        File file;
+        String title;
+        ScanResult result; // Null until the first scan
+        final java.util.List<Position[]> unstyled = new ArrayList<>(); // First and last offsets still to highlight
+        int scans; // Scan requests so far; only the latest one's result is kept
+        boolean loading; // A FileLoad is reading the file in; the user's edits are refused meanwhile
+
+        EditorTab(String title) {
+            this.title = title;
+            codeArea.setFont(new Font(fontName, Font.PLAIN, 16));
+            codeArea.putClientProperty("caretWidth", 2);
+            document.addDocumentListener(new SyntaxHighlightListener(this));
+            codeArea.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+            document.addUndoableEditListener(undoManager);
+            // Refuses edits while loading instead of making the pane read-only, which would rebuild its views
+            document.setDocumentFilter(new DocumentFilter() {
+                public void insertString(FilterBypass fb, int offset, String string, AttributeSet attr)
+                        throws BadLocationException {
+                    if (editable())
+                        fb.insertString(offset, string, attr);
+                }
+
+                public void remove(FilterBypass fb, int offset, int length) throws BadLocationException {
+                    if (editable())
+                        fb.remove(offset, length);
+                }
+
+                public void replace(FilterBypass fb, int offset, int length, String text, AttributeSet attrs)
+                        throws BadLocationException {
+                    if (editable())
+                        fb.replace(offset, length, text, attrs);
+                }
+            });
+
+            lineNumbers.setEditable(false);
+            lineNumbers.setFont(new Font(fontName, Font.PLAIN, 16));
+            lineNumbers.setBorder(BorderFactory.createEmptyBorder(10, 5, 10, 5));
+            lineNumbers.setMargin(new Insets(0, 5, 0, 5));
+            applyEditorColors(this);
+            document.addDocumentListener(new DocumentListener() {
+                public void insertUpdate(DocumentEvent e) {
+                    edited();
+                }
+
+                public void removeUpdate(DocumentEvent e) {
+                    edited();
+                }
+
+                public void changedUpdate(DocumentEvent e) {
+                }
+            });
+            scrollPane.setRowHeaderView(lineNumbers);
+        }
+
+        private void edited() {
+            updateLineNumbers(this);
+            if (this == currentTab() && !loading) {
+                statsTimer.restart();
+            }
+        }
+
+        private boolean editable() {
+            if (loading) {
+                UIManager.getLookAndFeel().provideErrorFeedback(codeArea);
+            }
+            return !loading;
+        }
+    }
+
+    private EditorTab currentTab() {
+        int index = editorTabs.getSelectedIndex();
+        return index >= 0 ? tabs.get(index) : null;
+    }
 
-        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        setSize(1200, 700);
-        setLocationRelativeTo(null);
-        setVisible(true);
-        updateLineNumbers();
-        updateRecentMenu();
+    // Opens an empty tab, named after the file if there is one, and selects it
+    private EditorTab newTab(File file) {
+        EditorTab tab = new EditorTab(file != null ? file.getName() : "Untitled " + ++untitledCount);
+        tab.file = file;
+        tabs.add(tab);
+        editorTabs.addTab(tab.title, tab.scrollPane);
+        editorTabs.setToolTipTextAt(tabs.size() - 1, file != null ? file.getAbsolutePath() : null);
+        editorTabs.setSelectedIndex(tabs.size() - 1);
+        return tab;
+    }
+
+    private void closeTab() {
+        int index = editorTabs.getSelectedIndex();
+        if (index < 0) {
+            return;
+        }
+        tabs.remove(index);
+        editorTabs.removeTabAt(index);
+        if (tabs.isEmpty()) {
+            newTab(null);
+        }
+    }
+
+    // Points the editor fields at the selected tab and shows its last analysis
+    private void selectTab() {
+        EditorTab tab = currentTab();
+        if (tab == null) {
+            return;
+        }
+        codeArea = tab.codeArea;
+        lineNumbers = tab.lineNumbers;
+        undoManager = tab.undoManager;
+        showResult(tab);
+        updateDocumentStats();
+        setTitle("Wpp Compiler by Binary Brains - " + tab.title);
     }
 
     private JMenuItem createMenuItem(String text, String iconKey, KeyStroke accelerator, ActionListener listener) {
@@ -1263,8 +471,9 @@ public class WppScannerGUI extends JFrame {
         return button;
     }
 
+    // The styles are shared by every tab's document
     private void initializeStyles() {
-        StyledDocument doc = codeArea.getStyledDocument();
+        StyleContext doc = new StyleContext();
         Style base = doc.getStyle(StyleContext.DEFAULT_STYLE);
         defaultStyle = doc.addStyle("default", base);
         StyleConstants.setForeground(defaultStyle, new Color(33, 33, 33));
@@ -1279,34 +488,172 @@ public class WppScannerGUI extends JFrame {
     }
 
     private void applySyntaxHighlighting() {
-        SwingUtilities.invokeLater(() -> {
-            try {
-                StyledDocument doc = codeArea.getStyledDocument();
-                String text = doc.getText(0, doc.getLength());
-                doc.setCharacterAttributes(0, doc.getLength(), defaultStyle, true);
+        for (EditorTab tab : tabs) {
+            queueHighlighting(tab, 0, tab.document.getLength());
+        }
+    }
+
+    // Restyles, on the EDT, the lines holding [start, end) of the document. Positions keep the range on the
+    // same text if more edits land first. An edit's latency event, begun when the document changed, is
+    // committed once the highlighting is in place.
+    private void applySyntaxHighlighting(PieceTableDocument doc, int start, int end, WppEvents.EditLatency edit) {
+        Position from, to;
+        try {
+            from = doc.createPosition(start);
+            to = doc.createPosition(end);
+        } catch (BadLocationException e) {
+            e.printStackTrace();
+            return;
+        }
+        SwingUtilities.invokeLater(
+                () -> highlightLines(doc, doc.lineOfOffset(from.getOffset()), doc.lineOfOffset(to.getOffset()), edit));
+    }
+
+    // Restyles lines first to last, from 0, as plain text with the keywords picked out
+    private void highlightLines(PieceTableDocument doc, int first, int last, WppEvents.EditLatency edit) {
+        WppEvents.Highlight event = new WppEvents.Highlight();
+        event.begin();
+        try {
+            int lineStart = doc.lineStartOffset(first);
+            for (int line = first; line <= last; line++) {
+                int next = doc.lineStartOffset(line + 1);
+                int lineEnd = line + 1 < doc.lineCount() ? next - 1 : next; // Without the '\n'
+                String text = doc.getText(lineStart, lineEnd - lineStart);
+                doc.setCharacterAttributes(lineStart, text.length(), defaultStyle, true);
                 int pos = 0;
-                for (String token : tokenize(text)) {
+                java.util.List<String> lexemes = tokenize(text);
+                for (String token : lexemes) {
                     if (!token.isEmpty() && KEYWORDS.contains(token)) {
-                        int start = text.indexOf(token, pos);
-                        if (start >= 0) {
-                            doc.setCharacterAttributes(start, token.length(), keywordStyle, true);
-                            pos = start + token.length();
+                        int keyword = text.indexOf(token, pos);
+                        if (keyword >= 0) {
+                            doc.setCharacterAttributes(lineStart + keyword, token.length(), keywordStyle, true);
+                            pos = keyword + token.length();
+                            event.keywords++;
                         }
                     }
                 }
-            } catch (BadLocationException e) {
-                e.printStackTrace();
+                event.characters += text.length();
+                event.tokens += lexemes.size();
+                lineStart = next;
             }
-        });
+        } catch (BadLocationException e) {
+            e.printStackTrace();
+        }
+        event.commit();
+        if (edit != null) {
+            edit.characters = event.characters;
+            edit.tokens = event.tokens;
+            edit.commit();
+        }
+    }
+
+    // Queues [start, end) of the tab's text to be highlighted a slice at a time by highlightQueued. The range is
+    // kept as its first and last chars, so text appended right after it is not taken in.
+    private void queueHighlighting(EditorTab tab, int start, int end) {
+        try {
+            tab.unstyled.add(new Position[] { tab.document.createPosition(start),
+                    tab.document.createPosition(Math.max(start, end - 1)) });
+        } catch (BadLocationException e) {
+            e.printStackTrace();
+            return;
+        }
+        if (!highlightTimer.isRunning()) {
+            highlightTimer.start();
+        }
+    }
+
+    // Highlights queued text for one tick: the lines on screen first, then the selected tab's queue in order,
+    // then the other tabs'
+    private void highlightQueued() {
+        long deadline = System.nanoTime() + HIGHLIGHT_TICK_NANOS;
+        EditorTab current = currentTab();
+        java.util.List<EditorTab> order = new ArrayList<>(tabs);
+        if (current != null) {
+            highlightVisible(current);
+            order.remove(current);
+            order.add(0, current);
+        }
+        for (EditorTab tab : order) {
+            while (!tab.unstyled.isEmpty()) {
+                if (System.nanoTime() >= deadline) {
+                    return;
+                }
+                int first = tab.document.lineOfOffset(tab.unstyled.get(0)[0].getOffset());
+                highlightQueuedLines(tab, 0, first, first + HIGHLIGHT_SLICE_LINES - 1);
+            }
+        }
+        highlightTimer.stop();
+    }
+
+    private void highlightVisible(EditorTab tab) {
+        Rectangle view = tab.codeArea.getVisibleRect();
+        int top = tab.codeArea.viewToModel2D(new Point(view.x, view.y));
+        int bottom = tab.codeArea.viewToModel2D(new Point(view.x + view.width, view.y + view.height));
+        if (top < 0 || bottom < top) {
+            return;
+        }
+        int first = tab.document.lineOfOffset(top), last = tab.document.lineOfOffset(bottom);
+        // Backwards, since a range may be replaced by the two parts either side of the screen
+        for (int k = tab.unstyled.size() - 1; k >= 0; k--) {
+            highlightQueuedLines(tab, k, first, last);
+        }
+    }
+
+    // Highlights the lines of the tab's queued range that fall in [first, last] and requeues the rest of it
+    private void highlightQueuedLines(EditorTab tab, int index, int first, int last) {
+        PieceTableDocument doc = tab.document;
+        Position[] range = tab.unstyled.get(index);
+        if (range[0].getOffset() > range[1].getOffset()) {
+            // Undo puts positions back where they were, which can leave a range's ends swapped
+            range = new Position[] { range[1], range[0] };
+            tab.unstyled.set(index, range);
+        }
+        int rangeFirst = doc.lineOfOffset(range[0].getOffset()), rangeLast = doc.lineOfOffset(range[1].getOffset());
+        int from = Math.max(first, rangeFirst), to = Math.min(last, rangeLast);
+        if (from > to) {
+            return;
+        }
+        highlightLines(doc, from, to, null);
+        tab.unstyled.remove(index);
+        try {
+            if (to < rangeLast) {
+                tab.unstyled.add(index, new Position[] { doc.createPosition(doc.lineStartOffset(to + 1)), range[1] });
+            }
+            if (from > rangeFirst) {
+                tab.unstyled.add(index, new Position[] { range[0], doc.createPosition(doc.lineStartOffset(from) - 1) });
+            }
+        } catch (BadLocationException e) {
+            e.printStackTrace();
+        }
     }
 
+    // Restyles the lines an edit touched: right away for typing, through the queue for large pastes and files
+    // being loaded
     private class SyntaxHighlightListener implements DocumentListener {
+        private final EditorTab tab;
+
+        SyntaxHighlightListener(EditorTab tab) {
+            this.tab = tab;
+        }
+
         public void insertUpdate(DocumentEvent e) {
-            applySyntaxHighlighting();
+            int start = e.getOffset(), end = start + e.getLength();
+            if (tab.document.lineOfOffset(end) - tab.document.lineOfOffset(start) > IMMEDIATE_HIGHLIGHT_LINES) {
+                queueHighlighting(tab, start, end);
+            } else {
+                applySyntaxHighlighting(tab.document, start, end, editEvent(e));
+            }
         }
 
         public void removeUpdate(DocumentEvent e) {
-            applySyntaxHighlighting();
+            applySyntaxHighlighting(tab.document, e.getOffset(), e.getOffset(), editEvent(e));
+        }
+
+        private WppEvents.EditLatency editEvent(DocumentEvent e) {
+            WppEvents.EditLatency edit = new WppEvents.EditLatency();
+            edit.editLength = e.getLength();
+            edit.begin();
+            return edit;
         }
 
         public void changedUpdate(DocumentEvent e) {
@@ -1336,25 +683,58 @@ public class WppScannerGUI extends JFrame {
                         "<tr><td><font color='#0066cc'>Undo</font></td><td>Ctrl+Z</td></tr>" +
                         "<tr><td><font color='#0066cc'>Redo</font></td><td>Ctrl+Y</td></tr>" +
                         "<tr><td><font color='#0066cc'>Run Scanner</font></td><td>Ctrl+R</td></tr>" +
+                        "<tr><td><font color='#0066cc'>Execute Program</font></td><td>F5</td></tr>" +
+                        "<tr><td><font color='#0066cc'>Stop Program</font></td><td>Shift+F5</td></tr>" +
                         "<tr><td><font color='#0066cc'>Find/Replace</font></td><td>Ctrl+F</td></tr>" +
                         "<tr><td><font color='#0066cc'>Toggle Dark Mode</font></td><td>Ctrl+D</td></tr>" +
                         "</table></html>",
                 "Keyboard Shortcuts", JOptionPane.INFORMATION_MESSAGE);
     }
 
-    private void updateLineNumbers() {
-        String[] lines = codeArea.getText().split("\n", -1);
-        StringBuilder sb = new StringBuilder();
-        for (int i = 1; i <= lines.length; i++)
-            sb.append(i).append("\n");
-        lineNumbers.setText(sb.toString());
+    // Adds or drops numbers at the end of the gutter as the document's line count changes
+    private void updateLineNumbers(EditorTab tab) {
+        int lines = tab.document.lineCount(), shown = tab.lineNumbers.getLineCount();
+        if (lines > shown) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = shown + 1; i <= lines; i++)
+                sb.append("\n").append(i);
+            tab.lineNumbers.append(sb.toString());
+        } else if (lines < shown) {
+            try {
+                int end = tab.lineNumbers.getLineStartOffset(lines) - 1;
+                tab.lineNumbers.replaceRange(null, end, tab.lineNumbers.getDocument().getLength());
+            } catch (BadLocationException e) {
+                e.printStackTrace();
+            }
+        }
     }
 
+    // Counts through the document a segment at a time rather than copying it out
     private void updateDocumentStats() {
-        String text = codeArea.getText();
-        int lines = text.isEmpty() ? 0 : text.split("\n", -1).length;
-        int chars = text.length();
-        int words = text.trim().isEmpty() ? 0 : text.trim().split("\\s+").length;
+        EditorTab tab = currentTab();
+        if (tab == null) {
+            return;
+        }
+        PieceTableDocument doc = tab.document;
+        int chars = doc.getLength(), words = 0;
+        boolean inWord = false;
+        Segment segment = new Segment();
+        segment.setPartialReturn(true);
+        try {
+            for (int offset = 0; offset < chars; offset += segment.count) {
+                doc.getText(offset, chars - offset, segment);
+                char[] array = segment.array;
+                for (int k = segment.offset, end = segment.offset + segment.count; k < end; k++) {
+                    boolean space = Character.isWhitespace(array[k]);
+                    if (!space && !inWord)
+                        words++;
+                    inWord = !space;
+                }
+            }
+        } catch (BadLocationException e) {
+            e.printStackTrace();
+        }
+        int lines = chars == 0 ? 0 : doc.lineCount();
         statusLabelCenter.setText(String.format("Words: %d | Chars: %d | Lines: %d", words, chars, lines));
     }
 
@@ -1365,16 +745,13 @@ public class WppScannerGUI extends JFrame {
         Color headerBg = darkMode ? new Color(45, 46, 50) : new Color(230, 234, 240);
         Color gridColor = darkMode ? new Color(60, 60, 60) : new Color(200, 200, 200);
 
-        codeArea.setBackground(bg);
-        codeArea.setForeground(fg);
-        codeArea.setCaretColor(darkMode ? new Color(200, 200, 200) : new Color(33, 33, 33));
+        for (EditorTab tab : tabs) {
+            applyEditorColors(tab);
+        }
         StyleConstants.setForeground(defaultStyle, fg);
         StyleConstants.setForeground(keywordStyle, darkMode ? new Color(103, 140, 177) : new Color(0, 102, 204));
         StyleConstants.setFontSize(keywordStyle, 18);
 
-        lineNumbers.setBackground(darkMode ? new Color(45, 46, 50) : new Color(230, 234, 240));
-        lineNumbers.setForeground(darkMode ? new Color(150, 150, 150) : new Color(80, 80, 80));
-
         tokensTable.setBackground(bg);
         tokensTable.setForeground(fg);
         tokensTable.setGridColor(gridColor);
@@ -1393,52 +770,247 @@ public class WppScannerGUI extends JFrame {
         errorsTable.getTableHeader().setBackground(headerBg);
         errorsTable.getTableHeader().setForeground(fg);
 
+        performanceTable.setBackground(bg);
+        performanceTable.setForeground(fg);
+        performanceTable.setGridColor(gridColor);
+        performanceTable.getTableHeader().setBackground(headerBg);
+        performanceTable.getTableHeader().setForeground(fg);
+
+        irArea.setBackground(bg);
+        irArea.setForeground(fg);
+        outputArea.setBackground(bg);
+        outputArea.setForeground(fg);
+
         statusLabelRight.setText("Dark Mode " + (darkMode ? "ON" : "OFF"));
         applySyntaxHighlighting();
         SwingUtilities.updateComponentTreeUI(this);
     }
 
+    private void applyEditorColors(EditorTab tab) {
+        Color fg = darkMode ? new Color(200, 200, 200) : new Color(33, 33, 33);
+        tab.codeArea.setBackground(darkMode ? new Color(30, 31, 34) : new Color(245, 247, 250));
+        tab.codeArea.setForeground(fg);
+        tab.codeArea.setCaretColor(fg);
+        tab.lineNumbers.setBackground(darkMode ? new Color(45, 46, 50) : new Color(230, 234, 240));
+        tab.lineNumbers.setForeground(darkMode ? new Color(150, 150, 150) : new Color(80, 80, 80));
+    }
+
     private void openFile() {
         JFileChooser chooser = new JFileChooser();
         if (chooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION)
             openFileDirect(chooser.getSelectedFile());
     }
 
+    // Opens the file in a tab of its own, or selects the tab already showing it; an empty untitled tab is reused.
+    // The file streams in through a FileLoad, so its top shows at once however large it is.
     private void openFileDirect(File file) {
         if (file == null)
             return;
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            StringBuilder content = new StringBuilder();
-            String line;
-            while ((line = reader.readLine()) != null)
-                content.append(line).append("\n");
-            codeArea.setText(content.toString());
-            applySyntaxHighlighting();
-            statusLabelLeft.setText("Opened: " + file.getName());
-            updateLineNumbers();
-            updateDocumentStats();
-            addToRecent(file);
+        for (int i = 0; i < tabs.size(); i++) {
+            if (file.equals(tabs.get(i).file)) {
+                editorTabs.setSelectedIndex(i);
+                return;
+            }
+        }
+        AsynchronousFileChannel channel;
+        try {
+            channel = AsynchronousFileChannel.open(file.toPath(), StandardOpenOption.READ);
         } catch (IOException ex) {
             JOptionPane.showMessageDialog(this, "Error opening file: " + ex.getMessage());
             statusLabelLeft.setText("Error opening file");
+            return;
+        }
+        EditorTab tab = currentTab();
+        if (tab == null || tab.file != null || tab.document.getLength() > 0) {
+            tab = newTab(file);
+        } else {
+            setTabFile(tab, file);
+        }
+        new FileLoad(tab, file, channel).start();
+    }
+
+    // Reads a file into a tab through an AsynchronousFileChannel. Each chunk is decoded on the channel's thread
+    // and appended on the EDT, and only then is the next one read, so the EDT never waits on the disk and gets
+    // one chunk at a time. The first chunk is small to fill the screen quickly. Large chunks are highlighted
+    // through the queue, visible lines first, and the whole file is analyzed once it is in. The tab refuses edits
+    // and keeps no undo history meanwhile. Lines end in '\n' whatever the file used, and the text in one unless it is empty.
+    private final class FileLoad implements CompletionHandler<Integer, Void> {
+        private final EditorTab tab;
+        private final File file;
+        private final AsynchronousFileChannel channel;
+        private final CharsetDecoder decoder = Charset.defaultCharset().newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private ByteBuffer bytes = ByteBuffer.allocate(FIRST_CHUNK_BYTES);
+        private final CharBuffer chars = CharBuffer.allocate(LOAD_CHUNK_BYTES);
+        private long position;
+        private boolean carriageReturn; // The last chunk ended in '\r', which may be half of a "\r\n"
+        private char lastChar = '\n';
+
+        FileLoad(EditorTab tab, File file, AsynchronousFileChannel channel) {
+            this.tab = tab;
+            this.file = file;
+            this.channel = channel;
+        }
+
+        void start() {
+            tab.loading = true;
+            tab.document.removeUndoableEditListener(tab.undoManager);
+            tab.undoManager.discardAllEdits();
+            statusLabelLeft.setText("Loading " + file.getName() + "...");
+            channel.read(bytes, position, null, this);
+        }
+
+        public void completed(Integer count, Void unused) {
+            boolean end = count < 0;
+            position += Math.max(0, count);
+            bytes.flip();
+            String text = decode(end);
+            if (bytes.capacity() < LOAD_CHUNK_BYTES) {
+                bytes = ByteBuffer.allocate(LOAD_CHUNK_BYTES).put(bytes);
+            } else {
+                bytes.compact();
+            }
+            SwingUtilities.invokeLater(() -> append(text, end));
+        }
+
+        public void failed(Throwable e, Void unused) {
+            SwingUtilities.invokeLater(() -> {
+                finish();
+                JOptionPane.showMessageDialog(WppScannerGUI.this, "Error opening file: " + e.getMessage());
+                statusLabelLeft.setText("Error opening file");
+            });
+        }
+
+        // Decodes the bytes read so far, leaving an incomplete character for the next chunk
+        private String decode(boolean end) {
+            StringBuilder sb = new StringBuilder();
+            CoderResult result;
+            do {
+                result = decoder.decode(bytes, chars, end);
+                normalize(sb);
+            } while (result.isOverflow());
+            if (end) {
+                decoder.flush(chars);
+                normalize(sb);
+                if (carriageReturn || lastChar != '\n') {
+                    sb.append('\n');
+                }
+            }
+            return sb.toString();
+        }
+
+        // Moves the decoded chars to sb, turning "\r\n" and a lone '\r' into '\n'
+        private void normalize(StringBuilder sb) {
+            chars.flip();
+            while (chars.hasRemaining()) {
+                char ch = chars.get();
+                if (carriageReturn) {
+                    sb.append('\n');
+                    carriageReturn = false;
+                    if (ch == '\n') {
+                        continue;
+                    }
+                }
+                if (ch == '\r') {
+                    carriageReturn = true;
+                } else {
+                    sb.append(ch);
+                }
+            }
+            chars.clear();
+            if (sb.length() > 0) {
+                lastChar = sb.charAt(sb.length() - 1);
+            }
+        }
+
+        private void append(String text, boolean end) {
+            if (!tabs.contains(tab)) {
+                close(); // Closed while loading
+                return;
+            }
+            try {
+                boolean first = tab.document.getLength() == 0;
+                tab.loading = false; // Let the chunk past the filter
+                tab.document.insertString(tab.document.getLength(), text, null);
+                if (first) {
+                    tab.codeArea.setCaretPosition(0);
+                }
+            } catch (BadLocationException e) {
+                e.printStackTrace();
+            } finally {
+                tab.loading = true;
+            }
+            if (!end) {
+                if (tab == currentTab()) {
+                    long size = file.length();
+                    statusLabelLeft.setText(String.format("Loading %s... %d%%", file.getName(),
+                            size == 0 ? 100 : Math.min(100, position * 100 / size)));
+                }
+                channel.read(bytes, position, null, this);
+                return;
+            }
+            finish();
+            if (tab == currentTab()) {
+                statusLabelLeft.setText("Opened: " + file.getName());
+                updateDocumentStats();
+            }
+            addToRecent(file);
+            CharSequence loaded = tab.document.snapshot();
+            if (!isBlank(loaded)) {
+                analyze(tab, loaded, null);
+            }
+        }
+
+        private void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+
+        private void finish() {
+            close();
+            tab.loading = false;
+            tab.document.addUndoableEditListener(tab.undoManager);
         }
     }
 
     private void saveFile() {
+        EditorTab tab = currentTab();
         JFileChooser chooser = new JFileChooser();
+        if (tab.file != null)
+            chooser.setSelectedFile(tab.file);
         if (chooser.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
             File file = chooser.getSelectedFile();
             try (PrintWriter writer = new PrintWriter(file)) {
-                writer.write(codeArea.getText());
+                Segment segment = new Segment();
+                segment.setPartialReturn(true);
+                for (int offset = 0, length = tab.document.getLength(); offset < length; offset += segment.count) {
+                    tab.document.getText(offset, length - offset, segment);
+                    writer.write(segment.array, segment.offset, segment.count);
+                }
+                setTabFile(tab, file);
                 statusLabelLeft.setText("Saved: " + file.getName());
                 addToRecent(file);
-            } catch (IOException ex) {
+            } catch (IOException | BadLocationException ex) {
                 JOptionPane.showMessageDialog(this, "Error saving file: " + ex.getMessage());
                 statusLabelLeft.setText("Error saving file");
             }
         }
     }
 
+    private void setTabFile(EditorTab tab, File file) {
+        tab.file = file;
+        tab.title = file.getName();
+        int index = tabs.indexOf(tab);
+        editorTabs.setTitleAt(index, tab.title);
+        editorTabs.setToolTipTextAt(index, file.getAbsolutePath());
+        if (tab == currentTab()) {
+            setTitle("Wpp Compiler by Binary Brains - " + tab.title);
+        }
+    }
+
     private void addToRecent(File file) {
         recentFiles.remove(file);
         recentFiles.addFirst(file);
@@ -1458,104 +1030,341 @@ public class WppScannerGUI extends JFrame {
         }
     }
 
+    // The outcome of scanning one snapshot of a document's text; built on an analysis thread, then only read
+    private static final class ScanResult {
+        final PhaseProfile profile = new PhaseProfile();
+        java.util.List<Token> tokens;
+        final java.util.List<SymbolTableEntry> symbolEntries = new ArrayList<>();
+        final java.util.List<String> diagnostics = new ArrayList<>(); // The analyzer's, then the optimizer's
+        IrProgram irProgram; // Lowered form, null if the program has errors
+        String irText;
+    }
+
     private void runScanner() {
-        tokensTableModel.setRowCount(0);
-        symbolTableModel.setRowCount(0);
-        errorsTableModel.setRowCount(0);
-        symbolTableMap = new LinkedHashMap<>();
-        tokens = new ArrayList<>();
+        runScanner(null);
+    }
+
+    // Scans the selected tab, unless there is nothing to scan
+    private void runScanner(java.util.function.Consumer<EditorTab> then) {
+        EditorTab tab = currentTab();
+        CharSequence text = tab.document.snapshot();
+        if (isBlank(text)) {
+            JOptionPane.showMessageDialog(this, "No code to scan!");
+            statusLabelLeft.setText("No code to scan!");
+            return;
+        }
+        analyze(tab, text, then);
+    }
+
+    // Scans the text on the tab's analysis pipeline, off the EDT. Back on the EDT the result is kept for the tab,
+    // shown if the tab is still selected and handed to then; a result overtaken by a later scan of the same tab
+    // is dropped.
+    private void analyze(EditorTab tab, CharSequence text, java.util.function.Consumer<EditorTab> then) {
+        int scan = ++tab.scans;
+        if (tab == currentTab()) {
+            statusLabelLeft.setText("Scanning " + tab.title + "...");
+        }
+        tab.pipeline.submit(() -> {
+            ScanResult result = scan(text);
+            SwingUtilities.invokeLater(() -> {
+                if (scan != tab.scans || !tabs.contains(tab)) {
+                    return;
+                }
+                tab.result = result;
+                if (tab == currentTab()) {
+                    showResult(tab);
+                    statusLabelLeft.setText(String.format("Scan complete: %d tokens (%.1f ms)", result.tokens.size(),
+                            result.profile.totalNanos() / 1e6));
+                }
+                if (then != null) {
+                    then.accept(tab);
+                }
+            });
+        });
+    }
+
+    // Lexes, analyzes, lowers and optimizes the text without touching Swing
+    private static ScanResult scan(CharSequence text) {
+        ScanResult result = new ScanResult();
+        PhaseProfile profile = result.profile;
 
         // Predefine cout in symbol table
         SymbolTableEntry coutEntry = new SymbolTableEntry("cout", "stream", "ostream");
         coutEntry.lineOfDeclaration = 0; // Predefined
-        symbolTableMap.put("cout", coutEntry);
+        result.symbolEntries.add(coutEntry);
 
-        String text = codeArea.getText();
-        if (text.trim().isEmpty()) {
-            JOptionPane.showMessageDialog(this, "No code to scan!");
-            statusLabelLeft.setText("No code to scan!");
+        java.util.List<Token> tokens = scanTokens(text, profile);
+        result.tokens = tokens;
+
+        WppEvents.Parse parse = new WppEvents.Parse(text.length(), tokens.size());
+        parse.begin();
+        SyntaxAnalyzer syntaxAnalyzer = new SyntaxAnalyzer(tokens);
+        java.util.List<String> syntaxErrors = syntaxAnalyzer.analyze();
+        profile.mark(PhaseProfile.ANALYZE);
+        parse.diagnostics = syntaxErrors.size();
+        parse.commit();
+        result.diagnostics.addAll(syntaxErrors);
+
+        WppEvents.SemanticAnalysis semantic = new WppEvents.SemanticAnalysis(text.length(), tokens.size());
+        semantic.begin();
+        profile.start();
+        result.symbolEntries.addAll(syntaxAnalyzer.getSymbolTable());
+        StorageLayout.assign(result.symbolEntries);
+        profile.mark(PhaseProfile.SYMBOLS);
+        semantic.symbols = result.symbolEntries.size();
+
+        // Lower to three-address code and optimize once the program is free of errors; the optimizer
+        // fills in constant symbol values, so the tables are populated afterwards
+        if (syntaxAnalyzer.hasErrors()) {
+            result.irText = "// Intermediate code is generated once the program has no errors";
+        } else {
+            try {
+                IrProgram irProgram = new IrBuilder(tokens, syntaxAnalyzer.getSymbolTable()).build();
+                profile.mark(PhaseProfile.LOWER);
+                java.util.List<String> warnings = IrOptimizer.optimize(irProgram);
+                profile.mark(PhaseProfile.OPTIMIZE);
+                semantic.warnings = warnings.size();
+                result.diagnostics.addAll(warnings);
+                result.irProgram = irProgram;
+                result.irText = irProgram.toString();
+            } catch (IllegalStateException ex) {
+                result.irText = "// Could not lower the program: " + ex.getMessage();
+            }
+        }
+        semantic.commit();
+        return result;
+    }
+
+    // Fills the result tabs from the tab's last scan, or empties them before its first
+    private void showResult(EditorTab tab) {
+        tokensTableModel.setRowCount(0);
+        symbolTableModel.setRowCount(0);
+        errorsTableModel.setRowCount(0);
+        performanceTableModel.setRowCount(0);
+        irArea.setText("");
+        ScanResult result = tab.result;
+        if (result == null) {
             return;
         }
-        String[] lines = text.split("\\r?\\n");
-        boolean inBlockComment = false;
-        String currentType = null;
-        int lineNum = 1;
-        for (String line : lines) {
-            String processedLine = "";
-            int index = 0;
-            while (index < line.length()) {
-                if (!inBlockComment) {
-                    int inlineIndex = line.indexOf("//", index), blockIndex = line.indexOf("/*", index);
-                    if (inlineIndex == -1 && blockIndex == -1) {
-                        processedLine += line.substring(index);
-                        break;
-                    }
-                    if (blockIndex == -1 || (inlineIndex != -1 && inlineIndex < blockIndex)) {
-                        processedLine += line.substring(index, inlineIndex);
-                        break;
-                    }
-                    processedLine += line.substring(index, blockIndex);
-                    index = blockIndex + 2;
-                    inBlockComment = true;
-                } else {
-                    int endBlock = line.indexOf("*/", index);
-                    index = endBlock == -1 ? line.length() : endBlock + 2;
-                    if (endBlock != -1)
-                        inBlockComment = false;
-                }
+        for (String diagnostic : result.diagnostics) {
+            addDiagnostic(diagnostic);
+        }
+        irArea.setText(result.irText);
+        irArea.setCaretPosition(0);
+        PhaseProfile profile = result.profile;
+        WppEvents.TableRefresh refresh = new WppEvents.TableRefresh(tab.codeArea.getDocument().getLength(),
+                result.tokens.size(), result.symbolEntries.size());
+        refresh.begin();
+        profile.nanos[PhaseProfile.TABLES] = 0; // Measured again each time the tables are filled
+        profile.bytes[PhaseProfile.TABLES] = 0;
+        profile.start();
+        populateTables(tokensTableModel, symbolTableModel, result.tokens, result.symbolEntries);
+        profile.mark(PhaseProfile.TABLES);
+        refresh.commit();
+        showProfile(profile);
+    }
+
+    private void showProfile(PhaseProfile profile) {
+        long total = Math.max(1, profile.totalNanos());
+        for (int phase = 0; phase < PhaseProfile.NAMES.length; phase++) {
+            performanceTableModel.addRow(new Object[] { PhaseProfile.NAMES[phase],
+                    String.format("%.3f", profile.nanos[phase] / 1e6),
+                    String.format("%.1f%%", 100.0 * profile.nanos[phase] / total),
+                    String.format("%.1f", profile.bytes[phase] / 1024.0) });
+        }
+        performanceTableModel.addRow(new Object[] { "Total", String.format("%.3f", profile.totalNanos() / 1e6),
+                "100.0%", String.format("%.1f", profile.totalBytes() / 1024.0) });
+    }
+
+    // Adds an analyzer or optimizer message to the errors table, with the line it names
+    private void addDiagnostic(String message) {
+        int lineNumError = -1;
+        int lineIndex = message.indexOf("Line ");
+        if (lineIndex >= 0) {
+            try {
+                lineNumError = Integer.parseInt(message.substring(lineIndex + 5, message.indexOf(":", lineIndex)));
+            } catch (NumberFormatException | StringIndexOutOfBoundsException e) {
+                // Continue with -1
             }
-            processedLine = processedLine.trim();
-            if (!processedLine.isEmpty()) {
-                for (String part : tokenize(processedLine)) {
-                    if (part.isEmpty())
-                        continue;
-                    if (KEYWORDS.contains(part)) {
-                        tokens.add(new Token("Keyword", part, lineNum));
-                        currentType = part;
-                    } else if (OPERATORS.contains(part))
-                        tokens.add(new Token("Operator", part, lineNum));
-                    else if (SEPARATORS.contains(part))
-                        tokens.add(new Token("Separator", part, lineNum));
-                    else if (part.matches("[a-zA-Z_][a-zA-Z0-9_]*")) {
-                        tokens.add(new Token("Identifier", part, lineNum));
-                        if (currentType != null && !part.equals("cout") && !part.equals("endl"))
-                            symbolTableMap.putIfAbsent(part,
-                                    new SymbolTableEntry(part, "variable", currentType));
-                    } else if (part.matches("\\d+"))
-                        tokens.add(new Token("Literal (Int)", part, lineNum));
-                    else if (part.matches("\\d+\\.\\d+"))
-                        tokens.add(new Token("Literal (Float)", part, lineNum));
-                    else if (part.startsWith("\"") && part.endsWith("\""))
-                        tokens.add(new Token("Literal (String)", part, lineNum));
-                    else if (part.startsWith("'") && part.endsWith("'") && part.length() == 3)
-                        tokens.add(new Token("Literal (Char)", part, lineNum));
-                    else
-                        System.out.println("Unrecognized token: " + part);
+        }
+        errorsTableModel.addRow(new Object[] { lineNumError != -1 ? lineNumError : "N/A", message });
+    }
+
+    // Scans the selected tab, then runs its program in a background thread; output streams into the Output tab
+    private void executeProgram() {
+        stopProgram();
+        runScanner(this::startProgram);
+    }
+
+    private void startProgram(EditorTab tab) {
+        tablesTabbedPane.setSelectedIndex(tablesTabbedPane.indexOfTab("Output"));
+        outputArea.setText("");
+        IrProgram irProgram = tab.result.irProgram;
+        if (irProgram == null) {
+            outputArea.setText("Fix the errors in the Syntax Errors tab before running the program");
+            return;
+        }
+        Writer output = new Writer() {
+            @Override
+            public void write(char[] chars, int offset, int length) {
+                String text = new String(chars, offset, length);
+                SwingUtilities.invokeLater(() -> outputArea.append(text));
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        // Generated classes run long programs far faster; the VM covers anything the JVM backend rejects
+        JvmBackend backend = null;
+        if (jvmBackendItem.isSelected()) {
+            try {
+                backend = new JvmBackend(irProgram, output);
+            } catch (IllegalStateException ex) {
+                backend = null;
+            }
+        }
+        WppVm vm = backend == null ? new WppVm(irProgram, output) : null;
+        java.util.function.IntSupplier program = backend != null ? backend::run : vm::run;
+        Runnable stop = backend != null ? backend::stop : vm::stop;
+        String backendName = backend != null ? "JVM" : "VM";
+        stopRunning = stop;
+        statusLabelLeft.setText("Running on the " + backendName + "...");
+        Thread thread = new Thread(null, () -> {
+            long start = System.nanoTime();
+            String result;
+            try {
+                result = "Program exited with code " + program.getAsInt();
+            } catch (WppVm.RuntimeError ex) {
+                result = ex.getMessage();
+            }
+            String status = String.format("%s (%.1f ms)", result, (System.nanoTime() - start) / 1e6);
+            SwingUtilities.invokeLater(() -> {
+                String text = outputArea.getText();
+                outputArea.append((text.isEmpty() || text.endsWith("\n") ? "" : "\n") + "\n" + status);
+                statusLabelLeft.setText(status);
+                if (stopRunning == stop) {
+                    stopRunning = null;
                 }
+            });
+        }, "wpp-vm", VM_STACK_SIZE);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void stopProgram() {
+        if (stopRunning != null) {
+            stopRunning.run();
+            stopRunning = null;
+        }
+    }
+
+    static java.util.List<Token> scanTokens(CharSequence text) {
+        return scanTokens(text, new PhaseProfile());
+    }
+
+    // Strips comments, splits each line into lexemes and classifies them, numbering lines from 1; each line's
+    // three steps are charged to their phases of the profile. Only one line at a time is copied out of the text,
+    // so a document snapshot is lexed without ever being turned into one big string.
+    static java.util.List<Token> scanTokens(CharSequence text, PhaseProfile profile) {
+        WppEvents.Lex event = new WppEvents.Lex(text.length());
+        event.begin();
+        profile.start();
+        java.util.List<Token> tokens = new ArrayList<>();
+        boolean[] inBlockComment = { false };
+        int lineNum = 1, lastLine = 1;
+        for (int lineStart = 0; lineStart <= text.length(); lineNum++) {
+            int lineEnd = lineStart;
+            while (lineEnd < text.length() && text.charAt(lineEnd) != '\n')
+                lineEnd++;
+            int contentEnd = lineEnd > lineStart && text.charAt(lineEnd - 1) == '\r' ? lineEnd - 1 : lineEnd;
+            String line = text.subSequence(lineStart, contentEnd).toString();
+            lineStart = lineEnd + 1;
+            if (!line.isEmpty())
+                lastLine = lineNum;
+            String processedLine = stripComments(line, inBlockComment);
+            profile.mark(PhaseProfile.COMMENTS);
+            if (!processedLine.isEmpty()) {
+                java.util.List<String> parts = tokenize(processedLine);
+                profile.mark(PhaseProfile.TOKENIZE);
+                classify(parts, lineNum, tokens);
+                profile.mark(PhaseProfile.CLASSIFY);
             }
-            lineNum++;
         }
+        event.lines = lastLine;
+        event.tokens = tokens.size();
+        event.commit();
+        return tokens;
+    }
 
-        SyntaxAnalyzer syntaxAnalyzer = new SyntaxAnalyzer(tokens);
-        java.util.List<String> syntaxErrors = syntaxAnalyzer.analyze();
-        for (String error : syntaxErrors) {
-            int lineNumError = -1;
-            if (error.startsWith("Line ")) {
-                try {
-                    lineNumError = Integer.parseInt(error.substring(5, error.indexOf(":")));
-                } catch (NumberFormatException | StringIndexOutOfBoundsException e) {
-                    // Continue with -1
+    // Drops the line's comments and trims what is left. inBlockComment[0] carries an open block comment over from
+    // the previous line and is left set if one is still open at the end of this one.
+    static String stripComments(String line, boolean[] inBlockComment) {
+        String processedLine = "";
+        int index = 0;
+        while (index < line.length()) {
+            if (!inBlockComment[0]) {
+                int inlineIndex = line.indexOf("//", index), blockIndex = line.indexOf("/*", index);
+                if (inlineIndex == -1 && blockIndex == -1) {
+                    processedLine += line.substring(index);
+                    break;
+                }
+                if (blockIndex == -1 || (inlineIndex != -1 && inlineIndex < blockIndex)) {
+                    processedLine += line.substring(index, inlineIndex);
+                    break;
                 }
+                processedLine += line.substring(index, blockIndex);
+                index = blockIndex + 2;
+                inBlockComment[0] = true;
+            } else {
+                int endBlock = line.indexOf("*/", index);
+                index = endBlock == -1 ? line.length() : endBlock + 2;
+                if (endBlock != -1)
+                    inBlockComment[0] = false;
             }
-            errorsTableModel.addRow(new Object[] { lineNumError != -1 ? lineNumError : "N/A", error });
         }
+        return processedLine.trim();
+    }
+
+    // Turns one line's lexemes into tokens, appending them to tokens
+    static void classify(java.util.List<String> parts, int lineNum, java.util.List<Token> tokens) {
+        for (String part : parts) {
+            if (part.isEmpty())
+                continue;
+            if (KEYWORDS.contains(part))
+                tokens.add(new Token("Keyword", part, lineNum));
+            else if (OPERATORS.contains(part))
+                tokens.add(new Token("Operator", part, lineNum));
+            else if (SEPARATORS.contains(part))
+                tokens.add(new Token("Separator", part, lineNum));
+            else if (part.matches("[a-zA-Z_][a-zA-Z0-9_]*"))
+                tokens.add(new Token("Identifier", part, lineNum));
+            else if (part.matches("\\d+"))
+                tokens.add(new Token("Literal (Int)", part, lineNum));
+            else if (part.matches("\\d+\\.\\d+"))
+                tokens.add(new Token("Literal (Float)", part, lineNum));
+            else if (part.startsWith("\"") && part.endsWith("\""))
+                tokens.add(new Token("Literal (String)", part, lineNum));
+            else if (part.startsWith("'") && part.endsWith("'") && part.length() == 3)
+                tokens.add(new Token("Literal (Char)", part, lineNum));
+            else
+                System.out.println("Unrecognized token: " + part);
+        }
+    }
 
-        updateSymbolTable();
-        populateTables();
-        statusLabelLeft.setText("Scan complete: " + tokens.size() + " tokens");
+    private static boolean isBlank(CharSequence text) {
+        for (int k = 0; k < text.length(); k++) {
+            if (!Character.isWhitespace(text.charAt(k)))
+                return false;
+        }
+        return true;
     }
 
-    private java.util.List<String> tokenize(String line) {
+    static java.util.List<String> tokenize(String line) {
         java.util.List<String> result = new ArrayList<>();
         StringBuilder buffer = new StringBuilder();
         boolean inString = false, inChar = false;
@@ -1640,41 +1449,12 @@ public class WppScannerGUI extends JFrame {
         return result;
     }
 
-    private void updateSymbolTable() {
-        for (int i = 0; i < tokens.size(); i++) {
-            Token token = tokens.get(i);
-            if ("Identifier".equals(token.type) && !token.value.equals("cout") && !token.value.equals("endl")) {
-                String identifier = token.value;
-                int lineNum = token.line;
-                if (i > 0 && "Keyword".equals(tokens.get(i - 1).type) && KEYWORDS.contains(tokens.get(i - 1).value)) {
-                    if (symbolTableMap.containsKey(identifier)) {
-                        SymbolTableEntry entry = symbolTableMap.get(identifier);
-                        entry.lineOfDeclaration = lineNum;
-                        if (i + 1 < tokens.size() && "Separator".equals(tokens.get(i + 1).type)
-                                && "[".equals(tokens.get(i + 1).value))
-                            entry.dimension = "Array";
-                    }
-                } else if (symbolTableMap.containsKey(identifier) && symbolTableMap.get(identifier).lineOfUsage == -1) {
-                    symbolTableMap.get(identifier).lineOfUsage = lineNum;
-                }
-                if (i + 2 < tokens.size() && "Operator".equals(tokens.get(i + 1).type)
-                        && "=".equals(tokens.get(i + 1).value) && tokens.get(i + 2).type.startsWith("Literal")) {
-                    if (symbolTableMap.containsKey(identifier)) {
-                        SymbolTableEntry entry = symbolTableMap.get(identifier);
-                        entry.value = tokens.get(i + 2).value;
-                        if (entry.lineOfUsage == -1)
-                            entry.lineOfUsage = lineNum;
-                    }
-                }
-            }
-        }
-    }
-
-    private void populateTables() {
+    static void populateTables(DefaultTableModel tokensModel, DefaultTableModel symbolModel,
+            java.util.List<Token> tokens, java.util.List<SymbolTableEntry> symbolEntries) {
         for (Token t : tokens)
-            tokensTableModel.addRow(new Object[] { t.type, t.value, t.line });
-        for (SymbolTableEntry e : symbolTableMap.values())
-            symbolTableModel.addRow(new Object[] {
+            tokensModel.addRow(new Object[] { t.type, t.value, t.line });
+        for (SymbolTableEntry e : symbolEntries)
+            symbolModel.addRow(new Object[] {
                     e.identifier, e.kind, e.type, e.value != null ? e.value : "N/A", e.size, e.dimension,
                     e.lineOfDeclaration == -1 ? "N/A" : e.lineOfDeclaration,
                     e.lineOfUsage == -1 ? "N/A" : e.lineOfUsage, e.address
@@ -1682,6 +1462,9 @@ public class WppScannerGUI extends JFrame {
     }
 
     public static void main(String[] args) {
+        if (args.length > 0) {
+            System.exit(WppCli.run(args, System.out, System.err));
+        }
         SwingUtilities.invokeLater(WppScannerGUI::new);
     }
 
@@ -0,0 +1,119 @@
+import java.util.HashMap;
+import java.util.Map;
+
+// Canonical type descriptors: one instance per type, so checks compare references and index tables by id
+final class WppType {
+    private static final WppType[] ALL = new WppType[15];
+    private static final Map<String, WppType> BY_NAME = new HashMap<>();
+
+    static final WppType INT = new WppType("int", 0, null);
+    static final WppType FLOAT = new WppType("float", 1, null);
+    static final WppType DOUBLE = new WppType("double", 2, null);
+    static final WppType CHAR = new WppType("char", 3, null);
+    static final WppType STRING = new WppType("string", 4, null);
+    static final WppType BOOL = new WppType("bool", 5, null);
+    static final WppType VOID = new WppType("void", 6, null);
+    static final WppType ERROR = new WppType("<error>", 7, null); // Already reported; compatible with anything
+
+    private static final int SCALARS = 7; // int..void have array types, ids SCALARS + 1 onwards
+
+    // ASSIGNABLE[target][value]: a value of the second type may be stored in the first
+    private static final boolean[][] ASSIGNABLE = new boolean[ALL.length][ALL.length];
+    // PROMOTED[a][b]: result of an arithmetic operator on the two types, null if not allowed
+    private static final WppType[][] PROMOTED = new WppType[ALL.length][ALL.length];
+
+    final String name;
+    final int id;
+    final WppType elementType; // Non-null for arrays
+    private WppType arrayType;
+
+    private WppType(String name, int id, WppType elementType) {
+        this.name = name;
+        this.id = id;
+        this.elementType = elementType;
+        ALL[id] = this;
+        if (elementType == null) {
+            BY_NAME.put(name, this);
+        }
+    }
+
+    static {
+        for (int i = 0; i < SCALARS; i++) {
+            if (ALL[i] != VOID) {
+                ALL[i].arrayType = new WppType(ALL[i].name + "[]", SCALARS + 1 + i, ALL[i]);
+            }
+        }
+        for (WppType t : ALL) {
+            if (t != null) {
+                ASSIGNABLE[t.id][t.id] = t != VOID;
+                ASSIGNABLE[t.id][ERROR.id] = true;
+                ASSIGNABLE[ERROR.id][t.id] = true;
+            }
+        }
+        allow(INT, CHAR);
+        allow(FLOAT, INT, CHAR, DOUBLE);
+        allow(DOUBLE, INT, CHAR, FLOAT);
+
+        WppType[] numeric = { INT, CHAR, FLOAT, DOUBLE };
+        for (WppType a : numeric) {
+            for (WppType b : numeric) {
+                PROMOTED[a.id][b.id] = a == DOUBLE || b == DOUBLE ? DOUBLE
+                        : a == FLOAT || b == FLOAT ? FLOAT : INT;
+            }
+            PROMOTED[a.id][ERROR.id] = ERROR;
+            PROMOTED[ERROR.id][a.id] = ERROR;
+        }
+        PROMOTED[ERROR.id][ERROR.id] = ERROR;
+    }
+
+    private static void allow(WppType target, WppType... values) {
+        for (WppType value : values) {
+            ASSIGNABLE[target.id][value.id] = true;
+        }
+    }
+
+    // Type for a data type keyword, or null if the word is not one
+    static WppType of(String keyword) {
+        return BY_NAME.get(keyword);
+    }
+
+    WppType arrayOf() {
+        return arrayType != null ? arrayType : ERROR;
+    }
+
+    boolean isArray() {
+        return elementType != null;
+    }
+
+    boolean isNumeric() {
+        return this == INT || this == CHAR || this == FLOAT || this == DOUBLE;
+    }
+
+    boolean isIntegral() {
+        return this == INT || this == CHAR;
+    }
+
+    // Held as a double at run time
+    boolean isFloating() {
+        return this == FLOAT || this == DOUBLE;
+    }
+
+    // Usable as an if/while/for condition
+    boolean isTestable() {
+        return this == BOOL || isNumeric() || this == ERROR;
+    }
+
+    static boolean isAssignable(WppType target, WppType value) {
+        return ASSIGNABLE[target.id][value.id];
+    }
+
+    // Result of + - * / on the two types, or null if the operator does not apply
+    static WppType promote(WppType a, WppType b) {
+        return PROMOTED[a.id][b.id];
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
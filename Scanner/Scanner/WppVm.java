@@ -0,0 +1,674 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Locale;
+
+// Register-based bytecode interpreter for lowered programs. Each IR register gets a slot in one of three
+// typed files (int for int/char/bool, double for float/double, Object for strings and arrays), so values
+// are never boxed; RegisterAllocator packs the registers into as few slots as their lifetimes allow.
+// Frames are windows into three stacks; cout output is buffered and flushed in chunks.
+final class WppVm {
+    // Bytecode: four ints per instruction, opcode then up to three operands
+    private static final int ICONST = 0, DCONST = 1, OCONST = 2, IMOV = 3, DMOV = 4, OMOV = 5, I2D = 6;
+    private static final int IADD = 7, ISUB = 8, IMUL = 9, IDIV = 10, IMOD = 11;
+    private static final int DADD = 12, DSUB = 13, DMUL = 14, DDIV = 15, INEG = 16, DNEG = 17, NOT = 18;
+    private static final int ILT = 19, ILE = 20, IGT = 21, IGE = 22, IEQ = 23, INE = 24;
+    private static final int DLT = 25, DLE = 26, DGT = 27, DGE = 28, DEQ = 29, DNE = 30, SEQ = 31, SNE = 32;
+    private static final int JMP = 33, BR = 34, BRT = 35, BRF = 36;
+    private static final int IRET = 37, DRET = 38, ORET = 39, RETV = 40, CALL = 41;
+    private static final int INEWARR = 42, DNEWARR = 43, ONEWARR = 44;
+    private static final int IALOAD = 45, DALOAD = 46, OALOAD = 47, IASTORE = 48, DASTORE = 49, OASTORE = 50;
+    private static final int IGLOAD = 51, DGLOAD = 52, OGLOAD = 53, IGSTORE = 54, DGSTORE = 55, OGSTORE = 56;
+    private static final int PRINTI = 57, PRINTC = 58, PRINTB = 59, PRINTD = 60, PRINTS = 61, PRINTNL = 62;
+
+    static final int INT_FAMILY = 0, DOUBLE_FAMILY = 1, OBJECT_FAMILY = 2;
+
+    private static final int MAX_CALL_DEPTH = 100_000;
+    private static final int FLUSH_THRESHOLD = 8192;
+    private static final int STOP_CHECK_INTERVAL = 1 << 16; // Backward jumps, or calls, between looks at the stop flag
+
+    private static final class Code {
+        final IrFunction function;
+        int[] code;
+        int[] lines; // Source line per instruction
+        int intSlots, doubleSlots, objectSlots;
+        int returnFamily;
+        int[][] callSites; // {callee, then family, caller slot, callee slot per argument}
+
+        Code(IrFunction function) {
+            this.function = function;
+        }
+    }
+
+    static final class RuntimeError extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        final int line;
+
+        RuntimeError(int line, String message) {
+            super("Runtime Error at Line " + line + ": " + message);
+            this.line = line;
+        }
+    }
+
+    private final IrProgram program;
+    private final Code[] functions;
+    private final Writer output;
+    private final StringBuilder buffer = new StringBuilder(FLUSH_THRESHOLD * 2);
+    private final int[] globalSlots;
+    private final int[] intGlobals;
+    private final double[] doubleGlobals;
+    private final Object[] objectGlobals;
+
+    private int[] intStack = new int[1024];
+    private double[] doubleStack = new double[256];
+    private Object[] objectStack = new Object[256];
+    private int depth;
+    private volatile boolean stopRequested;
+    private int callStopCheck = STOP_CHECK_INTERVAL; // Shared by every frame, so recursion without loops is stoppable
+
+    private int returnInt;
+    private double returnDouble;
+    private Object returnObject;
+
+    WppVm(IrProgram program, Writer output) {
+        this.program = program;
+        this.output = output;
+        int[] counts = new int[3];
+        globalSlots = new int[program.globalCount];
+        for (int g = 0; g < program.globalCount; g++) {
+            globalSlots[g] = counts[family(program.globalTypes[g])]++;
+        }
+        intGlobals = new int[counts[INT_FAMILY]];
+        doubleGlobals = new double[counts[DOUBLE_FAMILY]];
+        objectGlobals = new Object[counts[OBJECT_FAMILY]];
+        functions = new Code[program.functions.size()];
+        for (IrFunction function : program.functions) {
+            functions[function.index] = compile(function);
+        }
+    }
+
+    static int family(WppType type) {
+        if (type.isFloating()) {
+            return DOUBLE_FAMILY;
+        }
+        return type == WppType.STRING || type.isArray() ? OBJECT_FAMILY : INT_FAMILY;
+    }
+
+    // Runs the global initializers, then main; returns main's result
+    int run() {
+        if (program.main == null || !program.main.defined) {
+            throw new RuntimeError(1, "No 'main' function to run");
+        }
+        try {
+            Code init = functions[program.init.index];
+            enterFrame(init, 0, 0, 0);
+            execute(init, 0, 0, 0);
+            Code main = functions[program.main.index];
+            enterFrame(main, 0, 0, 0);
+            if (main.function.paramCount == 2) {
+                intStack[0] = 0; // argc
+                objectStack[0] = new int[0]; // argv
+            }
+            execute(main, 0, 0, 0);
+            return returnInt;
+        } finally {
+            flush();
+        }
+    }
+
+    void stop() {
+        stopRequested = true;
+    }
+
+    // Translation from IR
+
+    private Code compile(IrFunction fn) {
+        Code code = new Code(fn);
+        code.returnFamily = fn.returnType == WppType.VOID ? -1 : family(fn.returnType);
+        // Registers whose lifetimes do not overlap share a slot, which keeps frames small
+        RegisterAllocator allocation = new RegisterAllocator(fn);
+        int[] slot = allocation.slot;
+        code.intSlots = allocation.slotCounts[INT_FAMILY];
+        code.doubleSlots = allocation.slotCounts[DOUBLE_FAMILY];
+        code.objectSlots = allocation.slotCounts[OBJECT_FAMILY];
+        if (!fn.defined) {
+            return code;
+        }
+
+        // Block addresses first: jumps to the next block in layout fall through, unreachable blocks are dropped
+        boolean[] reachable = new boolean[fn.blockCount];
+        int[] blockPc = new int[fn.blockCount + 1];
+        int next = 0;
+        for (int block = 0; block < fn.blockCount; block++) {
+            reachable[block] = block == 0 || fn.predecessors[block].length > 0;
+        }
+        for (int block = 0; block < fn.blockCount; block++) {
+            blockPc[block] = next;
+            if (reachable[block]) {
+                for (int i = fn.blockStart[block]; i < fn.blockEnd[block]; i++) {
+                    if (fn.op[i] != IrOp.NOP
+                            && !(fn.op[i] == IrOp.JMP && fn.a[i] == nextReachable(fn, reachable, block))) {
+                        next++;
+                    }
+                }
+            }
+        }
+        code.code = new int[next * 4];
+        code.lines = new int[next];
+        int callSites = 0;
+        for (int i = 0; i < fn.size; i++) {
+            if (fn.op[i] == IrOp.CALL) {
+                callSites++;
+            }
+        }
+        code.callSites = new int[callSites][];
+        callSites = 0;
+
+        int pc = 0;
+        for (int block = 0; block < fn.blockCount; block++) {
+            if (!reachable[block]) {
+                continue;
+            }
+            int following = nextReachable(fn, reachable, block);
+            for (int i = fn.blockStart[block]; i < fn.blockEnd[block]; i++) {
+                int op = fn.op[i];
+                int d = fn.dst[i] >= 0 ? slot[fn.dst[i]] : -1;
+                int a = fn.a[i];
+                int b = fn.b[i];
+                int c = fn.c[i];
+                int vmOp;
+                int x = d, y = -1, z = -1;
+                switch (op) {
+                    case IrOp.ICONST:
+                    case IrOp.DCONST:
+                    case IrOp.SCONST:
+                        vmOp = op == IrOp.ICONST ? ICONST : op == IrOp.DCONST ? DCONST : OCONST;
+                        y = a;
+                        break;
+                    case IrOp.MOV:
+                        vmOp = IMOV + family(fn.registerType[fn.dst[i]]);
+                        y = slot[a];
+                        break;
+                    case IrOp.JMP:
+                        if (a == following) {
+                            continue;
+                        }
+                        vmOp = JMP;
+                        x = blockPc[a] * 4;
+                        break;
+                    case IrOp.BR:
+                        x = slot[a];
+                        if (b == c) {
+                            vmOp = JMP;
+                            x = blockPc[b] * 4;
+                        } else if (c == following) {
+                            vmOp = BRT;
+                            y = blockPc[b] * 4;
+                        } else if (b == following) {
+                            vmOp = BRF;
+                            y = blockPc[c] * 4;
+                        } else {
+                            vmOp = BR;
+                            y = blockPc[b] * 4;
+                            z = blockPc[c] * 4;
+                        }
+                        break;
+                    case IrOp.RET:
+                        if (a < 0) {
+                            vmOp = RETV;
+                        } else {
+                            vmOp = IRET + family(fn.registerType[a]);
+                            x = slot[a];
+                        }
+                        break;
+                    case IrOp.CALL: {
+                        IrFunction callee = program.functions.get(a);
+                        int[] site = new int[1 + c * 3];
+                        site[0] = a;
+                        int[] calleeSlots = new int[3];
+                        for (int k = 0; k < c; k++) {
+                            int argument = fn.args[b + k];
+                            int argumentFamily = family(fn.registerType[argument]);
+                            site[1 + k * 3] = argumentFamily;
+                            site[2 + k * 3] = slot[argument];
+                            // Parameters are the callee's first registers, so they take its first slots per family
+                            site[3 + k * 3] = calleeSlots[family(callee.registerType[k])]++;
+                        }
+                        code.callSites[callSites] = site;
+                        vmOp = CALL;
+                        y = callSites++;
+                        break;
+                    }
+                    case IrOp.NEWARR:
+                        vmOp = INEWARR + family(fn.registerType[fn.dst[i]].elementType);
+                        y = slot[a];
+                        break;
+                    case IrOp.ALOAD:
+                        vmOp = IALOAD + family(fn.registerType[a].elementType);
+                        y = slot[a];
+                        z = slot[b];
+                        break;
+                    case IrOp.ASTORE:
+                        vmOp = IASTORE + family(fn.registerType[a].elementType);
+                        x = slot[a];
+                        y = slot[b];
+                        z = slot[c];
+                        break;
+                    case IrOp.GLOAD:
+                        vmOp = IGLOAD + family(program.globalTypes[a]);
+                        y = globalSlots[a];
+                        break;
+                    case IrOp.GSTORE:
+                        vmOp = IGSTORE + family(program.globalTypes[a]);
+                        x = globalSlots[a];
+                        y = slot[b];
+                        break;
+                    case IrOp.PRINT: {
+                        WppType type = fn.registerType[a];
+                        vmOp = type == WppType.CHAR ? PRINTC : type == WppType.BOOL ? PRINTB
+                                : type.isFloating() ? PRINTD : type == WppType.INT ? PRINTI : PRINTS;
+                        x = slot[a];
+                        break;
+                    }
+                    case IrOp.PRINTNL:
+                        vmOp = PRINTNL;
+                        break;
+                    case IrOp.NOP:
+                        continue;
+                    default:
+                        // Arithmetic, comparisons, conversions and negation map one to one
+                        vmOp = op - IrOp.I2D + I2D;
+                        y = slot[a];
+                        z = b >= 0 && IrOp.isBinary(op) ? slot[b] : -1;
+                }
+                code.code[pc * 4] = vmOp;
+                code.code[pc * 4 + 1] = x;
+                code.code[pc * 4 + 2] = y;
+                code.code[pc * 4 + 3] = z;
+                code.lines[pc] = fn.line[i];
+                pc++;
+            }
+        }
+        code.code = Arrays.copyOf(code.code, pc * 4);
+        code.lines = Arrays.copyOf(code.lines, pc);
+        return code;
+    }
+
+    private static int nextReachable(IrFunction fn, boolean[] reachable, int block) {
+        for (int next = block + 1; next < fn.blockCount; next++) {
+            if (reachable[next]) {
+                return next;
+            }
+        }
+        return -1;
+    }
+
+    // Execution
+
+    private void execute(Code f, int ib, int db, int ob) {
+        final int[] code = f.code;
+        int[] is = intStack;
+        double[] ds = doubleStack;
+        Object[] os = objectStack;
+        int pc = 0;
+        int stopCheck = STOP_CHECK_INTERVAL;
+        try {
+            for (;;) {
+                switch (code[pc]) {
+                    case ICONST:
+                        is[ib + code[pc + 1]] = code[pc + 2];
+                        break;
+                    case DCONST:
+                        ds[db + code[pc + 1]] = program.doubleConstants[code[pc + 2]];
+                        break;
+                    case OCONST:
+                        os[ob + code[pc + 1]] = program.stringConstants[code[pc + 2]];
+                        break;
+                    case IMOV:
+                        is[ib + code[pc + 1]] = is[ib + code[pc + 2]];
+                        break;
+                    case DMOV:
+                        ds[db + code[pc + 1]] = ds[db + code[pc + 2]];
+                        break;
+                    case OMOV:
+                        os[ob + code[pc + 1]] = os[ob + code[pc + 2]];
+                        break;
+                    case I2D:
+                        ds[db + code[pc + 1]] = is[ib + code[pc + 2]];
+                        break;
+                    case IADD:
+                        is[ib + code[pc + 1]] = is[ib + code[pc + 2]] + is[ib + code[pc + 3]];
+                        break;
+                    case ISUB:
+                        is[ib + code[pc + 1]] = is[ib + code[pc + 2]] - is[ib + code[pc + 3]];
+                        break;
+                    case IMUL:
+                        is[ib + code[pc + 1]] = is[ib + code[pc + 2]] * is[ib + code[pc + 3]];
+                        break;
+                    case IDIV:
+                        is[ib + code[pc + 1]] = is[ib + code[pc + 2]] / is[ib + code[pc + 3]];
+                        break;
+                    case IMOD:
+                        is[ib + code[pc + 1]] = is[ib + code[pc + 2]] % is[ib + code[pc + 3]];
+                        break;
+                    case DADD:
+                        ds[db + code[pc + 1]] = ds[db + code[pc + 2]] + ds[db + code[pc + 3]];
+                        break;
+                    case DSUB:
+                        ds[db + code[pc + 1]] = ds[db + code[pc + 2]] - ds[db + code[pc + 3]];
+                        break;
+                    case DMUL:
+                        ds[db + code[pc + 1]] = ds[db + code[pc + 2]] * ds[db + code[pc + 3]];
+                        break;
+                    case DDIV:
+                        ds[db + code[pc + 1]] = ds[db + code[pc + 2]] / ds[db + code[pc + 3]];
+                        break;
+                    case INEG:
+                        is[ib + code[pc + 1]] = -is[ib + code[pc + 2]];
+                        break;
+                    case DNEG:
+                        ds[db + code[pc + 1]] = -ds[db + code[pc + 2]];
+                        break;
+                    case NOT:
+                        is[ib + code[pc + 1]] = is[ib + code[pc + 2]] == 0 ? 1 : 0;
+                        break;
+                    case ILT:
+                        is[ib + code[pc + 1]] = is[ib + code[pc + 2]] < is[ib + code[pc + 3]] ? 1 : 0;
+                        break;
+                    case ILE:
+                        is[ib + code[pc + 1]] = is[ib + code[pc + 2]] <= is[ib + code[pc + 3]] ? 1 : 0;
+                        break;
+                    case IGT:
+                        is[ib + code[pc + 1]] = is[ib + code[pc + 2]] > is[ib + code[pc + 3]] ? 1 : 0;
+                        break;
+                    case IGE:
+                        is[ib + code[pc + 1]] = is[ib + code[pc + 2]] >= is[ib + code[pc + 3]] ? 1 : 0;
+                        break;
+                    case IEQ:
+                        is[ib + code[pc + 1]] = is[ib + code[pc + 2]] == is[ib + code[pc + 3]] ? 1 : 0;
+                        break;
+                    case INE:
+                        is[ib + code[pc + 1]] = is[ib + code[pc + 2]] != is[ib + code[pc + 3]] ? 1 : 0;
+                        break;
+                    case DLT:
+                        is[ib + code[pc + 1]] = ds[db + code[pc + 2]] < ds[db + code[pc + 3]] ? 1 : 0;
+                        break;
+                    case DLE:
+                        is[ib + code[pc + 1]] = ds[db + code[pc + 2]] <= ds[db + code[pc + 3]] ? 1 : 0;
+                        break;
+                    case DGT:
+                        is[ib + code[pc + 1]] = ds[db + code[pc + 2]] > ds[db + code[pc + 3]] ? 1 : 0;
+                        break;
+                    case DGE:
+                        is[ib + code[pc + 1]] = ds[db + code[pc + 2]] >= ds[db + code[pc + 3]] ? 1 : 0;
+                        break;
+                    case DEQ:
+                        is[ib + code[pc + 1]] = ds[db + code[pc + 2]] == ds[db + code[pc + 3]] ? 1 : 0;
+                        break;
+                    case DNE:
+                        is[ib + code[pc + 1]] = ds[db + code[pc + 2]] != ds[db + code[pc + 3]] ? 1 : 0;
+                        break;
+                    case SEQ:
+                        is[ib + code[pc + 1]] = str(os[ob + code[pc + 2]]).equals(str(os[ob + code[pc + 3]])) ? 1 : 0;
+                        break;
+                    case SNE:
+                        is[ib + code[pc + 1]] = str(os[ob + code[pc + 2]]).equals(str(os[ob + code[pc + 3]])) ? 0 : 1;
+                        break;
+                    case JMP:
+                        if (code[pc + 1] <= pc && --stopCheck == 0) {
+                            stopCheck = STOP_CHECK_INTERVAL;
+                            checkStop(f, pc);
+                        }
+                        pc = code[pc + 1];
+                        continue;
+                    case BR:
+                        pc = is[ib + code[pc + 1]] != 0 ? code[pc + 2] : code[pc + 3];
+                        continue;
+                    case BRT:
+                        if (is[ib + code[pc + 1]] != 0) {
+                            pc = code[pc + 2];
+                            continue;
+                        }
+                        break;
+                    case BRF:
+                        if (is[ib + code[pc + 1]] == 0) {
+                            pc = code[pc + 2];
+                            continue;
+                        }
+                        break;
+                    case IRET:
+                        returnInt = is[ib + code[pc + 1]];
+                        return;
+                    case DRET:
+                        returnDouble = ds[db + code[pc + 1]];
+                        return;
+                    case ORET:
+                        returnObject = os[ob + code[pc + 1]];
+                        return;
+                    case RETV:
+                        return;
+                    case CALL: {
+                        if (--callStopCheck == 0) {
+                            callStopCheck = STOP_CHECK_INTERVAL;
+                            checkStop(f, pc);
+                        }
+                        if (depth == MAX_CALL_DEPTH) {
+                            throw new RuntimeError(f.lines[pc / 4], "Stack overflow: more than " + MAX_CALL_DEPTH
+                                    + " nested calls");
+                        }
+                        Code callee = invoke(f, code[pc + 2], ib, db, ob, f.lines[pc / 4]);
+                        // The stacks may have grown during the call
+                        is = intStack;
+                        ds = doubleStack;
+                        os = objectStack;
+                        int d = code[pc + 1];
+                        if (d >= 0) {
+                            if (callee.returnFamily == INT_FAMILY) {
+                                is[ib + d] = returnInt;
+                            } else if (callee.returnFamily == DOUBLE_FAMILY) {
+                                ds[db + d] = returnDouble;
+                            } else {
+                                os[ob + d] = returnObject;
+                            }
+                        }
+                        break;
+                    }
+                    case INEWARR:
+                        os[ob + code[pc + 1]] = new int[is[ib + code[pc + 2]]];
+                        break;
+                    case DNEWARR:
+                        os[ob + code[pc + 1]] = new double[is[ib + code[pc + 2]]];
+                        break;
+                    case ONEWARR: {
+                        Object[] strings = new Object[is[ib + code[pc + 2]]];
+                        Arrays.fill(strings, "");
+                        os[ob + code[pc + 1]] = strings;
+                        break;
+                    }
+                    case IALOAD:
+                        is[ib + code[pc + 1]] = ((int[]) os[ob + code[pc + 2]])[is[ib + code[pc + 3]]];
+                        break;
+                    case DALOAD:
+                        ds[db + code[pc + 1]] = ((double[]) os[ob + code[pc + 2]])[is[ib + code[pc + 3]]];
+                        break;
+                    case OALOAD:
+                        os[ob + code[pc + 1]] = ((Object[]) os[ob + code[pc + 2]])[is[ib + code[pc + 3]]];
+                        break;
+                    case IASTORE:
+                        ((int[]) os[ob + code[pc + 1]])[is[ib + code[pc + 2]]] = is[ib + code[pc + 3]];
+                        break;
+                    case DASTORE:
+                        ((double[]) os[ob + code[pc + 1]])[is[ib + code[pc + 2]]] = ds[db + code[pc + 3]];
+                        break;
+                    case OASTORE:
+                        ((Object[]) os[ob + code[pc + 1]])[is[ib + code[pc + 2]]] = os[ob + code[pc + 3]];
+                        break;
+                    case IGLOAD:
+                        is[ib + code[pc + 1]] = intGlobals[code[pc + 2]];
+                        break;
+                    case DGLOAD:
+                        ds[db + code[pc + 1]] = doubleGlobals[code[pc + 2]];
+                        break;
+                    case OGLOAD:
+                        os[ob + code[pc + 1]] = objectGlobals[code[pc + 2]];
+                        break;
+                    case IGSTORE:
+                        intGlobals[code[pc + 1]] = is[ib + code[pc + 2]];
+                        break;
+                    case DGSTORE:
+                        doubleGlobals[code[pc + 1]] = ds[db + code[pc + 2]];
+                        break;
+                    case OGSTORE:
+                        objectGlobals[code[pc + 1]] = os[ob + code[pc + 2]];
+                        break;
+                    case PRINTI:
+                        buffer.append(is[ib + code[pc + 1]]);
+                        flushIfFull();
+                        break;
+                    case PRINTC:
+                        buffer.append((char) is[ib + code[pc + 1]]);
+                        flushIfFull();
+                        break;
+                    case PRINTB:
+                        buffer.append(is[ib + code[pc + 1]] != 0 ? '1' : '0');
+                        flushIfFull();
+                        break;
+                    case PRINTD:
+                        buffer.append(formatDouble(ds[db + code[pc + 1]]));
+                        flushIfFull();
+                        break;
+                    case PRINTS:
+                        buffer.append(str(os[ob + code[pc + 1]]));
+                        flushIfFull();
+                        break;
+                    case PRINTNL:
+                        buffer.append('\n');
+                        flushIfFull();
+                        break;
+                    default:
+                        throw new IllegalStateException("Bad opcode " + code[pc]);
+                }
+                pc += 4;
+            }
+        } catch (ArithmeticException e) {
+            throw new RuntimeError(f.lines[pc / 4], "Division by zero");
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new RuntimeError(f.lines[pc / 4], "Array index out of bounds (" + e.getMessage() + ")");
+        } catch (NegativeArraySizeException e) {
+            throw new RuntimeError(f.lines[pc / 4], "Negative array size " + e.getMessage());
+        } catch (NullPointerException e) {
+            throw new RuntimeError(f.lines[pc / 4], "Array used before it was created");
+        } catch (StackOverflowError e) {
+            throw new RuntimeError(f.lines[pc / 4], "Stack overflow");
+        }
+    }
+
+    // Sets up the callee's frame above the caller's, copies the arguments and runs it
+    private Code invoke(Code caller, int site, int ib, int db, int ob, int line) {
+        int[] call = caller.callSites[site];
+        Code callee = functions[call[0]];
+        if (callee.code == null) {
+            throw new RuntimeError(line, "Function '" + callee.function.name + "' has no body");
+        }
+        int nib = ib + caller.intSlots;
+        int ndb = db + caller.doubleSlots;
+        int nob = ob + caller.objectSlots;
+        enterFrame(callee, nib, ndb, nob);
+        for (int k = 1; k < call.length; k += 3) {
+            switch (call[k]) {
+                case INT_FAMILY:
+                    intStack[nib + call[k + 2]] = intStack[ib + call[k + 1]];
+                    break;
+                case DOUBLE_FAMILY:
+                    doubleStack[ndb + call[k + 2]] = doubleStack[db + call[k + 1]];
+                    break;
+                default:
+                    objectStack[nob + call[k + 2]] = objectStack[ob + call[k + 1]];
+            }
+        }
+        depth++;
+        execute(callee, nib, ndb, nob);
+        depth--;
+        return callee;
+    }
+
+    // Makes room for f's frame and clears it, so every run starts from zeroed variables
+    private void enterFrame(Code f, int ib, int db, int ob) {
+        ensureStack(ib + f.intSlots, db + f.doubleSlots, ob + f.objectSlots);
+        Arrays.fill(intStack, ib, ib + f.intSlots, 0);
+        Arrays.fill(doubleStack, db, db + f.doubleSlots, 0);
+        Arrays.fill(objectStack, ob, ob + f.objectSlots, null);
+    }
+
+    private void ensureStack(int ints, int doubles, int objects) {
+        if (ints > intStack.length) {
+            intStack = Arrays.copyOf(intStack, Math.max(ints, intStack.length * 2));
+        }
+        if (doubles > doubleStack.length) {
+            doubleStack = Arrays.copyOf(doubleStack, Math.max(doubles, doubleStack.length * 2));
+        }
+        if (objects > objectStack.length) {
+            objectStack = Arrays.copyOf(objectStack, Math.max(objects, objectStack.length * 2));
+        }
+    }
+
+    private void checkStop(Code f, int pc) {
+        if (stopRequested) {
+            throw new RuntimeError(f.lines[pc / 4], "Stopped");
+        }
+    }
+
+    // Output
+
+    private void flushIfFull() {
+        if (buffer.length() >= FLUSH_THRESHOLD) {
+            flush();
+        }
+    }
+
+    private void flush() {
+        try {
+            output.append(buffer);
+            output.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buffer.setLength(0);
+    }
+
+    static String str(Object value) {
+        return value == null ? "" : (String) value;
+    }
+
+    // cout's default formatting: six significant digits, no trailing zeros, exponent only when needed
+    static String formatDouble(double value) {
+        if (value == 0 && Double.doubleToRawLongBits(value) != 0) {
+            return "-0"; // The int conversion below would lose the sign
+        }
+        if (value == (int) value && Math.abs(value) < 1e6) {
+            return Integer.toString((int) value);
+        }
+        if (Double.isNaN(value)) {
+            return "nan";
+        }
+        if (Double.isInfinite(value)) {
+            return value > 0 ? "inf" : "-inf";
+        }
+        String formatted = String.format(Locale.ROOT, "%.6g", value);
+        int exponent = formatted.indexOf('e');
+        String mantissa = exponent >= 0 ? formatted.substring(0, exponent) : formatted;
+        if (mantissa.indexOf('.') >= 0) {
+            int end = mantissa.length();
+            while (mantissa.charAt(end - 1) == '0') {
+                end--;
+            }
+            if (mantissa.charAt(end - 1) == '.') {
+                end--;
+            }
+            mantissa = mantissa.substring(0, end);
+        }
+        return exponent >= 0 ? mantissa + formatted.substring(exponent) : mantissa;
+    }
+}
@@ -0,0 +1,145 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Watches a directory tree and rechecks the .wpp files that change, printing only how their diagnostics
+// changed: "+" before a new one and "-" before one that went away. Wpp files do not include each other, so a
+// change affects only its own file, and the other files' last diagnostics stay in memory. Saves arriving
+// within DEBOUNCE_MILLIS of each other are checked together once the burst is over.
+final class WppWatcher {
+    static final long DEBOUNCE_MILLIS = 150;
+
+    private final Path root;
+    private final PrintStream out;
+    private final Map<Path, List<String>> diagnostics = new HashMap<>(); // Last result of each file
+    private WatchService watcher;
+
+    WppWatcher(Path root, PrintStream out) {
+        this.root = root.toAbsolutePath().normalize();
+        this.out = out;
+    }
+
+    // Checks every file, then rechecks changed ones until the thread is interrupted
+    void run() throws IOException {
+        try (WatchService service = FileSystems.getDefault().newWatchService()) {
+            watcher = service;
+            TreeSet<Path> changed = new TreeSet<>();
+            register(root, changed);
+            recheck(changed);
+            out.println("Watching " + root + " (" + diagnostics.size() + " files)");
+            while (true) {
+                WatchKey key = watcher.take();
+                collect(key, changed);
+                // Debounce: keep collecting until the tree has been quiet for a while
+                while ((key = watcher.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    collect(key, changed);
+                }
+                recheck(changed);
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Registers the directory and those below it, adding the files found to changed
+    private void register(Path directory, TreeSet<Path> changed) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                if (Files.isDirectory(path)) {
+                    path.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+                            StandardWatchEventKinds.ENTRY_DELETE);
+                } else if (isSource(path)) {
+                    changed.add(path);
+                }
+            }
+        } catch (NoSuchFileException e) {
+            // Deleted while being walked
+        }
+    }
+
+    private void collect(WatchKey key, TreeSet<Path> changed) throws IOException {
+        Path directory = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                // Events were lost; everything known or present may have changed
+                changed.addAll(diagnostics.keySet());
+                register(root, changed);
+                continue;
+            }
+            Path path = directory.resolve((Path) event.context());
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+                register(path, changed);
+            } else if (isSource(path) || diagnostics.containsKey(path)) {
+                changed.add(path);
+            }
+        }
+        key.reset();
+    }
+
+    private void recheck(TreeSet<Path> changed) {
+        if (changed.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        int count = changed.size();
+        for (Path path : changed) {
+            List<String> before = diagnostics.getOrDefault(path, List.of());
+            List<String> after = new ArrayList<>();
+            if (Files.isRegularFile(path)) {
+                try {
+                    WppCli.check(WppCli.read(path.toString()), after);
+                    diagnostics.put(path, after);
+                } catch (IOException e) {
+                    diagnostics.remove(path); // Deleted before it could be read
+                } catch (RuntimeException e) {
+                    // One bad file must not end the session; its failure is shown as its diagnostic
+                    after.add("Error: " + e);
+                    diagnostics.put(path, after);
+                }
+            } else {
+                diagnostics.remove(path);
+            }
+            printDelta(root.relativize(path), before, after);
+        }
+        changed.clear();
+        out.printf("Checked %d file%s in %.1f ms%n", count, count == 1 ? "" : "s", (System.nanoTime() - start) / 1e6);
+    }
+
+    // Diagnostics are compared as multisets, so a repeated message is matched once per occurrence
+    private void printDelta(Path file, List<String> before, List<String> after) {
+        Map<String, Integer> remaining = new HashMap<>();
+        for (String line : before) {
+            remaining.merge(line, 1, Integer::sum);
+        }
+        for (String line : after) {
+            if (remaining.merge(line, -1, Integer::sum) < 0) {
+                out.println(file + ": + " + line);
+            }
+        }
+        for (String line : before) {
+            if (remaining.getOrDefault(line, 0) > 0) {
+                remaining.merge(line, -1, Integer::sum);
+                out.println(file + ": - " + line);
+            }
+        }
+    }
+
+    private static boolean isSource(Path path) {
+        return path.getFileName().toString().endsWith(".wpp");
+    }
+}
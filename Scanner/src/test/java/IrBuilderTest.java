@@ -0,0 +1,72 @@
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class IrBuilderTest {
+    private static final String BIG = "99999999999";
+
+    // Every statement position an int literal can reach lowering from
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "int x = " + BIG + ";",
+        "int x; x = " + BIG + ";",
+        "int x = 1 + " + BIG + ";",
+        "if (" + BIG + " > 1) { }",
+        "while (" + BIG + " < 1) { }",
+        "for (int i = " + BIG + "; i < 3; i = i + 1) { }",
+        "for (int i = 0; i < " + BIG + "; i = i + 1) { }",
+        "for (int i = 0; i < 3; i = i + " + BIG + ") { }",
+        "int k; for (k = " + BIG + "; k < 3; k = k + 1) { }",
+        "cout << " + BIG + " << endl;",
+        "int a[4]; a[" + BIG + "] = 1;",
+        "int a[4]; a[0] = " + BIG + ";",
+        "if (1 > 0) { cout << " + BIG + " << endl; }",
+    })
+    void analyzerRejectsOversizedIntLiteral(String statement) {
+        SyntaxAnalyzer analyzer = analyzer("int main() {\n    " + statement + "\n    return 0;\n}\n");
+        List<String> diagnostics = analyzer.analyze();
+        assertTrue(analyzer.hasErrors(), statement);
+        assertTrue(diagnostics.contains("Type Error at Line 2: Integer literal '" + BIG + "' out of range"),
+                diagnostics.toString());
+    }
+
+    @Test
+    void analyzerRejectsOversizedReturnValue() {
+        SyntaxAnalyzer analyzer = analyzer("int f() {\n    return " + BIG + ";\n}\nint main() {\n    return f();\n}\n");
+        analyzer.analyze();
+        assertTrue(analyzer.hasErrors());
+    }
+
+    @Test
+    void largestIntLiteralLowers() {
+        IrProgram program = build("int main() {\n    int x = 2147483647;\n    cout << x << endl;\n    return 0;\n}\n");
+        assertTrue(program.toString().contains("2147483647"), program.toString());
+    }
+
+    @Test
+    void shadowedDeclarationsGetDistinctNames() {
+        String listing = build("int main() {\n    int x = 1;\n"
+                + "    if (x > 0) {\n        int x = 2;\n        cout << x << endl;\n    }\n"
+                + "    if (x > 0) {\n        int x = 3;\n        cout << x << endl;\n    }\n"
+                + "    return x;\n}\n").toString();
+        assertTrue(listing.contains("x = 1"), listing);
+        assertTrue(listing.contains("x.1 = 2"), listing);
+        assertTrue(listing.contains("x.2 = 3"), listing);
+    }
+
+    private static IrProgram build(String text) {
+        List<Token> tokens = WppScannerGUI.scanTokens(text);
+        SyntaxAnalyzer analyzer = new SyntaxAnalyzer(tokens);
+        analyzer.analyze();
+        assertFalse(analyzer.hasErrors());
+        return new IrBuilder(tokens, analyzer.getSymbolTable()).build();
+    }
+
+    private static SyntaxAnalyzer analyzer(String text) {
+        return new SyntaxAnalyzer(WppScannerGUI.scanTokens(text));
+    }
+}
@@ -0,0 +1,67 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class WppCliTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void checkReportsOversizedIntLiteral() throws IOException {
+        Path file = dir.resolve("big.wpp");
+        Files.writeString(file, "int main() {\n    int x = 99999999999;\n    return 0;\n}\n");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        int status = WppCli.run(new String[] {"check", file.toString()},
+                new PrintStream(out, true, StandardCharsets.UTF_8), new PrintStream(err, true, StandardCharsets.UTF_8));
+        assertEquals(1, status);
+        assertTrue(out.toString(StandardCharsets.UTF_8).contains(
+                "Type Error at Line 2: Integer literal '99999999999' out of range"), out.toString(StandardCharsets.UTF_8));
+        assertEquals("", err.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void checkReportsOversizedLiteralInOutput() {
+        List<String> output = new ArrayList<>();
+        int status = WppCli.check("int main() {\n    cout << 99999999999 << endl;\n    return 0;\n}\n", output);
+        assertEquals(1, status);
+        assertEquals(List.of("Type Error at Line 2: Integer literal '99999999999' out of range"), output);
+    }
+
+    @Test
+    void checkAcceptsLargestIntLiteral() {
+        List<String> output = new ArrayList<>();
+        int status = WppCli.check("int main() {\n    int x = 2147483647;\n    cout << x << endl;\n    return 0;\n}\n", output);
+        assertEquals(0, status, output.toString());
+    }
+
+    // Liveness only runs on programs without errors, so the analyzer reports unused variables until then
+    @Test
+    void checkReportsUnusedVariablesAlongsideErrors() {
+        List<String> output = new ArrayList<>();
+        int status = WppCli.check("int main() {\n    int unused;\n    string s = 5;\n    return 0;\n}\n", output);
+        assertEquals(1, status);
+        assertEquals(List.of("Type Error at Line 3: Incompatible type 'int' for expected type 'string'",
+                "Warning at Line 2: Variable 'unused' declared but never used",
+                "Warning at Line 3: Variable 's' declared but never used"), output);
+    }
+
+    @Test
+    void checkReportsUnusedVariablesFromLiveness() {
+        List<String> output = new ArrayList<>();
+        int status = WppCli.check("int main() {\n    int unused;\n    int s = 5;\n    return 0;\n}\n", output);
+        assertEquals(0, status);
+        assertEquals(List.of("Warning at Line 2: Variable 'unused' declared but never used",
+                "Warning at Line 3: Variable 's' is assigned but never used"), output);
+    }
+}
@@ -0,0 +1,96 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+// Runs programs on both backends, which must print the same output and return the same status
+class WppVmTest {
+    private static final String NEGATIVE_ZERO = "double scale(double v, double k) {\n"
+            + "    double r = v * k;\n"
+            + "    if (r > 1.0) {\n"
+            + "        r = scale(r, k);\n"
+            + "    }\n"
+            + "    return r;\n"
+            + "}\n"
+            + "int main() {\n"
+            + "    double z = 0.0;\n"
+            + "    double one = 1.0;\n"
+            + "    double m = z - one;\n"
+            + "    double n = z * m;\n"
+            + "    cout << n << endl;\n"
+            + "    double s = scale(z, m);\n"
+            + "    cout << s << endl;\n"
+            + "    double p = n * m;\n"
+            + "    cout << p << endl;\n"
+            + "    return 0;\n"
+            + "}\n";
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        NEGATIVE_ZERO,
+        "int main() {\n    double x = 2.5;\n    double y = x / 3.0;\n    cout << y << endl;\n"
+                + "    cout << 1234567.0 << endl;\n    cout << 0.0001 << endl;\n    return 7;\n}\n",
+        "int fib(int n) {\n    if (n < 2) {\n        return n;\n    }\n    int a = n - 1;\n    int b = n - 2;\n"
+                + "    return fib(a) + fib(b);\n}\n"
+                + "int main() {\n    int i = 0;\n    while (i < 10) {\n        int f = fib(i);\n        cout << f << \" \";\n"
+                + "        i = i + 1;\n    }\n    cout << endl;\n    return 0;\n}\n",
+    })
+    void backendsAgree(String text) throws Exception {
+        IrProgram program = compile(text);
+        StringWriter vmOutput = new StringWriter();
+        int vmStatus = new WppVm(program, vmOutput).run();
+        StringWriter jvmOutput = new StringWriter();
+        int jvmStatus = new JvmBackend(program, jvmOutput).run();
+        assertEquals(vmOutput.toString(), jvmOutput.toString());
+        assertEquals(vmStatus, jvmStatus);
+    }
+
+    @Test
+    void negativeZeroKeepsItsSign() {
+        StringWriter output = new StringWriter();
+        new WppVm(compile(NEGATIVE_ZERO), output).run();
+        assertEquals("-0\n-0\n0\n", output.toString());
+        assertEquals("-0", WppVm.formatDouble(-0.0));
+        assertEquals("0", WppVm.formatDouble(0.0));
+    }
+
+    // The recursion has no loops, so only the check on calls can see the stop request
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.SECONDS, threadMode = Timeout.ThreadMode.SEPARATE_THREAD)
+    void stopsRecursionWithoutLoops() throws Exception {
+        WppVm vm = new WppVm(compile("int spin(int n) {\n    if (n > 0) {\n        int m = n - 1;\n"
+                + "        spin(m);\n        spin(m);\n    }\n    return 0;\n}\n"
+                + "int main() {\n    return spin(60);\n}\n"), Writer.nullWriter());
+        Thread stopper = new Thread(() -> {
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                return;
+            }
+            vm.stop();
+        });
+        stopper.start();
+        WppVm.RuntimeError error = assertThrows(WppVm.RuntimeError.class, vm::run);
+        assertTrue(error.getMessage().endsWith("Stopped"), error.getMessage());
+        stopper.join();
+    }
+
+    private static IrProgram compile(String text) {
+        List<Token> tokens = WppScannerGUI.scanTokens(text);
+        SyntaxAnalyzer analyzer = new SyntaxAnalyzer(tokens);
+        List<String> diagnostics = analyzer.analyze();
+        assertFalse(analyzer.hasErrors(), diagnostics.toString());
+        IrProgram program = new IrBuilder(tokens, analyzer.getSymbolTable()).build();
+        IrOptimizer.optimize(program);
+        return program;
+    }
+}
@@ -0,0 +1,47 @@
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+class WppWatcherTest {
+    @TempDir
+    Path dir;
+
+    // An unterminated parameter list at the end of a file makes the analyzer throw; the session must outlive it
+    @Test
+    @Timeout(value = 30, unit = TimeUnit.SECONDS)
+    void keepsWatchingAfterAFileFailsToCheck() throws Exception {
+        Files.writeString(dir.resolve("a.wpp"), "int main(");
+        Files.writeString(dir.resolve("b.wpp"), "int main() {\n    int unused;\n    return 0;\n}\n");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(bytes, true, StandardCharsets.UTF_8);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread watcher = new Thread(() -> {
+            try {
+                new WppWatcher(dir, out).run();
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        });
+        watcher.start();
+        while (watcher.isAlive() && !bytes.toString(StandardCharsets.UTF_8).contains("Watching")) {
+            Thread.sleep(10);
+        }
+        watcher.interrupt();
+        watcher.join();
+        assertNull(failure.get());
+        String output = bytes.toString(StandardCharsets.UTF_8);
+        assertTrue(output.contains("a.wpp: + "), output);
+        assertTrue(output.contains("b.wpp: + Warning at Line 2: Variable 'unused' declared but never used"), output);
+        assertTrue(output.contains("Watching " + dir.toAbsolutePath().normalize() + " (2 files)"), output);
+    }
+}
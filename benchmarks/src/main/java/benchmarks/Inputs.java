@@ -0,0 +1,27 @@
+package benchmarks;
+
+// Benchmark inputs: a valid Wpp program of a given number of functions from the compiler's generator, with a
+// fixed seed so every run measures the same source
+final class Inputs {
+    private static final long SEED = 42;
+
+    private Inputs() {
+    }
+
+    static int functionCount(String size) {
+        switch (size) {
+            case "small":
+                return 10;
+            case "medium":
+                return 1_000;
+            case "huge":
+                return 10_000;
+            default:
+                throw new IllegalArgumentException("Unknown input size: " + size);
+        }
+    }
+
+    static String program(String size) throws Throwable {
+        return Wpp.generate(SEED, functionCount(size));
+    }
+}
@@ -0,0 +1,96 @@
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.swing.table.DefaultTableModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+// The front end's phases, each over the same generated program: splitting lines into lexemes, classifying the
+// lexemes, the whole lexical pass (comment stripping, splitting and classification), semantic analysis and
+// filling the tables
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class ScannerBenchmark {
+    @Param({ "small", "medium", "huge" })
+    public String size;
+
+    private String source;
+    private List<String> lines; // Comment-free lines as the lexer hands them to tokenize
+    private List<List<String>> lexemes; // Each line's lexemes as the lexer hands them to classify
+    private List<Integer> lineNumbers;
+    private List<?> tokens;
+    private List<?> symbols;
+
+    @Setup
+    public void setUp() throws Throwable {
+        source = Inputs.program(size);
+        lines = new ArrayList<>();
+        lexemes = new ArrayList<>();
+        lineNumbers = new ArrayList<>();
+        boolean[] inBlockComment = { false };
+        String[] sourceLines = source.split("\n");
+        for (int k = 0; k < sourceLines.length; k++) {
+            String code = Wpp.stripComments(sourceLines[k], inBlockComment);
+            if (!code.isEmpty()) {
+                lines.add(code);
+                lexemes.add(Wpp.tokenize(code));
+                lineNumbers.add(k + 1);
+            }
+        }
+        tokens = Wpp.scanTokens(source);
+        Object analyzer = Wpp.newAnalyzer(tokens);
+        Wpp.analyze(analyzer);
+        symbols = Wpp.symbolTable(analyzer);
+    }
+
+    @Benchmark
+    public void tokenize(Blackhole blackhole) throws Throwable {
+        for (String line : lines) {
+            blackhole.consume(Wpp.tokenize(line));
+        }
+    }
+
+    @Benchmark
+    public List<?> classify() throws Throwable {
+        List<Object> classified = new ArrayList<>();
+        for (int k = 0; k < lexemes.size(); k++) {
+            Wpp.classify(lexemes.get(k), lineNumbers.get(k), classified);
+        }
+        return classified;
+    }
+
+    @Benchmark
+    public List<?> scanTokens() throws Throwable {
+        return Wpp.scanTokens(source);
+    }
+
+    @Benchmark
+    public List<?> analyze() throws Throwable {
+        return Wpp.analyze(Wpp.newAnalyzer(tokens));
+    }
+
+    @Benchmark
+    public void populateTables(Blackhole blackhole) throws Throwable {
+        DefaultTableModel tokensModel = new DefaultTableModel(Wpp.TOKEN_COLUMNS, 0);
+        DefaultTableModel symbolModel = new DefaultTableModel(Wpp.SYMBOL_COLUMNS, 0);
+        Wpp.populateTables(tokensModel, symbolModel, tokens, symbols);
+        blackhole.consume(tokensModel);
+        blackhole.consume(symbolModel);
+    }
+}
@@ -0,0 +1,120 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.List;
+import javax.swing.table.DefaultTableModel;
+
+// The compiler's classes live in the unnamed package, which named packages cannot import and JMH does not
+// accept benchmarks in, so they are reached through method handles resolved once
+final class Wpp {
+    private static final MethodHandle SCAN_TOKENS;
+    private static final MethodHandle STRIP_COMMENTS;
+    private static final MethodHandle TOKENIZE;
+    private static final MethodHandle CLASSIFY;
+    private static final MethodHandle NEW_ANALYZER;
+    private static final MethodHandle ANALYZE;
+    private static final MethodHandle SYMBOL_TABLE;
+    private static final MethodHandle POPULATE_TABLES;
+    private static final MethodHandle NEW_GENERATOR;
+    private static final MethodHandle SET_SEED;
+    private static final MethodHandle SET_FUNCTIONS;
+    private static final MethodHandle GENERATE;
+    static final Object[] TOKEN_COLUMNS;
+    static final Object[] SYMBOL_COLUMNS;
+
+    static {
+        try {
+            Class<?> gui = Class.forName("WppScannerGUI");
+            Class<?> analyzer = Class.forName("SyntaxAnalyzer");
+            SCAN_TOKENS = method(gui, "scanTokens", CharSequence.class);
+            STRIP_COMMENTS = method(gui, "stripComments", String.class, boolean[].class);
+            TOKENIZE = method(gui, "tokenize", String.class);
+            CLASSIFY = method(gui, "classify", List.class, int.class, List.class);
+            Constructor<?> constructor = analyzer.getDeclaredConstructor(List.class);
+            constructor.setAccessible(true);
+            NEW_ANALYZER = MethodHandles.lookup().unreflectConstructor(constructor);
+            ANALYZE = method(analyzer, "analyze");
+            SYMBOL_TABLE = method(analyzer, "getSymbolTable");
+            POPULATE_TABLES = method(gui, "populateTables", DefaultTableModel.class, DefaultTableModel.class,
+                    List.class, List.class);
+            Class<?> generator = Class.forName("WppGenerator");
+            Constructor<?> generatorConstructor = generator.getDeclaredConstructor();
+            generatorConstructor.setAccessible(true);
+            NEW_GENERATOR = MethodHandles.lookup().unreflectConstructor(generatorConstructor);
+            SET_SEED = setter(generator, "seed");
+            SET_FUNCTIONS = setter(generator, "functions");
+            GENERATE = method(generator, "generate");
+            TOKEN_COLUMNS = (Object[]) field(gui, "TOKEN_COLUMNS");
+            SYMBOL_COLUMNS = (Object[]) field(gui, "SYMBOL_COLUMNS");
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private Wpp() {
+    }
+
+    private static MethodHandle method(Class<?> owner, String name, Class<?>... parameters)
+            throws ReflectiveOperationException {
+        Method method = owner.getDeclaredMethod(name, parameters);
+        method.setAccessible(true);
+        return MethodHandles.lookup().unreflect(method);
+    }
+
+    private static MethodHandle setter(Class<?> owner, String name) throws ReflectiveOperationException {
+        java.lang.reflect.Field field = owner.getDeclaredField(name);
+        field.setAccessible(true);
+        return MethodHandles.lookup().unreflectSetter(field);
+    }
+
+    private static Object field(Class<?> owner, String name) throws ReflectiveOperationException {
+        java.lang.reflect.Field field = owner.getDeclaredField(name);
+        field.setAccessible(true);
+        return field.get(null);
+    }
+
+    static List<?> scanTokens(CharSequence text) throws Throwable {
+        return (List<?>) SCAN_TOKENS.invoke(text);
+    }
+
+    static String stripComments(String line, boolean[] inBlockComment) throws Throwable {
+        return (String) STRIP_COMMENTS.invoke(line, inBlockComment);
+    }
+
+    static List<String> tokenize(String line) throws Throwable {
+        @SuppressWarnings("unchecked")
+        List<String> parts = (List<String>) TOKENIZE.invoke(line);
+        return parts;
+    }
+
+    static void classify(List<String> parts, int lineNum, List<Object> tokens) throws Throwable {
+        CLASSIFY.invoke(parts, lineNum, tokens);
+    }
+
+    static Object newAnalyzer(List<?> tokens) throws Throwable {
+        return NEW_ANALYZER.invoke(tokens);
+    }
+
+    static List<?> analyze(Object analyzer) throws Throwable {
+        return (List<?>) ANALYZE.invoke(analyzer);
+    }
+
+    static List<?> symbolTable(Object analyzer) throws Throwable {
+        return (List<?>) SYMBOL_TABLE.invoke(analyzer);
+    }
+
+    static void populateTables(DefaultTableModel tokensModel, DefaultTableModel symbolModel, List<?> tokens,
+            List<?> symbols) throws Throwable {
+        POPULATE_TABLES.invoke(tokensModel, symbolModel, tokens, symbols);
+    }
+
+    static String generate(long seed, int functions) throws Throwable {
+        Object generator = NEW_GENERATOR.invoke();
+        SET_SEED.invoke(generator, seed);
+        SET_FUNCTIONS.invoke(generator, functions);
+        return (String) GENERATE.invoke(generator);
+    }
+}